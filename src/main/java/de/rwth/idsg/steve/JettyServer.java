@@ -104,9 +104,12 @@ public class JettyServer {
         // Extra options
         server.setDumpAfterStart(false);
         server.setDumpBeforeStop(false);
-        server.setStopAtShutdown(true);
         server.setStopTimeout(STOP_TIMEOUT);
 
+        // Instead of server.setStopAtShutdown(true), since the WebSocket connections must be drained before
+        // the server stops
+        Runtime.getRuntime().addShutdownHook(new Thread(this::stopAtShutdown, "SteVe-Shutdown"));
+
         if (CONFIG.getJetty().isHttpEnabled()) {
             server.addConnector(httpConnector(httpConfig));
         }
@@ -183,10 +186,21 @@ public class JettyServer {
 
     public void stop() throws Exception {
         if (server != null) {
+            if (server.isStarted()) {
+                steveAppContext.drainWebSockets();
+            }
             server.stop();
         }
     }
 
+    private void stopAtShutdown() {
+        try {
+            stop();
+        } catch (Exception e) {
+            log.error("Failed to stop the server", e);
+        }
+    }
+
     public boolean isStarted() {
         return server != null && server.isStarted();
     }
@@ -19,6 +19,7 @@
 package de.rwth.idsg.steve;
 
 import com.sun.net.httpserver.HttpHandler;
+import de.rwth.idsg.steve.ocpp.ws.WebSocketDrainer;
 import org.apache.cxf.transport.servlet.CXFServlet;
 import org.apache.tomcat.InstanceManager;
 import org.apache.tomcat.SimpleInstanceManager;
@@ -78,6 +79,16 @@ public class SteveAppContext {
         );
     }
 
+    /**
+     * Closes the WebSocket connections gradually. Otherwise, they would be dropped all at once when the server stops,
+     * and all stations would reconnect at the same moment.
+     */
+    public void drainWebSockets() {
+        if (springContext.isActive()) {
+            springContext.getBean(WebSocketDrainer.class).drainAndWait();
+        }
+    }
+
     /**
      * Otherwise, defaults come from {@link WebSocketConstants}
      */
@@ -120,6 +131,8 @@ public class SteveAppContext {
         ctx.setInitParameter("org.eclipse.jetty.servlet.Default.dirAllowed", "false");
 
         ServletHolder web = new ServletHolder("spring-dispatcher", new DispatcherServlet(springContext));
+        // for controllers that answer asynchronously (e.g. forwarded calls of a cluster)
+        web.setAsyncSupported(true);
         ServletHolder cxf = new ServletHolder("cxf", new CXFServlet());
      //   ServletHolder api = new ServletHolder("api-dispatcher", new ApiHandler());
 
@@ -130,12 +143,11 @@ public class SteveAppContext {
 
         if (CONFIG.getProfile().isProd()) {
             // If PROD, add security filter
-            ctx.addFilter(
-                // The bean name is not arbitrary, but is as expected by Spring
-                new FilterHolder(new DelegatingFilterProxy(AbstractSecurityWebApplicationInitializer.DEFAULT_FILTER_NAME)),
-                CONFIG.getSpringMapping() + "*",
-                EnumSet.allOf(DispatcherType.class)
-            );
+            // The bean name is not arbitrary, but is as expected by Spring
+            FilterHolder security = new FilterHolder(
+                new DelegatingFilterProxy(AbstractSecurityWebApplicationInitializer.DEFAULT_FILTER_NAME));
+            security.setAsyncSupported(true);
+            ctx.addFilter(security, CONFIG.getSpringMapping() + "*", EnumSet.allOf(DispatcherType.class));
         }
 
         initJSP(ctx);
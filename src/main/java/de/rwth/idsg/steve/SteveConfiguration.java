@@ -18,6 +18,7 @@
  */
 package de.rwth.idsg.steve;
 
+import de.rwth.idsg.steve.ocpp.ws.custom.WsDispatchMode;
 import de.rwth.idsg.steve.ocpp.ws.custom.WsSessionSelectStrategy;
 import de.rwth.idsg.steve.ocpp.ws.custom.WsSessionSelectStrategyEnum;
 import de.rwth.idsg.steve.utils.PropertiesFileLoader;
@@ -26,6 +27,12 @@ import lombok.Getter;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 /**
  * @author Sevket Goekay <sevketgokay@gmail.com>
  * @since 19.08.2014
@@ -106,6 +113,57 @@ public enum SteveConfiguration {
                    .autoRegisterUnknownStations(p.getOptionalBoolean("auto.register.unknown.stations"))
                    .wsSessionSelectStrategy(
                            WsSessionSelectStrategyEnum.fromName(p.getString("ws.session.select.strategy")))
+                   .wsDispatchMode(
+                           WsDispatchMode.fromName(useFallbackIfNotSet(p.getOptionalString("ws.dispatch.mode"), "INLINE")))
+                   .wsDispatchThreads(useFallbackIfNotSet(p.getOptionalInt("ws.dispatch.threads"), 10))
+                   .wsDispatchQueueLimit(useFallbackIfNotSet(p.getOptionalInt("ws.dispatch.queue.limit"), 100))
+                   .wsCallTimeoutSeconds(useFallbackIfNotSet(p.getOptionalInt("ws.call.timeout"), 60))
+                   .wsCallTimeoutOverrides(parseIntMap(p.getStringList("ws.call.timeout.overrides")))
+                   .wsCallMaxPendingPerSession(useFallbackIfNotSet(p.getOptionalInt("ws.call.max.pending"), 100))
+                   .wsRateLimit(useFallbackIfNotSet(p.getOptionalInt("ws.rate.limit"), 0))
+                   .wsRateLimitBurst(useFallbackIfNotSet(p.getOptionalInt("ws.rate.limit.burst"), 50))
+                   .wsMaxInFlightCalls(useFallbackIfNotSet(p.getOptionalInt("ws.max.inflight.calls"), 0))
+                   .wsOutgoingQueueLimit(useFallbackIfNotSet(p.getOptionalInt("ws.outgoing.queue.limit"), 50))
+                   .wsOutgoingOfflineHoldSeconds(useFallbackIfNotSet(p.getOptionalInt("ws.outgoing.offline.hold"), 0))
+                   .wsReplayCacheSize(useFallbackIfNotSet(p.getOptionalInt("ws.replay.cache.size"), 20))
+                   .wsReplayCacheMaxAgeSeconds(useFallbackIfNotSet(p.getOptionalInt("ws.replay.cache.max.age"), 60))
+                   .wsHandshakeRateLimitStation(
+                           useFallbackIfNotSet(p.getOptionalInt("ws.handshake.rate.limit.station"), 6))
+                   .wsHandshakeRateLimitAddress(
+                           useFallbackIfNotSet(p.getOptionalInt("ws.handshake.rate.limit.address"), 600))
+                   .wsHandshakeTrustedProxies(Set.copyOf(p.getStringList("ws.handshake.trusted.proxies")))
+                   .wsPingIntervalSeconds(useFallbackIfNotSet(p.getOptionalInt("ws.ping.interval"), 900))
+                   .wsPingMaxMissed(useFallbackIfNotSet(p.getOptionalInt("ws.ping.max.missed"), 3))
+                   .wsDrainWindowSeconds(useFallbackIfNotSet(p.getOptionalInt("ws.drain.window"), 30))
+                   .wsDrainCallWaitSeconds(useFallbackIfNotSet(p.getOptionalInt("ws.drain.call.wait"), 10))
+                   .wsClusterNodeUrl(p.getOptionalString("ws.cluster.node.url"))
+                   .wsClusterHeartbeatIntervalSeconds(
+                           useFallbackIfNotSet(p.getOptionalInt("ws.cluster.heartbeat.interval"), 10))
+                   .trafficLogMaxPayload(useFallbackIfNotSet(p.getOptionalInt("traffic.log.max.payload"), 4096))
+                   .trafficLogSampleRate(useFallbackIfNotSet(p.getOptionalInt("traffic.log.sample.rate"), 100))
+                   .trafficLogActionSampleRates(parseIntMap(p.getStringList("traffic.log.sample.actions")))
+                   .trafficLogStationSampleRates(parseIntMap(p.getStringList("traffic.log.sample.stations")))
+                   .heartbeatFlushIntervalSeconds(useFallbackIfNotSet(p.getOptionalInt("heartbeat.flush.interval"), 30))
+                   .chargeBoxCacheTtlSeconds(useFallbackIfNotSet(p.getOptionalInt("charge.box.cache.ttl"), 300))
+                   .chargeBoxUnknownCacheTtlSeconds(
+                           useFallbackIfNotSet(p.getOptionalInt("charge.box.unknown.cache.ttl"), 60))
+                   .connectorPkCacheSize(useFallbackIfNotSet(p.getOptionalInt("connector.pk.cache.size"), 100_000))
+                   .connectorPkCacheTtlSeconds(useFallbackIfNotSet(p.getOptionalInt("connector.pk.cache.ttl"), 3600))
+                   .taskThreadsSoap(useFallbackIfNotSet(p.getOptionalInt("task.threads.soap"), 20))
+                   .taskThreadsJson(useFallbackIfNotSet(p.getOptionalInt("task.threads.json"), 10))
+                   .taskStationDeadlineSeconds(useFallbackIfNotSet(p.getOptionalInt("task.station.deadline"), 60))
+                   .soapClientCacheSize(useFallbackIfNotSet(p.getOptionalInt("soap.client.cache.size"), 500))
+                   .soapClientCacheExpiryMinutes(useFallbackIfNotSet(p.getOptionalInt("soap.client.cache.expiry"), 60))
+                   .soapClientMaxInFlight(useFallbackIfNotSet(p.getOptionalInt("soap.client.max.inflight"), 1000))
+                   .soapClientMaxConnections(useFallbackIfNotSet(p.getOptionalInt("soap.client.max.connections"), 5000))
+                   .soapClientKeepAliveSeconds(useFallbackIfNotSet(p.getOptionalInt("soap.client.keepalive"), 60))
+                   .soapClientStatsSize(useFallbackIfNotSet(p.getOptionalInt("soap.client.stats.size"), 1000))
+                   .meterValuesFlushIntervalMillis(
+                           useFallbackIfNotSet(p.getOptionalInt("meter.values.flush.interval"), 0))
+                   .meterValuesFlushSize(useFallbackIfNotSet(p.getOptionalInt("meter.values.flush.size"), 500))
+                   .meterValuesQueueLimit(useFallbackIfNotSet(p.getOptionalInt("meter.values.queue.limit"), 50_000))
+                   .ocppTagReconcileIntervalMinutes(
+                           useFallbackIfNotSet(p.getOptionalInt("ocpp.tag.reconcile.interval"), 60))
                    .build();
 
         validate();
@@ -131,6 +189,29 @@ public enum SteveConfiguration {
         }
     }
 
+    private static int useFallbackIfNotSet(Integer value, int fallback) {
+        return (value == null) ? fallback : value;
+    }
+
+    /**
+     * Input format is a list of "key:number" pairs, e.g. "GetDiagnostics:300, UpdateFirmware:300"
+     */
+    private static Map<String, Integer> parseIntMap(List<String> list) {
+        if (list.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        Map<String, Integer> map = new HashMap<>();
+        for (String item : list) {
+            String[] pair = item.split(":");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("The value '" + item + "' is not in the form key:number");
+            }
+            map.put(pair[0].trim(), Integer.parseInt(pair[1].trim()));
+        }
+        return Collections.unmodifiableMap(map);
+    }
+
     private String sanitizeContextPath(String s) {
         if (s == null || "/".equals(s)) {
             return "";
@@ -148,6 +229,10 @@ public enum SteveConfiguration {
             throw new IllegalArgumentException(
                     "HTTP and HTTPS are both disabled. Well, how do you want to access the server, then?");
         }
+
+        if (ocpp.wsRateLimit > 0 && ocpp.wsRateLimitBurst <= 0) {
+            throw new IllegalArgumentException("ws.rate.limit.burst must be greater than 0, if ws.rate.limit is set");
+        }
     }
 
     // -------------------------------------------------------------------------
@@ -201,6 +286,88 @@ public enum SteveConfiguration {
     public static class Ocpp {
         private final boolean autoRegisterUnknownStations;
         private final WsSessionSelectStrategy wsSessionSelectStrategy;
+
+        // Threading of incoming WebSocket frames
+        private final WsDispatchMode wsDispatchMode;
+        private final int wsDispatchThreads;
+        private final int wsDispatchQueueLimit;
+
+        // Outgoing calls that are waiting for a response
+        private final int wsCallTimeoutSeconds;
+        private final Map<String, Integer> wsCallTimeoutOverrides;
+        private final int wsCallMaxPendingPerSession;
+
+        // Admission control of incoming calls
+        private final int wsRateLimit;
+        private final int wsRateLimitBurst;
+        private final int wsMaxInFlightCalls;
+
+        // Queue of outgoing calls per station
+        private final int wsOutgoingQueueLimit;
+        private final int wsOutgoingOfflineHoldSeconds;
+
+        // Number of responses per station to answer retransmitted calls with (0 = disabled), and for how long
+        private final int wsReplayCacheSize;
+        private final int wsReplayCacheMaxAgeSeconds;
+
+        // Connection attempts per minute (0 = no limit)
+        private final int wsHandshakeRateLimitStation;
+        private final int wsHandshakeRateLimitAddress;
+        private final Set<String> wsHandshakeTrustedProxies;
+
+        // WebSocket pings for keep-alive and detection of dead connections
+        private final int wsPingIntervalSeconds;
+        private final int wsPingMaxMissed;
+
+        // Draining of WebSocket connections at shutdown (or when triggered)
+        private final int wsDrainWindowSeconds;
+        private final int wsDrainCallWaitSeconds;
+
+        // Base URL of this node for the other nodes of a cluster (null = single node)
+        private final String wsClusterNodeUrl;
+        private final int wsClusterHeartbeatIntervalSeconds;
+
+        // Logging of OCPP messages (sample rates in percent)
+        private final int trafficLogMaxPayload;
+        private final int trafficLogSampleRate;
+        private final Map<String, Integer> trafficLogActionSampleRates;
+        private final Map<String, Integer> trafficLogStationSampleRates;
+
+        // Write-behind of heartbeat timestamps (0 = write each one immediately)
+        private final int heartbeatFlushIntervalSeconds;
+
+        // In-memory cache of charge box metadata (0 = disabled)
+        private final int chargeBoxCacheTtlSeconds;
+        private final int chargeBoxUnknownCacheTtlSeconds;
+
+        // In-memory cache of connector primary keys (size or TTL 0 = disabled)
+        private final int connectorPkCacheSize;
+        private final int connectorPkCacheTtlSeconds;
+
+        // Parallel sending of the requests of a task to its stations
+        private final int taskThreadsSoap;
+        private final int taskThreadsJson;
+        private final int taskStationDeadlineSeconds;
+
+        // Outgoing SOAP calls
+        private final int soapClientCacheSize;
+        private final int soapClientCacheExpiryMinutes;
+        private final int soapClientMaxInFlight;
+        private final int soapClientMaxConnections;
+        private final int soapClientKeepAliveSeconds;
+        private final int soapClientStatsSize;
+
+        // Batched writing of meter values (0 = written before the station is acknowledged)
+        private final int meterValuesFlushIntervalMillis;
+        private final int meterValuesFlushSize;
+        private final int meterValuesQueueLimit;
+
+        // Reconciliation of the active transaction counts of idTags (0 = disabled)
+        private final int ocppTagReconcileIntervalMinutes;
+
+        public int getWsCallTimeoutSeconds(String action) {
+            return wsCallTimeoutOverrides.getOrDefault(action, wsCallTimeoutSeconds);
+        }
     }
 
 }
@@ -30,9 +30,10 @@ import de.rwth.idsg.steve.ocpp.task.ResetTask;
 import de.rwth.idsg.steve.ocpp.task.UnlockConnectorTask;
 import de.rwth.idsg.steve.ocpp.task.UpdateFirmwareTask;
 import de.rwth.idsg.steve.ocpp.ws.ChargePointServiceInvoker;
+import de.rwth.idsg.steve.ocpp.ws.OutgoingCallQueue;
+import de.rwth.idsg.steve.ocpp.ws.cluster.ClusterRouter;
 import de.rwth.idsg.steve.ocpp.ws.ocpp12.Ocpp12TypeStore;
 import de.rwth.idsg.steve.ocpp.ws.ocpp12.Ocpp12WebSocketEndpoint;
-import de.rwth.idsg.steve.ocpp.ws.pipeline.OutgoingCallPipeline;
 import de.rwth.idsg.steve.repository.dto.ChargePointSelect;
 import ocpp.cp._2010._08.ChargePointService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -49,8 +50,9 @@ public class ChargePointService12_InvokerImpl implements ChargePointService12_In
     private final ClientProviderWithCache<ChargePointService> soapHelper;
 
     @Autowired
-    public ChargePointService12_InvokerImpl(OutgoingCallPipeline pipeline, Ocpp12WebSocketEndpoint endpoint, ClientProvider clientProvider) {
-        this.wsHelper = new ChargePointServiceInvoker(pipeline, endpoint, Ocpp12TypeStore.INSTANCE);
+    public ChargePointService12_InvokerImpl(OutgoingCallQueue queue, Ocpp12WebSocketEndpoint endpoint,
+                                            ClientProvider clientProvider, ClusterRouter clusterRouter) {
+        this.wsHelper = new ChargePointServiceInvoker(queue, endpoint, Ocpp12TypeStore.INSTANCE, clusterRouter);
         this.soapHelper = new ClientProviderWithCache<>(clientProvider);
     }
 
@@ -36,9 +36,10 @@ import de.rwth.idsg.steve.ocpp.task.SendLocalListTask;
 import de.rwth.idsg.steve.ocpp.task.UnlockConnectorTask;
 import de.rwth.idsg.steve.ocpp.task.UpdateFirmwareTask;
 import de.rwth.idsg.steve.ocpp.ws.ChargePointServiceInvoker;
+import de.rwth.idsg.steve.ocpp.ws.OutgoingCallQueue;
+import de.rwth.idsg.steve.ocpp.ws.cluster.ClusterRouter;
 import de.rwth.idsg.steve.ocpp.ws.ocpp15.Ocpp15TypeStore;
 import de.rwth.idsg.steve.ocpp.ws.ocpp15.Ocpp15WebSocketEndpoint;
-import de.rwth.idsg.steve.ocpp.ws.pipeline.OutgoingCallPipeline;
 import de.rwth.idsg.steve.repository.dto.ChargePointSelect;
 import ocpp.cp._2012._06.ChargePointService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -55,8 +56,9 @@ public class ChargePointService15_InvokerImpl implements ChargePointService15_In
     private final ClientProviderWithCache<ChargePointService> soapHelper;
 
     @Autowired
-    public ChargePointService15_InvokerImpl(OutgoingCallPipeline pipeline, Ocpp15WebSocketEndpoint endpoint, ClientProvider clientProvider) {
-        this.wsHelper = new ChargePointServiceInvoker(pipeline, endpoint, Ocpp15TypeStore.INSTANCE);
+    public ChargePointService15_InvokerImpl(OutgoingCallQueue queue, Ocpp15WebSocketEndpoint endpoint,
+                                            ClientProvider clientProvider, ClusterRouter clusterRouter) {
+        this.wsHelper = new ChargePointServiceInvoker(queue, endpoint, Ocpp15TypeStore.INSTANCE, clusterRouter);
         this.soapHelper = new ClientProviderWithCache<>(clientProvider);
     }
 
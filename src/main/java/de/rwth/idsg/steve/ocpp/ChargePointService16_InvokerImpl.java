@@ -22,9 +22,10 @@ import de.rwth.idsg.steve.ocpp.soap.ClientProvider;
 import de.rwth.idsg.steve.ocpp.soap.ClientProviderWithCache;
 import de.rwth.idsg.steve.ocpp.task.*;
 import de.rwth.idsg.steve.ocpp.ws.ChargePointServiceInvoker;
+import de.rwth.idsg.steve.ocpp.ws.OutgoingCallQueue;
+import de.rwth.idsg.steve.ocpp.ws.cluster.ClusterRouter;
 import de.rwth.idsg.steve.ocpp.ws.ocpp16.Ocpp16TypeStore;
 import de.rwth.idsg.steve.ocpp.ws.ocpp16.Ocpp16WebSocketEndpoint;
-import de.rwth.idsg.steve.ocpp.ws.pipeline.OutgoingCallPipeline;
 import de.rwth.idsg.steve.repository.dto.ChargePointSelect;
 import ocpp.cp._2015._10.ChargePointService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -41,8 +42,9 @@ public class ChargePointService16_InvokerImpl implements ChargePointService16_In
     private final ClientProviderWithCache<ChargePointService> soapHelper;
 
     @Autowired
-    public ChargePointService16_InvokerImpl(OutgoingCallPipeline pipeline, Ocpp16WebSocketEndpoint endpoint, ClientProvider clientProvider) {
-        this.wsHelper = new ChargePointServiceInvoker(pipeline, endpoint, Ocpp16TypeStore.INSTANCE);
+    public ChargePointService16_InvokerImpl(OutgoingCallQueue queue, Ocpp16WebSocketEndpoint endpoint,
+                                            ClientProvider clientProvider, ClusterRouter clusterRouter) {
+        this.wsHelper = new ChargePointServiceInvoker(queue, endpoint, Ocpp16TypeStore.INSTANCE, clusterRouter);
         this.soapHelper = new ClientProviderWithCache<>(clientProvider);
     }
 
@@ -66,6 +66,10 @@ public abstract class CommunicationTask<S extends ChargePointSelection, RESPONSE
     @Getter(AccessLevel.NONE) // disable getter generation
     private final Object lockObject = new Object();
 
+    // Does not depend on the station. Therefore, built once and shared by the calls to all stations of the task.
+    @Getter(AccessLevel.NONE)
+    private volatile RequestType request;
+
     // The default initial capacity is 10. We probably won't need that much.
     private final ArrayList<OcppCallback<RESPONSE>> callbackList = new ArrayList<>(2);
 
@@ -145,6 +149,20 @@ public abstract class CommunicationTask<S extends ChargePointSelection, RESPONSE
     }
 
     public RequestType getRequest() {
+        RequestType result = request;
+        if (result == null) {
+            synchronized (lockObject) {
+                result = request;
+                if (result == null) {
+                    result = createRequest();
+                    request = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    private RequestType createRequest() {
         switch (ocppVersion) {
             case V_12: return getOcpp12Request();
             case V_15: return getOcpp15Request();
@@ -0,0 +1,295 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.ocpp;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import lombok.RequiredArgsConstructor;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static de.rwth.idsg.steve.SteveConfiguration.CONFIG;
+
+/**
+ * Decides which OCPP messages are written to the log and how much of them.
+ *
+ * The sampling rate (in percent) is looked up in this order: station, action, default. For charging stations, for
+ * which full logging is enabled at runtime (e.g. while debugging an issue), every message is logged in full.
+ *
+ * The decision is made once per exchange, i.e. for a request and its response together: it is made for the request
+ * (where the action is known) and remembered by the message id (OCPP-J) or the exchange id (SOAP) until the response
+ * is logged. Otherwise, the responses of sampled actions would be logged at the default rate, and the log would
+ * contain the halves of exchanges.
+ *
+ * @author agent <agent@local>
+ * @since 17.10.2026
+ */
+public final class TrafficLogPolicy {
+
+    public static final TrafficLogPolicy INSTANCE = new TrafficLogPolicy(
+            CONFIG.getOcpp().getTrafficLogMaxPayload(),
+            CONFIG.getOcpp().getTrafficLogSampleRate(),
+            CONFIG.getOcpp().getTrafficLogActionSampleRates(),
+            CONFIG.getOcpp().getTrafficLogStationSampleRates()
+    );
+
+    /**
+     * The message id and action are at the beginning of a message. No need to look further than this.
+     */
+    private static final int ACTION_SEARCH_LIMIT = 256;
+
+    /**
+     * Responses that do not arrive within this time are not expected anymore
+     */
+    private static final int MAX_EXCHANGE_MINUTES = 10;
+    private static final int MAX_OPEN_EXCHANGES = 100_000;
+
+    private static final char CALL = '2';
+    private static final char CALL_ERROR = '4';
+
+    private final int maxPayloadLength;
+    private final int defaultSampleRate;
+    private final Map<String, Integer> actionSampleRates;
+    private final Map<String, Integer> stationSampleRates;
+
+    // false, if every message is logged anyway. then, there is no need to remember decisions.
+    private final boolean sampling;
+
+    private final Set<String> fullLoggingStations = ConcurrentHashMap.newKeySet();
+
+    // the decisions of the exchanges, whose response is not logged yet
+    private final Cache<String, Boolean> exchangeDecisions;
+
+    TrafficLogPolicy(int maxPayloadLength, int defaultSampleRate,
+                     Map<String, Integer> actionSampleRates, Map<String, Integer> stationSampleRates) {
+        this.maxPayloadLength = maxPayloadLength;
+        this.defaultSampleRate = defaultSampleRate;
+        this.actionSampleRates = actionSampleRates;
+        this.stationSampleRates = stationSampleRates;
+
+        this.sampling = defaultSampleRate < 100
+                || actionSampleRates.values().stream().anyMatch(rate -> rate < 100)
+                || stationSampleRates.values().stream().anyMatch(rate -> rate < 100);
+
+        this.exchangeDecisions = CacheBuilder.newBuilder()
+                                             .maximumSize(MAX_OPEN_EXCHANGES)
+                                             .expireAfterWrite(MAX_EXCHANGE_MINUTES, TimeUnit.MINUTES)
+                                             .build();
+    }
+
+    /**
+     * For OCPP-J messages. The message type and message id are read from the message.
+     *
+     * @param chargeBoxId can be null, if not known
+     * @param message     the raw JSON message
+     * @param callAction  for a CALLRESULT or CALLERROR, the action of the answered call, if known. Only used if the
+     *                    decision for the call is not remembered (anymore).
+     */
+    public boolean shouldLogMessage(@Nullable String chargeBoxId, String message, @Nullable String callAction) {
+        if (!sampling || isFullLogging(chargeBoxId)) {
+            return true;
+        }
+
+        Frame frame = parseFrame(message);
+        if (frame == null) {
+            return sample(getRate(chargeBoxId, callAction));
+        } else if (frame.messageType == CALL) {
+            return shouldLogRequest(chargeBoxId, frame.messageId, frame.action);
+        } else {
+            return shouldLogResponse(chargeBoxId, frame.messageId, callAction);
+        }
+    }
+
+    /**
+     * Decides for the whole exchange, and remembers the decision for {@link #shouldLogResponse}.
+     *
+     * @param exchangeId the message id of an OCPP-J call, or the exchange id of a SOAP message
+     */
+    public boolean shouldLogRequest(@Nullable String chargeBoxId, @Nullable String exchangeId,
+                                    @Nullable String action) {
+        if (!sampling || isFullLogging(chargeBoxId)) {
+            return true;
+        }
+
+        boolean decision = sample(getRate(chargeBoxId, action));
+        if (exchangeId != null) {
+            exchangeDecisions.put(key(chargeBoxId, exchangeId), decision);
+        }
+        return decision;
+    }
+
+    /**
+     * Uses the decision for the request, if there was one. Otherwise, decides by the action (if known).
+     */
+    public boolean shouldLogResponse(@Nullable String chargeBoxId, @Nullable String exchangeId,
+                                     @Nullable String action) {
+        if (!sampling || isFullLogging(chargeBoxId)) {
+            return true;
+        }
+
+        Boolean decision = (exchangeId == null)
+                ? null
+                : exchangeDecisions.asMap().remove(key(chargeBoxId, exchangeId));
+
+        if (decision != null) {
+            return decision;
+        }
+        return sample(getRate(chargeBoxId, action));
+    }
+
+    /**
+     * @return the message itself, or the beginning of it, if it is too long
+     */
+    public String truncate(String chargeBoxId, String message) {
+        if (maxPayloadLength <= 0 || message == null || message.length() <= maxPayloadLength) {
+            return message;
+        }
+        if (isFullLogging(chargeBoxId)) {
+            return message;
+        }
+        return message.substring(0, maxPayloadLength) + "... [truncated, " + message.length() + " chars in total]";
+    }
+
+    public int getMaxPayloadLength() {
+        return maxPayloadLength;
+    }
+
+    public void setFullLogging(String chargeBoxId, boolean enabled) {
+        if (enabled) {
+            fullLoggingStations.add(chargeBoxId);
+        } else {
+            fullLoggingStations.remove(chargeBoxId);
+        }
+    }
+
+    public boolean isFullLogging(@Nullable String chargeBoxId) {
+        return chargeBoxId != null && fullLoggingStations.contains(chargeBoxId);
+    }
+
+    public Set<String> getFullLoggingStations() {
+        return Collections.unmodifiableSet(fullLoggingStations);
+    }
+
+    /**
+     * Finds the action of a CALL (i.e. [2,"messageId","action",{...}]) without parsing the whole message.
+     *
+     * @return null, if the message is not a CALL or not well-formed
+     */
+    static String extractAction(String message) {
+        Frame frame = parseFrame(message);
+        return (frame == null) ? null : frame.action;
+    }
+
+    /**
+     * Reads the message type, the message id and (for a CALL) the action from the beginning of an OCPP-J message,
+     * without parsing the whole message.
+     *
+     * @return null, if the message is not well-formed
+     */
+    @Nullable
+    static Frame parseFrame(String message) {
+        if (message == null) {
+            return null;
+        }
+
+        int limit = Math.min(message.length(), ACTION_SEARCH_LIMIT);
+        int i = skipWhitespace(message, 0, limit);
+        if (i >= limit || message.charAt(i) != '[') {
+            return null;
+        }
+
+        i = skipWhitespace(message, i + 1, limit);
+        if (i >= limit || message.charAt(i) < CALL || message.charAt(i) > CALL_ERROR) {
+            return null;
+        }
+        char messageType = message.charAt(i);
+
+        // the first two quotes surround the message id, the 3rd and 4th the action (only in a CALL)
+        int quoteCount = 0;
+        int start = -1;
+        String messageId = null;
+        for (i = i + 1; i < limit; i++) {
+            char c = message.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == '"') {
+                quoteCount++;
+                if (quoteCount == 1 || quoteCount == 3) {
+                    start = i + 1;
+                } else if (quoteCount == 2) {
+                    messageId = message.substring(start, i);
+                    if (messageType != CALL) {
+                        return new Frame(messageType, messageId, null);
+                    }
+                } else if (quoteCount == 4) {
+                    return new Frame(messageType, messageId, message.substring(start, i));
+                }
+            }
+        }
+        return null;
+    }
+
+    // -------------------------------------------------------------------------
+    // Private helpers
+    // -------------------------------------------------------------------------
+
+    private int getRate(@Nullable String chargeBoxId, @Nullable String action) {
+        Integer rate = (chargeBoxId == null) ? null : stationSampleRates.get(chargeBoxId);
+        if (rate == null && action != null) {
+            rate = actionSampleRates.get(action);
+        }
+        return (rate == null) ? defaultSampleRate : rate;
+    }
+
+    private static String key(@Nullable String chargeBoxId, String exchangeId) {
+        // message ids are only unique per station
+        return (chargeBoxId == null) ? exchangeId : chargeBoxId + '\n' + exchangeId;
+    }
+
+    private static boolean sample(int ratePercent) {
+        if (ratePercent >= 100) {
+            return true;
+        } else if (ratePercent <= 0) {
+            return false;
+        } else {
+            return ThreadLocalRandom.current().nextInt(100) < ratePercent;
+        }
+    }
+
+    private static int skipWhitespace(String s, int from, int limit) {
+        int i = from;
+        while (i < limit && Character.isWhitespace(s.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    @RequiredArgsConstructor
+    static final class Frame {
+        final char messageType;
+        final String messageId;
+        @Nullable final String action;
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.ocpp.soap;
+
+import com.google.common.io.ByteStreams;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.apache.cxf.staxutils.DepthXMLStreamReader;
+import org.apache.cxf.staxutils.StaxUtils;
+import org.jetbrains.annotations.Nullable;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+
+/**
+ * Finds the namespace of the first element in the SOAP body (i.e. the OCPP version of the message) by reading only
+ * a bounded prefix of the stream. Afterwards, the prefix and the untouched rest of the original stream are handed
+ * on as one stream, so that the message is not buffered as a whole.
+ *
+ * If the body does not start within the prefix (e.g. because of a huge header), the message is buffered up to
+ * {@link #FALLBACK_LIMIT} and scanned again. This scan cannot read beyond the limit, so that the buffer can always be
+ * reset to the start of the message. If the body does not start within the limit either, the namespace is unknown.
+ *
+ * @author agent <agent@local>
+ * @since 17.10.2026
+ */
+final class BodyNamespaceSniffer {
+
+    /**
+     * Envelope and header of OCPP messages take up less than 2 KB in practice
+     */
+    static final int PEEK_LIMIT = 4 * 1024;
+
+    static final int FALLBACK_LIMIT = 1024 * 1024;
+
+    private BodyNamespaceSniffer() { }
+
+    static Result sniff(InputStream in, @Nullable String encoding, QName bodyName) throws IOException {
+        byte[] prefix = new byte[PEEK_LIMIT];
+        int length = readFully(in, prefix);
+
+        String namespace = findBodyNamespace(new ByteArrayInputStream(prefix, 0, length), encoding, bodyName);
+
+        // The whole message fits into the prefix. No need to chain the original stream.
+        if (length < PEEK_LIMIT) {
+            return new Result(namespace, new ByteArrayInputStream(prefix, 0, length));
+        }
+
+        InputStream stream = new SequenceInputStream(new ByteArrayInputStream(prefix), in);
+        if (namespace != null) {
+            return new Result(namespace, stream);
+        }
+
+        // Fallback for the pathological cases
+        BufferedInputStream bis = new BufferedInputStream(stream, PEEK_LIMIT * 2);
+        bis.mark(FALLBACK_LIMIT);
+        namespace = findBodyNamespace(ByteStreams.limit(bis, FALLBACK_LIMIT), encoding, bodyName);
+        bis.reset();
+        return new Result(namespace, bis);
+    }
+
+    /**
+     * @return null, if the input ended (or is not valid) before the first element of the body
+     */
+    @Nullable
+    static String findBodyNamespace(InputStream in, @Nullable String encoding, QName bodyName) {
+        XMLStreamReader reader = StaxUtils.createXMLStreamReader(in, encoding);
+        try {
+            DepthXMLStreamReader xmlReader = new DepthXMLStreamReader(reader);
+            if (xmlReader.nextTag() != XMLStreamConstants.START_ELEMENT) {
+                return null;
+            }
+            // Advance just past header
+            if (!StaxUtils.toNextTag(xmlReader, bodyName)) {
+                return null;
+            }
+            // Past body
+            if (xmlReader.nextTag() != XMLStreamConstants.START_ELEMENT) {
+                return null;
+            }
+            return xmlReader.getName().getNamespaceURI();
+
+        } catch (XMLStreamException | RuntimeException e) {
+            return null;
+        } finally {
+            StaxUtils.close(reader);
+        }
+    }
+
+    private static int readFully(InputStream in, byte[] buffer) throws IOException {
+        int total = 0;
+        while (total < buffer.length) {
+            int read = in.read(buffer, total, buffer.length - total);
+            if (read < 0) {
+                break;
+            }
+            total += read;
+        }
+        return total;
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    static final class Result {
+        @Nullable private final String namespace;
+        private final InputStream stream;
+    }
+}
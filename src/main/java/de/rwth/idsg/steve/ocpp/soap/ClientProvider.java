@@ -18,37 +18,101 @@
  */
 package de.rwth.idsg.steve.ocpp.soap;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.oneandone.compositejks.SslContextBuilder;
+import de.rwth.idsg.steve.SteveException;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.apache.cxf.Bus;
 import org.apache.cxf.configuration.jsse.TLSClientParameters;
 import org.apache.cxf.endpoint.Client;
 import org.apache.cxf.frontend.ClientProxy;
 import org.apache.cxf.jaxws.JaxWsProxyFactoryBean;
 import org.apache.cxf.transport.http.HTTPConduit;
+import org.apache.cxf.transport.http.asyncclient.AsyncHTTPConduitFactory;
 import org.apache.cxf.ws.addressing.WSAddressingFeature;
 import org.jetbrains.annotations.Nullable;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.PostConstruct;
 import javax.net.ssl.SSLContext;
-import javax.net.ssl.SSLSocketFactory;
+import javax.xml.ws.AsyncHandler;
+import javax.xml.ws.Response;
 import javax.xml.ws.soap.SOAPBinding;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 
 import static de.rwth.idsg.steve.SteveConfiguration.CONFIG;
 
 /**
+ * The outgoing SOAP calls go through the async HTTP conduit of CXF (Apache HttpAsyncClient), which keeps a shared
+ * pool of keep-alive connections. A call therefore does not occupy a thread while waiting for the station.
+ *
+ * The clients created here limit the number of calls in flight (over all stations) to soap.client.max.inflight,
+ * and record the latency and failures of the calls, in total and per endpoint address. A call that exceeds the limit
+ * fails right away, instead of blocking the thread of the task until a slot becomes free.
+ *
+ * The stats per endpoint are kept for up to soap.client.stats.size endpoints. Endpoints that were not called for an
+ * hour are dropped. This is independent of the client cache, since stats are cheap compared to clients.
+ *
  * @author Sevket Goekay <sevketgokay@gmail.com>
  * @since 21.10.2015
  */
 @Component
 public class ClientProvider {
 
+    private static final int STATS_EXPIRY_MINUTES = 60;
+
+    @Autowired private Bus bus;
+
     @Nullable private TLSClientParameters tlsClientParams;
 
+    private final int maxInFlight;
+    private final Semaphore inFlight;
+
+    private final AtomicLong callCount = new AtomicLong(0);
+    private final AtomicLong failedCount = new AtomicLong(0);
+    private final AtomicLong rejectedCount = new AtomicLong(0);
+    private final AtomicLong totalLatencyNanos = new AtomicLong(0);
+
+    private final Cache<String, EndpointStats> endpointStats;
+
+    public ClientProvider() {
+        this(CONFIG.getOcpp().getSoapClientMaxInFlight(), CONFIG.getOcpp().getSoapClientStatsSize());
+    }
+
+    ClientProvider(int maxInFlight, int statsSize) {
+        this.maxInFlight = maxInFlight;
+        this.inFlight = new Semaphore(maxInFlight);
+        this.endpointStats = CacheBuilder.newBuilder()
+                                         .maximumSize(statsSize)
+                                         .expireAfterAccess(STATS_EXPIRY_MINUTES, TimeUnit.MINUTES)
+                                         .build();
+    }
+
     @PostConstruct
     private void init() {
+        // Read by the conduit factory when the first async client is created
+        bus.setProperty(AsyncHTTPConduitFactory.MAX_CONNECTIONS, CONFIG.getOcpp().getSoapClientMaxConnections());
+        bus.setProperty(AsyncHTTPConduitFactory.CONNECTION_TTL,
+                TimeUnit.SECONDS.toMillis(CONFIG.getOcpp().getSoapClientKeepAliveSeconds()));
+        bus.setProperty(AsyncHTTPConduitFactory.SO_KEEPALIVE, Boolean.TRUE);
+
         if (shouldInitSSL()) {
+            // Not as SSLSocketFactory, since the async conduit cannot use it and would fall back to the blocking one
             tlsClientParams = new TLSClientParameters();
-            tlsClientParams.setSSLSocketFactory(setupSSL());
+            tlsClientParams.setSslContext(setupSSL());
         } else {
             tlsClientParams = null;
         }
@@ -65,11 +129,50 @@ public class ClientProvider {
             http.setTlsClientParameters(tlsClientParams);
         }
 
-        return clientObject;
+        return limitAndMeasure(clazz, endpointAddress, clientObject);
+    }
+
+    public int getInFlightCount() {
+        return maxInFlight - inFlight.availablePermits();
     }
 
-    private static JaxWsProxyFactoryBean getBean(String endpointAddress) {
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    /**
+     * @return number of calls that were not sent, because the max number of calls were in flight
+     */
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    /**
+     * @return average latency (in millis) of all calls
+     */
+    public long getAverageLatencyMillis() {
+        long count = callCount.get();
+        return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalLatencyNanos.get() / count);
+    }
+
+    /**
+     * @return the stats of the endpoints that were called recently, the slowest first
+     */
+    public List<EndpointStats> getEndpointStats() {
+        return endpointStats.asMap()
+                            .values()
+                            .stream()
+                            .sorted(Comparator.comparingLong(EndpointStats::getAverageLatencyMillis).reversed())
+                            .collect(Collectors.toList());
+    }
+
+    // -------------------------------------------------------------------------
+    // Private helpers
+    // -------------------------------------------------------------------------
+
+    private JaxWsProxyFactoryBean getBean(String endpointAddress) {
         JaxWsProxyFactoryBean f = new JaxWsProxyFactoryBean();
+        f.setBus(bus);
         f.setBindingId(SOAPBinding.SOAP12HTTP_BINDING);
         f.getFeatures().add(LoggingFeatureProxy.INSTANCE.get());
         f.getFeatures().add(new WSAddressingFeature());
@@ -77,24 +180,139 @@ public class ClientProvider {
         return f;
     }
 
+    /**
+     * Wraps the async methods (the ones with an AsyncHandler as last parameter) of the client. The other methods
+     * are passed through.
+     */
+    @SuppressWarnings("unchecked")
+    <T> T limitAndMeasure(Class<T> clazz, String endpointAddress, T clientObject) {
+        InvocationHandler invocationHandler = (proxy, method, args) -> {
+            int last = (args == null) ? -1 : args.length - 1;
+            if (last < 0 || !(args[last] instanceof AsyncHandler)) {
+                return invoke(clientObject, method, args);
+            }
+
+            acquire(endpointAddress);
+
+            long start = System.nanoTime();
+            AtomicBoolean released = new AtomicBoolean(false);
+            AsyncHandler<Object> handler = (AsyncHandler<Object>) args[last];
+
+            Object[] newArgs = args.clone();
+            newArgs[last] = (AsyncHandler<Object>) res -> {
+                if (released.compareAndSet(false, true)) {
+                    inFlight.release();
+                    record(endpointAddress, System.nanoTime() - start, isFailed(res));
+                }
+                handler.handleResponse(res);
+            };
+
+            try {
+                return invoke(clientObject, method, newArgs);
+            } catch (Throwable t) {
+                if (released.compareAndSet(false, true)) {
+                    inFlight.release();
+                    record(endpointAddress, System.nanoTime() - start, true);
+                }
+                throw t;
+            }
+        };
+
+        return clazz.cast(Proxy.newProxyInstance(clazz.getClassLoader(), new Class<?>[]{clazz}, invocationHandler));
+    }
+
+    private void acquire(String endpointAddress) {
+        if (!inFlight.tryAcquire()) {
+            rejectedCount.incrementAndGet();
+            throw new SteveException("Too many SOAP calls in flight. Call to '%s' was not sent", endpointAddress);
+        }
+    }
+
+    private void record(String endpointAddress, long latencyNanos, boolean failed) {
+        callCount.incrementAndGet();
+        if (failed) {
+            failedCount.incrementAndGet();
+        }
+        totalLatencyNanos.addAndGet(latencyNanos);
+
+        endpointStats.asMap()
+                     .computeIfAbsent(endpointAddress, EndpointStats::new)
+                     .record(latencyNanos, failed);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static boolean isFailed(Response<?> res) {
+        try {
+            res.get();
+            return false;
+        } catch (Exception e) {
+            return true;
+        }
+    }
+
     private static boolean shouldInitSSL() {
         return CONFIG.getJetty().getKeyStorePath() != null && CONFIG.getJetty().getKeyStorePassword() != null;
     }
 
-    private static SSLSocketFactory setupSSL() {
-        SSLContext ssl;
+    private static SSLContext setupSSL() {
         try {
             String keyStorePath = CONFIG.getJetty().getKeyStorePath();
             String keyStorePwd = CONFIG.getJetty().getKeyStorePassword();
-            ssl = SslContextBuilder.builder()
-                                   .keyStoreFromFile(keyStorePath, keyStorePwd)
-                                   .usingTLS()
-                                   .usingDefaultAlgorithm()
-                                   .usingKeyManagerPasswordFromKeyStore()
-                                   .buildMergedWithSystem();
+            return SslContextBuilder.builder()
+                                    .keyStoreFromFile(keyStorePath, keyStorePwd)
+                                    .usingTLS()
+                                    .usingDefaultAlgorithm()
+                                    .usingKeyManagerPasswordFromKeyStore()
+                                    .buildMergedWithSystem();
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
-        return ssl.getSocketFactory();
+    }
+
+    // -------------------------------------------------------------------------
+    // Classes
+    // -------------------------------------------------------------------------
+
+    @RequiredArgsConstructor
+    public static class EndpointStats {
+        @Getter private final String endpointAddress;
+
+        private final AtomicLong callCount = new AtomicLong(0);
+        private final AtomicLong failedCount = new AtomicLong(0);
+        private final AtomicLong totalLatencyNanos = new AtomicLong(0);
+        private final AtomicLong maxLatencyNanos = new AtomicLong(0);
+
+        private void record(long latencyNanos, boolean failed) {
+            callCount.incrementAndGet();
+            if (failed) {
+                failedCount.incrementAndGet();
+            }
+            totalLatencyNanos.addAndGet(latencyNanos);
+            maxLatencyNanos.accumulateAndGet(latencyNanos, Math::max);
+        }
+
+        public long getCallCount() {
+            return callCount.get();
+        }
+
+        public long getFailedCount() {
+            return failedCount.get();
+        }
+
+        public long getAverageLatencyMillis() {
+            long count = callCount.get();
+            return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalLatencyNanos.get() / count);
+        }
+
+        public long getMaxLatencyMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(maxLatencyNanos.get());
+        }
     }
 }
@@ -24,6 +24,8 @@ import com.google.common.cache.CacheBuilder;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 
+import static de.rwth.idsg.steve.SteveConfiguration.CONFIG;
+
 /**
  * http://cxf.apache.org/faq.html#FAQ-AreJAX-WSclientproxiesthreadsafe?
  *
@@ -38,8 +40,9 @@ public class ClientProviderWithCache<T> {
     public ClientProviderWithCache(ClientProvider delegate) {
         this.delegate = delegate;
         this.cache = CacheBuilder.newBuilder()
-                                 .maximumSize(500)
-                                 .expireAfterAccess(1, TimeUnit.HOURS)
+                                 .maximumSize(CONFIG.getOcpp().getSoapClientCacheSize())
+                                 .expireAfterAccess(CONFIG.getOcpp().getSoapClientCacheExpiryMinutes(),
+                                         TimeUnit.MINUTES)
                                  .build();
     }
 
@@ -18,7 +18,10 @@
  */
 package de.rwth.idsg.steve.ocpp.soap;
 
+import de.rwth.idsg.steve.ocpp.TrafficLogPolicy;
+
 import org.apache.cxf.ext.logging.LoggingFeature;
+import org.apache.cxf.ext.logging.event.EventType;
 import org.apache.cxf.ext.logging.event.LogEvent;
 import org.apache.cxf.ext.logging.slf4j.Slf4jEventSender;
 import org.apache.cxf.ext.logging.slf4j.Slf4jVerboseEventSender;
@@ -27,6 +30,10 @@ import org.apache.cxf.ext.logging.slf4j.Slf4jVerboseEventSender;
  * Since {@link Slf4jEventSender} logs only the message and {@link Slf4jVerboseEventSender} logs everything, this
  * logging feature proxy finds a middle ground by logging the exchange id and the message (the most interesting parts).
  *
+ * Messages are truncated and sampled per action according to {@link TrafficLogPolicy}, with one decision for the
+ * request and the response of an exchange. The chargeBoxId is not known at this point (it is in the SOAP header),
+ * therefore the station settings of the policy do not apply to SOAP.
+ *
  * @author Sevket Goekay <sevketgokay@gmail.com>
  * @since 03.04.2018
  */
@@ -38,6 +45,11 @@ public enum LoggingFeatureProxy {
     LoggingFeatureProxy() {
         feature = new LoggingFeature();
         feature.setSender(new CustomSlf4jEventSender());
+
+        int maxPayloadLength = TrafficLogPolicy.INSTANCE.getMaxPayloadLength();
+        if (maxPayloadLength > 0) {
+            feature.setLimit(maxPayloadLength);
+        }
     }
 
     public LoggingFeature get() {
@@ -45,6 +57,18 @@ public enum LoggingFeatureProxy {
     }
 
     private static class CustomSlf4jEventSender extends Slf4jEventSender {
+
+        @Override
+        public void send(LogEvent event) {
+            boolean shouldLog = isRequest(event)
+                    ? TrafficLogPolicy.INSTANCE.shouldLogRequest(null, event.getExchangeId(), getAction(event))
+                    : TrafficLogPolicy.INSTANCE.shouldLogResponse(null, event.getExchangeId(), getAction(event));
+
+            if (shouldLog) {
+                super.send(event);
+            }
+        }
+
         @Override
         protected String getLogMessage(LogEvent event) {
             StringBuilder b = new StringBuilder();
@@ -56,5 +80,23 @@ public enum LoggingFeatureProxy {
 
             return b.toString();
         }
+
+        /**
+         * Incoming requests (we are the server) and outgoing requests (we are the client)
+         */
+        private static boolean isRequest(LogEvent event) {
+            return event.getType() == EventType.REQ_IN || event.getType() == EventType.REQ_OUT;
+        }
+
+        /**
+         * The operation name is the qualified name of the operation, e.g. "{urn://Ocpp/Cs/2015/10/}Heartbeat"
+         */
+        private static String getAction(LogEvent event) {
+            String operationName = event.getOperationName();
+            if (operationName == null) {
+                return null;
+            }
+            return operationName.substring(operationName.lastIndexOf('}') + 1);
+        }
     }
 }
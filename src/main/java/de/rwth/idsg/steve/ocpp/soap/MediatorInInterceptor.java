@@ -21,21 +21,15 @@ package de.rwth.idsg.steve.ocpp.soap;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.cxf.Bus;
 import org.apache.cxf.binding.soap.SoapMessage;
-import org.apache.cxf.binding.soap.SoapVersion;
 import org.apache.cxf.endpoint.Server;
 import org.apache.cxf.endpoint.ServerRegistry;
+import org.apache.cxf.interceptor.Fault;
 import org.apache.cxf.interceptor.StaxInInterceptor;
 import org.apache.cxf.message.Message;
 import org.apache.cxf.phase.AbstractPhaseInterceptor;
 import org.apache.cxf.phase.Phase;
 import org.apache.cxf.service.model.EndpointInfo;
-import org.apache.cxf.staxutils.DepthXMLStreamReader;
-import org.apache.cxf.staxutils.StaxUtils;
 
-import javax.xml.stream.XMLStreamConstants;
-import javax.xml.stream.XMLStreamException;
-import javax.xml.stream.XMLStreamReader;
-import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.HashMap;
@@ -59,32 +53,29 @@ public class MediatorInInterceptor extends AbstractPhaseInterceptor<SoapMessage>
     }
 
     public final void handleMessage(SoapMessage message) {
-        String schemaNamespace = "";
+        String schemaNamespace;
 
-        // Scan the incoming message for its schema namespace
+        // Scan the incoming message for its schema namespace. Only the beginning of the message is read, and put
+        // in front of the rest of the original stream again. If reading fails, the stream of the message is
+        // incomplete, and the message must not be processed any further.
         try {
-            // Create a buffered stream so that we get back the original stream after scanning
             InputStream is = message.getContent(InputStream.class);
-            BufferedInputStream bis = new BufferedInputStream(is);
-            bis.mark(bis.available());
-            message.setContent(InputStream.class, bis);
-
             String encoding = (String) message.get(Message.ENCODING);
-            XMLStreamReader reader = StaxUtils.createXMLStreamReader(bis, encoding);
-            DepthXMLStreamReader xmlReader = new DepthXMLStreamReader(reader);
-
-            if (xmlReader.nextTag() == XMLStreamConstants.START_ELEMENT) {
-                SoapVersion soapVersion = message.getVersion();
-                // Advance just past header
-                StaxUtils.toNextTag(xmlReader, soapVersion.getBody());
-                // Past body
-                xmlReader.nextTag();
-            }
-            schemaNamespace = xmlReader.getName().getNamespaceURI();
-            bis.reset();
 
-        } catch (IOException | XMLStreamException ex) {
-            log.error("Exception happened", ex);
+            BodyNamespaceSniffer.Result result =
+                    BodyNamespaceSniffer.sniff(is, encoding, message.getVersion().getBody());
+
+            message.setContent(InputStream.class, result.getStream());
+            schemaNamespace = result.getNamespace();
+
+        } catch (IOException ex) {
+            log.error("Could not read the SOAP message", ex);
+            throw new Fault(ex);
+        }
+
+        if (schemaNamespace == null) {
+            log.warn("Could not find the namespace of the SOAP body. Cannot route the message");
+            schemaNamespace = "";
         }
 
         // We redirect the message to the actual OCPP service
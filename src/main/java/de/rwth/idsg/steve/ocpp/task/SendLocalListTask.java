@@ -40,6 +40,9 @@ public class SendLocalListTask extends Ocpp15AndAboveTask<SendLocalListParams, S
 
     private final ocpp.cp._2015._10.SendLocalListRequest request;
 
+    // Converting the (possibly large) list is done once, and not for every station
+    private ocpp.cp._2012._06.SendLocalListRequest ocpp15Request;
+
     public SendLocalListTask(OcppVersion ocppVersion, SendLocalListParams params, OcppTagService ocppTagService) {
         super(ocppVersion, params);
         this.request = createOcpp16Request(ocppTagService);
@@ -51,13 +54,16 @@ public class SendLocalListTask extends Ocpp15AndAboveTask<SendLocalListParams, S
     }
 
     @Override
-    public ocpp.cp._2012._06.SendLocalListRequest getOcpp15Request() {
-        ocpp.cp._2015._10.SendLocalListRequest ocpp16Request = getOcpp16Request();
-
-        return new ocpp.cp._2012._06.SendLocalListRequest()
-                .withListVersion(ocpp16Request.getListVersion())
-                .withUpdateType(ocpp.cp._2012._06.UpdateType.fromValue(ocpp16Request.getUpdateType().value()))
-                .withLocalAuthorisationList(toOcpp15(ocpp16Request.getLocalAuthorizationList()));
+    public synchronized ocpp.cp._2012._06.SendLocalListRequest getOcpp15Request() {
+        if (ocpp15Request == null) {
+            ocpp.cp._2015._10.SendLocalListRequest ocpp16Request = getOcpp16Request();
+
+            ocpp15Request = new ocpp.cp._2012._06.SendLocalListRequest()
+                    .withListVersion(ocpp16Request.getListVersion())
+                    .withUpdateType(ocpp.cp._2012._06.UpdateType.fromValue(ocpp16Request.getUpdateType().value()))
+                    .withLocalAuthorisationList(toOcpp15(ocpp16Request.getLocalAuthorizationList()));
+        }
+        return ocpp15Request;
     }
 
     @Override
@@ -19,17 +19,20 @@
 package de.rwth.idsg.steve.ocpp.ws;
 
 import com.google.common.base.Preconditions;
-import com.google.common.collect.ImmutableSet;
-import com.google.common.reflect.ClassPath;
 import de.rwth.idsg.ocpp.jaxb.RequestType;
 import de.rwth.idsg.ocpp.jaxb.ResponseType;
 import de.rwth.idsg.steve.ocpp.ws.data.ActionResponsePair;
 
-import java.io.IOException;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 
 /**
+ * The subclasses register the JAXB classes of their OCPP version explicitly in their constructors. We used to find
+ * them with a classpath scan, which had to load every class of the JAXB packages at startup. The explicit tables are
+ * checked by the compiler, and TypeStoreTest makes sure that they stay complete when the JAXB classes change.
+ *
  * @author Sevket Goekay <sevketgokay@gmail.com>
  * @since 14.05.2018
  */
@@ -40,12 +43,7 @@ public abstract class AbstractTypeStore implements TypeStore {
 
     private final Map<String, Class<? extends RequestType>> requestClassMap = new HashMap<>();
     private final Map<Class<? extends RequestType>, ActionResponsePair> actionResponseMap = new HashMap<>();
-
-    public AbstractTypeStore(String packageForRequestClassMap,
-                             String packageForActionResponseMap) {
-        populateRequestClassMap(packageForRequestClassMap);
-        populateActionResponseMap(packageForActionResponseMap);
-    }
+    private final Map<String, Class<? extends RequestType>> outgoingRequestClassMap = new HashMap<>();
 
     @Override
     public Class<? extends RequestType> findRequestClass(String action) {
@@ -57,59 +55,57 @@ public abstract class AbstractTypeStore implements TypeStore {
         return actionResponseMap.get(requestPayload.getClass());
     }
 
-    // -------------------------------------------------------------------------
-    // Private helpers
-    // -------------------------------------------------------------------------
-
-    private void populateRequestClassMap(String packageName) {
-        Map<String, Class<RequestType>> classes = getClassesWithInterface(packageName, RequestType.class);
-        for (Class<RequestType> clazz : classes.values()) {
-            String action = getAction(clazz);
-            Preconditions.checkNotNull(action);
-            requestClassMap.put(action, clazz);
-        }
+    @Override
+    public Class<? extends RequestType> findOutgoingRequestClass(String action) {
+        return outgoingRequestClassMap.get(action);
     }
 
-    private void populateActionResponseMap(String packageName) {
-        Map<String, Class<RequestType>> requestClasses = getClassesWithInterface(packageName, RequestType.class);
-        Map<String, Class<ResponseType>> responseClasses = getClassesWithInterface(packageName, ResponseType.class);
+    /**
+     * Only for TypeStoreTest, which compares the tables with the JAXB packages
+     */
+    Set<Class<? extends RequestType>> getIncomingRequestClasses() {
+        return Set.copyOf(requestClassMap.values());
+    }
 
-        for (Class<RequestType> requestClass : requestClasses.values()) {
-            String action = getAction(requestClass);
-            Preconditions.checkNotNull(action);
+    /**
+     * Only for TypeStoreTest, which compares the tables with the JAXB packages
+     */
+    Set<Class<? extends RequestType>> getOutgoingRequestClasses() {
+        return Collections.unmodifiableSet(actionResponseMap.keySet());
+    }
 
-            String responseClassSimpleName = action + RESPONSE_CLASS_SUFFIX;
-            Class<? extends ResponseType> responseClass = responseClasses.get(responseClassSimpleName);
-            Preconditions.checkNotNull(responseClass);
+    // -------------------------------------------------------------------------
+    // Registration (only to be called from the constructors of subclasses)
+    // -------------------------------------------------------------------------
 
-            actionResponseMap.put(requestClass, new ActionResponsePair(action, responseClass));
-        }
+    /**
+     * For requests that are sent by the station to us
+     */
+    protected void addIncoming(Class<? extends RequestType> requestClass) {
+        String action = getAction(requestClass);
+        Preconditions.checkState(requestClassMap.put(action, requestClass) == null, "Duplicate action %s", action);
     }
 
     /**
-     * @return <simple name of class, class>
+     * For requests that are sent by us to the station
      */
-    @SuppressWarnings("unchecked")
-    private static <INTERFACE, IMPL extends INTERFACE> Map<String, Class<IMPL>> getClassesWithInterface(
-            String packageName, Class<INTERFACE> interfaceClass) {
-        try {
-            ImmutableSet<ClassPath.ClassInfo> classInfos =
-                    ClassPath.from(Thread.currentThread().getContextClassLoader())
-                             .getTopLevelClasses(packageName);
-
-            Map<String, Class<IMPL>> map = new HashMap<>();
-            for (ClassPath.ClassInfo classInfo : classInfos) {
-                Class<?> clazz = classInfo.load();
-                if (interfaceClass.isAssignableFrom(clazz)) {
-                    map.put(clazz.getSimpleName(), (Class<IMPL>) clazz);
-                }
-            }
-            return map;
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
+    protected void addOutgoing(Class<? extends RequestType> requestClass, Class<? extends ResponseType> responseClass) {
+        String action = getAction(requestClass);
+        Preconditions.checkArgument(
+                responseClass.getSimpleName().equals(action + RESPONSE_CLASS_SUFFIX),
+                "%s is not the response class of %s", responseClass.getName(), requestClass.getName()
+        );
+        Preconditions.checkState(
+                actionResponseMap.put(requestClass, new ActionResponsePair(action, responseClass)) == null,
+                "Duplicate action %s", action
+        );
+        outgoingRequestClassMap.put(action, requestClass);
     }
 
+    // -------------------------------------------------------------------------
+    // Private helpers
+    // -------------------------------------------------------------------------
+
     private static String getAction(Class<? extends RequestType> clazz) {
         String s = clazz.getSimpleName();
         if (s.endsWith(REQUEST_CLASS_SUFFIX)) {
@@ -19,13 +19,15 @@
 package de.rwth.idsg.steve.ocpp.ws;
 
 import com.google.common.base.Strings;
-import de.rwth.idsg.steve.config.WebSocketConfiguration;
 import de.rwth.idsg.steve.ocpp.OcppTransport;
 import de.rwth.idsg.steve.ocpp.OcppVersion;
+import de.rwth.idsg.steve.ocpp.ws.cluster.ClusterRouter;
 import de.rwth.idsg.steve.ocpp.ws.data.CommunicationContext;
-import de.rwth.idsg.steve.ocpp.ws.data.SessionContext;
+import de.rwth.idsg.steve.ocpp.ws.data.PingState;
+import de.rwth.idsg.steve.ocpp.ws.data.StationSessions;
 import de.rwth.idsg.steve.ocpp.ws.pipeline.IncomingPipeline;
 import de.rwth.idsg.steve.repository.OcppServerRepository;
+import de.rwth.idsg.steve.service.HeartbeatService;
 import de.rwth.idsg.steve.service.notification.OcppStationWebSocketConnected;
 import de.rwth.idsg.steve.service.notification.OcppStationWebSocketDisconnected;
 import org.joda.time.DateTime;
@@ -40,13 +42,9 @@ import org.springframework.web.socket.WebSocketMessage;
 import org.springframework.web.socket.WebSocketSession;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
-import java.util.Deque;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
 /**
@@ -55,17 +53,20 @@ import java.util.function.Consumer;
  */
 public abstract class AbstractWebSocketEndpoint extends ConcurrentWebSocketHandler implements SubProtocolCapable {
 
-    @Autowired private ScheduledExecutorService service;
     @Autowired private OcppServerRepository ocppServerRepository;
     @Autowired private FutureResponseContextStore futureResponseContextStore;
     @Autowired private ApplicationEventPublisher applicationEventPublisher;
+    @Autowired private IncomingMessageDispatcher incomingMessageDispatcher;
+    @Autowired private HeartbeatService heartbeatService;
+    @Autowired private PingScheduler pingScheduler;
+    @Autowired private ClusterRouter clusterRouter;
+    @Autowired private OutgoingCallQueue outgoingCallQueue;
 
     public static final String CHARGEBOX_ID_KEY = "CHARGEBOX_ID_KEY";
 
-    private final SessionContextStore sessionContextStore = new SessionContextStore();
+    private final SessionContextStore sessionContextStore = new SessionContextStore(getVersion());
     private final List<Consumer<String>> connectedCallbackList = new ArrayList<>();
     private final List<Consumer<String>> disconnectedCallbackList = new ArrayList<>();
-    private final Object sessionContextLock = new Object();
 
     private IncomingPipeline pipeline;
 
@@ -110,16 +111,24 @@ public abstract class AbstractWebSocketEndpoint extends ConcurrentWebSocketHandl
         }
 
         WebSocketLogger.receivedText(chargeBoxId, session, incomingString);
+        pingScheduler.aliveSignalReceived(session);
 
         CommunicationContext context = new CommunicationContext(session, chargeBoxId);
         context.setIncomingString(incomingString);
 
-        pipeline.accept(context);
+        boolean accepted = incomingMessageDispatcher.dispatch(chargeBoxId, session, () -> pipeline.accept(context));
+
+        // The station sends faster than we can process. Push back by closing the connection, it will reconnect.
+        if (!accepted) {
+            WebSocketLogger.mailboxFull(chargeBoxId, session, incomingMessageDispatcher.getQueueLimit());
+            session.close(CloseStatus.SERVICE_OVERLOAD.withReason("Too many unprocessed messages"));
+        }
     }
 
     private void handlePongMessage(WebSocketSession session) {
         WebSocketLogger.receivedPong(getChargeBoxId(session), session);
-        ocppServerRepository.updateChargeboxHeartbeat(getChargeBoxId(session), DateTime.now());
+        pingScheduler.pongReceived(session);
+        heartbeatService.updateHeartbeat(getChargeBoxId(session), DateTime.now());
     }
 
     @Override
@@ -129,26 +138,19 @@ public abstract class AbstractWebSocketEndpoint extends ConcurrentWebSocketHandl
         WebSocketLogger.connected(chargeBoxId, session);
         ocppServerRepository.updateOcppProtocol(chargeBoxId, getVersion().toProtocol(OcppTransport.JSON));
 
-        // Just to keep the connection alive, such that the servers do not close
-        // the connection because of a idle timeout, we ping-pong at fixed intervals.
-        ScheduledFuture pingSchedule = service.scheduleAtFixedRate(
-                new PingTask(chargeBoxId, session),
-                WebSocketConfiguration.PING_INTERVAL,
-                WebSocketConfiguration.PING_INTERVAL,
-                TimeUnit.MINUTES);
+        // To keep the connection alive, such that the servers do not close the connection because of an idle
+        // timeout, and to detect connections that are dead on the other end, we ping-pong at intervals.
+        PingState pingState = pingScheduler.start(chargeBoxId, session);
 
         futureResponseContextStore.addSession(session);
 
-        int sizeBeforeAdd;
-
-        synchronized (sessionContextLock) {
-            sizeBeforeAdd = sessionContextStore.getSize(chargeBoxId);
-            sessionContextStore.add(chargeBoxId, session, pingSchedule);
-        }
+        int sizeAfterAdd = sessionContextStore.add(chargeBoxId, session, pingState);
 
         // Take into account that there might be multiple connections to a charging station.
         // Send notification only for the change 0 -> 1.
-        if (sizeBeforeAdd == 0) {
+        if (sizeAfterAdd == 1) {
+            clusterRouter.stationConnected(chargeBoxId, getVersion());
+            outgoingCallQueue.stationConnected(chargeBoxId);
             connectedCallbackList.forEach(consumer -> consumer.accept(chargeBoxId));
         }
     }
@@ -159,18 +161,16 @@ public abstract class AbstractWebSocketEndpoint extends ConcurrentWebSocketHandl
 
         WebSocketLogger.closed(chargeBoxId, session, closeStatus);
 
+        pingScheduler.stop(session);
         futureResponseContextStore.removeSession(session);
 
-        int sizeAfterRemove;
-
-        synchronized (sessionContextLock) {
-            sessionContextStore.remove(chargeBoxId, session);
-            sizeAfterRemove = sessionContextStore.getSize(chargeBoxId);
-        }
+        int sizeAfterRemove = sessionContextStore.remove(chargeBoxId, session);
 
         // Take into account that there might be multiple connections to a charging station.
         // Send notification only for the change 1 -> 0.
         if (sizeAfterRemove == 0) {
+            clusterRouter.stationDisconnected(chargeBoxId);
+            incomingMessageDispatcher.removeMailbox(chargeBoxId);
             disconnectedCallbackList.forEach(consumer -> consumer.accept(chargeBoxId));
         }
     }
@@ -209,8 +209,12 @@ public abstract class AbstractWebSocketEndpoint extends ConcurrentWebSocketHandl
         return sessionContextStore.getNumberOfChargeBoxes();
     }
 
-    public Map<String, Deque<SessionContext>> getACopy() {
-        return sessionContextStore.getACopy();
+    public boolean isConnected(String chargeBoxId) {
+        return sessionContextStore.contains(chargeBoxId);
+    }
+
+    public Collection<StationSessions> getStationSessions() {
+        return sessionContextStore.getStationSessions();
     }
 
     public WebSocketSession getSession(String chargeBoxId) {
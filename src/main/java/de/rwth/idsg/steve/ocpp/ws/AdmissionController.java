@@ -0,0 +1,188 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.ocpp.ws;
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableMap;
+import de.rwth.idsg.steve.ocpp.ws.data.OcppJsonCall;
+import de.rwth.idsg.steve.ocpp.ws.data.OcppJsonError;
+import de.rwth.idsg.steve.utils.TokenBucket;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static de.rwth.idsg.steve.SteveConfiguration.CONFIG;
+
+/**
+ * Decides whether an incoming CALL is processed or answered with a CALLERROR right away. There are two checks:
+ *
+ * 1) Per station: A token bucket limits the rate of calls, so that a single misbehaving station cannot flood us.
+ * 2) Global: The number of calls that are being processed at the same time (i.e. mostly waiting for the database)
+ * is limited. When we get close to the limit, calls with low priority are rejected first, so that the ones that are
+ * important for charging sessions still get through with low latency.
+ *
+ * Calls with high priority (transaction-related ones) are never rejected. Stations retry rejected messages that are
+ * related to transactions anyway, but delaying a StartTransaction or Authorize means a user waiting at the station.
+ *
+ * The bucket of a station is kept after it disconnects, otherwise a station could reset its limit by reconnecting.
+ * It is dropped only after it was not used for as long as it takes to refill completely, at which point a new bucket
+ * would be in the same state.
+ *
+ * @author agent <agent@local>
+ * @since 17.10.2026
+ */
+@Slf4j
+@Component
+public class AdmissionController {
+
+    public enum Priority {
+        HIGH,
+        NORMAL,
+        LOW
+    }
+
+    private static final Map<String, Priority> PRIORITY_MAP = ImmutableMap.<String, Priority>builder()
+            .put("BootNotification", Priority.HIGH)
+            .put("Authorize", Priority.HIGH)
+            .put("StartTransaction", Priority.HIGH)
+            .put("StopTransaction", Priority.HIGH)
+            .put("StatusNotification", Priority.NORMAL)
+            .put("Heartbeat", Priority.NORMAL)
+            .put("FirmwareStatusNotification", Priority.NORMAL)
+            .put("DiagnosticsStatusNotification", Priority.NORMAL)
+            .put("MeterValues", Priority.LOW)
+            .put("DataTransfer", Priority.LOW)
+            .build();
+
+    private final int rateLimit;
+    private final int rateLimitBurst;
+    private final int maxInFlight;
+    private final Ticker ticker;
+
+    private final Cache<String, TokenBucket> buckets;
+    private final AtomicInteger inFlight = new AtomicInteger(0);
+
+    private final AtomicLong rateLimitedCount = new AtomicLong(0);
+    private final AtomicLong shedCount = new AtomicLong(0);
+
+    public AdmissionController() {
+        this(CONFIG.getOcpp().getWsRateLimit(),
+             CONFIG.getOcpp().getWsRateLimitBurst(),
+             CONFIG.getOcpp().getWsMaxInFlightCalls(),
+             Ticker.systemTicker());
+    }
+
+    AdmissionController(int rateLimit, int rateLimitBurst, int maxInFlight, Ticker ticker) {
+        this.rateLimit = rateLimit;
+        this.rateLimitBurst = rateLimitBurst;
+        this.maxInFlight = maxInFlight;
+        this.ticker = ticker;
+        this.buckets = CacheBuilder.newBuilder()
+                                   .expireAfterAccess(getIdleSeconds(rateLimit, rateLimitBurst), TimeUnit.SECONDS)
+                                   .ticker(ticker)
+                                   .build();
+    }
+
+    /**
+     * @return null, if the call is admitted. In this case, {@link #release()} must be called after processing.
+     * Otherwise, the error to respond with.
+     */
+    public OcppJsonError tryAcquire(String chargeBoxId, OcppJsonCall call) {
+        Priority priority = getPriority(call.getAction());
+
+        if (priority != Priority.HIGH && rateLimit > 0 && !getBucket(chargeBoxId).tryAcquire()) {
+            rateLimitedCount.incrementAndGet();
+            log.debug("[chargeBoxId={}] Rejecting '{}', rate limit exceeded", chargeBoxId, call.getAction());
+            return ErrorFactory.rateLimitExceeded(call.getMessageId(), call.getAction());
+        }
+
+        int current = inFlight.incrementAndGet();
+        if (current > getLimit(priority)) {
+            inFlight.decrementAndGet();
+            shedCount.incrementAndGet();
+            log.debug("[chargeBoxId={}] Rejecting '{}', server is busy", chargeBoxId, call.getAction());
+            return ErrorFactory.serverBusy(call.getMessageId(), call.getAction());
+        }
+
+        return null;
+    }
+
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    public int getInFlightCount() {
+        return inFlight.get();
+    }
+
+    public long getRateLimitedCount() {
+        return rateLimitedCount.get();
+    }
+
+    public long getShedCount() {
+        return shedCount.get();
+    }
+
+    public static Priority getPriority(String action) {
+        return PRIORITY_MAP.getOrDefault(action, Priority.NORMAL);
+    }
+
+    // -------------------------------------------------------------------------
+    // Private helpers
+    // -------------------------------------------------------------------------
+
+    private TokenBucket getBucket(String chargeBoxId) {
+        try {
+            return buckets.get(chargeBoxId, () -> new TokenBucket(rateLimit, rateLimitBurst, ticker));
+        } catch (ExecutionException e) {
+            // the loader does not throw checked exceptions
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * An empty bucket is full again after burst / rate seconds
+     */
+    private static long getIdleSeconds(int rateLimit, int rateLimitBurst) {
+        if (rateLimit <= 0) {
+            return 1;
+        }
+        return Math.max(1, (rateLimitBurst + rateLimit - 1) / rateLimit);
+    }
+
+    /**
+     * Low priority calls may use up to half of the capacity, and the other half is reserved for the rest.
+     */
+    private int getLimit(Priority priority) {
+        if (maxInFlight <= 0 || priority == Priority.HIGH) {
+            return Integer.MAX_VALUE;
+        } else if (priority == Priority.NORMAL) {
+            return maxInFlight;
+        } else {
+            return Math.max(1, maxInFlight / 2);
+        }
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.ocpp.ws;
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import de.rwth.idsg.steve.ocpp.ws.data.OcppJsonCall;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static de.rwth.idsg.steve.SteveConfiguration.CONFIG;
+
+/**
+ * Remembers the serialized responses to the last CALLs of each station. When connectivity is flaky, stations
+ * retransmit a CALL for which they did not receive the response (with the same messageId). We answer such
+ * retransmissions with the response to the original, instead of processing the call again.
+ *
+ * The cache is per station (and not per session), because the retransmission usually arrives over a new connection.
+ * A messageId alone is not enough to detect a retransmission, since some stations restart counting their messageIds
+ * after a reboot. Therefore, the incoming message must be the same as well. Moreover, a response is only replayed
+ * within ws.replay.cache.max.age seconds, which covers the retry interval of stations, but not a station that
+ * sends the same message again much later.
+ *
+ * Only CALLRESULTs are cached. CALLERRORs are not, since the reason (e.g. rate limit) might be gone by now. Calls
+ * that ask for the current state (e.g. the current time or authorization status) are never replayed, since an old
+ * answer would be wrong, and processing them again is harmless.
+ *
+ * @author agent <agent@local>
+ * @since 17.10.2026
+ */
+@Slf4j
+@Component
+public class CallReplayCache {
+
+    private static final int MAX_STATIONS = 100_000;
+
+    private static final Set<String> NOT_REPLAYED_ACTIONS = Set.of("Heartbeat", "BootNotification", "Authorize");
+
+    private final int sizePerStation;
+    private final long maxAgeNanos;
+    private final Ticker ticker;
+
+    private final Cache<String, StationEntries> stations;
+
+    private final AtomicLong lookupCount = new AtomicLong(0);
+    private final AtomicLong hitCount = new AtomicLong(0);
+
+    public CallReplayCache() {
+        this(CONFIG.getOcpp().getWsReplayCacheSize(), CONFIG.getOcpp().getWsReplayCacheMaxAgeSeconds(),
+             Ticker.systemTicker());
+    }
+
+    CallReplayCache(int sizePerStation, int maxAgeSeconds, Ticker ticker) {
+        this.sizePerStation = sizePerStation;
+        this.maxAgeNanos = TimeUnit.SECONDS.toNanos(maxAgeSeconds);
+        this.ticker = ticker;
+        this.stations = CacheBuilder.newBuilder()
+                                    .maximumSize(MAX_STATIONS)
+                                    .expireAfterAccess(Math.max(maxAgeSeconds, 1), TimeUnit.SECONDS)
+                                    .ticker(ticker)
+                                    .build();
+    }
+
+    /**
+     * @return the serialized response to send, if the call is a retransmission. Otherwise, null.
+     */
+    public String getResponse(String chargeBoxId, OcppJsonCall call, String incomingString) {
+        if (!isEnabledFor(call)) {
+            return null;
+        }
+
+        lookupCount.incrementAndGet();
+
+        StationEntries entries = stations.getIfPresent(chargeBoxId);
+        if (entries == null) {
+            return null;
+        }
+
+        String response = entries.get(call.getMessageId(), incomingString, ticker.read() - maxAgeNanos);
+        if (response != null) {
+            hitCount.incrementAndGet();
+            log.debug("[chargeBoxId={}, messageId={}] Answering the retransmitted '{}' from the cache",
+                    chargeBoxId, call.getMessageId(), call.getAction());
+        }
+        return response;
+    }
+
+    public void putResponse(String chargeBoxId, OcppJsonCall call, String incomingString, String outgoingString) {
+        if (!isEnabledFor(call)) {
+            return;
+        }
+
+        try {
+            stations.get(chargeBoxId, () -> new StationEntries(sizePerStation))
+                    .put(call.getMessageId(), incomingString, outgoingString, ticker.read());
+        } catch (ExecutionException e) {
+            log.error("Error occurred", e);
+        }
+    }
+
+    public long getLookupCount() {
+        return lookupCount.get();
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * @return percentage of lookups that were answered from the cache
+     */
+    public double getHitRate() {
+        long lookups = lookupCount.get();
+        return lookups == 0 ? 0 : 100.0 * hitCount.get() / lookups;
+    }
+
+    private boolean isEnabledFor(OcppJsonCall call) {
+        return sizePerStation > 0 && maxAgeNanos > 0 && !NOT_REPLAYED_ACTIONS.contains(call.getAction());
+    }
+
+    // -------------------------------------------------------------------------
+    // Classes
+    // -------------------------------------------------------------------------
+
+    /**
+     * LRU map of messageId to response. Messages of a station are mostly processed one after another, so the lock
+     * is rarely contended.
+     */
+    private static class StationEntries {
+        private final LinkedHashMap<String, Entry> map;
+
+        private StationEntries(int maxSize) {
+            this.map = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                    return size() > maxSize;
+                }
+            };
+        }
+
+        /**
+         * @param notBefore entries stored before this (ticker) time are too old
+         */
+        private synchronized String get(String messageId, String incomingString, long notBefore) {
+            Entry entry = map.get(messageId);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.storedAt - notBefore < 0) {
+                map.remove(messageId);
+                return null;
+            }
+            if (entry.request.equals(incomingString)) {
+                return entry.response;
+            }
+            return null;
+        }
+
+        private synchronized void put(String messageId, String incomingString, String response, long now) {
+            map.put(messageId, new Entry(incomingString, response, now));
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static class Entry {
+        private final String request;
+        private final String response;
+        private final long storedAt;
+    }
+}
@@ -18,32 +18,57 @@
  */
 package de.rwth.idsg.steve.ocpp.ws;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import de.rwth.idsg.ocpp.jaxb.RequestType;
 import de.rwth.idsg.steve.SteveException;
 import de.rwth.idsg.steve.ocpp.CommunicationTask;
+import de.rwth.idsg.steve.ocpp.ws.cluster.ClusterRouter;
 import de.rwth.idsg.steve.ocpp.ws.data.ActionResponsePair;
-import de.rwth.idsg.steve.ocpp.ws.data.CommunicationContext;
 import de.rwth.idsg.steve.ocpp.ws.data.FutureResponseContext;
 import de.rwth.idsg.steve.ocpp.ws.data.OcppJsonCall;
-import de.rwth.idsg.steve.ocpp.ws.pipeline.OutgoingCallPipeline;
+import de.rwth.idsg.steve.ocpp.ws.pipeline.Serializer;
 import de.rwth.idsg.steve.repository.dto.ChargePointSelect;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
 
 /**
  * @author Sevket Goekay <sevketgokay@gmail.com>
  * @since 20.03.2015
  */
 @Slf4j
-@RequiredArgsConstructor
 public class ChargePointServiceInvoker {
 
-    private final OutgoingCallPipeline outgoingCallPipeline;
+    private final OutgoingCallQueue outgoingCallQueue;
     private final AbstractWebSocketEndpoint endpoint;
     private final TypeStore typeStore;
 
+    // null, if calls for stations that are not connected to this node should not be forwarded
+    private final ClusterRouter clusterRouter;
+
+    // The JSON of the payloads of tasks with many stations. Weak keys (compared by identity), so that an entry goes
+    // away together with the task, which holds the payload.
+    private final Cache<RequestType, String> sharedPayloads = CacheBuilder.newBuilder()
+                                                                          .weakKeys()
+                                                                          .maximumSize(100)
+                                                                          .build();
+
+    public ChargePointServiceInvoker(OutgoingCallQueue outgoingCallQueue, AbstractWebSocketEndpoint endpoint,
+                                     TypeStore typeStore) {
+        this(outgoingCallQueue, endpoint, typeStore, null);
+    }
+
+    public ChargePointServiceInvoker(OutgoingCallQueue outgoingCallQueue, AbstractWebSocketEndpoint endpoint,
+                                     TypeStore typeStore, ClusterRouter clusterRouter) {
+        this.outgoingCallQueue = outgoingCallQueue;
+        this.endpoint = endpoint;
+        this.typeStore = typeStore;
+        this.clusterRouter = clusterRouter;
+    }
+
     /**
      * Just a wrapper to make try-catch block and exception handling stand out
      */
@@ -73,13 +98,29 @@ public class ChargePointServiceInvoker {
         call.setMessageId(UUID.randomUUID().toString());
         call.setPayload(request);
         call.setAction(pair.getAction());
+        if (task.getResultSize() > 1) {
+            call.setPayloadJson(getSharedPayloadJson(request));
+        }
+
+        FutureResponseContext frc = new FutureResponseContext(task, pair.getResponseClass(), pair.getAction());
 
-        FutureResponseContext frc = new FutureResponseContext(task, pair.getResponseClass());
+        if (clusterRouter != null && !endpoint.isConnected(chargeBoxId)) {
+            Optional<String> ownerUrl = clusterRouter.findRemoteOwner(chargeBoxId);
+            if (ownerUrl.isPresent()) {
+                clusterRouter.forward(ownerUrl.get(), chargeBoxId, endpoint.getVersion(), call, frc);
+                return;
+            }
+        }
 
-        CommunicationContext context = new CommunicationContext(endpoint.getSession(chargeBoxId), chargeBoxId);
-        context.setOutgoingMessage(call);
-        context.setFutureResponseContext(frc);
+        // Not sent right away, but after the previous calls to the station are done
+        outgoingCallQueue.submit(endpoint, chargeBoxId, call, frc);
+    }
 
-        outgoingCallPipeline.accept(context);
+    private String getSharedPayloadJson(RequestType request) {
+        try {
+            return sharedPayloads.get(request, () -> Serializer.INSTANCE.serializePayload(request));
+        } catch (ExecutionException e) {
+            throw new SteveException("The payload of the outgoing call could not be converted to JSON", e.getCause());
+        }
     }
 }
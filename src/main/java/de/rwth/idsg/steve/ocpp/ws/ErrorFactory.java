@@ -56,6 +56,16 @@ public final class ErrorFactory {
                 "Internal services failed while processing of the payload", details);
     }
 
+    public static OcppJsonError rateLimitExceeded(String messageId, String action) {
+        return setFields(messageId, ErrorCode.GenericError,
+                "Too many requests from this charge point. The action '" + action + "' was not processed", null);
+    }
+
+    public static OcppJsonError serverBusy(String messageId, String action) {
+        return setFields(messageId, ErrorCode.GenericError,
+                "The server is busy. The action '" + action + "' was not processed", null);
+    }
+
     private static OcppJsonError setFields(String messageId, ErrorCode code, String desc, String details) {
         OcppJsonError error = new OcppJsonError();
         error.setMessageId(messageId);
@@ -18,21 +18,44 @@
  */
 package de.rwth.idsg.steve.ocpp.ws;
 
+import de.rwth.idsg.steve.SteveException;
+import de.rwth.idsg.steve.ocpp.CommunicationTask;
+import de.rwth.idsg.steve.ocpp.ws.data.FailedResponse;
 import de.rwth.idsg.steve.ocpp.ws.data.FutureResponseContext;
+import de.rwth.idsg.steve.utils.HashedWheelTimer;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.jetbrains.annotations.Nullable;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.web.socket.WebSocketSession;
 
+import javax.annotation.PreDestroy;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BiFunction;
+import java.util.function.ToIntFunction;
+
+import static de.rwth.idsg.steve.SteveConfiguration.CONFIG;
 
 /**
  * Presumption: The responses must be sent using the same connection as the requests!
  *
+ * A stored call is removed, when
+ * 1) the response arrives,
+ * 2) the charge point does not respond within the configured timeout, or
+ * 3) the connection is closed.
+ * In the last two cases, the task is informed about the failure, so that it does not wait for ever. In all cases, the
+ * context is completed, so that the next call to the station can be sent.
+ *
+ * The expired calls are handled on the executor and not on the single timer thread, since the failure handlers of the
+ * tasks (and the completion listeners) can be slow, and must not delay the other timeouts.
+ *
  * @author Sevket Goekay <sevketgokay@gmail.com>
  * @since 21.03.2015
  */
@@ -40,37 +63,160 @@ import java.util.function.BiFunction;
 @Service
 public class FutureResponseContextStore {
 
+    private final int maxPending;
+    private final ToIntFunction<String> timeoutSecondsByAction;
+
+    // One tick per second is precise enough for timeouts in the range of seconds/minutes
+    private final HashedWheelTimer timer;
+
+    private final AtomicLong expiredCount = new AtomicLong(0);
+
     // We store for each chargeBox connection, multiple pairs of (messageId, context)
     // (session, (messageId, context))
     private final Map<WebSocketSession, Map<String, FutureResponseContext>> lookupTable = new ConcurrentHashMap<>();
 
+    @Autowired
+    public FutureResponseContextStore(ScheduledExecutorService executorService) {
+        this(executorService,
+             CONFIG.getOcpp().getWsCallMaxPendingPerSession(),
+             CONFIG.getOcpp()::getWsCallTimeoutSeconds);
+    }
+
+    FutureResponseContextStore(Executor executor, int maxPending, ToIntFunction<String> timeoutSecondsByAction) {
+        this.timer = new HashedWheelTimer("SteVe-CallTimeout", 1, TimeUnit.SECONDS, 512, executor);
+        this.maxPending = maxPending;
+        this.timeoutSecondsByAction = timeoutSecondsByAction;
+    }
+
     public void addSession(WebSocketSession session) {
-        addIfAbsent(session);
+        lookupTable.computeIfAbsent(session, innerSession -> {
+            log.debug("Creating new store for sessionId '{}'", innerSession.getId());
+            return new ConcurrentHashMap<>();
+        });
     }
 
     public void removeSession(WebSocketSession session) {
         log.debug("Deleting the store for sessionId '{}'", session.getId());
-        lookupTable.remove(session);
+        Map<String, FutureResponseContext> map = lookupTable.remove(session);
+        if (map == null) {
+            return;
+        }
+
+        // The responses to these calls cannot arrive anymore, since they must be sent over the same connection.
+        // Under the lock of the map, so that a concurrent add(..) either is in the map already, or sees that the
+        // session is removed.
+        synchronized (map) {
+            for (Map.Entry<String, FutureResponseContext> entry : map.entrySet()) {
+                FutureResponseContext context = entry.getValue();
+                cancelTimeout(context);
+                notifyFailure(session, context, "Connection was closed before a response was received");
+                context.complete();
+            }
+        }
     }
 
+    /**
+     * @throws SteveException if the session is closed, or already has too many calls waiting for a response
+     */
     public void add(WebSocketSession session, String messageId, FutureResponseContext context) {
-        Map<String, FutureResponseContext> map = addIfAbsent(session);
-        map.put(messageId, context);
-        log.debug("Store size for sessionId '{}': {}", session.getId(), map.size());
+        // the timeout must exist before the context is published, since a response can arrive right after the put,
+        // and get(..) must be able to cancel it
+        int timeoutSeconds = timeoutSecondsByAction.applyAsInt(context.getAction());
+        context.setTimeout(
+                timer.newTimeout(() -> expire(session, messageId, context), timeoutSeconds, TimeUnit.SECONDS));
+
+        try {
+            put(session, messageId, context);
+        } catch (SteveException e) {
+            cancelTimeout(context);
+            throw e;
+        }
     }
 
     @Nullable
     public FutureResponseContext get(WebSocketSession session, String messageId) {
         RemoveFunction removeFunction = new RemoveFunction(messageId);
         lookupTable.computeIfPresent(session, removeFunction);
-        return removeFunction.removedContext;
+
+        FutureResponseContext removedContext = removeFunction.removedContext;
+        if (removedContext != null) {
+            cancelTimeout(removedContext);
+            removedContext.complete();
+        }
+        return removedContext;
     }
 
-    private Map<String, FutureResponseContext> addIfAbsent(WebSocketSession session) {
-        return lookupTable.computeIfAbsent(session, innerSession -> {
-            log.debug("Creating new store for sessionId '{}'", innerSession.getId());
-            return new ConcurrentHashMap<>();
-        });
+    public int getNumberOfPendingCalls() {
+        return timer.getPendingCount();
+    }
+
+    public long getExpiredCount() {
+        return expiredCount.get();
+    }
+
+    @PreDestroy
+    public void shutDown() {
+        timer.stop();
+    }
+
+    // -------------------------------------------------------------------------
+    // Private helpers
+    // -------------------------------------------------------------------------
+
+    private void put(WebSocketSession session, String messageId, FutureResponseContext context) {
+        // do not create the map of a session that is not open (anymore), nobody would remove it
+        Map<String, FutureResponseContext> map = lookupTable.get(session);
+        if (map == null) {
+            throw new SteveException("The connection of sessionId '%s' is closed", session.getId());
+        }
+
+        // check and insert must be atomic, otherwise concurrent adds could exceed the limit. removals of single calls
+        // do not need the lock, since they can only make room.
+        synchronized (map) {
+            if (lookupTable.get(session) != map) {
+                throw new SteveException("The connection of sessionId '%s' is closed", session.getId());
+            }
+            if (map.size() >= maxPending) {
+                throw new SteveException("There are already %s calls waiting for a response from this charge point",
+                        maxPending);
+            }
+            map.put(messageId, context);
+        }
+        log.debug("Store size for sessionId '{}': {}", session.getId(), map.size());
+    }
+
+    private void expire(WebSocketSession session, String messageId, FutureResponseContext context) {
+        Map<String, FutureResponseContext> map = lookupTable.get(session);
+
+        // remove only if it is still the same context, the response might have arrived in the meantime
+        if (map != null && map.remove(messageId, context)) {
+            expiredCount.incrementAndGet();
+            notifyFailure(session, context, "No response was received within "
+                    + timeoutSecondsByAction.applyAsInt(context.getAction()) + " seconds");
+            context.complete();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void notifyFailure(WebSocketSession session, FutureResponseContext context, String reason) {
+        String chargeBoxId = (String) session.getAttributes().get(AbstractWebSocketEndpoint.CHARGEBOX_ID_KEY);
+        log.warn("[chargeBoxId={}, sessionId={}] {} for the call '{}'", chargeBoxId, session.getId(), reason,
+                context.getAction());
+        for (CommunicationTask task : context.getAllTasks()) {
+            try {
+                task.getHandler(chargeBoxId)
+                    .handleResponse(new FailedResponse(new SteveException(reason)));
+            } catch (Exception e) {
+                log.error("Exception occurred", e);
+            }
+        }
+    }
+
+    private static void cancelTimeout(FutureResponseContext context) {
+        HashedWheelTimer.Timeout timeout = context.getTimeout();
+        if (timeout != null) {
+            timeout.cancel();
+        }
     }
 
     @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
@@ -0,0 +1,164 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.ocpp.ws;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import de.rwth.idsg.steve.utils.TokenBucket;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static de.rwth.idsg.steve.SteveConfiguration.CONFIG;
+
+/**
+ * Limits the rate of WebSocket connection attempts per chargeBoxId and per remote address. A limit of N means
+ * N attempts per minute on average, with bursts of up to N attempts.
+ *
+ * The limit per address only counts attempts with unknown chargeBoxIds. Known stations never use it up, so that
+ * a fleet behind a NAT (or ingress) can reconnect at once after a restart of SteVe, when nothing is cached yet. Once
+ * an address used up its limit, all attempts from it that would require a database lookup are rejected.
+ *
+ * Behind a reverse proxy, all connections come from the proxy. If the proxy is listed as trusted, we use the
+ * address of the client from the X-Forwarded-For header instead: the rightmost entry that is not a trusted proxy
+ * itself, since the entries left of it can be set by the client.
+ *
+ * The buckets are kept in size-bounded caches, since a scanner can send us any number of different chargeBoxIds
+ * (or addresses). An evicted bucket is simply recreated (full) with the next attempt.
+ *
+ * @author agent <agent@local>
+ * @since 17.10.2026
+ */
+@Slf4j
+@Component
+public class HandshakeRateLimiter {
+
+    private static final int MAX_BUCKETS = 10_000;
+
+    private final int perStationLimit;
+    private final int perAddressLimit;
+    private final Set<String> trustedProxies;
+
+    private final Cache<String, TokenBucket> stationBuckets = newBucketCache();
+    private final Cache<String, TokenBucket> addressBuckets = newBucketCache();
+
+    private final AtomicLong rejectedCount = new AtomicLong(0);
+
+    public HandshakeRateLimiter() {
+        this(CONFIG.getOcpp().getWsHandshakeRateLimitStation(), CONFIG.getOcpp().getWsHandshakeRateLimitAddress(),
+             CONFIG.getOcpp().getWsHandshakeTrustedProxies());
+    }
+
+    HandshakeRateLimiter(int perStationLimit, int perAddressLimit, Set<String> trustedProxies) {
+        this.perStationLimit = perStationLimit;
+        this.perAddressLimit = perAddressLimit;
+        this.trustedProxies = trustedProxies;
+    }
+
+    public boolean tryAcquireForStation(String chargeBoxId) {
+        return tryAcquire(stationBuckets, chargeBoxId, perStationLimit);
+    }
+
+    /**
+     * Does not use up the limit. Only {@link #countUnknownForAddress(String)} does.
+     */
+    public boolean isBlockedForAddress(String clientAddress) {
+        if (perAddressLimit <= 0 || clientAddress == null) {
+            return false;
+        }
+
+        TokenBucket bucket = addressBuckets.getIfPresent(clientAddress);
+        if (bucket == null || bucket.hasTokens()) {
+            return false;
+        }
+
+        rejectedCount.incrementAndGet();
+        return true;
+    }
+
+    public void countUnknownForAddress(String clientAddress) {
+        tryAcquire(addressBuckets, clientAddress, perAddressLimit);
+    }
+
+    /**
+     * @param remoteAddress address of the TCP connection
+     * @param forwardedFor  values of the X-Forwarded-For headers, in the order of the request
+     */
+    public String resolveClientAddress(String remoteAddress, List<String> forwardedFor) {
+        if (remoteAddress == null || !trustedProxies.contains(remoteAddress) || forwardedFor == null) {
+            return remoteAddress;
+        }
+
+        String clientAddress = remoteAddress;
+        for (int i = forwardedFor.size() - 1; i >= 0; i--) {
+            String[] hops = forwardedFor.get(i).split(",");
+            for (int j = hops.length - 1; j >= 0; j--) {
+                String hop = hops[j].trim();
+                if (hop.isEmpty()) {
+                    continue;
+                }
+                clientAddress = hop;
+                if (!trustedProxies.contains(hop)) {
+                    return clientAddress;
+                }
+            }
+        }
+        return clientAddress;
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    // -------------------------------------------------------------------------
+    // Private helpers
+    // -------------------------------------------------------------------------
+
+    private boolean tryAcquire(Cache<String, TokenBucket> buckets, String key, int limitPerMinute) {
+        if (limitPerMinute <= 0 || key == null) {
+            return true;
+        }
+
+        boolean acquired;
+        try {
+            acquired = buckets.get(key, () -> new TokenBucket(limitPerMinute / 60.0, limitPerMinute)).tryAcquire();
+        } catch (ExecutionException e) {
+            log.error("Error occurred", e);
+            return true;
+        }
+
+        if (!acquired) {
+            rejectedCount.incrementAndGet();
+        }
+        return acquired;
+    }
+
+    private static Cache<String, TokenBucket> newBucketCache() {
+        // a bucket that was not used for a while is full again anyway
+        return CacheBuilder.newBuilder()
+                           .maximumSize(MAX_BUCKETS)
+                           .expireAfterAccess(10, TimeUnit.MINUTES)
+                           .build();
+    }
+}
@@ -0,0 +1,268 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.ocpp.ws;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import de.rwth.idsg.steve.ocpp.ws.custom.WsDispatchMode;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+
+import javax.annotation.PreDestroy;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static de.rwth.idsg.steve.SteveConfiguration.CONFIG;
+
+/**
+ * Decouples the processing of incoming WebSocket frames from the Jetty threads that receive them.
+ *
+ * In {@link WsDispatchMode#MAILBOX} mode, every chargeBoxId has its own mailbox. The frames of a station are
+ * processed strictly in arrival order, but at most one worker at a time is busy with a station. Different stations
+ * are processed in parallel by a bounded worker pool, whose size should be aligned with the number of database
+ * connections, since the workers spend most of their time in the database.
+ *
+ * In {@link WsDispatchMode#INLINE} mode, the frame is processed by the calling thread (the old behaviour).
+ *
+ * @author agent <agent@local>
+ * @since 17.10.2026
+ */
+@Slf4j
+@Component
+public class IncomingMessageDispatcher {
+
+    /**
+     * After processing this many frames in a row, a worker goes back to the pool, even if the mailbox is not
+     * empty. Otherwise, a chatty station could occupy a worker for ever.
+     */
+    private static final int MAX_FRAMES_PER_RUN = 32;
+
+    @Getter private final WsDispatchMode mode;
+    @Getter private final int queueLimit;
+
+    private final ThreadPoolExecutor executor;
+    private final ConcurrentHashMap<String, Mailbox> mailboxes = new ConcurrentHashMap<>();
+
+    private final AtomicLong processedCount = new AtomicLong(0);
+    private final AtomicLong rejectedCount = new AtomicLong(0);
+
+    public IncomingMessageDispatcher() {
+        this(CONFIG.getOcpp().getWsDispatchMode(),
+             CONFIG.getOcpp().getWsDispatchThreads(),
+             CONFIG.getOcpp().getWsDispatchQueueLimit());
+    }
+
+    IncomingMessageDispatcher(WsDispatchMode mode, int threads, int queueLimit) {
+        this.mode = mode;
+        this.queueLimit = queueLimit;
+
+        if (mode == WsDispatchMode.MAILBOX) {
+            // The work queue cannot grow beyond the number of mailboxes, since a mailbox is scheduled at most once
+            executor = new ThreadPoolExecutor(
+                    threads, threads,
+                    60, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(),
+                    new ThreadFactoryBuilder().setNameFormat("SteVe-WsDispatcher-%d").build()
+            );
+            executor.allowCoreThreadTimeOut(true);
+            log.info("Incoming WebSocket frames will be processed by {} workers (per-station queue limit: {})",
+                    threads, queueLimit);
+        } else {
+            executor = null;
+        }
+    }
+
+    /**
+     * @return false, if the mailbox of the station is full and the task was NOT accepted. The caller is expected to
+     * push back on the station.
+     */
+    public boolean dispatch(String chargeBoxId, WebSocketSession session, Runnable task) {
+        if (executor == null) {
+            task.run();
+            return true;
+        }
+
+        // The offer runs under the lock of the map entry, same as removeMailbox(). Otherwise, a frame could be offered
+        // to a mailbox that was just removed, while the next frame creates a new one, and both would be processed
+        // in parallel.
+        Frame frame = new Frame(session, task);
+        AtomicBoolean result = new AtomicBoolean(false);
+        mailboxes.compute(chargeBoxId, (id, mailbox) -> {
+            Mailbox m = (mailbox == null) ? new Mailbox(id) : mailbox;
+            result.set(m.offer(frame));
+            return m;
+        });
+
+        boolean accepted = result.get();
+        if (!accepted) {
+            rejectedCount.incrementAndGet();
+        }
+        return accepted;
+    }
+
+    /**
+     * Should be called after the last session of a station is closed. A mailbox that still has frames to process
+     * is kept, it will drain itself.
+     */
+    public void removeMailbox(String chargeBoxId) {
+        mailboxes.computeIfPresent(chargeBoxId, (id, mailbox) -> mailbox.isIdle() ? null : mailbox);
+    }
+
+    // -------------------------------------------------------------------------
+    // Metrics
+    // -------------------------------------------------------------------------
+
+    public int getQueueDepth(String chargeBoxId) {
+        Mailbox mailbox = mailboxes.get(chargeBoxId);
+        return (mailbox == null) ? 0 : mailbox.size.get();
+    }
+
+    public int getTotalQueueDepth() {
+        int sum = 0;
+        for (Mailbox mailbox : mailboxes.values()) {
+            sum += mailbox.size.get();
+        }
+        return sum;
+    }
+
+    public int getActiveWorkerCount() {
+        return (executor == null) ? 0 : executor.getActiveCount();
+    }
+
+    public long getProcessedCount() {
+        return processedCount.get();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    @PreDestroy
+    public void shutDown() {
+        if (executor == null) {
+            return;
+        }
+
+        try {
+            executor.shutdown();
+            executor.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            log.error("Termination interrupted", e);
+        } finally {
+            if (!executor.isTerminated()) {
+                log.warn("Killing non-finished tasks");
+            }
+            executor.shutdownNow();
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Private helpers
+    // -------------------------------------------------------------------------
+
+    private static class Frame {
+        private final WebSocketSession session;
+        private final Runnable task;
+
+        private Frame(WebSocketSession session, Runnable task) {
+            this.session = session;
+            this.task = task;
+        }
+    }
+
+    private class Mailbox implements Runnable {
+        private final String chargeBoxId;
+        private final Queue<Frame> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger(0);
+        private final AtomicBoolean scheduled = new AtomicBoolean(false);
+
+        private Mailbox(String chargeBoxId) {
+            this.chargeBoxId = chargeBoxId;
+        }
+
+        private boolean offer(Frame frame) {
+            if (size.incrementAndGet() > queueLimit) {
+                size.decrementAndGet();
+                return false;
+            }
+            queue.offer(frame);
+            schedule();
+            return true;
+        }
+
+        private boolean isIdle() {
+            return size.get() == 0 && !scheduled.get();
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                executor.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                Frame frame;
+                for (int i = 0; i < MAX_FRAMES_PER_RUN && (frame = queue.poll()) != null; i++) {
+                    try {
+                        process(frame);
+                    } finally {
+                        size.decrementAndGet();
+                    }
+                }
+            } finally {
+                scheduled.set(false);
+                // A frame might have been added after our last poll, but before resetting the flag
+                if (!queue.isEmpty()) {
+                    schedule();
+                }
+            }
+        }
+
+        /**
+         * Same as what Spring does for exceptions thrown on the Jetty thread: log and close the session.
+         */
+        private void process(Frame frame) {
+            try {
+                frame.task.run();
+                processedCount.incrementAndGet();
+            } catch (Exception e) {
+                log.error("[chargeBoxId={}, sessionId={}] Closing session due to exception",
+                        chargeBoxId, frame.session.getId(), e);
+                try {
+                    if (frame.session.isOpen()) {
+                        frame.session.close(CloseStatus.SERVER_ERROR);
+                    }
+                } catch (Exception ex) {
+                    log.warn("Failed to close session", ex);
+                }
+            }
+        }
+    }
+}
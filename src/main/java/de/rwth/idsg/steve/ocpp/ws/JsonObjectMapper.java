@@ -21,6 +21,8 @@ package de.rwth.idsg.steve.ocpp.ws;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.databind.AnnotationIntrospector;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.introspect.JacksonAnnotationIntrospector;
 import com.fasterxml.jackson.module.jaxb.JaxbAnnotationIntrospector;
 import de.rwth.idsg.steve.ocpp.ws.custom.CustomStringModule;
@@ -42,6 +44,25 @@ public enum JsonObjectMapper {
 
     private final ObjectMapper mapper;
 
+    /**
+     * Creating an ObjectReader is cheap, but looking up the root deserializer for a type is not. A reader that is
+     * bound to a type does this lookup once and keeps the result. There is a fixed number of OCPP payload classes,
+     * therefore we can keep one reader (and writer) per class for ever.
+     */
+    private final ClassValue<ObjectReader> readers = new ClassValue<>() {
+        @Override
+        protected ObjectReader computeValue(Class<?> type) {
+            return mapper.readerFor(type);
+        }
+    };
+
+    private final ClassValue<ObjectWriter> writers = new ClassValue<>() {
+        @Override
+        protected ObjectWriter computeValue(Class<?> type) {
+            return mapper.writerFor(type);
+        }
+    };
+
     JsonObjectMapper() {
         mapper = new ObjectMapper();
         mapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
@@ -73,4 +94,12 @@ public enum JsonObjectMapper {
     public ObjectMapper getMapper() {
         return mapper;
     }
+
+    public ObjectReader getReader(Class<?> type) {
+        return readers.get(type);
+    }
+
+    public ObjectWriter getWriter(Class<?> type) {
+        return writers.get(type);
+    }
 }
@@ -34,6 +34,7 @@ import org.springframework.web.socket.server.HandshakeFailureException;
 import org.springframework.web.socket.server.HandshakeHandler;
 import org.springframework.web.socket.server.support.DefaultHandshakeHandler;
 
+import java.net.InetSocketAddress;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -48,9 +49,13 @@ import static de.rwth.idsg.steve.utils.StringUtils.getLastBitFromUrl;
 @RequiredArgsConstructor
 public class OcppWebSocketHandshakeHandler implements HandshakeHandler {
 
+    private static final String X_FORWARDED_FOR = "X-Forwarded-For";
+
     private final DefaultHandshakeHandler delegate;
     private final List<AbstractWebSocketEndpoint> endpoints;
     private final ChargePointHelperService chargePointHelperService;
+    private final WebSocketDrainer webSocketDrainer;
+    private final HandshakeRateLimiter handshakeRateLimiter;
 
     /**
      * We need some WebSocketHandler just for Spring to register it for the path. We will not use it for the actual
@@ -66,10 +71,42 @@ public class OcppWebSocketHandshakeHandler implements HandshakeHandler {
                                WebSocketHandler wsHandler, Map<String, Object> attributes) throws HandshakeFailureException {
 
         // -------------------------------------------------------------------------
-        // 1. Check the chargeBoxId
+        // 0. Refuse new connections while draining. The station should connect to another node or try again later.
         // -------------------------------------------------------------------------
 
+        if (webSocketDrainer.isDraining()) {
+            response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+            return false;
+        }
+
         String chargeBoxId = getLastBitFromUrl(request.getURI().getPath());
+
+        // -------------------------------------------------------------------------
+        // 1. Rate limits, that are checked without touching the database. Addresses that sent too many unknown
+        // chargeBoxIds are blocked, except for known stations that are cached.
+        // -------------------------------------------------------------------------
+
+        if (!handshakeRateLimiter.tryAcquireForStation(chargeBoxId)) {
+            log.warn("ChargeBoxId '{}' exceeded the rate limit of connection attempts", chargeBoxId);
+            response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+            return false;
+        }
+
+        String clientAddress = handshakeRateLimiter.resolveClientAddress(
+                getRemoteAddress(request), request.getHeaders().get(X_FORWARDED_FOR));
+
+        if (!chargePointHelperService.isCachedAsKnown(chargeBoxId)
+                && handshakeRateLimiter.isBlockedForAddress(clientAddress)) {
+            log.warn("Address '{}' exceeded the rate limit of unknown chargeBoxIds (chargeBoxId '{}')",
+                    clientAddress, chargeBoxId);
+            response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+            return false;
+        }
+
+        // -------------------------------------------------------------------------
+        // 2. Check the chargeBoxId
+        // -------------------------------------------------------------------------
+
         Optional<RegistrationStatus> status = chargePointHelperService.getRegistrationStatus(chargeBoxId);
 
         // Allow connections, if station is in db (registration_status field from db does not matter)
@@ -78,6 +115,7 @@ public class OcppWebSocketHandshakeHandler implements HandshakeHandler {
         // https://github.com/steve-community/steve/issues/1020
         if (!allowConnection) {
             log.error("ChargeBoxId '{}' is not recognized.", chargeBoxId);
+            handshakeRateLimiter.countUnknownForAddress(clientAddress);
             response.setStatusCode(HttpStatus.NOT_FOUND);
             return false;
         }
@@ -85,7 +123,7 @@ public class OcppWebSocketHandshakeHandler implements HandshakeHandler {
         attributes.put(AbstractWebSocketEndpoint.CHARGEBOX_ID_KEY, chargeBoxId);
 
         // -------------------------------------------------------------------------
-        // 2. Route according to the selected protocol
+        // 3. Route according to the selected protocol
         // -------------------------------------------------------------------------
 
         List<String> requestedProtocols = new WebSocketHttpHeaders(request.getHeaders()).getSecWebSocketProtocol();
@@ -108,6 +146,14 @@ public class OcppWebSocketHandshakeHandler implements HandshakeHandler {
         return delegate.doHandshake(request, response, endpoint, attributes);
     }
 
+    private static String getRemoteAddress(ServerHttpRequest request) {
+        InetSocketAddress address = request.getRemoteAddress();
+        if (address == null || address.getAddress() == null) {
+            return null;
+        }
+        return address.getAddress().getHostAddress();
+    }
+
     private AbstractWebSocketEndpoint selectEndpoint(List<String> requestedProtocols ) {
         for (String requestedProcotol : requestedProtocols) {
             for (AbstractWebSocketEndpoint item : endpoints) {
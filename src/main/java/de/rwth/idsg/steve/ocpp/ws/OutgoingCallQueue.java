@@ -0,0 +1,459 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.ocpp.ws;
+
+import com.google.common.collect.ImmutableSet;
+import de.rwth.idsg.steve.SteveException;
+import de.rwth.idsg.steve.ocpp.CommunicationTask;
+import de.rwth.idsg.steve.ocpp.ws.data.CommunicationContext;
+import de.rwth.idsg.steve.ocpp.ws.data.FutureResponseContext;
+import de.rwth.idsg.steve.ocpp.ws.data.OcppJsonCall;
+import de.rwth.idsg.steve.ocpp.ws.pipeline.OutgoingCallPipeline;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static de.rwth.idsg.steve.SteveConfiguration.CONFIG;
+
+/**
+ * OCPP-J allows only one outstanding CALL per direction. Therefore, the outgoing calls to a station are queued, and
+ * the next one is sent only after the response to the previous one arrived (or the previous one timed out).
+ *
+ * While waiting to be sent, a call that is identical to an already waiting one (same action and payload) is coalesced
+ * with it, if the action is free of side effects beyond the first execution (e.g. TriggerMessage). The tasks of
+ * coalesced calls get the response of the one call that is actually sent.
+ *
+ * Calls for stations that are not connected fail right away, unless ws.outgoing.offline.hold is set. Then, they wait
+ * for the station to (re)connect for up to that many seconds. Waiting calls of a station that disconnects are
+ * treated the same way.
+ *
+ * The next call is sent from the executor, and not from the thread that completed the previous one. That thread is
+ * usually the one that processes the incoming messages of the station (or the timer of timeouts), which should not
+ * do the work of the outgoing pipeline.
+ *
+ * @author agent <agent@local>
+ * @since 17.10.2026
+ */
+@Slf4j
+@Component
+public class OutgoingCallQueue {
+
+    private static final Set<String> COALESCABLE_ACTIONS = ImmutableSet.of(
+            "TriggerMessage",
+            "GetConfiguration",
+            "GetLocalListVersion",
+            "GetCompositeSchedule",
+            "ClearCache"
+    );
+
+    /**
+     * Upper bounds (in millis) of the buckets of the queue wait histogram. The last bucket is for everything above.
+     */
+    private static final long[] WAIT_BUCKETS_MILLIS = {10, 100, 1000, 10_000, 60_000};
+
+    /**
+     * Where the calls go. Allows to test the queue without WebSocket sessions.
+     */
+    interface Target {
+        boolean isConnected(String chargeBoxId);
+
+        void send(String chargeBoxId, OcppJsonCall call, FutureResponseContext context);
+    }
+
+    @Autowired private OutgoingCallPipeline outgoingCallPipeline;
+
+    private final int queueLimit;
+    private final long offlineHoldNanos;
+    private final ScheduledExecutorService executorService;
+    private final Executor sendExecutor;
+
+    private final ConcurrentHashMap<String, StationQueue> queues = new ConcurrentHashMap<>();
+
+    private final AtomicLong sentCount = new AtomicLong(0);
+    private final AtomicLong coalescedCount = new AtomicLong(0);
+    private final AtomicLong expiredCount = new AtomicLong(0);
+    private final AtomicLong totalWaitNanos = new AtomicLong(0);
+    private final AtomicLongArray waitHistogram = new AtomicLongArray(WAIT_BUCKETS_MILLIS.length + 1);
+
+    private ScheduledFuture<?> expirySchedule;
+
+    @Autowired
+    public OutgoingCallQueue(ScheduledExecutorService executorService) {
+        this(CONFIG.getOcpp().getWsOutgoingQueueLimit(), CONFIG.getOcpp().getWsOutgoingOfflineHoldSeconds(),
+             executorService, executorService);
+    }
+
+    OutgoingCallQueue(int queueLimit, int offlineHoldSeconds, ScheduledExecutorService executorService,
+                      Executor sendExecutor) {
+        this.queueLimit = queueLimit;
+        this.offlineHoldNanos = TimeUnit.SECONDS.toNanos(offlineHoldSeconds);
+        this.executorService = executorService;
+        this.sendExecutor = sendExecutor;
+    }
+
+    /**
+     * Also without holding calls for offline stations, the waiting calls of a station that disconnects in the
+     * meantime must fail eventually.
+     */
+    @PostConstruct
+    public void init() {
+        expirySchedule = executorService.scheduleWithFixedDelay(this::expireOfflineCalls, 1, 1, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void shutDown() {
+        if (expirySchedule != null) {
+            expirySchedule.cancel(false);
+        }
+    }
+
+    /**
+     * @throws SteveException if the call cannot be queued. Failures after queueing are reported to the task.
+     */
+    public void submit(AbstractWebSocketEndpoint endpoint, String chargeBoxId, OcppJsonCall call,
+                       FutureResponseContext context) {
+        submit(new EndpointTarget(endpoint, outgoingCallPipeline), chargeBoxId, call, context);
+    }
+
+    void submit(Target target, String chargeBoxId, OcppJsonCall call, FutureResponseContext context) {
+        if (offlineHoldNanos <= 0 && !target.isConnected(chargeBoxId)) {
+            throw new SteveException("No session context for chargeBoxId '%s'", chargeBoxId);
+        }
+
+        QueuedCall queuedCall = new QueuedCall(target, call, context, System.nanoTime());
+
+        // compute(..), so that the queue cannot be removed in between (see removeIfIdle)
+        StationQueue queue = queues.compute(chargeBoxId, (key, existing) -> {
+            StationQueue q = (existing == null) ? new StationQueue(chargeBoxId) : existing;
+            q.add(queuedCall);
+            return q;
+        });
+
+        trySendNext(queue);
+    }
+
+    /**
+     * Removes the call of the task, if it is still waiting to be sent. A call that other tasks were coalesced with is
+     * not removed, since they still wait for its response.
+     *
+     * @return true, if the call of the task will not be sent
+     */
+    public boolean cancel(String chargeBoxId, CommunicationTask task) {
+        StationQueue queue = queues.get(chargeBoxId);
+        if (queue == null || !queue.cancel(task)) {
+            return false;
+        }
+        removeIfIdle(queue);
+        return true;
+    }
+
+    /**
+     * To be called when a station connects, so that the calls that were held for it are sent
+     */
+    public void stationConnected(String chargeBoxId) {
+        StationQueue queue = queues.get(chargeBoxId);
+        if (queue != null) {
+            trySendNext(queue);
+        }
+    }
+
+    public int getQueueDepth(String chargeBoxId) {
+        StationQueue queue = queues.get(chargeBoxId);
+        return queue == null ? 0 : queue.size();
+    }
+
+    public int getTotalQueueDepth() {
+        return queues.values().stream().mapToInt(StationQueue::size).sum();
+    }
+
+    public long getCoalescedCount() {
+        return coalescedCount.get();
+    }
+
+    public long getExpiredCount() {
+        return expiredCount.get();
+    }
+
+    /**
+     * @return average time (in millis) that the sent calls waited in the queue
+     */
+    public long getAverageWaitMillis() {
+        long sent = sentCount.get();
+        return sent == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalWaitNanos.get() / sent);
+    }
+
+    /**
+     * @return number of sent calls per wait bucket. Index i counts the calls that waited up to WAIT_BUCKETS_MILLIS[i]
+     *         millis, the last index the ones that waited longer.
+     */
+    public long[] getWaitHistogram() {
+        long[] result = new long[waitHistogram.length()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = waitHistogram.get(i);
+        }
+        return result;
+    }
+
+    public static long[] getWaitBucketsMillis() {
+        return WAIT_BUCKETS_MILLIS.clone();
+    }
+
+    // -------------------------------------------------------------------------
+    // Private helpers
+    // -------------------------------------------------------------------------
+
+    private void trySendNext(StationQueue queue) {
+        QueuedCall next = queue.pollIfSendable();
+        if (next == null) {
+            removeIfIdle(queue);
+            return;
+        }
+
+        recordWait(System.nanoTime() - next.enqueuedAt);
+
+        FutureResponseContext context = next.context;
+        context.setCompletionListener(() -> {
+            queue.inFlightDone(next);
+            sendExecutor.execute(() -> trySendNext(queue));
+        });
+
+        try {
+            next.target.send(queue.chargeBoxId, next.call, context);
+        } catch (Exception e) {
+            log.error("[chargeBoxId={}] Sending '{}' failed", queue.chargeBoxId, next.call.getAction(), e);
+            notifyFailure(queue.chargeBoxId, next, e);
+            // the call did not leave, so there will be no response. continue with the next one.
+            context.complete();
+        }
+    }
+
+    private void recordWait(long nanos) {
+        sentCount.incrementAndGet();
+        totalWaitNanos.addAndGet(nanos);
+
+        long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+        int bucket = 0;
+        while (bucket < WAIT_BUCKETS_MILLIS.length && millis > WAIT_BUCKETS_MILLIS[bucket]) {
+            bucket++;
+        }
+        waitHistogram.incrementAndGet(bucket);
+    }
+
+    private void removeIfIdle(StationQueue queue) {
+        queues.computeIfPresent(queue.chargeBoxId, (key, q) -> (q == queue && q.isIdle()) ? null : q);
+    }
+
+    void expireOfflineCalls() {
+        long now = System.nanoTime();
+        for (StationQueue queue : queues.values()) {
+            for (QueuedCall expired : queue.removeExpired(now, offlineHoldNanos)) {
+                expiredCount.incrementAndGet();
+                notifyFailure(queue.chargeBoxId, expired, new SteveException(
+                        "Station was not connected within %s seconds",
+                        TimeUnit.NANOSECONDS.toSeconds(offlineHoldNanos)));
+            }
+            removeIfIdle(queue);
+        }
+    }
+
+    private static void notifyFailure(String chargeBoxId, QueuedCall queuedCall, Exception e) {
+        for (CommunicationTask task : queuedCall.context.getAllTasks()) {
+            try {
+                task.defaultCallback().failed(chargeBoxId, e);
+            } catch (Exception ex) {
+                log.error("Exception occurred", ex);
+            }
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Classes
+    // -------------------------------------------------------------------------
+
+    private static class QueuedCall {
+        private final Target target;
+        private final OcppJsonCall call;
+        private final FutureResponseContext context;
+        private final long enqueuedAt;
+        private final String coalescingKey;
+
+        private QueuedCall(Target target, OcppJsonCall call, FutureResponseContext context, long enqueuedAt) {
+            this.target = target;
+            this.call = call;
+            this.context = context;
+            this.enqueuedAt = enqueuedAt;
+            this.coalescingKey = createCoalescingKey(call);
+        }
+
+        private boolean isIdentical(QueuedCall other) {
+            return coalescingKey != null
+                    && coalescingKey.equals(other.coalescingKey)
+                    && target.equals(other.target);
+        }
+
+        private static String createCoalescingKey(OcppJsonCall call) {
+            if (!COALESCABLE_ACTIONS.contains(call.getAction())) {
+                return null;
+            }
+            if (call.getPayloadJson() != null) {
+                return call.getAction() + call.getPayloadJson();
+            }
+            try {
+                return call.getAction() + JsonObjectMapper.INSTANCE.getMapper().writeValueAsString(call.getPayload());
+            } catch (Exception e) {
+                return null;
+            }
+        }
+    }
+
+    private class StationQueue {
+        private final String chargeBoxId;
+        private final Deque<QueuedCall> waiting = new ArrayDeque<>();
+        private QueuedCall inFlight;
+
+        private StationQueue(String chargeBoxId) {
+            this.chargeBoxId = chargeBoxId;
+        }
+
+        private synchronized void add(QueuedCall queuedCall) {
+            for (QueuedCall other : waiting) {
+                if (queuedCall.isIdentical(other)) {
+                    other.context.getCoalescedTasks().add(queuedCall.context.getTask());
+                    coalescedCount.incrementAndGet();
+                    log.debug("[chargeBoxId={}] Coalesced '{}' with a waiting identical call",
+                            chargeBoxId, queuedCall.call.getAction());
+                    return;
+                }
+            }
+
+            if (waiting.size() >= queueLimit) {
+                throw new SteveException("There are already %s calls waiting to be sent to this charge point",
+                        queueLimit);
+            }
+            waiting.add(queuedCall);
+        }
+
+        /**
+         * @return the next call, which is now in flight, or null if nothing can be sent at the moment
+         */
+        private synchronized QueuedCall pollIfSendable() {
+            if (inFlight != null) {
+                return null;
+            }
+            QueuedCall next = waiting.peek();
+            if (next == null || !next.target.isConnected(chargeBoxId)) {
+                return null;
+            }
+            inFlight = waiting.poll();
+            return inFlight;
+        }
+
+        private synchronized void inFlightDone(QueuedCall queuedCall) {
+            if (inFlight == queuedCall) {
+                inFlight = null;
+            }
+        }
+
+        private synchronized boolean cancel(CommunicationTask task) {
+            Iterator<QueuedCall> it = waiting.iterator();
+            while (it.hasNext()) {
+                FutureResponseContext context = it.next().context;
+                if (context.getTask() == task) {
+                    if (!context.getCoalescedTasks().isEmpty()) {
+                        return false;
+                    }
+                    it.remove();
+                    return true;
+                }
+                if (context.getCoalescedTasks().remove(task)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private synchronized List<QueuedCall> removeExpired(long now, long holdNanos) {
+            List<QueuedCall> expired = new ArrayList<>();
+            Iterator<QueuedCall> it = waiting.iterator();
+            while (it.hasNext()) {
+                QueuedCall queuedCall = it.next();
+                if (!queuedCall.target.isConnected(chargeBoxId) && now - queuedCall.enqueuedAt >= holdNanos) {
+                    it.remove();
+                    expired.add(queuedCall);
+                }
+            }
+            return expired;
+        }
+
+        private synchronized boolean isIdle() {
+            return inFlight == null && waiting.isEmpty();
+        }
+
+        private synchronized int size() {
+            return waiting.size() + (inFlight == null ? 0 : 1);
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static class EndpointTarget implements Target {
+        private final AbstractWebSocketEndpoint endpoint;
+        private final OutgoingCallPipeline pipeline;
+
+        @Override
+        public boolean isConnected(String chargeBoxId) {
+            return endpoint.isConnected(chargeBoxId);
+        }
+
+        @Override
+        public void send(String chargeBoxId, OcppJsonCall call, FutureResponseContext context) {
+            CommunicationContext communicationContext = new CommunicationContext(endpoint.getSession(chargeBoxId),
+                    chargeBoxId);
+            communicationContext.setOutgoingMessage(call);
+            communicationContext.setFutureResponseContext(context);
+            pipeline.accept(communicationContext);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof EndpointTarget && ((EndpointTarget) o).endpoint == endpoint;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(endpoint);
+        }
+    }
+}
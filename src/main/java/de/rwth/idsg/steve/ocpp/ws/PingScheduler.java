@@ -0,0 +1,193 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.ocpp.ws;
+
+import de.rwth.idsg.steve.ocpp.ws.data.PingState;
+import de.rwth.idsg.steve.utils.HashedWheelTimer;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.jetty.websocket.api.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.NativeWebSocketSession;
+import org.springframework.web.socket.PingMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static de.rwth.idsg.steve.SteveConfiguration.CONFIG;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Sends WebSocket pings to all connected stations, from one timer wheel instead of a scheduled task per session.
+ *
+ * Pings keep the connection alive (so that proxies etc. do not close it because of an idle timeout) and tell us
+ * whether the connection is still alive: A connection, whose other end disappeared without closing it (power loss,
+ * network change), stays open on our side until a write fails, which might never happen. Therefore, we close the
+ * session ourselves after a number of pings in a row remained unanswered.
+ *
+ * @author agent <agent@local>
+ * @since 17.10.2026
+ */
+@Slf4j
+@Component
+public class PingScheduler {
+
+    private static final PingMessage PING_MESSAGE = new PingMessage(ByteBuffer.wrap("ping".getBytes(UTF_8)));
+
+    private final ScheduledExecutorService executorService;
+
+    private final long intervalMillis;
+    private final int maxMissedPongs;
+
+    /**
+     * Key = WebSocket session id
+     */
+    private final ConcurrentHashMap<String, PingState> lookupTable = new ConcurrentHashMap<>();
+
+    private HashedWheelTimer timer;
+
+    @Autowired
+    public PingScheduler(ScheduledExecutorService executorService) {
+        this(executorService, TimeUnit.SECONDS.toMillis(CONFIG.getOcpp().getWsPingIntervalSeconds()),
+             CONFIG.getOcpp().getWsPingMaxMissed());
+    }
+
+    PingScheduler(ScheduledExecutorService executorService, long intervalMillis, int maxMissedPongs) {
+        this.executorService = executorService;
+        this.intervalMillis = intervalMillis;
+        this.maxMissedPongs = maxMissedPongs;
+    }
+
+    @PostConstruct
+    public void init() {
+        // The pings are sent from the executor, since a send might block while the session flushes a large message
+        timer = new HashedWheelTimer("SteVe-PingTimer", 1, TimeUnit.SECONDS, 1024, executorService);
+    }
+
+    @PreDestroy
+    public void shutDown() {
+        timer.stop();
+    }
+
+    public PingState start(String chargeBoxId, WebSocketSession session) {
+        PingState state = new PingState(chargeBoxId, session);
+        lookupTable.put(session.getId(), state);
+
+        // Many stations connect at the same time after a restart. Spread their first pings over half an interval,
+        // so that they do not stay in lockstep for ever.
+        long halfInterval = intervalMillis / 2;
+        schedule(state, halfInterval + ThreadLocalRandom.current().nextLong(halfInterval + 1));
+        return state;
+    }
+
+    public void stop(WebSocketSession session) {
+        PingState state = lookupTable.remove(session.getId());
+        if (state != null) {
+            state.stop();
+        }
+    }
+
+    public void pongReceived(WebSocketSession session) {
+        PingState state = lookupTable.get(session.getId());
+        if (state != null) {
+            state.pongReceived(System.nanoTime());
+        }
+    }
+
+    public void aliveSignalReceived(WebSocketSession session) {
+        PingState state = lookupTable.get(session.getId());
+        if (state != null) {
+            state.aliveSignalReceived();
+        }
+    }
+
+    public int getPendingCount() {
+        return timer.getPendingCount();
+    }
+
+    // -------------------------------------------------------------------------
+    // Private helpers
+    // -------------------------------------------------------------------------
+
+    private void schedule(PingState state, long delayMillis) {
+        if (!state.isStopped()) {
+            state.setTimeout(timer.newTimeout(() -> ping(state), delayMillis, TimeUnit.MILLISECONDS));
+        }
+    }
+
+    void ping(PingState state) {
+        String chargeBoxId = state.getChargeBoxId();
+        WebSocketSession session = state.getSession();
+
+        if (state.isStopped() || !session.isOpen()) {
+            return;
+        }
+
+        int missed = state.checkMissedPong();
+        if (maxMissedPongs > 0 && missed >= maxMissedPongs) {
+            WebSocketLogger.missedPongs(chargeBoxId, session, missed);
+            close(state);
+            return;
+        }
+
+        WebSocketLogger.sendingPing(chargeBoxId, session);
+        try {
+            state.pingSent(System.nanoTime());
+            session.sendMessage(PING_MESSAGE);
+        } catch (IOException e) {
+            // no need to do anything special. it will be counted as a missed pong with the next ping.
+            WebSocketLogger.pingError(chargeBoxId, session, e);
+        }
+
+        // +/- 10%
+        long jitter = intervalMillis / 10;
+        schedule(state, intervalMillis - jitter + ThreadLocalRandom.current().nextLong(2 * jitter + 1));
+    }
+
+    /**
+     * A regular close would send a close frame and wait for the answer of the other end, which is not there anymore.
+     * Jetty would then keep the connection until the idle timeout. Therefore, we disconnect without the handshake,
+     * which triggers onClose of the endpoint right away.
+     */
+    private void close(PingState state) {
+        WebSocketSession session = state.getSession();
+        try {
+            WebSocketSession delegate = WebSocketSessionDecorator.unwrap(session);
+            if (delegate instanceof NativeWebSocketSession) {
+                Object nativeSession = ((NativeWebSocketSession) delegate).getNativeSession();
+                if (nativeSession instanceof Session) {
+                    ((Session) nativeSession).disconnect();
+                    return;
+                }
+            }
+            session.close(CloseStatus.SESSION_NOT_RELIABLE.withReason("Ping timeout"));
+        } catch (Exception e) {
+            log.error("Failed to close the session of chargeBoxId '{}'", state.getChargeBoxId(), e);
+        }
+    }
+}
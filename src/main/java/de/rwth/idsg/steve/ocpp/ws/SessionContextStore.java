@@ -18,124 +18,88 @@
  */
 package de.rwth.idsg.steve.ocpp.ws;
 
-import com.google.common.collect.ImmutableMap;
-import com.google.common.util.concurrent.Striped;
 import de.rwth.idsg.steve.SteveException;
+import de.rwth.idsg.steve.ocpp.OcppVersion;
 import de.rwth.idsg.steve.ocpp.ws.custom.WsSessionSelectStrategy;
+import de.rwth.idsg.steve.ocpp.ws.data.PingState;
 import de.rwth.idsg.steve.ocpp.ws.data.SessionContext;
+import de.rwth.idsg.steve.ocpp.ws.data.StationSessions;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.joda.time.DateTime;
 import org.springframework.web.socket.WebSocketSession;
 
-import java.util.ArrayDeque;
+import java.util.Collection;
 import java.util.Collections;
-import java.util.Deque;
 import java.util.List;
-import java.util.Map;
-import java.util.NoSuchElementException;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.locks.Lock;
 
 import static de.rwth.idsg.steve.SteveConfiguration.CONFIG;
 
 /**
+ * The entries of the lookup table are immutable and replaced atomically with each change (within the compute
+ * methods of the map, which serialize the writers of a key). Readers just get an entry and work with it, without
+ * copying or locking.
+ *
  * @author Sevket Goekay <sevketgokay@gmail.com>
  * @since 17.03.2015
  */
 @Slf4j
+@RequiredArgsConstructor
 public class SessionContextStore {
 
+    private final OcppVersion version;
+
     /**
-     * Key   (String)                = chargeBoxId
-     * Value (Deque<SessionContext>) = WebSocket session contexts
+     * Key   (String)          = chargeBoxId
+     * Value (StationSessions) = WebSocket session contexts
      */
-    private final ConcurrentHashMap<String, Deque<SessionContext>> lookupTable = new ConcurrentHashMap<>();
-
-    private final Striped<Lock> locks = Striped.lock(16);
+    private final ConcurrentHashMap<String, StationSessions> lookupTable = new ConcurrentHashMap<>();
 
     private final WsSessionSelectStrategy wsSessionSelectStrategy = CONFIG.getOcpp().getWsSessionSelectStrategy();
 
-    public void add(String chargeBoxId, WebSocketSession session, ScheduledFuture pingSchedule) {
-        Lock l = locks.get(chargeBoxId);
-        l.lock();
-        try {
-            SessionContext context = new SessionContext(session, pingSchedule, DateTime.now());
+    /**
+     * @return the number of sessions of the station after adding
+     */
+    public int add(String chargeBoxId, WebSocketSession session, PingState pingState) {
+        SessionContext context = new SessionContext(session, pingState, DateTime.now());
 
-            Deque<SessionContext> endpointDeque = lookupTable.computeIfAbsent(chargeBoxId, str -> new ArrayDeque<>());
-            endpointDeque.addLast(context); // Adding at the end
+        StationSessions entry = lookupTable.compute(chargeBoxId, (id, old) ->
+                old == null ? StationSessions.of(id, version, context) : old.with(context)
+        );
 
-            log.debug("A new SessionContext is stored for chargeBoxId '{}'. Store size: {}",
-                    chargeBoxId, endpointDeque.size());
-        } finally {
-            l.unlock();
-        }
+        log.debug("A new SessionContext is stored for chargeBoxId '{}'. Store size: {}", chargeBoxId, entry.size());
+        return entry.size();
     }
 
-    public void remove(String chargeBoxId, WebSocketSession session) {
-        Lock l = locks.get(chargeBoxId);
-        l.lock();
-        try {
-            Deque<SessionContext> endpointDeque = lookupTable.get(chargeBoxId);
-            if (endpointDeque == null) {
-                log.debug("No session context to remove for chargeBoxId '{}'", chargeBoxId);
-                return;
-            }
-
-            // Prevent "java.util.ConcurrentModificationException: null"
-            // Reason: Cannot modify the set (remove the item) we are iterating
-            // Solution: Iterate the set, find the item, remove the item after the for-loop
-            //
-            SessionContext toRemove = null;
-            for (SessionContext context : endpointDeque) {
-                if (context.getSession().getId().equals(session.getId())) {
-                    toRemove = context;
-                    break;
-                }
-            }
-
-            if (toRemove != null) {
-                // 1. Cancel the ping task
-                toRemove.getPingSchedule().cancel(true);
-                // 2. Delete from collection
-                if (endpointDeque.remove(toRemove)) {
-                    log.debug("A SessionContext is removed for chargeBoxId '{}'. Store size: {}",
-                            chargeBoxId, endpointDeque.size());
-                }
-                // 3. Delete empty collection from lookup table in order to correctly calculate
-                // the number of connected chargeboxes with getNumberOfChargeBoxes()
-                if (endpointDeque.size() == 0) {
-                    lookupTable.remove(chargeBoxId);
-                }
-            }
-        } finally {
-            l.unlock();
-        }
+    /**
+     * @return the number of sessions of the station after removing
+     */
+    public int remove(String chargeBoxId, WebSocketSession session) {
+        // Removing the entry when it becomes empty is important to correctly calculate the number of connected
+        // chargeboxes with getNumberOfChargeBoxes()
+        StationSessions entry = lookupTable.computeIfPresent(chargeBoxId, (id, old) -> old.without(session.getId()));
+
+        int size = (entry == null) ? 0 : entry.size();
+        log.debug("A SessionContext is removed for chargeBoxId '{}'. Store size: {}", chargeBoxId, size);
+        return size;
     }
 
     public WebSocketSession getSession(String chargeBoxId) {
-        Lock l = locks.get(chargeBoxId);
-        l.lock();
-        try {
-            Deque<SessionContext> endpointDeque = lookupTable.get(chargeBoxId);
-            if (endpointDeque == null) {
-                throw new NoSuchElementException();
-            }
-            return wsSessionSelectStrategy.getSession(endpointDeque);
-        } catch (NoSuchElementException e) {
-            throw new SteveException("No session context for chargeBoxId '%s'", chargeBoxId, e);
-        } finally {
-            l.unlock();
+        StationSessions entry = lookupTable.get(chargeBoxId);
+        if (entry == null) {
+            throw new SteveException("No session context for chargeBoxId '%s'", chargeBoxId);
         }
+        return wsSessionSelectStrategy.getSession(entry);
     }
 
     public int getSize(String chargeBoxId) {
-        Deque<SessionContext> endpointDeque = lookupTable.get(chargeBoxId);
-        if (endpointDeque == null) {
-            return 0;
-        } else {
-            return endpointDeque.size();
-        }
+        StationSessions entry = lookupTable.get(chargeBoxId);
+        return (entry == null) ? 0 : entry.size();
+    }
+
+    public boolean contains(String chargeBoxId) {
+        return lookupTable.containsKey(chargeBoxId);
     }
 
     public int getNumberOfChargeBoxes() {
@@ -146,7 +110,10 @@ public class SessionContextStore {
         return Collections.list(lookupTable.keys());
     }
 
-    public Map<String, Deque<SessionContext>> getACopy() {
-        return ImmutableMap.copyOf(lookupTable);
+    /**
+     * @return a read-only live view (not a copy) of the entries
+     */
+    public Collection<StationSessions> getStationSessions() {
+        return Collections.unmodifiableCollection(lookupTable.values());
     }
 }
@@ -40,4 +40,11 @@ public interface TypeStore {
      * Request JAXB class --> Action field, Response JAXB class
      */
     <T extends RequestType> ActionResponsePair findActionResponse(T requestPayload);
+
+    /**
+     * For outgoing requests that are forwarded to us by another node
+     *
+     * Action field --> Request JAXB class
+     */
+    Class<? extends RequestType> findOutgoingRequestClass(String action);
 }
@@ -0,0 +1,213 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.ocpp.ws;
+
+import de.rwth.idsg.steve.ocpp.ws.data.SessionContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static de.rwth.idsg.steve.SteveConfiguration.CONFIG;
+
+/**
+ * Takes this node out of service without a reconnect storm:
+ *
+ * 1) New WebSocket connections are refused (see {@link OcppWebSocketHandshakeHandler}).
+ * 2) Calls that are waiting for a response get some time to complete.
+ * 3) The connections are closed in random batches, which are spread over the drain window. Therefore, the stations
+ * reconnect (to another node, or to this one after a restart) gradually.
+ *
+ * Draining can be cancelled (e.g. if the rolling update is aborted). Then, new connections are accepted again, and
+ * the stations that were disconnected so far reconnect as usual.
+ *
+ * @author agent <agent@local>
+ * @since 17.10.2026
+ */
+@Slf4j
+@Component
+public class WebSocketDrainer {
+
+    private static final long BATCH_INTERVAL_MILLIS = TimeUnit.SECONDS.toMillis(1);
+    private static final long POLL_INTERVAL_MILLIS = 100;
+
+    private final FutureResponseContextStore futureResponseContextStore;
+    private final WebSocketSessionRegistry webSocketSessionRegistry;
+    private final int windowSeconds;
+    private final int callWaitSeconds;
+
+    private volatile boolean draining = false;
+    private Thread drainThread;
+
+    @Autowired
+    public WebSocketDrainer(FutureResponseContextStore futureResponseContextStore,
+                            WebSocketSessionRegistry webSocketSessionRegistry) {
+        this(futureResponseContextStore, webSocketSessionRegistry,
+             CONFIG.getOcpp().getWsDrainWindowSeconds(), CONFIG.getOcpp().getWsDrainCallWaitSeconds());
+    }
+
+    WebSocketDrainer(FutureResponseContextStore futureResponseContextStore,
+                     WebSocketSessionRegistry webSocketSessionRegistry, int windowSeconds, int callWaitSeconds) {
+        this.futureResponseContextStore = futureResponseContextStore;
+        this.webSocketSessionRegistry = webSocketSessionRegistry;
+        this.windowSeconds = windowSeconds;
+        this.callWaitSeconds = callWaitSeconds;
+    }
+
+    public boolean isDraining() {
+        return draining;
+    }
+
+    /**
+     * Does not block.
+     *
+     * @return false, if draining was already started before
+     */
+    public synchronized boolean startDrain() {
+        if (draining) {
+            return false;
+        }
+        draining = true;
+        drainThread = new Thread(this::drain, "SteVe-Drain");
+        drainThread.setDaemon(true);
+        drainThread.start();
+        return true;
+    }
+
+    /**
+     * Stops closing connections, and accepts new ones again. The connections that were closed so far stay closed.
+     *
+     * @return false, if there was no draining to cancel
+     */
+    public boolean cancelDrain() {
+        Thread thread;
+        synchronized (this) {
+            if (!draining) {
+                return false;
+            }
+            draining = false;
+            thread = drainThread;
+            drainThread = null;
+        }
+
+        thread.interrupt();
+        try {
+            // so that a new drain does not overlap with this one
+            thread.join(BATCH_INTERVAL_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return true;
+    }
+
+    /**
+     * Starts draining (if not started yet) and blocks until it is done.
+     */
+    public void drainAndWait() {
+        startDrain();
+
+        Thread thread;
+        synchronized (this) {
+            thread = drainThread;
+        }
+        if (thread == null) {
+            return;
+        }
+
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(callWaitSeconds + windowSeconds + 5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Private helpers
+    // -------------------------------------------------------------------------
+
+    private void drain() {
+        log.info("Draining WebSocket connections. New connections are refused from now on");
+        try {
+            waitForPendingCalls();
+            closeSessions();
+            log.info("Draining WebSocket connections is finished");
+        } catch (InterruptedException e) {
+            log.warn("Draining WebSocket connections was cancelled. New connections are accepted again");
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void waitForPendingCalls() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(callWaitSeconds);
+
+        int pending = futureResponseContextStore.getNumberOfPendingCalls();
+        while (pending > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(POLL_INTERVAL_MILLIS);
+            pending = futureResponseContextStore.getNumberOfPendingCalls();
+        }
+
+        if (pending > 0) {
+            log.warn("{} calls are still waiting for a response. Closing the connections anyway", pending);
+        }
+    }
+
+    private void closeSessions() throws InterruptedException {
+        List<WebSocketSession> sessions = webSocketSessionRegistry.stream()
+                                                                  .flatMap(s -> s.getContexts().stream())
+                                                                  .map(SessionContext::getSession)
+                                                                  .collect(Collectors.toList());
+        if (sessions.isEmpty()) {
+            return;
+        }
+
+        Collections.shuffle(sessions);
+
+        int batchCount = Math.max(1, (int) (TimeUnit.SECONDS.toMillis(windowSeconds) / BATCH_INTERVAL_MILLIS));
+        int batchSize = (sessions.size() + batchCount - 1) / batchCount;
+
+        log.info("Closing {} WebSocket connections in batches of {}", sessions.size(), batchSize);
+
+        for (int from = 0; from < sessions.size(); from += batchSize) {
+            if (from > 0) {
+                Thread.sleep(BATCH_INTERVAL_MILLIS);
+            }
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedException();
+            }
+            int to = Math.min(from + batchSize, sessions.size());
+            for (WebSocketSession session : sessions.subList(from, to)) {
+                close(session);
+            }
+        }
+    }
+
+    private static void close(WebSocketSession session) {
+        try {
+            session.close(CloseStatus.SERVICE_RESTARTED);
+        } catch (Exception e) {
+            log.warn("Could not close the WebSocket session '{}'", session.getId(), e);
+        }
+    }
+}
@@ -18,6 +18,7 @@
  */
 package de.rwth.idsg.steve.ocpp.ws;
 
+import de.rwth.idsg.steve.ocpp.TrafficLogPolicy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.WebSocketSession;
@@ -29,6 +30,8 @@ import org.springframework.web.socket.WebSocketSession;
 @Slf4j
 public final class WebSocketLogger {
 
+    private static final TrafficLogPolicy POLICY = TrafficLogPolicy.INSTANCE;
+
     private WebSocketLogger() { }
 
     public static void connected(String chargeBoxId, WebSocketSession session) {
@@ -39,8 +42,14 @@ public final class WebSocketLogger {
         log.warn("[chargeBoxId={}, sessionId={}] Connection is closed, status: {}", chargeBoxId, session.getId(), closeStatus);
     }
 
-    public static void sending(String chargeBoxId, WebSocketSession session, String msg) {
-        log.info("[chargeBoxId={}, sessionId={}] Sending: {}", chargeBoxId, session.getId(), msg);
+    /**
+     * @param callAction the action of the call, or of the answered call, if the message is a response
+     */
+    public static void sending(String chargeBoxId, WebSocketSession session, String msg, String callAction) {
+        if (log.isInfoEnabled() && POLICY.shouldLogMessage(chargeBoxId, msg, callAction)) {
+            log.info("[chargeBoxId={}, sessionId={}] Sending: {}", chargeBoxId, session.getId(),
+                    POLICY.truncate(chargeBoxId, msg));
+        }
     }
 
     public static void sendingPing(String chargeBoxId, WebSocketSession session) {
@@ -52,13 +61,26 @@ public final class WebSocketLogger {
     }
 
     public static void receivedText(String chargeBoxId, WebSocketSession session, String msg) {
-        log.info("[chargeBoxId={}, sessionId={}] Received: {}", chargeBoxId, session.getId(), msg);
+        // the action of an answered call is not known before deserialization. the policy remembers the decision for
+        // the call, when we sent it.
+        if (log.isInfoEnabled() && POLICY.shouldLogMessage(chargeBoxId, msg, null)) {
+            log.info("[chargeBoxId={}, sessionId={}] Received: {}", chargeBoxId, session.getId(),
+                    POLICY.truncate(chargeBoxId, msg));
+        }
     }
 
     public static void receivedEmptyText(String chargeBoxId, WebSocketSession session) {
         log.warn("[chargeBoxId={}, sessionId={}] Received empty text message. Will pretend this never happened.", chargeBoxId, session.getId());
     }
 
+    public static void mailboxFull(String chargeBoxId, WebSocketSession session, int queueLimit) {
+        log.warn("[chargeBoxId={}, sessionId={}] More than {} messages are waiting to be processed. Closing the connection.", chargeBoxId, session.getId(), queueLimit);
+    }
+
+    public static void missedPongs(String chargeBoxId, WebSocketSession session, int missed) {
+        log.warn("[chargeBoxId={}, sessionId={}] No pong for the last {} pings. Closing the connection.", chargeBoxId, session.getId(), missed);
+    }
+
     public static void pingError(String chargeBoxId, WebSocketSession session, Throwable t) {
         if (log.isErrorEnabled()) {
             log.error("[chargeBoxId=" + chargeBoxId + ", sessionId=" + session.getId() + "] Ping error", t);
@@ -0,0 +1,64 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.ocpp.ws;
+
+import de.rwth.idsg.steve.ocpp.ws.data.StationSessions;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * A single view of the connected WebSocket stations of all OCPP versions. Nothing is copied: the streams iterate the
+ * lookup tables of the endpoints directly, and therefore reflect the connections of the moment of iteration.
+ *
+ * @author agent <agent@local>
+ * @since 17.10.2026
+ */
+@Component
+public class WebSocketSessionRegistry {
+
+    @Autowired private List<AbstractWebSocketEndpoint> endpoints;
+
+    public Stream<StationSessions> stream() {
+        return endpoints.stream()
+                        .flatMap(endpoint -> endpoint.getStationSessions().stream());
+    }
+
+    public boolean isConnected(String chargeBoxId) {
+        for (AbstractWebSocketEndpoint endpoint : endpoints) {
+            if (endpoint.isConnected(chargeBoxId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public List<String> getChargeBoxIdList() {
+        return stream().map(StationSessions::getChargeBoxId)
+                       .distinct()
+                       .collect(Collectors.toList());
+    }
+
+    public int getNumberOfChargeBoxes() {
+        return getChargeBoxIdList().size();
+    }
+}
@@ -0,0 +1,342 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.ocpp.ws.cluster;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Strings;
+import com.google.common.util.concurrent.Striped;
+import de.rwth.idsg.steve.SteveException;
+import de.rwth.idsg.steve.ocpp.CommunicationTask;
+import de.rwth.idsg.steve.ocpp.OcppVersion;
+import de.rwth.idsg.steve.ocpp.ws.JsonObjectMapper;
+import de.rwth.idsg.steve.ocpp.ws.WebSocketSessionRegistry;
+import de.rwth.idsg.steve.ocpp.ws.data.CommunicationContext;
+import de.rwth.idsg.steve.ocpp.ws.data.FailedResponse;
+import de.rwth.idsg.steve.ocpp.ws.data.FutureResponseContext;
+import de.rwth.idsg.steve.ocpp.ws.data.OcppJsonCall;
+import de.rwth.idsg.steve.ocpp.ws.data.OcppJsonError;
+import de.rwth.idsg.steve.ocpp.ws.data.OcppJsonResult;
+import de.rwth.idsg.steve.ocpp.ws.data.StationSessions;
+import de.rwth.idsg.steve.repository.WsSessionOwnerRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.joda.time.DateTime;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.stream.Collectors;
+
+import static de.rwth.idsg.steve.SteveConfiguration.CONFIG;
+
+/**
+ * Routes outgoing calls between the nodes of a cluster, i.e. several SteVe instances sharing one database.
+ *
+ * Each node records the stations connected to it in the database. An outgoing call for a station that is connected
+ * to another node is sent to that node via HTTP (see {@link ForwardedCallService}), which executes it and answers with
+ * the response of the station. The response is then passed to the handler of the task, as if the station were
+ * connected to this node.
+ *
+ * Claiming and releasing the station of a connection are serialized per station, and a claim is only released if the
+ * station is not connected anymore. Otherwise, the release of a closed connection could remove the claim of a new
+ * connection of the same station, that was opened in the meantime.
+ *
+ * Every heartbeat interval, a node confirms its own claims, removes the claims of nodes that stopped confirming theirs,
+ * and loads the claims of the other nodes into memory. It also compares its claims with its connections: a claim that
+ * is missing (e.g. because claiming failed) is added, and a claim of a station that is not connected is released. Outgoing calls are routed with this snapshot, so that a call to a
+ * station that is not connected anywhere does not cost a database query. A station that just moved to another node
+ * is therefore only found there after up to one interval.
+ *
+ * @author agent <agent@local>
+ * @since 17.10.2026
+ */
+@Slf4j
+@Component
+public class ClusterRouter {
+
+    public static final String FORWARD_PATH = "/api/v1/cluster/forward";
+
+    /**
+     * The other node waits for the call to be sent and then for the response of the station. Give it some time on top.
+     */
+    private static final int EXTRA_TIMEOUT_SECONDS = 10;
+
+    /**
+     * The claims of a node are ignored after it did not confirm them for that many heartbeat intervals
+     */
+    private static final int MISSED_HEARTBEATS = 3;
+
+    @Autowired private WsSessionOwnerRepository wsSessionOwnerRepository;
+    @Autowired private ScheduledExecutorService executorService;
+    @Autowired private WebSocketSessionRegistry sessionRegistry;
+
+    private final String nodeUrl;
+    private final int heartbeatIntervalSeconds;
+    private final String apiKeyHeader = CONFIG.getWebApi().getHeaderKey();
+    private final String apiKeyValue = CONFIG.getWebApi().getHeaderValue();
+    private final ObjectMapper mapper = JsonObjectMapper.INSTANCE.getMapper();
+    private final Striped<Lock> claimLocks = Striped.lock(16);
+
+    private HttpClient httpClient;
+    private ScheduledFuture<?> heartbeatSchedule;
+
+    // chargeBoxId -> URL of the node, only for the other nodes
+    private volatile Map<String, String> remoteOwners = Collections.emptyMap();
+
+    public ClusterRouter() {
+        this(CONFIG.getOcpp().getWsClusterNodeUrl(), CONFIG.getOcpp().getWsClusterHeartbeatIntervalSeconds());
+    }
+
+    ClusterRouter(String nodeUrl, int heartbeatIntervalSeconds) {
+        this.nodeUrl = nodeUrl;
+        this.heartbeatIntervalSeconds = Math.max(1, heartbeatIntervalSeconds);
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!isEnabled()) {
+            return;
+        }
+
+        if (Strings.isNullOrEmpty(apiKeyHeader) || Strings.isNullOrEmpty(apiKeyValue)) {
+            throw new SteveException("'ws.cluster.node.url' is set, but 'webapi.key' and 'webapi.value' are not");
+        }
+
+        httpClient = HttpClient.newBuilder()
+                               .connectTimeout(Duration.ofSeconds(EXTRA_TIMEOUT_SECONDS))
+                               .build();
+
+        // Claims from a previous run of this node (e.g. before a crash) are stale. Their stations will reconnect.
+        wsSessionOwnerRepository.releaseAll(nodeUrl);
+
+        heartbeatSchedule = executorService.scheduleWithFixedDelay(
+                this::heartbeat, 0, heartbeatIntervalSeconds, TimeUnit.SECONDS);
+        log.info("Cluster mode is enabled. The URL of this node is {}", nodeUrl);
+    }
+
+    @PreDestroy
+    public void shutDown() {
+        if (isEnabled()) {
+            if (heartbeatSchedule != null) {
+                heartbeatSchedule.cancel(false);
+            }
+            wsSessionOwnerRepository.releaseAll(nodeUrl);
+        }
+    }
+
+    public boolean isEnabled() {
+        return nodeUrl != null;
+    }
+
+    public void stationConnected(String chargeBoxId, OcppVersion version) {
+        if (!isEnabled()) {
+            return;
+        }
+        try {
+            withClaimLock(chargeBoxId, () -> wsSessionOwnerRepository.claim(chargeBoxId, nodeUrl, version));
+        } catch (Exception e) {
+            // the next heartbeat adds the missing claim
+            log.error("Failed to record the connection of chargeBoxId '{}'", chargeBoxId, e);
+        }
+    }
+
+    public void stationDisconnected(String chargeBoxId) {
+        if (!isEnabled()) {
+            return;
+        }
+        try {
+            withClaimLock(chargeBoxId, () -> releaseIfNotConnected(chargeBoxId));
+        } catch (Exception e) {
+            // the next heartbeat releases the remaining claim
+            log.error("Failed to remove the connection of chargeBoxId '{}'", chargeBoxId, e);
+        }
+    }
+
+    /**
+     * Does not query the database, but uses the snapshot of the last heartbeat.
+     *
+     * @return the URL of the node that holds the connection of the station, if it is not this node
+     */
+    public Optional<String> findRemoteOwner(String chargeBoxId) {
+        if (!isEnabled()) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(remoteOwners.get(chargeBoxId));
+    }
+
+    /**
+     * Does not block. The response (or failure) is passed to the task asynchronously.
+     */
+    public void forward(String ownerUrl, String chargeBoxId, OcppVersion version, OcppJsonCall call,
+                        FutureResponseContext responseContext) {
+        ForwardedCall forwardedCall = new ForwardedCall(
+                chargeBoxId, version.getValue(), call.getAction(), mapper.valueToTree(call.getPayload())
+        );
+
+        String body;
+        try {
+            body = mapper.writeValueAsString(forwardedCall);
+        } catch (JsonProcessingException e) {
+            throw new SteveException("Could not serialize the call for chargeBoxId '%s'", chargeBoxId, e);
+        }
+
+        int timeoutSeconds = ForwardedCallService.getMaxWaitSeconds(call.getAction()) + EXTRA_TIMEOUT_SECONDS;
+
+        HttpRequest request = HttpRequest.newBuilder(URI.create(ownerUrl + FORWARD_PATH))
+                                         .timeout(Duration.ofSeconds(timeoutSeconds))
+                                         .header(apiKeyHeader, apiKeyValue)
+                                         .header("Content-Type", "application/json")
+                                         .POST(HttpRequest.BodyPublishers.ofString(body))
+                                         .build();
+
+        log.debug("Forwarding {} for chargeBoxId '{}' to {}", call.getAction(), chargeBoxId, ownerUrl);
+
+        httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                  .whenComplete((response, throwable) ->
+                          handleResponse(ownerUrl, chargeBoxId, responseContext, response, throwable));
+    }
+
+    // -------------------------------------------------------------------------
+    // Private helpers
+    // -------------------------------------------------------------------------
+
+    void heartbeat() {
+        try {
+            wsSessionOwnerRepository.heartbeat(nodeUrl);
+            reconcileClaims();
+
+            DateTime cutoff = DateTime.now().minusSeconds(MISSED_HEARTBEATS * heartbeatIntervalSeconds);
+            int released = wsSessionOwnerRepository.releaseStale(cutoff);
+            if (released > 0) {
+                log.info("Released {} connection(s) of nodes that stopped sending heartbeats", released);
+            }
+
+            Map<String, String> owners = wsSessionOwnerRepository.getOwnerNodeUrls(cutoff);
+            owners.values().removeIf(nodeUrl::equals);
+            remoteOwners = Collections.unmodifiableMap(owners);
+        } catch (Exception e) {
+            log.error("Cluster heartbeat failed", e);
+        }
+    }
+
+    private void reconcileClaims() {
+        Map<String, OcppVersion> connected =
+                sessionRegistry.stream()
+                               .collect(Collectors.toMap(StationSessions::getChargeBoxId, StationSessions::getVersion,
+                                       (v1, v2) -> v2));
+
+        Set<String> claimed = wsSessionOwnerRepository.getChargeBoxIds(nodeUrl);
+
+        // both only happen after a failed claim or release, or a race with a connection that just opened or closed.
+        // therefore, we check each one again under the lock.
+        connected.forEach((chargeBoxId, version) -> {
+            if (!claimed.contains(chargeBoxId)) {
+                withClaimLock(chargeBoxId, () -> {
+                    if (sessionRegistry.isConnected(chargeBoxId)) {
+                        log.warn("Adding the missing connection of chargeBoxId '{}'", chargeBoxId);
+                        wsSessionOwnerRepository.claimIfAbsent(chargeBoxId, nodeUrl, version);
+                    }
+                });
+            }
+        });
+
+        for (String chargeBoxId : claimed) {
+            if (!connected.containsKey(chargeBoxId)) {
+                withClaimLock(chargeBoxId, () -> releaseIfNotConnected(chargeBoxId));
+            }
+        }
+    }
+
+    /**
+     * Must be called with the claim lock of the station
+     */
+    private void releaseIfNotConnected(String chargeBoxId) {
+        if (sessionRegistry.isConnected(chargeBoxId)) {
+            log.debug("chargeBoxId '{}' has a new connection. Keeping its claim", chargeBoxId);
+            return;
+        }
+        wsSessionOwnerRepository.release(chargeBoxId, nodeUrl);
+    }
+
+    private void withClaimLock(String chargeBoxId, Runnable runnable) {
+        Lock l = claimLocks.get(chargeBoxId);
+        l.lock();
+        try {
+            runnable.run();
+        } finally {
+            l.unlock();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void handleResponse(String ownerUrl, String chargeBoxId, FutureResponseContext responseContext,
+                                HttpResponse<String> response, Throwable throwable) {
+        CommunicationTask task = responseContext.getTask();
+        try {
+            if (throwable != null) {
+                throw new SteveException("Forwarding to node %s failed", ownerUrl, throwable);
+            }
+            if (response.statusCode() != 200) {
+                throw new SteveException("Node %s answered with HTTP status %s", ownerUrl, response.statusCode());
+            }
+
+            ForwardedCallResult result = mapper.readValue(response.body(), ForwardedCallResult.class);
+            CommunicationContext context = new CommunicationContext(null, chargeBoxId);
+
+            switch (result.getType()) {
+                case RESULT:
+                    OcppJsonResult jsonResult = new OcppJsonResult();
+                    jsonResult.setPayload(mapper.treeToValue(result.getPayload(), responseContext.getResponseClass()));
+                    context.createResultHandler(task);
+                    context.getResultHandler().accept(jsonResult);
+                    break;
+
+                case ERROR:
+                    OcppJsonError jsonError = new OcppJsonError();
+                    jsonError.setErrorCode(result.getErrorCode());
+                    jsonError.setErrorDescription(result.getErrorDescription());
+                    jsonError.setErrorDetails(result.getErrorDetails());
+                    context.createErrorHandler(task);
+                    context.getErrorHandler().accept(jsonError);
+                    break;
+
+                case FAILURE:
+                default:
+                    throw new SteveException("Node %s: %s", ownerUrl, result.getErrorDescription());
+            }
+        } catch (Exception e) {
+            log.error("Forwarded call for chargeBoxId '{}' failed", chargeBoxId, e);
+            task.getHandler(chargeBoxId).handleResponse(new FailedResponse(e));
+        }
+    }
+}
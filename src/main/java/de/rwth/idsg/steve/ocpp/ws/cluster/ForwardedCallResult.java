@@ -0,0 +1,74 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.ocpp.ws.cluster;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import de.rwth.idsg.steve.ocpp.ws.data.ErrorCode;
+import de.rwth.idsg.steve.ocpp.ws.data.OcppJsonError;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * What happened to a {@link ForwardedCall}: The station answered with a result or an error, or the call failed
+ * (e.g. the station did not answer in time).
+ *
+ * @author agent <agent@local>
+ * @since 17.10.2026
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+public class ForwardedCallResult {
+
+    public enum Type { RESULT, ERROR, FAILURE }
+
+    private Type type;
+
+    // for RESULT
+    private JsonNode payload;
+
+    // for ERROR (all) and FAILURE (only the description)
+    private ErrorCode errorCode;
+    private String errorDescription;
+    private String errorDetails;
+
+    public static ForwardedCallResult result(JsonNode payload) {
+        ForwardedCallResult r = new ForwardedCallResult();
+        r.setType(Type.RESULT);
+        r.setPayload(payload);
+        return r;
+    }
+
+    public static ForwardedCallResult error(OcppJsonError error) {
+        ForwardedCallResult r = new ForwardedCallResult();
+        r.setType(Type.ERROR);
+        r.setErrorCode(error.getErrorCode());
+        r.setErrorDescription(error.getErrorDescription());
+        r.setErrorDetails(error.getErrorDetails());
+        return r;
+    }
+
+    public static ForwardedCallResult failure(String description) {
+        ForwardedCallResult r = new ForwardedCallResult();
+        r.setType(Type.FAILURE);
+        r.setErrorDescription(description);
+        return r;
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.ocpp.ws.cluster;
+
+import de.rwth.idsg.ocpp.jaxb.RequestType;
+import de.rwth.idsg.steve.ocpp.OcppTransport;
+import de.rwth.idsg.steve.ocpp.OcppVersion;
+import de.rwth.idsg.steve.ocpp.ws.ChargePointServiceInvoker;
+import de.rwth.idsg.steve.ocpp.ws.JsonObjectMapper;
+import de.rwth.idsg.steve.ocpp.ws.OutgoingCallQueue;
+import de.rwth.idsg.steve.ocpp.ws.TypeStore;
+import de.rwth.idsg.steve.ocpp.ws.ocpp12.Ocpp12TypeStore;
+import de.rwth.idsg.steve.ocpp.ws.ocpp12.Ocpp12WebSocketEndpoint;
+import de.rwth.idsg.steve.ocpp.ws.ocpp15.Ocpp15TypeStore;
+import de.rwth.idsg.steve.ocpp.ws.ocpp15.Ocpp15WebSocketEndpoint;
+import de.rwth.idsg.steve.ocpp.ws.ocpp16.Ocpp16TypeStore;
+import de.rwth.idsg.steve.ocpp.ws.ocpp16.Ocpp16WebSocketEndpoint;
+import de.rwth.idsg.steve.repository.dto.ChargePointSelect;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import static de.rwth.idsg.steve.SteveConfiguration.CONFIG;
+
+/**
+ * The receiving side of {@link ClusterRouter}: Executes calls that other nodes forwarded to this node, because the
+ * station is connected here.
+ *
+ * Once a call is sent, {@link de.rwth.idsg.steve.ocpp.ws.FutureResponseContextStore} fails it if the station does not
+ * answer within the call timeout. Before that, the call may wait in the queue behind other calls to the station. If it
+ * is still waiting after the call timeout, it is removed from the queue and reported as failed, so that it is not sent
+ * after the other node gave up on it.
+ *
+ * @author agent <agent@local>
+ * @since 17.10.2026
+ */
+@Slf4j
+@Service
+public class ForwardedCallService {
+
+    /**
+     * The response of the station is passed to the task by the pipeline with a small delay after the timeout.
+     */
+    private static final int EXTRA_WAIT_SECONDS = 5;
+
+    @Autowired private ScheduledExecutorService executorService;
+    @Autowired private OutgoingCallQueue outgoingCallQueue;
+    @Autowired private Ocpp12WebSocketEndpoint ocpp12WebSocketEndpoint;
+    @Autowired private Ocpp15WebSocketEndpoint ocpp15WebSocketEndpoint;
+    @Autowired private Ocpp16WebSocketEndpoint ocpp16WebSocketEndpoint;
+
+    private final Map<OcppVersion, TypeStore> typeStores = new EnumMap<>(OcppVersion.class);
+
+    // Without a router, so that forwarded calls are never forwarded again
+    private final Map<OcppVersion, ChargePointServiceInvoker> invokers = new EnumMap<>(OcppVersion.class);
+
+    @PostConstruct
+    public void init() {
+        typeStores.put(OcppVersion.V_12, Ocpp12TypeStore.INSTANCE);
+        typeStores.put(OcppVersion.V_15, Ocpp15TypeStore.INSTANCE);
+        typeStores.put(OcppVersion.V_16, Ocpp16TypeStore.INSTANCE);
+
+        invokers.put(OcppVersion.V_12,
+                new ChargePointServiceInvoker(outgoingCallQueue, ocpp12WebSocketEndpoint, Ocpp12TypeStore.INSTANCE));
+        invokers.put(OcppVersion.V_15,
+                new ChargePointServiceInvoker(outgoingCallQueue, ocpp15WebSocketEndpoint, Ocpp15TypeStore.INSTANCE));
+        invokers.put(OcppVersion.V_16,
+                new ChargePointServiceInvoker(outgoingCallQueue, ocpp16WebSocketEndpoint, Ocpp16TypeStore.INSTANCE));
+    }
+
+    /**
+     * How long the execution of a forwarded call takes at most: waiting to be sent, and then for the response
+     */
+    public static int getMaxWaitSeconds(String action) {
+        return 2 * CONFIG.getOcpp().getWsCallTimeoutSeconds(action) + EXTRA_WAIT_SECONDS;
+    }
+
+    /**
+     * Does not block. The future completes when the station answers, or the call fails or times out.
+     */
+    public CompletableFuture<ForwardedCallResult> execute(ForwardedCall call) {
+        OcppVersion version;
+        try {
+            version = OcppVersion.fromValue(call.getVersion());
+        } catch (Exception e) {
+            return failed("Unknown OCPP version: " + call.getVersion());
+        }
+
+        Class<? extends RequestType> requestClass = typeStores.get(version).findOutgoingRequestClass(call.getAction());
+        if (requestClass == null) {
+            return failed("Unknown action: " + call.getAction());
+        }
+
+        RequestType request;
+        try {
+            request = JsonObjectMapper.INSTANCE.getMapper().treeToValue(call.getPayload(), requestClass);
+        } catch (Exception e) {
+            return failed("Invalid payload: " + e.getMessage());
+        }
+
+        log.debug("Executing forwarded {} for chargeBoxId '{}'", call.getAction(), call.getChargeBoxId());
+
+        ForwardedTask task = new ForwardedTask(version, call.getChargeBoxId(), request);
+        invokers.get(version).runPipeline(new ChargePointSelect(OcppTransport.JSON, call.getChargeBoxId()), task);
+
+        int sendTimeoutSeconds = CONFIG.getOcpp().getWsCallTimeoutSeconds(call.getAction());
+        ScheduledFuture<?> sendTimeout = executorService.schedule(() -> {
+            if (outgoingCallQueue.cancel(call.getChargeBoxId(), task)) {
+                task.fail("The call was not sent within " + sendTimeoutSeconds + " seconds");
+            }
+        }, sendTimeoutSeconds, TimeUnit.SECONDS);
+
+        CompletableFuture<ForwardedCallResult> result = task.getResult();
+        result.whenComplete((r, e) -> sendTimeout.cancel(false));
+        return result;
+    }
+
+    private static CompletableFuture<ForwardedCallResult> failed(String reason) {
+        return CompletableFuture.completedFuture(ForwardedCallResult.failure(reason));
+    }
+}
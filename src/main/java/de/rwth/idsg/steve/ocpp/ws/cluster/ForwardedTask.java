@@ -0,0 +1,142 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.ocpp.ws.cluster;
+
+import de.rwth.idsg.ocpp.jaxb.RequestType;
+import de.rwth.idsg.ocpp.jaxb.ResponseType;
+import de.rwth.idsg.steve.ocpp.CommunicationTask;
+import de.rwth.idsg.steve.ocpp.OcppCallback;
+import de.rwth.idsg.steve.ocpp.OcppTransport;
+import de.rwth.idsg.steve.ocpp.OcppVersion;
+import de.rwth.idsg.steve.ocpp.ws.JsonObjectMapper;
+import de.rwth.idsg.steve.ocpp.ws.data.OcppJsonError;
+import de.rwth.idsg.steve.repository.dto.ChargePointSelect;
+import de.rwth.idsg.steve.web.dto.ocpp.ChargePointSelection;
+import lombok.RequiredArgsConstructor;
+
+import javax.xml.ws.AsyncHandler;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Executes a call on behalf of another node. Instead of processing the response (which is the job of the actual
+ * task at the other node), it is just collected to be sent back.
+ *
+ * @author agent <agent@local>
+ * @since 17.10.2026
+ */
+public class ForwardedTask extends CommunicationTask<ForwardedTask.Selection, ResponseType> {
+
+    private final RequestType request;
+    private final CompletableFuture<ForwardedCallResult> resultFuture = new CompletableFuture<>();
+
+    public ForwardedTask(OcppVersion ocppVersion, String chargeBoxId, RequestType request) {
+        super(ocppVersion, new Selection(chargeBoxId));
+        this.request = request;
+    }
+
+    /**
+     * Completes with the response of the station, its error, or the failure of the call. Never exceptionally.
+     */
+    public CompletableFuture<ForwardedCallResult> getResult() {
+        return resultFuture;
+    }
+
+    /**
+     * @return false, if there was already a result
+     */
+    public boolean fail(String reason) {
+        return resultFuture.complete(ForwardedCallResult.failure(reason));
+    }
+
+    @Override
+    public OcppCallback<ResponseType> defaultCallback() {
+        return new OcppCallback<>() {
+            @Override
+            public void success(String chargeBoxId, ResponseType response) {
+                resultFuture.complete(ForwardedCallResult.result(
+                        JsonObjectMapper.INSTANCE.getMapper().valueToTree(response)));
+            }
+
+            @Override
+            public void success(String chargeBoxId, OcppJsonError error) {
+                resultFuture.complete(ForwardedCallResult.error(error));
+            }
+
+            @Override
+            public void failed(String chargeBoxId, Exception e) {
+                resultFuture.complete(ForwardedCallResult.failure(e.getMessage()));
+            }
+        };
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T extends RequestType> T getOcpp12Request() {
+        return (T) request;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T extends RequestType> T getOcpp15Request() {
+        return (T) request;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T extends RequestType> T getOcpp16Request() {
+        return (T) request;
+    }
+
+    @Override
+    public <T extends ResponseType> AsyncHandler<T> getOcpp12Handler(String chargeBoxId) {
+        return createHandler(chargeBoxId);
+    }
+
+    @Override
+    public <T extends ResponseType> AsyncHandler<T> getOcpp15Handler(String chargeBoxId) {
+        return createHandler(chargeBoxId);
+    }
+
+    @Override
+    public <T extends ResponseType> AsyncHandler<T> getOcpp16Handler(String chargeBoxId) {
+        return createHandler(chargeBoxId);
+    }
+
+    private <T extends ResponseType> AsyncHandler<T> createHandler(String chargeBoxId) {
+        return res -> {
+            try {
+                success(chargeBoxId, res.get());
+            } catch (Exception e) {
+                failed(chargeBoxId, e);
+            }
+        };
+    }
+
+    @RequiredArgsConstructor
+    public static class Selection implements ChargePointSelection {
+        private final String chargeBoxId;
+
+        @Override
+        public List<ChargePointSelect> getChargePointSelectList() {
+            return Collections.singletonList(new ChargePointSelect(OcppTransport.JSON, chargeBoxId));
+        }
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.ocpp.ws.custom;
+
+/**
+ * Decides on which thread the incoming WebSocket frames of a charge point are processed.
+ *
+ * @author agent <agent@local>
+ * @since 17.10.2026
+ */
+public enum WsDispatchMode {
+
+    /**
+     * The whole pipeline (deserialize, dispatch, database, serialize, send) runs on the Jetty thread
+     * that received the frame.
+     */
+    INLINE,
+
+    /**
+     * Every chargeBoxId gets its own ordered mailbox. The frames are processed one after another by a
+     * separate, bounded worker pool, such that the Jetty threads are released immediately.
+     */
+    MAILBOX;
+
+    public static WsDispatchMode fromName(String v) {
+        for (WsDispatchMode m : WsDispatchMode.values()) {
+            if (m.name().equals(v)) {
+                return m;
+            }
+        }
+        throw new IllegalArgumentException("Could not find a valid WsDispatchMode for name: " + v);
+    }
+}
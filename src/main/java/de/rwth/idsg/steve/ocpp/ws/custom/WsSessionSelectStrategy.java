@@ -18,11 +18,9 @@
  */
 package de.rwth.idsg.steve.ocpp.ws.custom;
 
-import de.rwth.idsg.steve.ocpp.ws.data.SessionContext;
+import de.rwth.idsg.steve.ocpp.ws.data.StationSessions;
 import org.springframework.web.socket.WebSocketSession;
 
-import java.util.Deque;
-
 /**
  * We want to support multiple connections to a charge point. For sending messages we need a
  * mechanism to select one WebSocketSession. Implementations of this interface should use
@@ -32,5 +30,5 @@ import java.util.Deque;
  * @since 30.04.2015
  */
 public interface WsSessionSelectStrategy {
-    WebSocketSession getSession(Deque<SessionContext> sessionContexts);
+    WebSocketSession getSession(StationSessions sessions);
 }
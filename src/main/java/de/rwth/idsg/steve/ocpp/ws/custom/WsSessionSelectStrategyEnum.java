@@ -18,12 +18,10 @@
  */
 package de.rwth.idsg.steve.ocpp.ws.custom;
 
-import de.rwth.idsg.steve.ocpp.ws.data.SessionContext;
+import de.rwth.idsg.steve.ocpp.ws.data.StationSessions;
 import lombok.Getter;
 import org.springframework.web.socket.WebSocketSession;
 
-import java.util.Deque;
-
 /**
  * @author Sevket Goekay <sevketgokay@gmail.com>
  * @since 30.04.2015
@@ -36,8 +34,8 @@ public enum WsSessionSelectStrategyEnum implements WsSessionSelectStrategy {
          * Always use the last opened session/connection.
          */
         @Override
-        public WebSocketSession getSession(Deque<SessionContext> sessionContexts) {
-            return sessionContexts.getLast().getSession();
+        public WebSocketSession getSession(StationSessions sessions) {
+            return sessions.getLast().getSession();
         }
     },
 
@@ -47,11 +45,8 @@ public enum WsSessionSelectStrategyEnum implements WsSessionSelectStrategy {
          * This would allow to distribute load to different connections.
          */
         @Override
-        public WebSocketSession getSession(Deque<SessionContext> sessionContexts) {
-            // Remove the first item, and add at the end
-            SessionContext s = sessionContexts.removeFirst();
-            sessionContexts.addLast(s);
-            return s.getSession();
+        public WebSocketSession getSession(StationSessions sessions) {
+            return sessions.getNextRoundRobin().getSession();
         }
     };
 
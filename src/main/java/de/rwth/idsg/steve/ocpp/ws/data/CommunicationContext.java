@@ -27,6 +27,7 @@ import lombok.Setter;
 import org.springframework.web.socket.WebSocketSession;
 
 import javax.xml.ws.Response;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
@@ -73,6 +74,22 @@ public class CommunicationContext {
                                      .success(chargeBoxId, result);
     }
 
+    /**
+     * For all tasks of the call, i.e. including the ones of coalesced duplicates
+     */
+    @SuppressWarnings("unchecked")
+    public void createResultHandler(FutureResponseContext responseContext) {
+        List<CommunicationTask> tasks = responseContext.getAllTasks();
+        resultHandler = result -> tasks.forEach(task -> task.getHandler(chargeBoxId)
+                                                            .handleResponse(new DummyResponse(result.getPayload())));
+    }
+
+    public void createErrorHandler(FutureResponseContext responseContext) {
+        List<CommunicationTask> tasks = responseContext.getAllTasks();
+        errorHandler = result -> tasks.forEach(task -> task.defaultCallback()
+                                                           .success(chargeBoxId, result));
+    }
+
     @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
     private static class DummyResponse implements Response<ResponseType> {
         private final ResponseType payload;
@@ -0,0 +1,69 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.ocpp.ws.data;
+
+import de.rwth.idsg.ocpp.jaxb.ResponseType;
+import lombok.RequiredArgsConstructor;
+
+import javax.xml.ws.Response;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A response that never arrived. Passing it to the AsyncHandler of a task makes the handler run into its
+ * failure path, just like it happens with SOAP when the async call fails.
+ *
+ * @author agent <agent@local>
+ * @since 17.10.2026
+ */
+@RequiredArgsConstructor
+public class FailedResponse implements Response<ResponseType> {
+    private final Exception cause;
+
+    @Override
+    public Map<String, Object> getContext() {
+        return null;
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        return false;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return false;
+    }
+
+    @Override
+    public boolean isDone() {
+        return true;
+    }
+
+    @Override
+    public ResponseType get() throws ExecutionException {
+        throw new ExecutionException(cause.getMessage(), cause);
+    }
+
+    @Override
+    public ResponseType get(long timeout, TimeUnit unit) throws ExecutionException {
+        throw new ExecutionException(cause.getMessage(), cause);
+    }
+}
@@ -20,10 +20,17 @@ package de.rwth.idsg.steve.ocpp.ws.data;
 
 import de.rwth.idsg.ocpp.jaxb.ResponseType;
 import de.rwth.idsg.steve.ocpp.CommunicationTask;
+import de.rwth.idsg.steve.utils.HashedWheelTimer;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 /**
  * @author Sevket Goekay <sevketgokay@gmail.com>
  * @since 23.03.2015
@@ -34,4 +41,31 @@ import lombok.Setter;
 public class FutureResponseContext {
     private final CommunicationTask task;
     private final Class<? extends ResponseType> responseClass;
+    private final String action;
+
+    // Fires if the charge point does not respond in time. Set before the call is stored.
+    private HashedWheelTimer.Timeout timeout;
+
+    // Tasks of identical calls that were coalesced with this one, while it was waiting to be sent.
+    // They get the same response.
+    private final List<CommunicationTask> coalescedTasks = new CopyOnWriteArrayList<>();
+
+    // Called once, when the call is done (response received, timed out, or failed to be sent)
+    private Runnable completionListener;
+
+    @Getter(AccessLevel.NONE)
+    private final AtomicBoolean completed = new AtomicBoolean(false);
+
+    public List<CommunicationTask> getAllTasks() {
+        List<CommunicationTask> tasks = new ArrayList<>(1 + coalescedTasks.size());
+        tasks.add(task);
+        tasks.addAll(coalescedTasks);
+        return tasks;
+    }
+
+    public void complete() {
+        if (completed.compareAndSet(false, true) && completionListener != null) {
+            completionListener.run();
+        }
+    }
 }
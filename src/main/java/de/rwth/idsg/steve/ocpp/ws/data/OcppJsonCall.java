@@ -32,6 +32,9 @@ public class OcppJsonCall extends OcppJsonMessage {
     private String action;
     private RequestType payload;
 
+    // The payload, already serialized to JSON. Set, if the same payload is sent to many stations.
+    private String payloadJson;
+
     public OcppJsonCall() {
         super(MessageType.CALL);
     }
@@ -0,0 +1,100 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.ocpp.ws.data;
+
+import de.rwth.idsg.steve.utils.HashedWheelTimer;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ping/pong bookkeeping of one WebSocket session.
+ *
+ * @author agent <agent@local>
+ * @since 17.10.2026
+ */
+@RequiredArgsConstructor
+public class PingState {
+
+    @Getter private final String chargeBoxId;
+    @Getter private final WebSocketSession session;
+
+    private final AtomicInteger missedPongs = new AtomicInteger(0);
+
+    private volatile boolean awaitingPong = false;
+    private volatile long lastPingNanos;
+    private volatile long lastRttMillis = -1;
+    private volatile boolean stopped = false;
+
+    @Setter private volatile HashedWheelTimer.Timeout timeout;
+
+    public void pingSent(long nanos) {
+        lastPingNanos = nanos;
+        awaitingPong = true;
+    }
+
+    public void pongReceived(long nanos) {
+        if (awaitingPong) {
+            lastRttMillis = TimeUnit.NANOSECONDS.toMillis(nanos - lastPingNanos);
+        }
+        aliveSignalReceived();
+    }
+
+    /**
+     * Any frame from the station proves that the connection is not half-open
+     */
+    public void aliveSignalReceived() {
+        awaitingPong = false;
+        missedPongs.set(0);
+    }
+
+    /**
+     * @return the number of missed pongs in a row, if the last ping is not answered yet. Otherwise, 0.
+     */
+    public int checkMissedPong() {
+        return awaitingPong ? missedPongs.incrementAndGet() : 0;
+    }
+
+    public void stop() {
+        stopped = true;
+        HashedWheelTimer.Timeout t = timeout;
+        if (t != null) {
+            t.cancel();
+        }
+    }
+
+    public boolean isStopped() {
+        return stopped;
+    }
+
+    /**
+     * @return round-trip time of the last answered ping in milliseconds, or -1 if none was answered yet
+     */
+    public long getLastRttMillis() {
+        return lastRttMillis;
+    }
+
+    public int getMissedPongs() {
+        return missedPongs.get();
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.ocpp.ws.data;
+
+import com.google.common.collect.ImmutableList;
+import de.rwth.idsg.steve.ocpp.OcppVersion;
+import lombok.Getter;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The open WebSocket sessions of one charging station, in the order they were opened. Instances are immutable:
+ * adding or removing a session creates a new instance, which replaces the old one in the lookup table atomically.
+ * Therefore, readers can use an instance without copying or locking.
+ *
+ * @author agent <agent@local>
+ * @since 17.10.2026
+ */
+@Getter
+public final class StationSessions {
+    private final String chargeBoxId;
+    private final OcppVersion version;
+    private final ImmutableList<SessionContext> contexts;
+
+    // Not part of the state. Shared between the instances of a station to continue the round robin after a change.
+    private final AtomicInteger roundRobinCounter;
+
+    private StationSessions(String chargeBoxId, OcppVersion version, ImmutableList<SessionContext> contexts,
+                            AtomicInteger roundRobinCounter) {
+        this.chargeBoxId = chargeBoxId;
+        this.version = version;
+        this.contexts = contexts;
+        this.roundRobinCounter = roundRobinCounter;
+    }
+
+    public static StationSessions of(String chargeBoxId, OcppVersion version, SessionContext context) {
+        return new StationSessions(chargeBoxId, version, ImmutableList.of(context), new AtomicInteger(0));
+    }
+
+    /**
+     * @return a new instance with the context added at the end
+     */
+    public StationSessions with(SessionContext context) {
+        ImmutableList<SessionContext> newContexts = ImmutableList.<SessionContext>builderWithExpectedSize(size() + 1)
+                                                                 .addAll(contexts)
+                                                                 .add(context)
+                                                                 .build();
+        return new StationSessions(chargeBoxId, version, newContexts, roundRobinCounter);
+    }
+
+    /**
+     * @return this, if there is no context for the session. null, if the context was the last one. Otherwise, a new
+     * instance without the context.
+     */
+    public StationSessions without(String sessionId) {
+        ImmutableList.Builder<SessionContext> builder = ImmutableList.builderWithExpectedSize(size());
+        boolean found = false;
+        for (SessionContext context : contexts) {
+            if (context.getSession().getId().equals(sessionId)) {
+                found = true;
+            } else {
+                builder.add(context);
+            }
+        }
+
+        if (!found) {
+            return this;
+        }
+
+        ImmutableList<SessionContext> newContexts = builder.build();
+        return newContexts.isEmpty() ? null : new StationSessions(chargeBoxId, version, newContexts, roundRobinCounter);
+    }
+
+    public int size() {
+        return contexts.size();
+    }
+
+    public SessionContext getLast() {
+        return contexts.get(contexts.size() - 1);
+    }
+
+    public SessionContext getNextRoundRobin() {
+        return contexts.get(Math.floorMod(roundRobinCounter.getAndIncrement(), contexts.size()));
+    }
+}
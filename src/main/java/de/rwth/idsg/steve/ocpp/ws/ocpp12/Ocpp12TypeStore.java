@@ -19,6 +19,24 @@
 package de.rwth.idsg.steve.ocpp.ws.ocpp12;
 
 import de.rwth.idsg.steve.ocpp.ws.AbstractTypeStore;
+import ocpp.cp._2010._08.ChangeAvailabilityRequest;
+import ocpp.cp._2010._08.ChangeAvailabilityResponse;
+import ocpp.cp._2010._08.ChangeConfigurationRequest;
+import ocpp.cp._2010._08.ChangeConfigurationResponse;
+import ocpp.cp._2010._08.ClearCacheRequest;
+import ocpp.cp._2010._08.ClearCacheResponse;
+import ocpp.cp._2010._08.GetDiagnosticsRequest;
+import ocpp.cp._2010._08.GetDiagnosticsResponse;
+import ocpp.cp._2010._08.RemoteStartTransactionRequest;
+import ocpp.cp._2010._08.RemoteStartTransactionResponse;
+import ocpp.cp._2010._08.RemoteStopTransactionRequest;
+import ocpp.cp._2010._08.RemoteStopTransactionResponse;
+import ocpp.cp._2010._08.ResetRequest;
+import ocpp.cp._2010._08.ResetResponse;
+import ocpp.cp._2010._08.UnlockConnectorRequest;
+import ocpp.cp._2010._08.UnlockConnectorResponse;
+import ocpp.cp._2010._08.UpdateFirmwareRequest;
+import ocpp.cp._2010._08.UpdateFirmwareResponse;
 
 /**
  * @author Sevket Goekay <sevketgokay@gmail.com>
@@ -29,9 +47,26 @@ public final class Ocpp12TypeStore extends AbstractTypeStore {
     public static final Ocpp12TypeStore INSTANCE = new Ocpp12TypeStore();
 
     private Ocpp12TypeStore() {
-        super(
-                ocpp.cs._2010._08.ObjectFactory.class.getPackage().getName(),
-                ocpp.cp._2010._08.ObjectFactory.class.getPackage().getName()
-        );
+        // incoming
+        addIncoming(ocpp.cs._2010._08.AuthorizeRequest.class);
+        addIncoming(ocpp.cs._2010._08.BootNotificationRequest.class);
+        addIncoming(ocpp.cs._2010._08.DiagnosticsStatusNotificationRequest.class);
+        addIncoming(ocpp.cs._2010._08.FirmwareStatusNotificationRequest.class);
+        addIncoming(ocpp.cs._2010._08.HeartbeatRequest.class);
+        addIncoming(ocpp.cs._2010._08.MeterValuesRequest.class);
+        addIncoming(ocpp.cs._2010._08.StartTransactionRequest.class);
+        addIncoming(ocpp.cs._2010._08.StatusNotificationRequest.class);
+        addIncoming(ocpp.cs._2010._08.StopTransactionRequest.class);
+
+        // outgoing
+        addOutgoing(ChangeAvailabilityRequest.class, ChangeAvailabilityResponse.class);
+        addOutgoing(ChangeConfigurationRequest.class, ChangeConfigurationResponse.class);
+        addOutgoing(ClearCacheRequest.class, ClearCacheResponse.class);
+        addOutgoing(GetDiagnosticsRequest.class, GetDiagnosticsResponse.class);
+        addOutgoing(RemoteStartTransactionRequest.class, RemoteStartTransactionResponse.class);
+        addOutgoing(RemoteStopTransactionRequest.class, RemoteStopTransactionResponse.class);
+        addOutgoing(ResetRequest.class, ResetResponse.class);
+        addOutgoing(UnlockConnectorRequest.class, UnlockConnectorResponse.class);
+        addOutgoing(UpdateFirmwareRequest.class, UpdateFirmwareResponse.class);
     }
 }
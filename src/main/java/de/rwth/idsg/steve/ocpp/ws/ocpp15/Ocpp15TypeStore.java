@@ -19,6 +19,36 @@
 package de.rwth.idsg.steve.ocpp.ws.ocpp15;
 
 import de.rwth.idsg.steve.ocpp.ws.AbstractTypeStore;
+import ocpp.cp._2012._06.CancelReservationRequest;
+import ocpp.cp._2012._06.CancelReservationResponse;
+import ocpp.cp._2012._06.ChangeAvailabilityRequest;
+import ocpp.cp._2012._06.ChangeAvailabilityResponse;
+import ocpp.cp._2012._06.ChangeConfigurationRequest;
+import ocpp.cp._2012._06.ChangeConfigurationResponse;
+import ocpp.cp._2012._06.ClearCacheRequest;
+import ocpp.cp._2012._06.ClearCacheResponse;
+import ocpp.cp._2012._06.DataTransferRequest;
+import ocpp.cp._2012._06.DataTransferResponse;
+import ocpp.cp._2012._06.GetConfigurationRequest;
+import ocpp.cp._2012._06.GetConfigurationResponse;
+import ocpp.cp._2012._06.GetDiagnosticsRequest;
+import ocpp.cp._2012._06.GetDiagnosticsResponse;
+import ocpp.cp._2012._06.GetLocalListVersionRequest;
+import ocpp.cp._2012._06.GetLocalListVersionResponse;
+import ocpp.cp._2012._06.RemoteStartTransactionRequest;
+import ocpp.cp._2012._06.RemoteStartTransactionResponse;
+import ocpp.cp._2012._06.RemoteStopTransactionRequest;
+import ocpp.cp._2012._06.RemoteStopTransactionResponse;
+import ocpp.cp._2012._06.ReserveNowRequest;
+import ocpp.cp._2012._06.ReserveNowResponse;
+import ocpp.cp._2012._06.ResetRequest;
+import ocpp.cp._2012._06.ResetResponse;
+import ocpp.cp._2012._06.SendLocalListRequest;
+import ocpp.cp._2012._06.SendLocalListResponse;
+import ocpp.cp._2012._06.UnlockConnectorRequest;
+import ocpp.cp._2012._06.UnlockConnectorResponse;
+import ocpp.cp._2012._06.UpdateFirmwareRequest;
+import ocpp.cp._2012._06.UpdateFirmwareResponse;
 
 /**
  * @author Sevket Goekay <sevketgokay@gmail.com>
@@ -29,10 +59,33 @@ public final class Ocpp15TypeStore extends AbstractTypeStore {
     public static final Ocpp15TypeStore INSTANCE = new Ocpp15TypeStore();
 
     private Ocpp15TypeStore() {
-        super(
-                ocpp.cs._2012._06.ObjectFactory.class.getPackage().getName(),
-                ocpp.cp._2012._06.ObjectFactory.class.getPackage().getName()
-        );
-    }
+        // incoming
+        addIncoming(ocpp.cs._2012._06.AuthorizeRequest.class);
+        addIncoming(ocpp.cs._2012._06.BootNotificationRequest.class);
+        addIncoming(ocpp.cs._2012._06.DataTransferRequest.class);
+        addIncoming(ocpp.cs._2012._06.DiagnosticsStatusNotificationRequest.class);
+        addIncoming(ocpp.cs._2012._06.FirmwareStatusNotificationRequest.class);
+        addIncoming(ocpp.cs._2012._06.HeartbeatRequest.class);
+        addIncoming(ocpp.cs._2012._06.MeterValuesRequest.class);
+        addIncoming(ocpp.cs._2012._06.StartTransactionRequest.class);
+        addIncoming(ocpp.cs._2012._06.StatusNotificationRequest.class);
+        addIncoming(ocpp.cs._2012._06.StopTransactionRequest.class);
 
+        // outgoing
+        addOutgoing(CancelReservationRequest.class, CancelReservationResponse.class);
+        addOutgoing(ChangeAvailabilityRequest.class, ChangeAvailabilityResponse.class);
+        addOutgoing(ChangeConfigurationRequest.class, ChangeConfigurationResponse.class);
+        addOutgoing(ClearCacheRequest.class, ClearCacheResponse.class);
+        addOutgoing(DataTransferRequest.class, DataTransferResponse.class);
+        addOutgoing(GetConfigurationRequest.class, GetConfigurationResponse.class);
+        addOutgoing(GetDiagnosticsRequest.class, GetDiagnosticsResponse.class);
+        addOutgoing(GetLocalListVersionRequest.class, GetLocalListVersionResponse.class);
+        addOutgoing(RemoteStartTransactionRequest.class, RemoteStartTransactionResponse.class);
+        addOutgoing(RemoteStopTransactionRequest.class, RemoteStopTransactionResponse.class);
+        addOutgoing(ReserveNowRequest.class, ReserveNowResponse.class);
+        addOutgoing(ResetRequest.class, ResetResponse.class);
+        addOutgoing(SendLocalListRequest.class, SendLocalListResponse.class);
+        addOutgoing(UnlockConnectorRequest.class, UnlockConnectorResponse.class);
+        addOutgoing(UpdateFirmwareRequest.class, UpdateFirmwareResponse.class);
+    }
 }
@@ -24,6 +24,8 @@ import de.rwth.idsg.steve.ocpp.OcppProtocol;
 import de.rwth.idsg.steve.ocpp.OcppVersion;
 import de.rwth.idsg.steve.ocpp.soap.CentralSystemService15_SoapServer;
 import de.rwth.idsg.steve.ocpp.ws.AbstractWebSocketEndpoint;
+import de.rwth.idsg.steve.ocpp.ws.AdmissionController;
+import de.rwth.idsg.steve.ocpp.ws.CallReplayCache;
 import de.rwth.idsg.steve.ocpp.ws.FutureResponseContextStore;
 import de.rwth.idsg.steve.ocpp.ws.pipeline.AbstractCallHandler;
 import de.rwth.idsg.steve.ocpp.ws.pipeline.Deserializer;
@@ -53,11 +55,14 @@ public class Ocpp15WebSocketEndpoint extends AbstractWebSocketEndpoint {
 
     @Autowired private CentralSystemService15_SoapServer server;
     @Autowired private FutureResponseContextStore futureResponseContextStore;
+    @Autowired private AdmissionController admissionController;
+    @Autowired private CallReplayCache callReplayCache;
 
     @PostConstruct
     public void init() {
         Deserializer deserializer = new Deserializer(futureResponseContextStore, Ocpp15TypeStore.INSTANCE);
-        IncomingPipeline pipeline = new IncomingPipeline(deserializer, new Ocpp15CallHandler(server));
+        IncomingPipeline pipeline =
+                new IncomingPipeline(deserializer, new Ocpp15CallHandler(server), admissionController, callReplayCache);
         super.init(pipeline);
     }
 
@@ -72,43 +77,43 @@ public class Ocpp15WebSocketEndpoint extends AbstractWebSocketEndpoint {
         private final CentralSystemService15_SoapServer server;
 
         @Override
-        protected ResponseType dispatch(RequestType params, String chargeBoxId) {
-            ResponseType r;
+        protected ResponseType dispatch(String action, RequestType params, String chargeBoxId) {
+            switch (action) {
+                case "BootNotification":
+                    return server.bootNotificationWithTransport(
+                            (BootNotificationRequest) params, chargeBoxId, OcppProtocol.V_15_JSON);
 
-            if (params instanceof BootNotificationRequest) {
-                r = server.bootNotificationWithTransport((BootNotificationRequest) params, chargeBoxId, OcppProtocol.V_15_JSON);
+                case "FirmwareStatusNotification":
+                    return server.firmwareStatusNotification((FirmwareStatusNotificationRequest) params, chargeBoxId);
 
-            } else if (params instanceof FirmwareStatusNotificationRequest) {
-                r = server.firmwareStatusNotification((FirmwareStatusNotificationRequest) params, chargeBoxId);
+                case "StatusNotification":
+                    return server.statusNotification((StatusNotificationRequest) params, chargeBoxId);
 
-            } else if (params instanceof StatusNotificationRequest) {
-                r = server.statusNotification((StatusNotificationRequest) params, chargeBoxId);
+                case "MeterValues":
+                    return server.meterValues((MeterValuesRequest) params, chargeBoxId);
 
-            } else if (params instanceof MeterValuesRequest) {
-                r = server.meterValues((MeterValuesRequest) params, chargeBoxId);
+                case "DiagnosticsStatusNotification":
+                    return server.diagnosticsStatusNotification(
+                            (DiagnosticsStatusNotificationRequest) params, chargeBoxId);
 
-            } else if (params instanceof DiagnosticsStatusNotificationRequest) {
-                r = server.diagnosticsStatusNotification((DiagnosticsStatusNotificationRequest) params, chargeBoxId);
+                case "StartTransaction":
+                    return server.startTransaction((StartTransactionRequest) params, chargeBoxId);
 
-            } else if (params instanceof StartTransactionRequest) {
-                r = server.startTransaction((StartTransactionRequest) params, chargeBoxId);
+                case "StopTransaction":
+                    return server.stopTransaction((StopTransactionRequest) params, chargeBoxId);
 
-            } else if (params instanceof StopTransactionRequest) {
-                r = server.stopTransaction((StopTransactionRequest) params, chargeBoxId);
+                case "Heartbeat":
+                    return server.heartbeat((HeartbeatRequest) params, chargeBoxId);
 
-            } else if (params instanceof HeartbeatRequest) {
-                r = server.heartbeat((HeartbeatRequest) params, chargeBoxId);
+                case "Authorize":
+                    return server.authorize((AuthorizeRequest) params, chargeBoxId);
 
-            } else if (params instanceof AuthorizeRequest) {
-                r = server.authorize((AuthorizeRequest) params, chargeBoxId);
+                case "DataTransfer":
+                    return server.dataTransfer((DataTransferRequest) params, chargeBoxId);
 
-            } else if (params instanceof DataTransferRequest) {
-                r = server.dataTransfer((DataTransferRequest) params, chargeBoxId);
-            } else {
-                throw new IllegalArgumentException("Unexpected RequestType, dispatch method not found");
+                default:
+                    throw new IllegalArgumentException("Unexpected RequestType, dispatch method not found");
             }
-
-            return r;
         }
     }
 }
@@ -19,6 +19,44 @@
 package de.rwth.idsg.steve.ocpp.ws.ocpp16;
 
 import de.rwth.idsg.steve.ocpp.ws.AbstractTypeStore;
+import ocpp.cp._2015._10.CancelReservationRequest;
+import ocpp.cp._2015._10.CancelReservationResponse;
+import ocpp.cp._2015._10.ChangeAvailabilityRequest;
+import ocpp.cp._2015._10.ChangeAvailabilityResponse;
+import ocpp.cp._2015._10.ChangeConfigurationRequest;
+import ocpp.cp._2015._10.ChangeConfigurationResponse;
+import ocpp.cp._2015._10.ClearCacheRequest;
+import ocpp.cp._2015._10.ClearCacheResponse;
+import ocpp.cp._2015._10.ClearChargingProfileRequest;
+import ocpp.cp._2015._10.ClearChargingProfileResponse;
+import ocpp.cp._2015._10.DataTransferRequest;
+import ocpp.cp._2015._10.DataTransferResponse;
+import ocpp.cp._2015._10.GetCompositeScheduleRequest;
+import ocpp.cp._2015._10.GetCompositeScheduleResponse;
+import ocpp.cp._2015._10.GetConfigurationRequest;
+import ocpp.cp._2015._10.GetConfigurationResponse;
+import ocpp.cp._2015._10.GetDiagnosticsRequest;
+import ocpp.cp._2015._10.GetDiagnosticsResponse;
+import ocpp.cp._2015._10.GetLocalListVersionRequest;
+import ocpp.cp._2015._10.GetLocalListVersionResponse;
+import ocpp.cp._2015._10.RemoteStartTransactionRequest;
+import ocpp.cp._2015._10.RemoteStartTransactionResponse;
+import ocpp.cp._2015._10.RemoteStopTransactionRequest;
+import ocpp.cp._2015._10.RemoteStopTransactionResponse;
+import ocpp.cp._2015._10.ReserveNowRequest;
+import ocpp.cp._2015._10.ReserveNowResponse;
+import ocpp.cp._2015._10.ResetRequest;
+import ocpp.cp._2015._10.ResetResponse;
+import ocpp.cp._2015._10.SendLocalListRequest;
+import ocpp.cp._2015._10.SendLocalListResponse;
+import ocpp.cp._2015._10.SetChargingProfileRequest;
+import ocpp.cp._2015._10.SetChargingProfileResponse;
+import ocpp.cp._2015._10.TriggerMessageRequest;
+import ocpp.cp._2015._10.TriggerMessageResponse;
+import ocpp.cp._2015._10.UnlockConnectorRequest;
+import ocpp.cp._2015._10.UnlockConnectorResponse;
+import ocpp.cp._2015._10.UpdateFirmwareRequest;
+import ocpp.cp._2015._10.UpdateFirmwareResponse;
 
 /**
  * @author Sevket Goekay <sevketgokay@gmail.com>
@@ -29,9 +67,37 @@ public final class Ocpp16TypeStore extends AbstractTypeStore {
     public static final Ocpp16TypeStore INSTANCE = new Ocpp16TypeStore();
 
     private Ocpp16TypeStore() {
-        super(
-                ocpp.cs._2015._10.ObjectFactory.class.getPackage().getName(),
-                ocpp.cp._2015._10.ObjectFactory.class.getPackage().getName()
-        );
+        // incoming
+        addIncoming(ocpp.cs._2015._10.AuthorizeRequest.class);
+        addIncoming(ocpp.cs._2015._10.BootNotificationRequest.class);
+        addIncoming(ocpp.cs._2015._10.DataTransferRequest.class);
+        addIncoming(ocpp.cs._2015._10.DiagnosticsStatusNotificationRequest.class);
+        addIncoming(ocpp.cs._2015._10.FirmwareStatusNotificationRequest.class);
+        addIncoming(ocpp.cs._2015._10.HeartbeatRequest.class);
+        addIncoming(ocpp.cs._2015._10.MeterValuesRequest.class);
+        addIncoming(ocpp.cs._2015._10.StartTransactionRequest.class);
+        addIncoming(ocpp.cs._2015._10.StatusNotificationRequest.class);
+        addIncoming(ocpp.cs._2015._10.StopTransactionRequest.class);
+
+        // outgoing
+        addOutgoing(CancelReservationRequest.class, CancelReservationResponse.class);
+        addOutgoing(ChangeAvailabilityRequest.class, ChangeAvailabilityResponse.class);
+        addOutgoing(ChangeConfigurationRequest.class, ChangeConfigurationResponse.class);
+        addOutgoing(ClearCacheRequest.class, ClearCacheResponse.class);
+        addOutgoing(ClearChargingProfileRequest.class, ClearChargingProfileResponse.class);
+        addOutgoing(DataTransferRequest.class, DataTransferResponse.class);
+        addOutgoing(GetCompositeScheduleRequest.class, GetCompositeScheduleResponse.class);
+        addOutgoing(GetConfigurationRequest.class, GetConfigurationResponse.class);
+        addOutgoing(GetDiagnosticsRequest.class, GetDiagnosticsResponse.class);
+        addOutgoing(GetLocalListVersionRequest.class, GetLocalListVersionResponse.class);
+        addOutgoing(RemoteStartTransactionRequest.class, RemoteStartTransactionResponse.class);
+        addOutgoing(RemoteStopTransactionRequest.class, RemoteStopTransactionResponse.class);
+        addOutgoing(ReserveNowRequest.class, ReserveNowResponse.class);
+        addOutgoing(ResetRequest.class, ResetResponse.class);
+        addOutgoing(SendLocalListRequest.class, SendLocalListResponse.class);
+        addOutgoing(SetChargingProfileRequest.class, SetChargingProfileResponse.class);
+        addOutgoing(TriggerMessageRequest.class, TriggerMessageResponse.class);
+        addOutgoing(UnlockConnectorRequest.class, UnlockConnectorResponse.class);
+        addOutgoing(UpdateFirmwareRequest.class, UpdateFirmwareResponse.class);
     }
 }
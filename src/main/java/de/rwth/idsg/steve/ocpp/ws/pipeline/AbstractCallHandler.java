@@ -43,7 +43,7 @@ public abstract class AbstractCallHandler implements Consumer<CommunicationConte
 
         ResponseType response;
         try {
-            response = dispatch(call.getPayload(), context.getChargeBoxId());
+            response = dispatch(call.getAction(), call.getPayload(), context.getChargeBoxId());
         } catch (Exception e) {
             log.error("Exception occurred", e);
             context.setOutgoingMessage(ErrorFactory.payloadProcessingError(messageId, e.getMessage()));
@@ -56,5 +56,9 @@ public abstract class AbstractCallHandler implements Consumer<CommunicationConte
         context.setOutgoingMessage(result);
     }
 
-    protected abstract ResponseType dispatch(RequestType params, String chargeBoxId);
+    /**
+     * The Deserializer found the class of the payload by the action, which is why the implementations can switch
+     * over the action and cast the payload, instead of going through a chain of instanceof checks.
+     */
+    protected abstract ResponseType dispatch(String action, RequestType params, String chargeBoxId);
 }
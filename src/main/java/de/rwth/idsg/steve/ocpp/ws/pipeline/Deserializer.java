@@ -19,12 +19,10 @@
 package de.rwth.idsg.steve.ocpp.ws.pipeline;
 
 import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.core.TreeNode;
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.JsonNodeFactory;
-import com.fasterxml.jackson.databind.node.NullNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.ObjectReader;
 import de.rwth.idsg.ocpp.jaxb.RequestType;
 import de.rwth.idsg.ocpp.jaxb.ResponseType;
 import de.rwth.idsg.steve.SteveException;
@@ -55,6 +53,8 @@ import java.util.function.Consumer;
 @RequiredArgsConstructor
 public class Deserializer implements Consumer<CommunicationContext> {
 
+    private static final String EMPTY_OBJECT = "{}";
+
     private final ObjectMapper mapper = JsonObjectMapper.INSTANCE.getMapper();
 
     private final FutureResponseContextStore futureResponseContextStore;
@@ -127,14 +127,14 @@ public class Deserializer implements Consumer<CommunicationContext> {
         RequestType req;
         try {
             parser.nextToken();
-            JsonNode requestPayload = parser.readValueAsTree();
 
             // https://github.com/steve-community/steve/issues/1109
-            if (requestPayload instanceof NullNode) {
-                requestPayload = new ObjectNode(JsonNodeFactory.instance);
+            if (parser.currentToken() == JsonToken.VALUE_NULL) {
+                ObjectReader reader = JsonObjectMapper.INSTANCE.getReader(clazz);
+                req = reader.readValue(EMPTY_OBJECT);
+            } else {
+                req = readPayload(parser, clazz);
             }
-
-            req = mapper.treeToValue(requestPayload, clazz);
         } catch (IOException e) {
             log.error("Exception occurred", e);
             context.setOutgoingMessage(ErrorFactory.payloadDeserializeError(messageId, e.getMessage()));
@@ -165,8 +165,7 @@ public class Deserializer implements Consumer<CommunicationContext> {
         ResponseType res;
         try {
             parser.nextToken();
-            JsonNode responsePayload = parser.readValueAsTree();
-            res = mapper.treeToValue(responsePayload, responseContext.getResponseClass());
+            res = readPayload(parser, responseContext.getResponseClass());
         } catch (IOException e) {
             throw new SteveException("Deserialization of incoming response payload failed", e);
         }
@@ -176,7 +175,16 @@ public class Deserializer implements Consumer<CommunicationContext> {
         result.setPayload(res);
 
         context.setIncomingMessage(result);
-        context.createResultHandler(responseContext.getTask());
+        context.createResultHandler(responseContext);
+    }
+
+    /**
+     * Binds the payload directly from the token stream to the target class, without building an intermediate
+     * JsonNode tree first. The parser must be positioned at the first token of the payload.
+     */
+    private static <T> T readPayload(JsonParser parser, Class<T> clazz) throws IOException {
+        ObjectReader reader = JsonObjectMapper.INSTANCE.getReader(clazz);
+        return reader.readValue(parser);
     }
 
     /**
@@ -228,7 +236,7 @@ public class Deserializer implements Consumer<CommunicationContext> {
         error.setErrorDetails(details);
 
         context.setIncomingMessage(error);
-        context.createErrorHandler(responseContext.getTask());
+        context.createErrorHandler(responseContext);
     }
 
 }
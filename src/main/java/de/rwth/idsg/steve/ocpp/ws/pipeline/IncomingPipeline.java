@@ -18,6 +18,8 @@
  */
 package de.rwth.idsg.steve.ocpp.ws.pipeline;
 
+import de.rwth.idsg.steve.ocpp.ws.AdmissionController;
+import de.rwth.idsg.steve.ocpp.ws.CallReplayCache;
 import de.rwth.idsg.steve.ocpp.ws.data.CommunicationContext;
 import de.rwth.idsg.steve.ocpp.ws.data.OcppJsonCall;
 import de.rwth.idsg.steve.ocpp.ws.data.OcppJsonError;
@@ -43,6 +45,8 @@ public class IncomingPipeline implements Consumer<CommunicationContext> {
 
     private final Deserializer deserializer;
     private final AbstractCallHandler handler;
+    private final AdmissionController admissionController;
+    private final CallReplayCache callReplayCache;
 
     @Override
     public void accept(CommunicationContext context) {
@@ -58,8 +62,22 @@ public class IncomingPipeline implements Consumer<CommunicationContext> {
         OcppJsonMessage msg = context.getIncomingMessage();
 
         if (msg instanceof OcppJsonCall) {
-            handler.accept(context);
+            OcppJsonCall call = (OcppJsonCall) msg;
+
+            String replay = callReplayCache.getResponse(context.getChargeBoxId(), call, context.getIncomingString());
+            if (replay != null) {
+                context.setOutgoingString(replay);
+                sender.accept(context);
+                return;
+            }
+
+            handleCall(context, call);
             serializer.accept(context);
+
+            if (context.getOutgoingMessage() instanceof OcppJsonResult) {
+                callReplayCache.putResponse(context.getChargeBoxId(), call, context.getIncomingString(),
+                        context.getOutgoingString());
+            }
             sender.accept(context);
 
         } else if (msg instanceof OcppJsonResult) {
@@ -72,4 +90,17 @@ public class IncomingPipeline implements Consumer<CommunicationContext> {
         }
     }
 
+    private void handleCall(CommunicationContext context, OcppJsonCall call) {
+        OcppJsonError rejection = admissionController.tryAcquire(context.getChargeBoxId(), call);
+        if (rejection != null) {
+            context.setOutgoingMessage(rejection);
+            return;
+        }
+
+        try {
+            handler.accept(context);
+        } finally {
+            admissionController.release();
+        }
+    }
 }
@@ -41,8 +41,8 @@ public class OutgoingCallPipeline implements Consumer<CommunicationContext> {
     @Autowired
     public OutgoingCallPipeline(FutureResponseContextStore store) {
         chainedConsumers = OutgoingCallPipeline.start(Serializer.INSTANCE)
-                                               .andThen(Sender.INSTANCE)
-                                               .andThen(saveInStore(store));
+                                               .andThen(saveInStore(store))
+                                               .andThen(sendOrRemoveFromStore(store));
     }
 
     @Override
@@ -50,12 +50,28 @@ public class OutgoingCallPipeline implements Consumer<CommunicationContext> {
         chainedConsumers.accept(ctx);
     }
 
+    /**
+     * Store the response context for later lookup. This must happen before sending, since a fast charge point
+     * might respond before we get the chance to store it afterwards. Fails if the charge point has already
+     * too many calls waiting for a response.
+     */
     private static Consumer<CommunicationContext> saveInStore(FutureResponseContextStore store) {
+        return context -> store.add(context.getSession(),
+                                    context.getOutgoingMessage().getMessageId(),
+                                    context.getFutureResponseContext());
+    }
+
+    /**
+     * The call did not leave, therefore there will be no response. Forget about it.
+     */
+    private static Consumer<CommunicationContext> sendOrRemoveFromStore(FutureResponseContextStore store) {
         return context -> {
-            // All went well, and the call is sent. Store the response context for later lookup.
-            store.add(context.getSession(),
-                      context.getOutgoingMessage().getMessageId(),
-                      context.getFutureResponseContext());
+            try {
+                Sender.INSTANCE.accept(context);
+            } catch (RuntimeException e) {
+                store.get(context.getSession(), context.getOutgoingMessage().getMessageId());
+                throw e;
+            }
         };
     }
 
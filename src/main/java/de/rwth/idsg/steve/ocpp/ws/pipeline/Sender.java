@@ -22,6 +22,7 @@ import de.rwth.idsg.steve.SteveException;
 import de.rwth.idsg.steve.ocpp.ws.WebSocketLogger;
 import de.rwth.idsg.steve.ocpp.ws.data.CommunicationContext;
 import de.rwth.idsg.steve.ocpp.ws.data.OcppJsonCall;
+import de.rwth.idsg.steve.ocpp.ws.data.OcppJsonMessage;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
@@ -45,7 +46,7 @@ public enum Sender implements Consumer<CommunicationContext> {
         String chargeBoxId = context.getChargeBoxId();
         WebSocketSession session = context.getSession();
 
-        WebSocketLogger.sending(chargeBoxId, session, outgoingString);
+        WebSocketLogger.sending(chargeBoxId, session, outgoingString, getCallAction(context));
 
         TextMessage out = new TextMessage(outgoingString);
         try {
@@ -60,4 +61,15 @@ public enum Sender implements Consumer<CommunicationContext> {
             }
         }
     }
+
+    /**
+     * @return the action of the outgoing call, or of the incoming call that the outgoing message answers
+     */
+    private static String getCallAction(CommunicationContext context) {
+        OcppJsonMessage call = (context.getOutgoingMessage() instanceof OcppJsonCall)
+                ? context.getOutgoingMessage()
+                : context.getIncomingMessage();
+
+        return (call instanceof OcppJsonCall) ? ((OcppJsonCall) call).getAction() : null;
+    }
 }
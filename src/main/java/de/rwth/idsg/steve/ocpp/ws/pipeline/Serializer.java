@@ -18,10 +18,8 @@
  */
 package de.rwth.idsg.steve.ocpp.ws.pipeline;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ArrayNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
 import de.rwth.idsg.steve.SteveException;
 import de.rwth.idsg.steve.ocpp.ws.ErrorFactory;
 import de.rwth.idsg.steve.ocpp.ws.JsonObjectMapper;
@@ -34,12 +32,17 @@ import de.rwth.idsg.steve.ocpp.ws.data.OcppJsonResult;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.IOException;
+import java.io.Writer;
 import java.util.function.Consumer;
 
 /**
  * Outgoing OcppJsonMessage --> String.
  *
- * This class should remain stateless.
+ * The frame is written with a single JsonGenerator pass into a per-thread buffer, without building an intermediate
+ * JsonNode tree. The message id and action are written as they are (like before with the ArrayNode), only the
+ * payload goes through the custom serializers of the mapper.
+ *
+ * This class should remain stateless (apart from the reusable thread-local buffers).
  *
  * @author Sevket Goekay <sevketgokay@gmail.com>
  * @since 17.03.2015
@@ -48,13 +51,24 @@ import java.util.function.Consumer;
 public enum Serializer implements Consumer<CommunicationContext> {
     INSTANCE;
 
-    private final ObjectMapper mapper = JsonObjectMapper.INSTANCE.getMapper();
+    private static final int INITIAL_BUFFER_SIZE = 1024;
+
+    /**
+     * A buffer that grew beyond this size (because of a large frame, e.g. SendLocalList) is not kept for reuse,
+     * so that every pool thread does not end up holding on to megabytes.
+     */
+    private static final int MAX_RETAINED_BUFFER_SIZE = 64 * 1024;
+
+    private static final ThreadLocal<FrameBuffer> BUFFERS = ThreadLocal.withInitial(FrameBuffer::new);
+
+    private final JsonObjectMapper jsonMapper = JsonObjectMapper.INSTANCE;
+    private final JsonFactory factory = jsonMapper.getMapper().getFactory();
 
     @Override
     public void accept(CommunicationContext context) {
         OcppJsonMessage message = context.getOutgoingMessage();
 
-        ArrayNode str;
+        String str;
         MessageType messageType = message.getMessageType();
         switch (messageType) {
             case CALL:
@@ -73,11 +87,21 @@ public enum Serializer implements Consumer<CommunicationContext> {
                 throw new SteveException("Unknown enum type");
         }
 
+        context.setOutgoingString(str);
+    }
+
+    /**
+     * For payloads that are sent to many stations: Serialized once with this, and then only spliced into the frame
+     * of each station (see {@link OcppJsonCall#getPayloadJson()}).
+     */
+    public String serializePayload(Object payload) {
         try {
-            String result = mapper.writeValueAsString(str);
-            context.setOutgoingString(result);
+            if (payload == null) {
+                return "null";
+            }
+            return jsonMapper.getWriter(payload.getClass()).writeValueAsString(payload);
         } catch (IOException e) {
-            throw new SteveException("The outgoing message could not be serialized", e);
+            throw new SteveException("The payload of the outgoing call could not be converted to JSON", e);
         }
     }
 
@@ -89,43 +113,43 @@ public enum Serializer implements Consumer<CommunicationContext> {
      * Do NOT catch and handle exceptions for outgoing CALLs. Do NOT send the message.
      * Let the processing fail and acknowledge the user.
      */
-    private ArrayNode handleCall(OcppJsonCall call) {
-        JsonNode payloadNode;
+    private String handleCall(OcppJsonCall call) {
         try {
-            payloadNode = mapper.valueToTree(call.getPayload());
-        } catch (IllegalArgumentException e) {
+            return write(gen -> {
+                gen.writeNumber(call.getMessageType().getTypeNr());
+                gen.writeString(call.getMessageId());
+                gen.writeString(call.getAction());
+                if (call.getPayloadJson() != null) {
+                    gen.writeRawValue(call.getPayloadJson());
+                } else {
+                    writePayload(gen, call.getPayload());
+                }
+            });
+        } catch (IOException e) {
             throw new SteveException("The payload of the outgoing call could not be converted to JSON", e);
         }
-
-        return mapper.createArrayNode()
-                     .add(call.getMessageType().getTypeNr())
-                     .add(call.getMessageId())
-                     .add(call.getAction())
-                     .add(payloadNode);
     }
 
     /**
      * Catch exceptions and wrap them in outgoing ERRORs for outgoing RESPONSEs.
      */
-    private ArrayNode handleResult(OcppJsonResult result) {
-        JsonNode payloadNode;
+    private String handleResult(OcppJsonResult result) {
         try {
-            payloadNode = mapper.valueToTree(result.getPayload());
-        } catch (IllegalArgumentException e) {
+            return write(gen -> {
+                gen.writeNumber(result.getMessageType().getTypeNr());
+                gen.writeString(result.getMessageId());
+                writePayload(gen, result.getPayload());
+            });
+        } catch (IOException e) {
             log.error("Exception occurred", e);
             return handleError(ErrorFactory.payloadSerializeError(result.getMessageId(), e.getMessage()));
         }
-
-        return mapper.createArrayNode()
-                     .add(result.getMessageType().getTypeNr())
-                     .add(result.getMessageId())
-                     .add(payloadNode);
     }
 
     /**
-     * No exception to catch during serialization, since the fields of the error are simple Strings.
+     * No exception to expect during serialization, since the fields of the error are simple Strings.
      */
-    private ArrayNode handleError(OcppJsonError error) {
+    private String handleError(OcppJsonError error) {
         // From spec:
         // ErrorDescription - Should be filled in if possible, otherwise a clear empty string "".
         String description;
@@ -135,19 +159,108 @@ public enum Serializer implements Consumer<CommunicationContext> {
             description = "";
         }
 
-        // From spec:
-        // ErrorDetails - This JSON object describes error details in an undefined way.
-        // If there are no error details you should fill in an empty object {}, missing or null is not allowed
-        ObjectNode detailsNode = mapper.createObjectNode();
-        if (error.isSetDetails()) {
-            detailsNode.set("errorMsg", mapper.getNodeFactory().textNode(error.toStringErrorDetails()));
-        }
-
-        return mapper.createArrayNode()
-                     .add(error.getMessageType().getTypeNr())
-                     .add(error.getMessageId())
-                     .add(error.getErrorCode().name())
-                     .add(description)
-                     .add(detailsNode);
+        try {
+            return write(gen -> {
+                gen.writeNumber(error.getMessageType().getTypeNr());
+                gen.writeString(error.getMessageId());
+                gen.writeString(error.getErrorCode().name());
+                gen.writeString(description);
+
+                // From spec:
+                // ErrorDetails - This JSON object describes error details in an undefined way.
+                // If there are no error details you should fill in an empty object {}, missing or null is not allowed
+                gen.writeStartObject();
+                if (error.isSetDetails()) {
+                    gen.writeStringField("errorMsg", error.toStringErrorDetails());
+                }
+                gen.writeEndObject();
+            });
+        } catch (IOException e) {
+            throw new SteveException("The outgoing message could not be serialized", e);
+        }
+    }
+
+    private void writePayload(JsonGenerator gen, Object payload) throws IOException {
+        if (payload == null) {
+            gen.writeNull();
+        } else {
+            jsonMapper.getWriter(payload.getClass()).writeValue(gen, payload);
+        }
+    }
+
+    /**
+     * Wraps the elements written by the given writer in a JSON array and returns the result.
+     */
+    private String write(ElementWriter elementWriter) throws IOException {
+        FrameBuffer buffer = BUFFERS.get();
+        buffer.reset();
+        try {
+            try (JsonGenerator gen = factory.createGenerator(buffer)) {
+                gen.writeStartArray();
+                elementWriter.write(gen);
+                gen.writeEndArray();
+            }
+            return buffer.toString();
+        } finally {
+            if (buffer.capacity() > MAX_RETAINED_BUFFER_SIZE) {
+                BUFFERS.remove();
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface ElementWriter {
+        void write(JsonGenerator gen) throws IOException;
+    }
+
+    /**
+     * Similar to StringWriter, but unsynchronized and resettable.
+     */
+    private static final class FrameBuffer extends Writer {
+        private final StringBuilder sb = new StringBuilder(INITIAL_BUFFER_SIZE);
+
+        private void reset() {
+            sb.setLength(0);
+        }
+
+        private int capacity() {
+            return sb.capacity();
+        }
+
+        @Override
+        public void write(int c) {
+            sb.append((char) c);
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) {
+            sb.append(cbuf, off, len);
+        }
+
+        @Override
+        public void write(String str, int off, int len) {
+            sb.append(str, off, off + len);
+        }
+
+        @Override
+        public Writer append(CharSequence csq) {
+            sb.append(csq);
+            return this;
+        }
+
+        @Override
+        public void flush() {
+            // nothing to flush
+        }
+
+        @Override
+        public void close() {
+            // nothing to close. the buffer is reused
+        }
+
+        @Override
+        public String toString() {
+            return sb.toString();
+        }
     }
 }
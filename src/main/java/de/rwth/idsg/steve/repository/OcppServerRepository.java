@@ -20,6 +20,7 @@ package de.rwth.idsg.steve.repository;
 
 import de.rwth.idsg.steve.ocpp.OcppProtocol;
 import de.rwth.idsg.steve.repository.dto.InsertConnectorStatusParams;
+import de.rwth.idsg.steve.repository.dto.InsertMeterValuesParams;
 import de.rwth.idsg.steve.repository.dto.InsertTransactionParams;
 import de.rwth.idsg.steve.repository.dto.UpdateChargeboxParams;
 import de.rwth.idsg.steve.repository.dto.UpdateTransactionParams;
@@ -27,6 +28,7 @@ import ocpp.cs._2015._10.MeterValue;
 import org.joda.time.DateTime;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * @author Sevket Goekay <sevketgokay@gmail.com>
@@ -40,12 +42,19 @@ public interface OcppServerRepository {
     void updateChargeboxFirmwareStatus(String chargeBoxIdentity, String firmwareStatus);
     void updateChargeboxDiagnosticsStatus(String chargeBoxIdentity, String status);
     void updateChargeboxHeartbeat(String chargeBoxIdentity, DateTime ts);
+    void updateChargeboxHeartbeats(Map<String, DateTime> chargeBoxIdTimestampMap);
 
     void insertConnectorStatus(InsertConnectorStatusParams params);
 
     void insertMeterValues(String chargeBoxIdentity, List<MeterValue> list, int connectorId, Integer transactionId);
     void insertMeterValues(String chargeBoxIdentity, List<MeterValue> list, int transactionId);
 
+    /**
+     * Inserts the meter values of many messages within one transaction, with multi-row INSERTs.
+     * Throws an exception (and inserts nothing) if one of them cannot be inserted.
+     */
+    void insertMeterValues(List<InsertMeterValuesParams> batch);
+
     int insertTransaction(InsertTransactionParams params);
     void updateTransaction(UpdateTransactionParams params);
 }
@@ -49,4 +49,11 @@ public interface OcppTagRepository {
     int addOcppTag(OcppTagForm form);
     void updateOcppTag(OcppTagForm form);
     void deleteOcppTag(int ocppTagPk);
+
+    /**
+     * Recounts the active transactions of each idTag, and corrects the maintained counts that differ.
+     *
+     * @return number of corrected idTags
+     */
+    int reconcileActiveTransactionCounts();
 }
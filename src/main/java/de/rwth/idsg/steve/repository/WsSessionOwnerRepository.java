@@ -0,0 +1,71 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.repository;
+
+import de.rwth.idsg.steve.ocpp.OcppVersion;
+import org.joda.time.DateTime;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Which node holds the WebSocket connection of a station, when several SteVe nodes share one database.
+ *
+ * @author agent <agent@local>
+ * @since 17.10.2026
+ */
+public interface WsSessionOwnerRepository {
+
+    /**
+     * The last node to connect wins, since the station would not open a new connection if the old one worked.
+     */
+    void claim(String chargeBoxId, String nodeUrl, OcppVersion version);
+
+    /**
+     * Unlike {@link #claim(String, String, OcppVersion)}, does not take over the claim of another node.
+     */
+    void claimIfAbsent(String chargeBoxId, String nodeUrl, OcppVersion version);
+
+    /**
+     * Only releases the claim, if it still belongs to the node.
+     */
+    void release(String chargeBoxId, String nodeUrl);
+
+    void releaseAll(String nodeUrl);
+
+    /**
+     * Confirms that the node still holds the connections it claimed.
+     */
+    void heartbeat(String nodeUrl);
+
+    /**
+     * @return the chargeBoxIds that the node claimed
+     */
+    Set<String> getChargeBoxIds(String nodeUrl);
+
+    /**
+     * Removes the claims of nodes that did not confirm them since the cutoff.
+     */
+    int releaseStale(DateTime cutoff);
+
+    /**
+     * @return chargeBoxId -> URL of the node, for the claims that were confirmed since the cutoff
+     */
+    Map<String, String> getOwnerNodeUrls(DateTime cutoff);
+}
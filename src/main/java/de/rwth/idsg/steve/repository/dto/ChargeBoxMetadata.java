@@ -0,0 +1,39 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.repository.dto;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * The fields of a charge box that are needed while processing incoming messages.
+ *
+ * @author agent <agent@local>
+ * @since 17.10.2026
+ */
+@Getter
+@Builder
+public final class ChargeBoxMetadata {
+    private final int chargeBoxPk;
+    private final String chargeBoxId;
+    private final String registrationStatus;
+    private final boolean insertConnectorStatusAfterTransactionMsg;
+    private final String ocppProtocol;
+    private final String endpointAddress;
+}
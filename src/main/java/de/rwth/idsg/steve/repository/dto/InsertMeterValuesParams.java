@@ -0,0 +1,46 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.repository.dto;
+
+import lombok.Builder;
+import lombok.Getter;
+import ocpp.cs._2015._10.MeterValue;
+
+import java.util.List;
+
+/**
+ * The meter values of one message (MeterValues, or the transaction data of StopTransaction).
+ *
+ * @author agent <agent@local>
+ * @since 17.10.2026
+ */
+@Getter
+@Builder
+public class InsertMeterValuesParams {
+    private final String chargeBoxId;
+    private final List<MeterValue> meterValues;
+
+    // Not set for the transaction data of StopTransaction. Then, the connector is the one of the transaction.
+    private final Integer connectorId;
+    private final Integer transactionId;
+
+    public int getSampledValueCount() {
+        return meterValues.stream().mapToInt(k -> k.getSampledValue().size()).sum();
+    }
+}
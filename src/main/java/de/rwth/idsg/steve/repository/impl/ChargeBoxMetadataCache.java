@@ -0,0 +1,262 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.repository.impl;
+
+import de.rwth.idsg.steve.repository.dto.ChargeBoxMetadata;
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import lombok.RequiredArgsConstructor;
+import org.jetbrains.annotations.Nullable;
+import org.jooq.DSLContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+import static de.rwth.idsg.steve.SteveConfiguration.CONFIG;
+import static jooq.steve.db.tables.ChargeBox.CHARGE_BOX;
+
+/**
+ * Keeps the {@link ChargeBoxMetadata} of stations in memory, since it is needed for (almost) every incoming message.
+ * The repositories invalidate the entry of a station whenever they write one of the cached fields.
+ *
+ * Loading from the database and invalidation can run at the same time. To not put a value into the cache that was
+ * loaded before a concurrent invalidation (and is therefore possibly outdated), each invalidation increments a
+ * version, and a loaded value is only put into the cache if the version did not change in the meantime.
+ *
+ * Entries expire after a TTL, which limits how long changes that bypass the repositories (manual changes in the
+ * database, other nodes of a cluster) stay invisible.
+ *
+ * Unknown chargeBoxIds are remembered separately (with a shorter TTL and a max size, since anyone can send us any
+ * number of them), so that repeated attempts of unknown or hostile stations do not reach the database.
+ *
+ * @author agent <agent@local>
+ * @since 17.10.2026
+ */
+@Component
+public class ChargeBoxMetadataCache {
+
+    private static final int MAX_UNKNOWN_ENTRIES = 10_000;
+
+    public enum Lookup {
+        KNOWN,
+        UNKNOWN,
+        NOT_CACHED
+    }
+
+    private final Function<String, ChargeBoxMetadata> loader;
+    private final long ttlNanos;
+    private final LongSupplier nanoClock;
+
+    private final ConcurrentHashMap<String, Entry> cache = new ConcurrentHashMap<>();
+    private final Cache<String, Boolean> unknownCache;
+    private final AtomicLong version = new AtomicLong(0);
+
+    private final AtomicLong hitCount = new AtomicLong(0);
+    private final AtomicLong unknownHitCount = new AtomicLong(0);
+    private final AtomicLong missCount = new AtomicLong(0);
+
+    @Autowired
+    public ChargeBoxMetadataCache(DSLContext ctx) {
+        this(chargeBoxId -> load(ctx, chargeBoxId),
+             TimeUnit.SECONDS.toNanos(CONFIG.getOcpp().getChargeBoxCacheTtlSeconds()),
+             TimeUnit.SECONDS.toNanos(CONFIG.getOcpp().getChargeBoxUnknownCacheTtlSeconds()),
+             System::nanoTime);
+    }
+
+    ChargeBoxMetadataCache(Function<String, ChargeBoxMetadata> loader, long ttlNanos, long unknownTtlNanos,
+                           LongSupplier nanoClock) {
+        this.loader = loader;
+        this.ttlNanos = ttlNanos;
+        this.nanoClock = nanoClock;
+
+        if (unknownTtlNanos > 0) {
+            this.unknownCache = CacheBuilder.newBuilder()
+                                            .maximumSize(MAX_UNKNOWN_ENTRIES)
+                                            .expireAfterWrite(unknownTtlNanos, TimeUnit.NANOSECONDS)
+                                            .ticker(new Ticker() {
+                                                @Override
+                                                public long read() {
+                                                    return nanoClock.getAsLong();
+                                                }
+                                            })
+                                            .build();
+        } else {
+            this.unknownCache = null;
+        }
+    }
+
+    /**
+     * @return null, if there is no charge box with this id
+     */
+    @Nullable
+    public ChargeBoxMetadata get(String chargeBoxId) {
+        if (isCachedAsUnknown(chargeBoxId)) {
+            unknownHitCount.incrementAndGet();
+            return null;
+        }
+
+        long now = nanoClock.getAsLong();
+
+        if (ttlNanos > 0) {
+            Entry entry = cache.get(chargeBoxId);
+            if (entry != null && now - entry.loadedAt < ttlNanos) {
+                hitCount.incrementAndGet();
+                return entry.metadata;
+            }
+        }
+
+        missCount.incrementAndGet();
+
+        long versionBeforeLoad = version.get();
+        ChargeBoxMetadata metadata = loader.apply(chargeBoxId);
+
+        if (metadata == null) {
+            cache.remove(chargeBoxId);
+            putUnknown(chargeBoxId, versionBeforeLoad);
+        } else if (ttlNanos > 0) {
+            Entry loaded = new Entry(metadata, now);
+            // the check runs under the lock of the map entry, and invalidate() removes the entry only after
+            // incrementing the version. so, either we see the new version here, or the removal comes after us.
+            cache.compute(chargeBoxId, (key, old) -> version.get() == versionBeforeLoad ? loaded : old);
+        }
+        return metadata;
+    }
+
+    /**
+     * Only looks into the cache, and never goes to the database.
+     */
+    public Lookup peek(String chargeBoxId) {
+        if (isCachedAsUnknown(chargeBoxId)) {
+            return Lookup.UNKNOWN;
+        }
+
+        Entry entry = cache.get(chargeBoxId);
+        if (entry != null && nanoClock.getAsLong() - entry.loadedAt < ttlNanos) {
+            return Lookup.KNOWN;
+        }
+
+        return Lookup.NOT_CACHED;
+    }
+
+    /**
+     * Like {@link #peek(String)}, only looks into the cache. Returns null if the cache is disabled, the station is not
+     * cached yet or the entry expired.
+     */
+    @Nullable
+    public ChargeBoxMetadata getIfCached(String chargeBoxId) {
+        Entry entry = cache.get(chargeBoxId);
+        if (entry != null && nanoClock.getAsLong() - entry.loadedAt < ttlNanos) {
+            return entry.metadata;
+        }
+        return null;
+    }
+
+    public void invalidate(String chargeBoxId) {
+        version.incrementAndGet();
+        cache.remove(chargeBoxId);
+        if (unknownCache != null) {
+            unknownCache.invalidate(chargeBoxId);
+        }
+    }
+
+    /**
+     * Some writes only know the primary key. Not used on a hot path, therefore a scan is acceptable.
+     */
+    public void invalidate(int chargeBoxPk) {
+        version.incrementAndGet();
+        cache.values().removeIf(entry -> entry.metadata.getChargeBoxPk() == chargeBoxPk);
+    }
+
+    public void invalidateAll() {
+        version.incrementAndGet();
+        cache.clear();
+        if (unknownCache != null) {
+            unknownCache.invalidateAll();
+        }
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getUnknownHitCount() {
+        return unknownHitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    // -------------------------------------------------------------------------
+    // Private helpers
+    // -------------------------------------------------------------------------
+
+    private boolean isCachedAsUnknown(String chargeBoxId) {
+        return unknownCache != null && unknownCache.getIfPresent(chargeBoxId) != null;
+    }
+
+    /**
+     * Unlike the map of known stations, the Guava cache has no compute(..). Therefore, we put first and check the
+     * version afterwards: If an invalidation happened in the meantime, we remove our entry again.
+     */
+    private void putUnknown(String chargeBoxId, long versionBeforeLoad) {
+        if (unknownCache == null) {
+            return;
+        }
+        unknownCache.put(chargeBoxId, Boolean.TRUE);
+        if (version.get() != versionBeforeLoad) {
+            unknownCache.invalidate(chargeBoxId);
+        }
+    }
+
+    private static ChargeBoxMetadata load(DSLContext ctx, String chargeBoxId) {
+        return ctx.select(CHARGE_BOX.CHARGE_BOX_PK,
+                          CHARGE_BOX.REGISTRATION_STATUS,
+                          CHARGE_BOX.INSERT_CONNECTOR_STATUS_AFTER_TRANSACTION_MSG,
+                          CHARGE_BOX.OCPP_PROTOCOL,
+                          CHARGE_BOX.ENDPOINT_ADDRESS)
+                  .from(CHARGE_BOX)
+                  .where(CHARGE_BOX.CHARGE_BOX_ID.eq(chargeBoxId))
+                  .fetchOne(r -> ChargeBoxMetadata
+                                    .builder()
+                                    .chargeBoxPk(r.value1())
+                                    .chargeBoxId(chargeBoxId)
+                                    .registrationStatus(r.value2())
+                                    .insertConnectorStatusAfterTransactionMsg(Boolean.TRUE.equals(r.value3()))
+                                    .ocppProtocol(r.value4())
+                                    .endpointAddress(r.value5())
+                                    .build());
+    }
+
+    @RequiredArgsConstructor
+    private static class Entry {
+        private final ChargeBoxMetadata metadata;
+        private final long loadedAt;
+    }
+}
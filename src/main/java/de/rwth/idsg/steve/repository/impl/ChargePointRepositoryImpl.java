@@ -22,6 +22,7 @@ import de.rwth.idsg.steve.SteveException;
 import de.rwth.idsg.steve.ocpp.OcppProtocol;
 import de.rwth.idsg.steve.repository.AddressRepository;
 import de.rwth.idsg.steve.repository.ChargePointRepository;
+import de.rwth.idsg.steve.repository.dto.ChargeBoxMetadata;
 import de.rwth.idsg.steve.repository.dto.ChargePoint;
 import de.rwth.idsg.steve.repository.dto.ChargePointSelect;
 import de.rwth.idsg.steve.repository.dto.ConnectorStatus;
@@ -36,13 +37,11 @@ import ocpp.cs._2015._10.RegistrationStatus;
 import org.joda.time.DateTime;
 import org.jooq.Condition;
 import org.jooq.DSLContext;
-import org.jooq.Field;
 import org.jooq.Record1;
 import org.jooq.Record5;
 import org.jooq.Result;
 import org.jooq.SelectConditionStep;
 import org.jooq.SelectQuery;
-import org.jooq.Table;
 import org.jooq.exception.DataAccessException;
 import org.jooq.impl.DSL;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -52,13 +51,16 @@ import org.springframework.util.CollectionUtils;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 
 import static de.rwth.idsg.steve.utils.CustomDSL.date;
 import static de.rwth.idsg.steve.utils.CustomDSL.includes;
 import static jooq.steve.db.tables.ChargeBox.CHARGE_BOX;
 import static jooq.steve.db.tables.Connector.CONNECTOR;
-import static jooq.steve.db.tables.ConnectorStatus.CONNECTOR_STATUS;
+import static jooq.steve.db.tables.ConnectorStatusLatest.CONNECTOR_STATUS_LATEST;
+import static jooq.steve.db.tables.OcppTag.OCPP_TAG;
+import static jooq.steve.db.tables.TransactionStart.TRANSACTION_START;
 
 /**
  * @author Sevket Goekay <sevketgokay@gmail.com>
@@ -70,21 +72,22 @@ public class ChargePointRepositoryImpl implements ChargePointRepository {
 
     private final DSLContext ctx;
     private final AddressRepository addressRepository;
+    private final ChargeBoxMetadataCache metadataCache;
+    private final ConnectorPkCache connectorPkCache;
 
     @Autowired
-    public ChargePointRepositoryImpl(DSLContext ctx, AddressRepository addressRepository) {
+    public ChargePointRepositoryImpl(DSLContext ctx, AddressRepository addressRepository,
+                                     ChargeBoxMetadataCache metadataCache, ConnectorPkCache connectorPkCache) {
         this.ctx = ctx;
         this.addressRepository = addressRepository;
+        this.metadataCache = metadataCache;
+        this.connectorPkCache = connectorPkCache;
     }
 
     @Override
     public Optional<String> getRegistrationStatus(String chargeBoxId) {
-        String status = ctx.select(CHARGE_BOX.REGISTRATION_STATUS)
-                           .from(CHARGE_BOX)
-                           .where(CHARGE_BOX.CHARGE_BOX_ID.eq(chargeBoxId))
-                           .fetchOne(CHARGE_BOX.REGISTRATION_STATUS);
-
-        return Optional.ofNullable(status);
+        return Optional.ofNullable(metadataCache.get(chargeBoxId))
+                       .map(ChargeBoxMetadata::getRegistrationStatus);
     }
 
     @Override
@@ -207,26 +210,6 @@ public class ChargePointRepositoryImpl implements ChargePointRepository {
 
     @Override
     public List<ConnectorStatus> getChargePointConnectorStatus(ConnectorStatusForm form) {
-        // find out the latest timestamp for each connector
-        Field<Integer> t1Pk = CONNECTOR_STATUS.CONNECTOR_PK.as("t1_pk");
-        Field<DateTime> t1TsMax = DSL.max(CONNECTOR_STATUS.STATUS_TIMESTAMP).as("t1_ts_max");
-        Table<?> t1 = ctx.select(t1Pk, t1TsMax)
-                         .from(CONNECTOR_STATUS)
-                         .groupBy(CONNECTOR_STATUS.CONNECTOR_PK)
-                         .asTable("t1");
-
-        // get the status table with latest timestamps only
-        Field<Integer> t2Pk = CONNECTOR_STATUS.CONNECTOR_PK.as("t2_pk");
-        Field<DateTime> t2Ts = CONNECTOR_STATUS.STATUS_TIMESTAMP.as("t2_ts");
-        Field<String> t2Status = CONNECTOR_STATUS.STATUS.as("t2_status");
-        Field<String> t2Error = CONNECTOR_STATUS.ERROR_CODE.as("t2_error");
-        Table<?> t2 = ctx.selectDistinct(t2Pk, t2Ts, t2Status, t2Error)
-                         .from(CONNECTOR_STATUS)
-                         .join(t1)
-                            .on(CONNECTOR_STATUS.CONNECTOR_PK.equal(t1.field(t1Pk)))
-                            .and(CONNECTOR_STATUS.STATUS_TIMESTAMP.equal(t1.field(t1TsMax)))
-                         .asTable("t2");
-
         // https://github.com/steve-community/steve/issues/691
         Condition chargeBoxCondition = CHARGE_BOX.REGISTRATION_STATUS.eq(RegistrationStatus.ACCEPTED.value());
 
@@ -238,24 +221,24 @@ public class ChargePointRepositoryImpl implements ChargePointRepository {
         if (form == null || form.getStatus() == null) {
             statusCondition = DSL.noCondition();
         } else {
-            statusCondition = t2.field(t2Status).eq(form.getStatus());
+            statusCondition = CONNECTOR_STATUS_LATEST.STATUS.eq(form.getStatus());
         }
 
         return ctx.select(
                         CHARGE_BOX.CHARGE_BOX_PK,
                         CONNECTOR.CHARGE_BOX_ID,
                         CONNECTOR.CONNECTOR_ID,
-                        t2.field(t2Ts),
-                        t2.field(t2Status),
-                        t2.field(t2Error),
+                        CONNECTOR_STATUS_LATEST.STATUS_TIMESTAMP,
+                        CONNECTOR_STATUS_LATEST.STATUS,
+                        CONNECTOR_STATUS_LATEST.ERROR_CODE,
                         CHARGE_BOX.OCPP_PROTOCOL)
-                  .from(t2)
+                  .from(CONNECTOR_STATUS_LATEST)
                   .join(CONNECTOR)
-                        .on(CONNECTOR.CONNECTOR_PK.eq(t2.field(t2Pk)))
+                        .on(CONNECTOR.CONNECTOR_PK.eq(CONNECTOR_STATUS_LATEST.CONNECTOR_PK))
                   .join(CHARGE_BOX)
                         .on(CHARGE_BOX.CHARGE_BOX_ID.eq(CONNECTOR.CHARGE_BOX_ID))
                   .where(chargeBoxCondition, statusCondition)
-                  .orderBy(t2.field(t2Ts).desc())
+                  .orderBy(CONNECTOR_STATUS_LATEST.STATUS_TIMESTAMP.desc())
                   .fetch()
                   .map(r -> ConnectorStatus.builder()
                                            .chargeBoxPk(r.value1())
@@ -288,11 +271,12 @@ public class ChargePointRepositoryImpl implements ChargePointRepository {
                                                      .collect(Collectors.toList());
 
         ctx.batchInsert(batch).execute();
+        chargeBoxIdList.forEach(metadataCache::invalidate);
     }
 
     @Override
     public int addChargePoint(ChargePointForm form) {
-        return ctx.transactionResult(configuration -> {
+        int chargeBoxPk = ctx.transactionResult(configuration -> {
             DSLContext ctx = DSL.using(configuration);
             try {
                 Integer addressId = null;
@@ -306,6 +290,8 @@ public class ChargePointRepositoryImpl implements ChargePointRepository {
                         form.getChargeBoxId(), e);
             }
         });
+        metadataCache.invalidate(form.getChargeBoxId());
+        return chargeBoxPk;
     }
 
     @Override
@@ -321,20 +307,35 @@ public class ChargePointRepositoryImpl implements ChargePointRepository {
                         form.getChargeBoxId(), e);
             }
         });
+        metadataCache.invalidate(form.getChargeBoxPk());
     }
 
     @Override
     public void deleteChargePoint(int chargeBoxPk) {
-        ctx.transaction(configuration -> {
+        String chargeBoxId = ctx.transactionResult(configuration -> {
             DSLContext ctx = DSL.using(configuration);
             try {
+                String id = ctx.select(CHARGE_BOX.CHARGE_BOX_ID)
+                               .from(CHARGE_BOX)
+                               .where(CHARGE_BOX.CHARGE_BOX_PK.equal(chargeBoxPk))
+                               .fetchOne(CHARGE_BOX.CHARGE_BOX_ID);
+
+                if (id != null) {
+                    decrementActiveTransactionCounts(ctx, id);
+                }
                 addressRepository.delete(ctx, selectAddressId(chargeBoxPk));
                 deleteChargePointInternal(ctx, chargeBoxPk);
+                return id;
 
             } catch (DataAccessException e) {
                 throw new SteveException("Failed to delete the charge point", e);
             }
         });
+        metadataCache.invalidate(chargeBoxPk);
+        // connectors and transactions of the charge point are deleted by the database (ON DELETE CASCADE)
+        if (chargeBoxId != null) {
+            connectorPkCache.invalidate(chargeBoxId);
+        }
     }
 
     // -------------------------------------------------------------------------
@@ -378,6 +379,34 @@ public class ChargePointRepositoryImpl implements ChargePointRepository {
            .execute();
     }
 
+    /**
+     * The active transactions of the charge point are deleted with it (ON DELETE CASCADE), and therefore do not count
+     * against the limits of their idTags anymore. Like a stop of a transaction, we lock the rows of the transactions
+     * before updating the counts, so that a concurrent stop does not decrement the count a second time.
+     */
+    private static void decrementActiveTransactionCounts(DSLContext ctx, String chargeBoxId) {
+        Map<String, Long> countsByIdTag =
+                ctx.select(TRANSACTION_START.ID_TAG)
+                   .from(TRANSACTION_START)
+                   .join(CONNECTOR).on(CONNECTOR.CONNECTOR_PK.eq(TRANSACTION_START.CONNECTOR_PK))
+                   .where(CONNECTOR.CHARGE_BOX_ID.eq(chargeBoxId))
+                   .and(TRANSACTION_START.STOP_TIMESTAMP.isNull())
+                   .and(TRANSACTION_START.STOP_VALUE.isNull())
+                   .forUpdate()
+                   .fetch(TRANSACTION_START.ID_TAG)
+                   .stream()
+                   // sorted, so that concurrent deletions lock the idTags in the same order
+                   .collect(Collectors.groupingBy(idTag -> idTag, TreeMap::new, Collectors.counting()));
+
+        countsByIdTag.forEach((idTag, count) ->
+                ctx.update(OCPP_TAG)
+                   .set(OCPP_TAG.ACTIVE_TRANSACTION_COUNT,
+                           DSL.greatest(OCPP_TAG.ACTIVE_TRANSACTION_COUNT.minus(count), DSL.inline(0L)))
+                   .where(OCPP_TAG.ID_TAG.eq(idTag))
+                   .execute()
+        );
+    }
+
     private void deleteChargePointInternal(DSLContext ctx, int chargeBoxPk) {
         ctx.delete(CHARGE_BOX)
            .where(CHARGE_BOX.CHARGE_BOX_PK.equal(chargeBoxPk))
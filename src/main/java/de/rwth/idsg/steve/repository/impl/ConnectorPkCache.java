@@ -0,0 +1,286 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.repository.impl;
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.HashBasedTable;
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableSetMultimap;
+import com.google.common.collect.SetMultimap;
+import com.google.common.collect.Table;
+import de.rwth.idsg.steve.SteveException;
+import jooq.steve.db.tables.records.ConnectorRecord;
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.Nullable;
+import org.jooq.DSLContext;
+import org.jooq.InsertValuesStep2;
+import org.jooq.Row2;
+import org.jooq.impl.DSL;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static de.rwth.idsg.steve.SteveConfiguration.CONFIG;
+import static jooq.steve.db.tables.Connector.CONNECTOR;
+import static jooq.steve.db.tables.TransactionStart.TRANSACTION_START;
+
+/**
+ * Keeps the primary keys of connectors in memory, by (chargeBoxId, connectorId) and by the transactions that
+ * happened at them, since (almost) every StatusNotification, MeterValues and Start/StopTransaction needs them.
+ * These mappings never change once a row exists. The only way they become invalid is the deletion of a charge point
+ * (which cascades to its connectors and transactions), and therefore {@link ChargePointRepositoryImpl} invalidates
+ * the entries of a charge point when deleting it.
+ *
+ * On a miss, connectors are inserted (if they are new to us) and looked up with the DSLContext of this class, i.e.
+ * with a connection of its own. Otherwise, a rollback of the caller could leave a primary key in the cache that does
+ * not exist in the database. Therefore, callers must resolve the pks before opening a transaction, and not hold two
+ * connections of the pool at the same time. Like in {@link ChargeBoxMetadataCache}, a version protects against
+ * putting a value into the cache that was loaded before a concurrent invalidation.
+ *
+ * Deletions of charge points directly in the database (or via another node of a cluster) are not visible to this
+ * cache. Entries expire after a TTL, which limits how long such stale pks are used.
+ *
+ * @author agent <agent@local>
+ * @since 17.10.2026
+ */
+@Slf4j
+@Component
+public class ConnectorPkCache {
+
+    private final Function<SetMultimap<String, Integer>, Table<String, Integer, Integer>> connectorLoader;
+    private final Function<Set<Integer>, Map<Integer, Integer>> transactionLoader;
+
+    private final Cache<ConnectorKey, Integer> connectorPks;
+    private final Cache<Integer, Integer> transactionConnectorPks;
+    private final AtomicLong version = new AtomicLong(0);
+
+    private final AtomicLong hitCount = new AtomicLong(0);
+    private final AtomicLong missCount = new AtomicLong(0);
+
+    @Autowired
+    public ConnectorPkCache(DSLContext ctx) {
+        this(CONFIG.getOcpp().getConnectorPkCacheSize(),
+             TimeUnit.SECONDS.toNanos(CONFIG.getOcpp().getConnectorPkCacheTtlSeconds()),
+             Ticker.systemTicker(),
+             connectors -> insertIgnoreAndLoad(ctx, connectors),
+             transactionPks -> loadOfTransactions(ctx, transactionPks));
+    }
+
+    /**
+     * A maximum size of 0 (or a TTL of 0) disables the cache, since Guava evicts each entry right away.
+     */
+    ConnectorPkCache(long maxSize, long ttlNanos, Ticker ticker,
+                     Function<SetMultimap<String, Integer>, Table<String, Integer, Integer>> connectorLoader,
+                     Function<Set<Integer>, Map<Integer, Integer>> transactionLoader) {
+        this.connectorLoader = connectorLoader;
+        this.transactionLoader = transactionLoader;
+        this.connectorPks = newCache(maxSize, ttlNanos, ticker);
+        this.transactionConnectorPks = newCache(maxSize, ttlNanos, ticker);
+    }
+
+    /**
+     * Inserts the connector, if it is new to us.
+     */
+    public int getConnectorPk(String chargeBoxId, int connectorId) {
+        Integer connectorPk = getConnectorPks(ImmutableSetMultimap.of(chargeBoxId, connectorId))
+                .get(chargeBoxId, connectorId);
+
+        if (connectorPk == null) {
+            throw new SteveException("Failed to resolve the connector %s/%s", chargeBoxId, connectorId);
+        }
+        return connectorPk;
+    }
+
+    /**
+     * Inserts the connectors, that are new to us.
+     *
+     * @param connectors connectorIds by chargeBoxId
+     * @return connector pks by chargeBoxId and connectorId
+     */
+    public Table<String, Integer, Integer> getConnectorPks(SetMultimap<String, Integer> connectors) {
+        Table<String, Integer, Integer> result = HashBasedTable.create();
+        SetMultimap<String, Integer> missing = HashMultimap.create();
+
+        for (Map.Entry<String, Integer> entry : connectors.entries()) {
+            Integer connectorPk = connectorPks.getIfPresent(new ConnectorKey(entry.getKey(), entry.getValue()));
+            if (connectorPk == null) {
+                missing.put(entry.getKey(), entry.getValue());
+            } else {
+                result.put(entry.getKey(), entry.getValue(), connectorPk);
+            }
+        }
+
+        hitCount.addAndGet(connectors.size() - missing.size());
+        if (missing.isEmpty()) {
+            return result;
+        }
+        missCount.addAndGet(missing.size());
+
+        long versionBeforeLoad = version.get();
+        Table<String, Integer, Integer> loaded = connectorLoader.apply(missing);
+
+        for (Table.Cell<String, Integer, Integer> cell : loaded.cellSet()) {
+            result.put(cell.getRowKey(), cell.getColumnKey(), cell.getValue());
+            put(connectorPks, new ConnectorKey(cell.getRowKey(), cell.getColumnKey()), cell.getValue(),
+                versionBeforeLoad);
+        }
+        return result;
+    }
+
+    /**
+     * @return null, if there is no transaction with this id
+     */
+    @Nullable
+    public Integer getConnectorPkOfTransaction(int transactionPk) {
+        return getConnectorPksOfTransactions(Collections.singleton(transactionPk)).get(transactionPk);
+    }
+
+    /**
+     * @return connector pks by transactionPk. Unknown transactions are not contained.
+     */
+    public Map<Integer, Integer> getConnectorPksOfTransactions(Set<Integer> transactionPks) {
+        Map<Integer, Integer> result = new HashMap<>();
+        Set<Integer> missing = new HashSet<>();
+
+        for (Integer transactionPk : transactionPks) {
+            Integer connectorPk = transactionConnectorPks.getIfPresent(transactionPk);
+            if (connectorPk == null) {
+                missing.add(transactionPk);
+            } else {
+                result.put(transactionPk, connectorPk);
+            }
+        }
+
+        hitCount.addAndGet(transactionPks.size() - missing.size());
+        if (missing.isEmpty()) {
+            return result;
+        }
+        missCount.addAndGet(missing.size());
+
+        long versionBeforeLoad = version.get();
+        Map<Integer, Integer> loaded = transactionLoader.apply(missing);
+
+        for (Map.Entry<Integer, Integer> entry : loaded.entrySet()) {
+            result.put(entry.getKey(), entry.getValue());
+            put(transactionConnectorPks, entry.getKey(), entry.getValue(), versionBeforeLoad);
+        }
+        return result;
+    }
+
+    /**
+     * For a transaction that was just inserted, so that the following MeterValues and StopTransaction find it.
+     */
+    public void putTransaction(int transactionPk, int connectorPk) {
+        transactionConnectorPks.put(transactionPk, connectorPk);
+    }
+
+    public void invalidate(String chargeBoxId) {
+        version.incrementAndGet();
+        connectorPks.asMap().keySet().removeIf(key -> key.chargeBoxId.equals(chargeBoxId));
+        // we do not know which transactions belong to the charge point, and deletions are rare
+        transactionConnectorPks.invalidateAll();
+    }
+
+    public void invalidateAll() {
+        version.incrementAndGet();
+        connectorPks.invalidateAll();
+        transactionConnectorPks.invalidateAll();
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    // -------------------------------------------------------------------------
+    // Private helpers
+    // -------------------------------------------------------------------------
+
+    private static <K> Cache<K, Integer> newCache(long maxSize, long ttlNanos, Ticker ticker) {
+        return CacheBuilder.newBuilder()
+                           .maximumSize(maxSize)
+                           .expireAfterWrite(ttlNanos, TimeUnit.NANOSECONDS)
+                           .ticker(ticker)
+                           .build();
+    }
+
+    private <K> void put(Cache<K, Integer> cache, K key, Integer value, long versionBeforeLoad) {
+        // the check runs under the lock of the map entry, and invalidate() removes the entries only after
+        // incrementing the version. so, either we see the new version here, or the removal comes after us.
+        cache.asMap().compute(key, (k, old) -> version.get() == versionBeforeLoad ? value : old);
+    }
+
+    private static Table<String, Integer, Integer> insertIgnoreAndLoad(DSLContext ctx,
+                                                                       SetMultimap<String, Integer> connectors) {
+        InsertValuesStep2<ConnectorRecord, String, Integer> insert =
+                ctx.insertInto(CONNECTOR, CONNECTOR.CHARGE_BOX_ID, CONNECTOR.CONNECTOR_ID);
+        List<Row2<String, Integer>> rows = new ArrayList<>(connectors.size());
+        for (Map.Entry<String, Integer> entry : connectors.entries()) {
+            insert = insert.values(entry.getKey(), entry.getValue());
+            rows.add(DSL.row(entry.getKey(), entry.getValue()));
+        }
+
+        int count = insert.onDuplicateKeyIgnore() // Important detail
+                          .execute();
+
+        if (count > 0) {
+            log.info("{} NEW connector(s) of {} inserted into DB.", count, connectors.keySet());
+        }
+
+        Table<String, Integer, Integer> connectorPks = HashBasedTable.create();
+        ctx.select(CONNECTOR.CHARGE_BOX_ID, CONNECTOR.CONNECTOR_ID, CONNECTOR.CONNECTOR_PK)
+           .from(CONNECTOR)
+           .where(DSL.row(CONNECTOR.CHARGE_BOX_ID, CONNECTOR.CONNECTOR_ID).in(rows))
+           .fetch()
+           .forEach(r -> connectorPks.put(r.value1(), r.value2(), r.value3()));
+
+        return connectorPks;
+    }
+
+    private static Map<Integer, Integer> loadOfTransactions(DSLContext ctx, Set<Integer> transactionPks) {
+        return ctx.select(TRANSACTION_START.TRANSACTION_PK, TRANSACTION_START.CONNECTOR_PK)
+                  .from(TRANSACTION_START)
+                  .where(TRANSACTION_START.TRANSACTION_PK.in(transactionPks))
+                  .fetchMap(TRANSACTION_START.TRANSACTION_PK, TRANSACTION_START.CONNECTOR_PK);
+    }
+
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    private static final class ConnectorKey {
+        private final String chargeBoxId;
+        private final int connectorId;
+    }
+}
@@ -19,40 +19,58 @@
 package de.rwth.idsg.steve.repository.impl;
 
 import com.google.common.base.Throwables;
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.SetMultimap;
+import com.google.common.collect.Table;
 import com.google.common.util.concurrent.Striped;
 import de.rwth.idsg.steve.SteveException;
 import de.rwth.idsg.steve.ocpp.OcppProtocol;
 import de.rwth.idsg.steve.repository.OcppServerRepository;
 import de.rwth.idsg.steve.repository.ReservationRepository;
+import de.rwth.idsg.steve.repository.dto.ChargeBoxMetadata;
 import de.rwth.idsg.steve.repository.dto.InsertConnectorStatusParams;
+import de.rwth.idsg.steve.repository.dto.InsertMeterValuesParams;
 import de.rwth.idsg.steve.repository.dto.InsertTransactionParams;
 import de.rwth.idsg.steve.repository.dto.TransactionStatusUpdate;
 import de.rwth.idsg.steve.repository.dto.UpdateChargeboxParams;
 import de.rwth.idsg.steve.repository.dto.UpdateTransactionParams;
+import jooq.steve.db.enums.TransactionStartStopEventActor;
 import jooq.steve.db.enums.TransactionStopEventActor;
 import jooq.steve.db.enums.TransactionStopFailedEventActor;
 import jooq.steve.db.tables.records.ConnectorMeterValueRecord;
+import jooq.steve.db.tables.records.ConnectorStatusRecord;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import ocpp.cs._2015._10.MeterValue;
+import ocpp.cs._2015._10.SampledValue;
 import org.joda.time.DateTime;
+import org.jooq.Condition;
 import org.jooq.DSLContext;
+import org.jooq.EnumType;
+import org.jooq.Field;
+import org.jooq.InsertValuesStep10;
+import org.jooq.Query;
 import org.jooq.Record1;
-import org.jooq.SelectConditionStep;
+import org.jooq.Record3;
 import org.jooq.impl.DSL;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 import org.springframework.util.CollectionUtils;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.locks.Lock;
 import java.util.stream.Collectors;
 
 import static jooq.steve.db.tables.ChargeBox.CHARGE_BOX;
-import static jooq.steve.db.tables.Connector.CONNECTOR;
 import static jooq.steve.db.tables.ConnectorMeterValue.CONNECTOR_METER_VALUE;
 import static jooq.steve.db.tables.ConnectorStatus.CONNECTOR_STATUS;
+import static jooq.steve.db.tables.ConnectorStatusLatest.CONNECTOR_STATUS_LATEST;
 import static jooq.steve.db.tables.OcppTag.OCPP_TAG;
 import static jooq.steve.db.tables.TransactionStart.TRANSACTION_START;
 import static jooq.steve.db.tables.TransactionStop.TRANSACTION_STOP;
@@ -72,6 +90,11 @@ public class OcppServerRepositoryImpl implements OcppServerRepository {
 
     @Autowired private DSLContext ctx;
     @Autowired private ReservationRepository reservationRepository;
+    @Autowired private ChargeBoxMetadataCache metadataCache;
+    @Autowired private ConnectorPkCache connectorPkCache;
+
+    private static final int HEARTBEAT_UPDATE_CHUNK_SIZE = 500;
+    private static final int METER_VALUE_INSERT_CHUNK_SIZE = 1000;
 
     private final Striped<Lock> transactionTableLocks = Striped.lock(16);
 
@@ -92,22 +115,46 @@ public class OcppServerRepositoryImpl implements OcppServerRepository {
            .set(CHARGE_BOX.LAST_HEARTBEAT_TIMESTAMP, p.getHeartbeatTimestamp())
            .where(CHARGE_BOX.CHARGE_BOX_ID.equal(p.getChargeBoxId()))
            .execute();
+
+        metadataCache.invalidate(p.getChargeBoxId());
     }
 
+    /**
+     * Called for each new WebSocket connection. Mostly, the protocol did not change since the last connection. The
+     * check only uses an already cached value: Loading it from the database would cost as much as the UPDATE itself.
+     */
     @Override
     public void updateOcppProtocol(String chargeBoxIdentity, OcppProtocol protocol) {
+        ChargeBoxMetadata metadata = metadataCache.getIfCached(chargeBoxIdentity);
+        if (metadata != null && protocol.getCompositeValue().equals(metadata.getOcppProtocol())) {
+            return;
+        }
+
         ctx.update(CHARGE_BOX)
             .set(CHARGE_BOX.OCPP_PROTOCOL, protocol.getCompositeValue())
             .where(CHARGE_BOX.CHARGE_BOX_ID.equal(chargeBoxIdentity))
             .execute();
+
+        metadataCache.invalidate(chargeBoxIdentity);
     }
 
+    /**
+     * Called for each SOAP message. Mostly, the address did not change since the last message. As above, the check
+     * only uses an already cached value.
+     */
     @Override
     public void updateEndpointAddress(String chargeBoxIdentity, String endpointAddress) {
+        ChargeBoxMetadata metadata = metadataCache.getIfCached(chargeBoxIdentity);
+        if (metadata != null && endpointAddress.equals(metadata.getEndpointAddress())) {
+            return;
+        }
+
         ctx.update(CHARGE_BOX)
            .set(CHARGE_BOX.ENDPOINT_ADDRESS, endpointAddress)
            .where(CHARGE_BOX.CHARGE_BOX_ID.equal(chargeBoxIdentity))
            .execute();
+
+        metadataCache.invalidate(chargeBoxIdentity);
     }
 
     @Override
@@ -136,34 +183,54 @@ public class OcppServerRepositoryImpl implements OcppServerRepository {
            .execute();
     }
 
+    /**
+     * One UPDATE statement per chunk instead of one per station:
+     *
+     * UPDATE charge_box
+     * SET last_heartbeat_timestamp = CASE charge_box_id WHEN 'a' THEN ts1 WHEN 'b' THEN ts2 ... END
+     * WHERE charge_box_id IN ('a', 'b', ...)
+     */
     @Override
-    public void insertConnectorStatus(InsertConnectorStatusParams p) {
-        ctx.transaction(configuration -> {
-            DSLContext ctx = DSL.using(configuration);
+    public void updateChargeboxHeartbeats(Map<String, DateTime> chargeBoxIdTimestampMap) {
+        List<Map.Entry<String, DateTime>> entries = new ArrayList<>(chargeBoxIdTimestampMap.entrySet());
+
+        for (List<Map.Entry<String, DateTime>> chunk : Lists.partition(entries, HEARTBEAT_UPDATE_CHUNK_SIZE)) {
+            Map<Field<String>, Field<DateTime>> cases = new LinkedHashMap<>();
+            for (Map.Entry<String, DateTime> entry : chunk) {
+                cases.put(DSL.val(entry.getKey()), DSL.val(entry.getValue(), CHARGE_BOX.LAST_HEARTBEAT_TIMESTAMP));
+            }
 
-            // Step 1
-            insertIgnoreConnector(ctx, p.getChargeBoxId(), p.getConnectorId());
-
-            // -------------------------------------------------------------------------
-            // Step 2: We store a log of connector statuses
-            // -------------------------------------------------------------------------
-
-            ctx.insertInto(CONNECTOR_STATUS)
-               .set(CONNECTOR_STATUS.CONNECTOR_PK, DSL.select(CONNECTOR.CONNECTOR_PK)
-                                                      .from(CONNECTOR)
-                                                      .where(CONNECTOR.CHARGE_BOX_ID.equal(p.getChargeBoxId()))
-                                                      .and(CONNECTOR.CONNECTOR_ID.equal(p.getConnectorId()))
-               )
-               .set(CONNECTOR_STATUS.STATUS_TIMESTAMP, p.getTimestamp())
-               .set(CONNECTOR_STATUS.STATUS, p.getStatus())
-               .set(CONNECTOR_STATUS.ERROR_CODE, p.getErrorCode())
-               .set(CONNECTOR_STATUS.ERROR_INFO, p.getErrorInfo())
-               .set(CONNECTOR_STATUS.VENDOR_ID, p.getVendorId())
-               .set(CONNECTOR_STATUS.VENDOR_ERROR_CODE, p.getVendorErrorCode())
+            ctx.update(CHARGE_BOX)
+               .set(CHARGE_BOX.LAST_HEARTBEAT_TIMESTAMP,
+                    DSL.choose(CHARGE_BOX.CHARGE_BOX_ID)
+                       .mapFields(cases)
+                       .otherwise(CHARGE_BOX.LAST_HEARTBEAT_TIMESTAMP))
+               .where(CHARGE_BOX.CHARGE_BOX_ID.in(cases.keySet()))
                .execute();
+        }
+    }
 
-            log.debug("Stored a new connector status for {}/{}.", p.getChargeBoxId(), p.getConnectorId());
-        });
+    @Override
+    public void insertConnectorStatus(InsertConnectorStatusParams p) {
+        // Step 1: Insert connector, if it is new to us
+        int connectorPk = connectorPkCache.getConnectorPk(p.getChargeBoxId(), p.getConnectorId());
+
+        // -------------------------------------------------------------------------
+        // Step 2: We store a log of connector statuses, and the latest one
+        // -------------------------------------------------------------------------
+
+        ConnectorStatusRecord status = ctx.newRecord(CONNECTOR_STATUS)
+                                          .setConnectorPk(connectorPk)
+                                          .setStatusTimestamp(p.getTimestamp())
+                                          .setStatus(p.getStatus())
+                                          .setErrorCode(p.getErrorCode())
+                                          .setErrorInfo(p.getErrorInfo())
+                                          .setVendorId(p.getVendorId())
+                                          .setVendorErrorCode(p.getVendorErrorCode());
+
+        ctx.transaction(configuration -> storeConnectorStatus(DSL.using(configuration), status));
+
+        log.debug("Stored a new connector status for {}/{}.", p.getChargeBoxId(), p.getConnectorId());
     }
 
     @Override
@@ -172,17 +239,15 @@ public class OcppServerRepositoryImpl implements OcppServerRepository {
             return;
         }
 
-        ctx.transaction(configuration -> {
-            try {
-                DSLContext ctx = DSL.using(configuration);
+        try {
+            // resolve before opening the transaction, since a miss needs a connection of its own
+            int connectorPk = connectorPkCache.getConnectorPk(chargeBoxIdentity, connectorId);
 
-                insertIgnoreConnector(ctx, chargeBoxIdentity, connectorId);
-                int connectorPk = getConnectorPkFromConnector(ctx, chargeBoxIdentity, connectorId);
-                batchInsertMeterValues(ctx, list, connectorPk, transactionId);
-            } catch (Exception e) {
-                log.error("Exception occurred", e);
-            }
-        });
+            ctx.transaction(configuration ->
+                    batchInsertMeterValues(DSL.using(configuration), list, connectorPk, transactionId));
+        } catch (Exception e) {
+            log.error("Exception occurred", e);
+        }
     }
 
     @Override
@@ -191,20 +256,83 @@ public class OcppServerRepositoryImpl implements OcppServerRepository {
             return;
         }
 
+        try {
+            // First, get connector primary key of the transaction (before opening the transaction, see above)
+            Integer connectorPk = connectorPkCache.getConnectorPkOfTransaction(transactionId);
+            if (connectorPk == null) {
+                log.warn("Transaction {} of the meter values of {} is not found. Skipping them",
+                        transactionId, chargeBoxIdentity);
+                return;
+            }
+
+            ctx.transaction(configuration ->
+                    batchInsertMeterValues(DSL.using(configuration), list, connectorPk, transactionId));
+        } catch (Exception e) {
+            log.error("Exception occurred", e);
+        }
+    }
+
+    /**
+     * Per batch (instead of per message): one multi-row INSERT per chunk of sampled values. The connector pks come
+     * from {@link ConnectorPkCache}, which needs one INSERT IGNORE and one SELECT for the connectors and one SELECT for
+     * the transactions that it does not know yet.
+     */
+    @Override
+    public void insertMeterValues(List<InsertMeterValuesParams> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        // resolved before opening the transaction: on a miss, the cache uses a connection of its own, and we do not
+        // want to hold two connections of the pool at the same time
+        Table<String, Integer, Integer> connectorPks = connectorPkCache.getConnectorPks(getConnectors(batch));
+        Map<Integer, Integer> transactionConnectorPks =
+                connectorPkCache.getConnectorPksOfTransactions(getTransactionIdsWithoutConnector(batch));
+
         ctx.transaction(configuration -> {
-            try {
-                DSLContext ctx = DSL.using(configuration);
+            DSLContext ctx = DSL.using(configuration);
 
-                // First, get connector primary key from transaction table
-                int connectorPk = ctx.select(TRANSACTION_START.CONNECTOR_PK)
-                                     .from(TRANSACTION_START)
-                                     .where(TRANSACTION_START.TRANSACTION_PK.equal(transactionId))
-                                     .fetchOne()
-                                     .value1();
+            List<InsertValuesStep10<ConnectorMeterValueRecord, Integer, Integer, DateTime, String, String, String,
+                    String, String, String, String>> inserts = new ArrayList<>();
+
+            int rowCount = METER_VALUE_INSERT_CHUNK_SIZE;
+            for (InsertMeterValuesParams p : batch) {
+                Integer connectorPk = (p.getConnectorId() == null)
+                        ? transactionConnectorPks.get(p.getTransactionId())
+                        : connectorPks.get(p.getChargeBoxId(), p.getConnectorId());
+
+                if (connectorPk == null) {
+                    log.warn("Connector of the meter values of {} (transaction {}) is not found. Skipping them",
+                            p.getChargeBoxId(), p.getTransactionId());
+                    continue;
+                }
+
+                for (MeterValue mv : p.getMeterValues()) {
+                    for (SampledValue k : mv.getSampledValue()) {
+                        if (rowCount == METER_VALUE_INSERT_CHUNK_SIZE) {
+                            inserts.add(newMeterValueInsert(ctx));
+                            rowCount = 0;
+                        }
+                        inserts.get(inserts.size() - 1).values(
+                                connectorPk,
+                                p.getTransactionId(),
+                                mv.getTimestamp(),
+                                k.getValue(),
+                                // The following are optional fields!
+                                k.isSetContext() ? k.getContext().value() : null,
+                                k.isSetFormat() ? k.getFormat().value() : null,
+                                k.isSetMeasurand() ? k.getMeasurand().value() : null,
+                                k.isSetLocation() ? k.getLocation().value() : null,
+                                k.isSetUnit() ? k.getUnit().value() : null,
+                                k.isSetPhase() ? k.getPhase().value() : null
+                        );
+                        rowCount++;
+                    }
+                }
+            }
 
-                batchInsertMeterValues(ctx, list, connectorPk, transactionId);
-            } catch (Exception e) {
-                log.error("Exception occurred", e);
+            for (Query insert : inserts) {
+                insert.execute();
             }
         });
     }
@@ -212,17 +340,11 @@ public class OcppServerRepositoryImpl implements OcppServerRepository {
     @Override
     public int insertTransaction(InsertTransactionParams p) {
 
-        SelectConditionStep<Record1<Integer>> connectorPkQuery =
-                DSL.select(CONNECTOR.CONNECTOR_PK)
-                   .from(CONNECTOR)
-                   .where(CONNECTOR.CHARGE_BOX_ID.equal(p.getChargeBoxId()))
-                   .and(CONNECTOR.CONNECTOR_ID.equal(p.getConnectorId()));
-
         // -------------------------------------------------------------------------
         // Step 1: Insert connector and idTag, if they are new to us
         // -------------------------------------------------------------------------
 
-        insertIgnoreConnector(ctx, p.getChargeBoxId(), p.getConnectorId());
+        int connectorPk = connectorPkCache.getConnectorPk(p.getChargeBoxId(), p.getConnectorId());
 
         // it is important to insert idTag before transaction, since the transaction table references it
         boolean unknownTagInserted = insertIgnoreIdTag(ctx, p);
@@ -231,8 +353,9 @@ public class OcppServerRepositoryImpl implements OcppServerRepository {
         // Step 2: Insert transaction if it does not exist already
         // -------------------------------------------------------------------------
 
-        TransactionDataHolder data = insertIgnoreTransaction(p, connectorPkQuery);
+        TransactionDataHolder data = insertIgnoreTransaction(p, connectorPk);
         int transactionId = data.transactionId;
+        connectorPkCache.putTransaction(transactionId, connectorPk);
 
         if (data.existsAlready) {
             return transactionId;
@@ -248,7 +371,7 @@ public class OcppServerRepositoryImpl implements OcppServerRepository {
         // -------------------------------------------------------------------------
 
         if (p.isSetReservationId()) {
-            reservationRepository.used(connectorPkQuery, p.getIdTag(), p.getReservationId(), transactionId);
+            reservationRepository.used(connectorPk, p.getIdTag(), p.getReservationId(), transactionId);
         }
 
         // -------------------------------------------------------------------------
@@ -256,7 +379,7 @@ public class OcppServerRepositoryImpl implements OcppServerRepository {
         // -------------------------------------------------------------------------
 
         if (shouldInsertConnectorStatusAfterTransactionMsg(p.getChargeBoxId())) {
-            insertConnectorStatus(ctx, connectorPkQuery, p.getStartTimestamp(), p.getStatusUpdate());
+            insertConnectorStatus(ctx, connectorPk, p.getStartTimestamp(), p.getStatusUpdate());
         }
 
         return transactionId;
@@ -266,19 +389,50 @@ public class OcppServerRepositoryImpl implements OcppServerRepository {
     public void updateTransaction(UpdateTransactionParams p) {
 
         // -------------------------------------------------------------------------
-        // Step 1: insert transaction stop data
+        // Step 1: insert transaction stop data into the history, and set it as the current stop data of the
+        // transaction, unless there is a more recent stop event already
         // -------------------------------------------------------------------------
 
         // JOOQ will throw an exception, if something goes wrong
         try {
-            ctx.insertInto(TRANSACTION_STOP)
-               .set(TRANSACTION_STOP.TRANSACTION_PK, p.getTransactionId())
-               .set(TRANSACTION_STOP.EVENT_TIMESTAMP, p.getEventTimestamp())
-               .set(TRANSACTION_STOP.EVENT_ACTOR, p.getEventActor())
-               .set(TRANSACTION_STOP.STOP_TIMESTAMP, p.getStopTimestamp())
-               .set(TRANSACTION_STOP.STOP_VALUE, p.getStopMeterValue())
-               .set(TRANSACTION_STOP.STOP_REASON, p.getStopReason())
-               .execute();
+            ctx.transaction(configuration -> {
+                DSLContext ctx = DSL.using(configuration);
+
+                Record3<String, DateTime, String> tx =
+                        ctx.select(TRANSACTION_START.ID_TAG, TRANSACTION_START.STOP_TIMESTAMP,
+                                   TRANSACTION_START.STOP_VALUE)
+                           .from(TRANSACTION_START)
+                           .where(TRANSACTION_START.TRANSACTION_PK.equal(p.getTransactionId()))
+                           .forUpdate()
+                           .fetchOne();
+
+                ctx.insertInto(TRANSACTION_STOP)
+                   .set(TRANSACTION_STOP.TRANSACTION_PK, p.getTransactionId())
+                   .set(TRANSACTION_STOP.EVENT_TIMESTAMP, p.getEventTimestamp())
+                   .set(TRANSACTION_STOP.EVENT_ACTOR, p.getEventActor())
+                   .set(TRANSACTION_STOP.STOP_TIMESTAMP, p.getStopTimestamp())
+                   .set(TRANSACTION_STOP.STOP_VALUE, p.getStopMeterValue())
+                   .set(TRANSACTION_STOP.STOP_REASON, p.getStopReason())
+                   .execute();
+
+                int count = ctx.update(TRANSACTION_START)
+                               .set(TRANSACTION_START.STOP_EVENT_ACTOR,
+                                       mapActor(p.getEventActor(), TransactionStartStopEventActor.class))
+                               .set(TRANSACTION_START.STOP_EVENT_TIMESTAMP, p.getEventTimestamp())
+                               .set(TRANSACTION_START.STOP_TIMESTAMP, p.getStopTimestamp())
+                               .set(TRANSACTION_START.STOP_VALUE, p.getStopMeterValue())
+                               .set(TRANSACTION_START.STOP_REASON, p.getStopReason())
+                               .where(TRANSACTION_START.TRANSACTION_PK.equal(p.getTransactionId()))
+                               .and(TRANSACTION_START.STOP_EVENT_TIMESTAMP.isNull()
+                                       .or(TRANSACTION_START.STOP_EVENT_TIMESTAMP.le(p.getEventTimestamp())))
+                               .execute();
+
+                // the stop data is never null. so, if the transaction was active until now, it is not anymore.
+                boolean wasActive = tx != null && tx.value2() == null && tx.value3() == null;
+                if (count == 1 && wasActive) {
+                    updateActiveTransactionCount(ctx, tx.value1(), -1);
+                }
+            });
         } catch (Exception e) {
             log.error("Exception occurred", e);
             tryInsertingFailed(p, e);
@@ -290,12 +444,10 @@ public class OcppServerRepositoryImpl implements OcppServerRepository {
         // -------------------------------------------------------------------------
 
         if (shouldInsertConnectorStatusAfterTransactionMsg(p.getChargeBoxId())) {
-            SelectConditionStep<Record1<Integer>> connectorPkQuery =
-                    DSL.select(TRANSACTION_START.CONNECTOR_PK)
-                       .from(TRANSACTION_START)
-                       .where(TRANSACTION_START.TRANSACTION_PK.equal(p.getTransactionId()));
-
-            insertConnectorStatus(ctx, connectorPkQuery, p.getStopTimestamp(), p.getStatusUpdate());
+            Integer connectorPk = connectorPkCache.getConnectorPkOfTransaction(p.getTransactionId());
+            if (connectorPk != null) {
+                insertConnectorStatus(ctx, connectorPk, p.getStopTimestamp(), p.getStatusUpdate());
+            }
         }
     }
 
@@ -314,14 +466,13 @@ public class OcppServerRepositoryImpl implements OcppServerRepository {
      * problems the response of StartTransaction could not be delivered and station tries again later), we do not want
      * to insert this into database multiple times.
      */
-    private TransactionDataHolder insertIgnoreTransaction(InsertTransactionParams p,
-                                                          SelectConditionStep<Record1<Integer>> connectorPkQuery) {
+    private TransactionDataHolder insertIgnoreTransaction(InsertTransactionParams p, int connectorPk) {
         Lock l = transactionTableLocks.get(p.getChargeBoxId());
         l.lock();
         try {
             Record1<Integer> r = ctx.select(TRANSACTION_START.TRANSACTION_PK)
                                     .from(TRANSACTION_START)
-                                    .where(TRANSACTION_START.CONNECTOR_PK.eq(connectorPkQuery))
+                                    .where(TRANSACTION_START.CONNECTOR_PK.eq(connectorPk))
                                     .and(TRANSACTION_START.ID_TAG.eq(p.getIdTag()))
                                     .and(TRANSACTION_START.START_TIMESTAMP.eq(p.getStartTimestamp()))
                                     .and(TRANSACTION_START.START_VALUE.eq(p.getStartMeterValue()))
@@ -331,20 +482,27 @@ public class OcppServerRepositoryImpl implements OcppServerRepository {
                 return new TransactionDataHolder(true, r.value1());
             }
 
-            Integer transactionId = ctx.insertInto(TRANSACTION_START)
-                                       .set(TRANSACTION_START.EVENT_TIMESTAMP, p.getEventTimestamp())
-                                       .set(TRANSACTION_START.CONNECTOR_PK, connectorPkQuery)
-                                       .set(TRANSACTION_START.ID_TAG, p.getIdTag())
-                                       .set(TRANSACTION_START.START_TIMESTAMP, p.getStartTimestamp())
-                                       .set(TRANSACTION_START.START_VALUE, p.getStartMeterValue())
-                                       .returning(TRANSACTION_START.TRANSACTION_PK)
-                                       .fetchOne()
-                                       .getTransactionPk();
-
-            // Actually unnecessary, because JOOQ will throw an exception, if something goes wrong
-            if (transactionId == null) {
-                throw new SteveException("Failed to INSERT transaction into database");
-            }
+            int transactionId = ctx.transactionResult(configuration -> {
+                DSLContext ctx = DSL.using(configuration);
+
+                Integer id = ctx.insertInto(TRANSACTION_START)
+                                .set(TRANSACTION_START.EVENT_TIMESTAMP, p.getEventTimestamp())
+                                .set(TRANSACTION_START.CONNECTOR_PK, connectorPk)
+                                .set(TRANSACTION_START.ID_TAG, p.getIdTag())
+                                .set(TRANSACTION_START.START_TIMESTAMP, p.getStartTimestamp())
+                                .set(TRANSACTION_START.START_VALUE, p.getStartMeterValue())
+                                .returning(TRANSACTION_START.TRANSACTION_PK)
+                                .fetchOne()
+                                .getTransactionPk();
+
+                // Actually unnecessary, because JOOQ will throw an exception, if something goes wrong
+                if (id == null) {
+                    throw new SteveException("Failed to INSERT transaction into database");
+                }
+
+                updateActiveTransactionCount(ctx, p.getIdTag(), 1);
+                return id;
+            });
 
             return new TransactionDataHolder(false, transactionId);
         } finally {
@@ -362,34 +520,57 @@ public class OcppServerRepositoryImpl implements OcppServerRepository {
      * and we have a "more recent" status, it will still be the current status.
      */
     private void insertConnectorStatus(DSLContext ctx,
-                                       SelectConditionStep<Record1<Integer>> connectorPkQuery,
+                                       int connectorPk,
                                        DateTime timestamp,
                                        TransactionStatusUpdate statusUpdate) {
+        ConnectorStatusRecord status = ctx.newRecord(CONNECTOR_STATUS)
+                                          .setConnectorPk(connectorPk)
+                                          .setStatusTimestamp(timestamp)
+                                          .setStatus(statusUpdate.getStatus())
+                                          .setErrorCode(statusUpdate.getErrorCode());
         try {
-            ctx.insertInto(CONNECTOR_STATUS)
-               .set(CONNECTOR_STATUS.CONNECTOR_PK, connectorPkQuery)
-               .set(CONNECTOR_STATUS.STATUS_TIMESTAMP, timestamp)
-               .set(CONNECTOR_STATUS.STATUS, statusUpdate.getStatus())
-               .set(CONNECTOR_STATUS.ERROR_CODE, statusUpdate.getErrorCode())
-               .execute();
+            ctx.transaction(configuration -> storeConnectorStatus(DSL.using(configuration), status));
         } catch (Exception e) {
             log.error("Exception occurred", e);
         }
     }
 
     /**
-     * If the connector information was not received before, insert it. Otherwise, ignore.
+     * Inserts the status into the history, and makes it the latest status of the connector, unless the latter is
+     * more recent already.
      */
-    private void insertIgnoreConnector(DSLContext ctx, String chargeBoxIdentity, int connectorId) {
-        int count = ctx.insertInto(CONNECTOR,
-                            CONNECTOR.CHARGE_BOX_ID, CONNECTOR.CONNECTOR_ID)
-                       .values(chargeBoxIdentity, connectorId)
-                       .onDuplicateKeyIgnore() // Important detail
-                       .execute();
+    private static void storeConnectorStatus(DSLContext ctx, ConnectorStatusRecord status) {
+        ctx.executeInsert(status);
+
+        Condition isNewer = CONNECTOR_STATUS_LATEST.STATUS_TIMESTAMP.isNull()
+                .or(CONNECTOR_STATUS_LATEST.STATUS_TIMESTAMP.le(status.getStatusTimestamp()));
+
+        ctx.insertInto(CONNECTOR_STATUS_LATEST)
+           .set(CONNECTOR_STATUS_LATEST.CONNECTOR_PK, status.getConnectorPk())
+           .set(CONNECTOR_STATUS_LATEST.STATUS_TIMESTAMP, status.getStatusTimestamp())
+           .set(CONNECTOR_STATUS_LATEST.STATUS, status.getStatus())
+           .set(CONNECTOR_STATUS_LATEST.ERROR_CODE, status.getErrorCode())
+           .set(CONNECTOR_STATUS_LATEST.ERROR_INFO, status.getErrorInfo())
+           .set(CONNECTOR_STATUS_LATEST.VENDOR_ID, status.getVendorId())
+           .set(CONNECTOR_STATUS_LATEST.VENDOR_ERROR_CODE, status.getVendorErrorCode())
+           .onDuplicateKeyUpdate()
+           .set(CONNECTOR_STATUS_LATEST.STATUS, ifNewer(isNewer, CONNECTOR_STATUS_LATEST.STATUS, status.getStatus()))
+           .set(CONNECTOR_STATUS_LATEST.ERROR_CODE,
+                   ifNewer(isNewer, CONNECTOR_STATUS_LATEST.ERROR_CODE, status.getErrorCode()))
+           .set(CONNECTOR_STATUS_LATEST.ERROR_INFO,
+                   ifNewer(isNewer, CONNECTOR_STATUS_LATEST.ERROR_INFO, status.getErrorInfo()))
+           .set(CONNECTOR_STATUS_LATEST.VENDOR_ID,
+                   ifNewer(isNewer, CONNECTOR_STATUS_LATEST.VENDOR_ID, status.getVendorId()))
+           .set(CONNECTOR_STATUS_LATEST.VENDOR_ERROR_CODE,
+                   ifNewer(isNewer, CONNECTOR_STATUS_LATEST.VENDOR_ERROR_CODE, status.getVendorErrorCode()))
+           // MySQL applies the assignments in order, and the conditions above must see the old timestamp
+           .set(CONNECTOR_STATUS_LATEST.STATUS_TIMESTAMP,
+                   ifNewer(isNewer, CONNECTOR_STATUS_LATEST.STATUS_TIMESTAMP, status.getStatusTimestamp()))
+           .execute();
+    }
 
-        if (count == 1) {
-            log.info("The connector {}/{} is NEW, and inserted into DB.", chargeBoxIdentity, connectorId);
-        }
+    private static <T> Field<T> ifNewer(Condition isNewer, Field<T> field, T value) {
+        return DSL.when(isNewer, DSL.val(value, field)).otherwise(field);
     }
 
     /**
@@ -411,23 +592,53 @@ public class OcppServerRepositoryImpl implements OcppServerRepository {
         return count == 1;
     }
 
+    private static void updateActiveTransactionCount(DSLContext ctx, String idTag, long delta) {
+        ctx.update(OCPP_TAG)
+           .set(OCPP_TAG.ACTIVE_TRANSACTION_COUNT, OCPP_TAG.ACTIVE_TRANSACTION_COUNT.plus(delta))
+           .where(OCPP_TAG.ID_TAG.equal(idTag))
+           // the periodic reconciliation corrects a count that drifted, do not make it worse
+           .and(OCPP_TAG.ACTIVE_TRANSACTION_COUNT.plus(delta).ge(0L))
+           .execute();
+    }
+
     private boolean shouldInsertConnectorStatusAfterTransactionMsg(String chargeBoxId) {
-        Record1<Integer> r = ctx.selectOne()
-                                .from(CHARGE_BOX)
-                                .where(CHARGE_BOX.CHARGE_BOX_ID.eq(chargeBoxId))
-                                .and(CHARGE_BOX.INSERT_CONNECTOR_STATUS_AFTER_TRANSACTION_MSG.isTrue())
-                                .fetchOne();
+        ChargeBoxMetadata metadata = metadataCache.get(chargeBoxId);
+        return metadata != null && metadata.isInsertConnectorStatusAfterTransactionMsg();
+    }
+
+    /**
+     * @return connectorIds by chargeBoxId of the messages with a connectorId
+     */
+    private static SetMultimap<String, Integer> getConnectors(List<InsertMeterValuesParams> batch) {
+        SetMultimap<String, Integer> connectors = HashMultimap.create();
+        for (InsertMeterValuesParams p : batch) {
+            if (p.getConnectorId() != null) {
+                connectors.put(p.getChargeBoxId(), p.getConnectorId());
+            }
+        }
+        return connectors;
+    }
 
-        return (r != null) && (r.value1() == 1);
+    private static Set<Integer> getTransactionIdsWithoutConnector(List<InsertMeterValuesParams> batch) {
+        return batch.stream()
+                    .filter(p -> p.getConnectorId() == null)
+                    .map(InsertMeterValuesParams::getTransactionId)
+                    .collect(Collectors.toSet());
     }
 
-    private int getConnectorPkFromConnector(DSLContext ctx, String chargeBoxIdentity, int connectorId) {
-        return ctx.select(CONNECTOR.CONNECTOR_PK)
-                  .from(CONNECTOR)
-                  .where(CONNECTOR.CHARGE_BOX_ID.equal(chargeBoxIdentity))
-                  .and(CONNECTOR.CONNECTOR_ID.equal(connectorId))
-                  .fetchOne()
-                  .value1();
+    private static InsertValuesStep10<ConnectorMeterValueRecord, Integer, Integer, DateTime, String, String, String,
+            String, String, String, String> newMeterValueInsert(DSLContext ctx) {
+        return ctx.insertInto(CONNECTOR_METER_VALUE,
+                CONNECTOR_METER_VALUE.CONNECTOR_PK,
+                CONNECTOR_METER_VALUE.TRANSACTION_PK,
+                CONNECTOR_METER_VALUE.VALUE_TIMESTAMP,
+                CONNECTOR_METER_VALUE.VALUE,
+                CONNECTOR_METER_VALUE.READING_CONTEXT,
+                CONNECTOR_METER_VALUE.FORMAT,
+                CONNECTOR_METER_VALUE.MEASURAND,
+                CONNECTOR_METER_VALUE.LOCATION,
+                CONNECTOR_METER_VALUE.UNIT,
+                CONNECTOR_METER_VALUE.PHASE);
     }
 
     private void batchInsertMeterValues(DSLContext ctx, List<MeterValue> list, int connectorPk, Integer transactionId) {
@@ -457,7 +668,8 @@ public class OcppServerRepositoryImpl implements OcppServerRepository {
             ctx.insertInto(TRANSACTION_STOP_FAILED)
                .set(TRANSACTION_STOP_FAILED.TRANSACTION_PK, p.getTransactionId())
                .set(TRANSACTION_STOP_FAILED.EVENT_TIMESTAMP, p.getEventTimestamp())
-               .set(TRANSACTION_STOP_FAILED.EVENT_ACTOR, mapActor(p.getEventActor()))
+               .set(TRANSACTION_STOP_FAILED.EVENT_ACTOR,
+                       mapActor(p.getEventActor(), TransactionStopFailedEventActor.class))
                .set(TRANSACTION_STOP_FAILED.STOP_TIMESTAMP, p.getStopTimestamp())
                .set(TRANSACTION_STOP_FAILED.STOP_VALUE, p.getStopMeterValue())
                .set(TRANSACTION_STOP_FAILED.STOP_REASON, p.getStopReason())
@@ -469,13 +681,13 @@ public class OcppServerRepositoryImpl implements OcppServerRepository {
         }
     }
 
-    private static TransactionStopFailedEventActor mapActor(TransactionStopEventActor a) {
-        for (TransactionStopFailedEventActor b : TransactionStopFailedEventActor.values()) {
+    private static <E extends Enum<E> & EnumType> E mapActor(TransactionStopEventActor a, Class<E> target) {
+        for (E b : target.getEnumConstants()) {
             if (b.getLiteral().equalsIgnoreCase(a.getLiteral())) {
                 return b;
             }
         }
         // if unknown, do not throw exceptions. just insert manual.
-        return TransactionStopFailedEventActor.manual;
+        return Enum.valueOf(target, "manual");
     }
 }
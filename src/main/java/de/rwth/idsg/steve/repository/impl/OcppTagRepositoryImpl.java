@@ -37,6 +37,7 @@ import org.jooq.Result;
 import org.jooq.SelectQuery;
 import org.jooq.TableField;
 import org.jooq.exception.DataAccessException;
+import org.jooq.impl.DSL;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
@@ -48,6 +49,7 @@ import static de.rwth.idsg.steve.utils.DateTimeUtils.humanize;
 import static de.rwth.idsg.steve.utils.DateTimeUtils.toDateTime;
 import static jooq.steve.db.tables.OcppTag.OCPP_TAG;
 import static jooq.steve.db.tables.OcppTagActivity.OCPP_TAG_ACTIVITY;
+import static jooq.steve.db.tables.TransactionStart.TRANSACTION_START;
 
 /**
  * @author Sevket Goekay <sevketgokay@gmail.com>
@@ -244,6 +246,63 @@ public class OcppTagRepositoryImpl implements OcppTagRepository {
         }
     }
 
+    /**
+     * One short transaction per idTag: the row of the idTag is locked first, and only then the active transactions
+     * are counted. A concurrent start or stop of a transaction updates the same row in its own transaction. So, either
+     * it committed before our count (and we see its change), or it waits for our lock and applies its delta on top of
+     * the corrected count. Recounting all idTags in one statement would instead overwrite the deltas of transactions
+     * that start or stop during it, and would lock the whole table for its duration.
+     */
+    @Override
+    public int reconcileActiveTransactionCounts() {
+        List<String> idTags = ctx.select(OCPP_TAG.ID_TAG)
+                                 .from(OCPP_TAG)
+                                 .orderBy(OCPP_TAG.ID_TAG)
+                                 .fetch(OCPP_TAG.ID_TAG);
+
+        int corrected = 0;
+        for (String idTag : idTags) {
+            if (reconcileActiveTransactionCount(idTag)) {
+                corrected++;
+            }
+        }
+        return corrected;
+    }
+
+    private boolean reconcileActiveTransactionCount(String idTag) {
+        return ctx.transactionResult(configuration -> {
+            DSLContext ctx = DSL.using(configuration);
+
+            Long count = ctx.select(OCPP_TAG.ACTIVE_TRANSACTION_COUNT)
+                            .from(OCPP_TAG)
+                            .where(OCPP_TAG.ID_TAG.eq(idTag))
+                            .forUpdate()
+                            .fetchOne(OCPP_TAG.ACTIVE_TRANSACTION_COUNT);
+
+            if (count == null) {
+                // deleted in the meantime
+                return false;
+            }
+
+            long actualCount = ctx.selectCount()
+                                  .from(TRANSACTION_START)
+                                  .where(TRANSACTION_START.ID_TAG.eq(idTag))
+                                  .and(TRANSACTION_START.STOP_TIMESTAMP.isNull())
+                                  .and(TRANSACTION_START.STOP_VALUE.isNull())
+                                  .fetchOne(0, long.class);
+
+            if (count == actualCount) {
+                return false;
+            }
+
+            ctx.update(OCPP_TAG)
+               .set(OCPP_TAG.ACTIVE_TRANSACTION_COUNT, actualCount)
+               .where(OCPP_TAG.ID_TAG.eq(idTag))
+               .execute();
+            return true;
+        });
+    }
+
     private void processBooleanType(SelectQuery selectQuery,
                                     TableField<OcppTagActivityRecord, Boolean> field,
                                     OcppTagQueryForm.BooleanType type) {
@@ -0,0 +1,119 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.repository.impl;
+
+import de.rwth.idsg.steve.ocpp.OcppVersion;
+import de.rwth.idsg.steve.repository.WsSessionOwnerRepository;
+import org.joda.time.DateTime;
+import org.jooq.DSLContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+
+import java.util.Map;
+import java.util.Set;
+
+import static jooq.steve.db.tables.WsSessionOwner.WS_SESSION_OWNER;
+
+/**
+ * @author agent <agent@local>
+ * @since 17.10.2026
+ */
+@Repository
+public class WsSessionOwnerRepositoryImpl implements WsSessionOwnerRepository {
+
+    @Autowired private DSLContext ctx;
+
+    @Override
+    public void claim(String chargeBoxId, String nodeUrl, OcppVersion version) {
+        DateTime now = DateTime.now();
+
+        ctx.insertInto(WS_SESSION_OWNER)
+           .set(WS_SESSION_OWNER.CHARGE_BOX_ID, chargeBoxId)
+           .set(WS_SESSION_OWNER.NODE_URL, nodeUrl)
+           .set(WS_SESSION_OWNER.OCPP_VERSION, version.getValue())
+           .set(WS_SESSION_OWNER.CONNECTED_AT, now)
+           .set(WS_SESSION_OWNER.HEARTBEAT_AT, now)
+           .onDuplicateKeyUpdate()
+           .set(WS_SESSION_OWNER.NODE_URL, nodeUrl)
+           .set(WS_SESSION_OWNER.OCPP_VERSION, version.getValue())
+           .set(WS_SESSION_OWNER.CONNECTED_AT, now)
+           .set(WS_SESSION_OWNER.HEARTBEAT_AT, now)
+           .execute();
+    }
+
+    @Override
+    public void claimIfAbsent(String chargeBoxId, String nodeUrl, OcppVersion version) {
+        DateTime now = DateTime.now();
+
+        ctx.insertInto(WS_SESSION_OWNER)
+           .set(WS_SESSION_OWNER.CHARGE_BOX_ID, chargeBoxId)
+           .set(WS_SESSION_OWNER.NODE_URL, nodeUrl)
+           .set(WS_SESSION_OWNER.OCPP_VERSION, version.getValue())
+           .set(WS_SESSION_OWNER.CONNECTED_AT, now)
+           .set(WS_SESSION_OWNER.HEARTBEAT_AT, now)
+           .onDuplicateKeyIgnore()
+           .execute();
+    }
+
+    @Override
+    public void release(String chargeBoxId, String nodeUrl) {
+        ctx.delete(WS_SESSION_OWNER)
+           .where(WS_SESSION_OWNER.CHARGE_BOX_ID.eq(chargeBoxId))
+           .and(WS_SESSION_OWNER.NODE_URL.eq(nodeUrl))
+           .execute();
+    }
+
+    @Override
+    public void releaseAll(String nodeUrl) {
+        ctx.delete(WS_SESSION_OWNER)
+           .where(WS_SESSION_OWNER.NODE_URL.eq(nodeUrl))
+           .execute();
+    }
+
+    @Override
+    public void heartbeat(String nodeUrl) {
+        ctx.update(WS_SESSION_OWNER)
+           .set(WS_SESSION_OWNER.HEARTBEAT_AT, DateTime.now())
+           .where(WS_SESSION_OWNER.NODE_URL.eq(nodeUrl))
+           .execute();
+    }
+
+    @Override
+    public Set<String> getChargeBoxIds(String nodeUrl) {
+        return ctx.select(WS_SESSION_OWNER.CHARGE_BOX_ID)
+                  .from(WS_SESSION_OWNER)
+                  .where(WS_SESSION_OWNER.NODE_URL.eq(nodeUrl))
+                  .fetchSet(WS_SESSION_OWNER.CHARGE_BOX_ID);
+    }
+
+    @Override
+    public int releaseStale(DateTime cutoff) {
+        return ctx.delete(WS_SESSION_OWNER)
+                  .where(WS_SESSION_OWNER.HEARTBEAT_AT.lessThan(cutoff))
+                  .execute();
+    }
+
+    @Override
+    public Map<String, String> getOwnerNodeUrls(DateTime cutoff) {
+        return ctx.select(WS_SESSION_OWNER.CHARGE_BOX_ID, WS_SESSION_OWNER.NODE_URL)
+                  .from(WS_SESSION_OWNER)
+                  .where(WS_SESSION_OWNER.HEARTBEAT_AT.greaterOrEqual(cutoff))
+                  .fetchMap(WS_SESSION_OWNER.CHARGE_BOX_ID, WS_SESSION_OWNER.NODE_URL);
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.service;
+
+import de.rwth.idsg.steve.repository.OcppTagRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import static de.rwth.idsg.steve.SteveConfiguration.CONFIG;
+
+/**
+ * The active transaction counts of idTags are maintained on transaction start and stop, and when a charge point with
+ * active transactions is deleted. Changes that bypass these updates (e.g. changes made directly in the database) make
+ * the counts drift, which would wrongly allow or reject authorizations. Therefore, we recount them periodically.
+ *
+ * @author agent <agent@local>
+ * @since 17.10.2026
+ */
+@Slf4j
+@Service
+public class ActiveTransactionCountReconciler {
+
+    @Autowired private OcppTagRepository ocppTagRepository;
+    @Autowired private ScheduledExecutorService executorService;
+
+    private final int intervalMinutes = CONFIG.getOcpp().getOcppTagReconcileIntervalMinutes();
+
+    private ScheduledFuture<?> schedule;
+
+    @PostConstruct
+    public void init() {
+        if (intervalMinutes > 0) {
+            schedule = executorService.scheduleWithFixedDelay(
+                    this::reconcile, intervalMinutes, intervalMinutes, TimeUnit.MINUTES);
+        }
+    }
+
+    @PreDestroy
+    public void shutDown() {
+        if (schedule != null) {
+            schedule.cancel(false);
+        }
+    }
+
+    public void reconcile() {
+        try {
+            int corrected = ocppTagRepository.reconcileActiveTransactionCounts();
+            if (corrected > 0) {
+                log.warn("Corrected the active transaction counts of {} idTags", corrected);
+            }
+        } catch (Exception e) {
+            log.error("Failed to reconcile the active transaction counts of idTags", e);
+        }
+    }
+}
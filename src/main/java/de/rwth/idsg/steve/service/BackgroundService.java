@@ -18,12 +18,12 @@
  */
 package de.rwth.idsg.steve.service;
 
+import de.rwth.idsg.steve.ocpp.CommunicationTask;
 import de.rwth.idsg.steve.repository.dto.ChargePointSelect;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 
 import java.util.List;
-import java.util.concurrent.ExecutorService;
 import java.util.function.Consumer;
 
 /**
@@ -32,18 +32,18 @@ import java.util.function.Consumer;
  */
 @RequiredArgsConstructor
 public class BackgroundService {
-    private final ExecutorService executorService;
+    private final FanOutExecutor fanOutExecutor;
 
-    public static BackgroundService with(ExecutorService executorService) {
-        return new BackgroundService(executorService);
+    public static BackgroundService with(FanOutExecutor fanOutExecutor) {
+        return new BackgroundService(fanOutExecutor);
     }
 
-    public Runner forFirst(List<ChargePointSelect> list) {
-        return new BackgroundSingleRunner(list.get(0));
+    public Runner forFirst(CommunicationTask<?, ?> task) {
+        return new BackgroundSingleRunner(task, task.getParams().getChargePointSelectList().get(0));
     }
 
-    public Runner forEach(List<ChargePointSelect> list) {
-        return new BackgroundListRunner(list);
+    public Runner forEach(CommunicationTask<?, ?> task) {
+        return new BackgroundListRunner(task, task.getParams().getChargePointSelectList());
     }
 
     public interface Runner {
@@ -52,21 +52,29 @@ public class BackgroundService {
 
     @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
     private class BackgroundSingleRunner implements Runner {
+        private final CommunicationTask<?, ?> task;
         private final ChargePointSelect cps;
 
         @Override
         public void execute(Consumer<ChargePointSelect> consumer) {
-            executorService.execute(() -> consumer.accept(cps));
+            fanOutExecutor.execute(task, cps, consumer);
         }
     }
 
+    /**
+     * Each station is a separate unit of work, so that the stations are contacted in parallel (bounded by the
+     * thread pools of {@link FanOutExecutor}) instead of one after another.
+     */
     @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
     private class BackgroundListRunner implements Runner {
+        private final CommunicationTask<?, ?> task;
         private final List<ChargePointSelect> list;
 
         @Override
         public void execute(Consumer<ChargePointSelect> consumer) {
-            executorService.execute(() -> list.forEach(consumer));
+            for (ChargePointSelect cps : list) {
+                fanOutExecutor.execute(task, cps, consumer);
+            }
         }
     }
 }
@@ -77,6 +77,8 @@ public class CentralSystemService16_Service {
     @Autowired private OcppTagService ocppTagService;
     @Autowired private ApplicationEventPublisher applicationEventPublisher;
     @Autowired private ChargePointHelperService chargePointHelperService;
+    @Autowired private HeartbeatService heartbeatService;
+    @Autowired private MeterValuesIngestionService meterValuesIngestionService;
 
     public BootNotificationResponse bootNotification(BootNotificationRequest parameters, String chargeBoxIdentity,
                                                      OcppProtocol ocppProtocol) {
@@ -151,7 +153,7 @@ public class CentralSystemService16_Service {
     }
 
     public MeterValuesResponse meterValues(MeterValuesRequest parameters, String chargeBoxIdentity) {
-        ocppServerRepository.insertMeterValues(
+        meterValuesIngestionService.insertMeterValues(
                 chargeBoxIdentity,
                 parameters.getMeterValue(),
                 parameters.getConnectorId(),
@@ -220,7 +222,9 @@ public class CentralSystemService16_Service {
 
         ocppServerRepository.updateTransaction(params);
 
-        ocppServerRepository.insertMeterValues(chargeBoxIdentity, parameters.getTransactionData(), transactionId);
+        // written synchronously, so that the transaction is complete when the event is handled
+        meterValuesIngestionService.insertStopTransactionMeterValues(
+                chargeBoxIdentity, parameters.getTransactionData(), transactionId);
 
         applicationEventPublisher.publishEvent(new OcppTransactionEnded(params));
 
@@ -229,7 +233,7 @@ public class CentralSystemService16_Service {
 
     public HeartbeatResponse heartbeat(HeartbeatRequest parameters, String chargeBoxIdentity) {
         DateTime now = DateTime.now();
-        ocppServerRepository.updateChargeboxHeartbeat(chargeBoxIdentity, now);
+        heartbeatService.updateHeartbeat(chargeBoxIdentity, now);
 
         return new HeartbeatResponse().withCurrentTime(now);
     }
@@ -22,8 +22,15 @@ import com.google.common.util.concurrent.Striped;
 import de.rwth.idsg.steve.ocpp.OcppProtocol;
 import de.rwth.idsg.steve.ocpp.OcppTransport;
 import de.rwth.idsg.steve.ocpp.OcppVersion;
+import de.rwth.idsg.steve.ocpp.TrafficLogPolicy;
+import de.rwth.idsg.steve.ocpp.soap.ClientProvider;
 import de.rwth.idsg.steve.ocpp.ws.AbstractWebSocketEndpoint;
+import de.rwth.idsg.steve.ocpp.ws.CallReplayCache;
+import de.rwth.idsg.steve.ocpp.ws.IncomingMessageDispatcher;
+import de.rwth.idsg.steve.ocpp.ws.OutgoingCallQueue;
+import de.rwth.idsg.steve.ocpp.ws.WebSocketSessionRegistry;
 import de.rwth.idsg.steve.ocpp.ws.data.SessionContext;
+import de.rwth.idsg.steve.ocpp.ws.data.StationSessions;
 import de.rwth.idsg.steve.ocpp.ws.ocpp12.Ocpp12WebSocketEndpoint;
 import de.rwth.idsg.steve.ocpp.ws.ocpp15.Ocpp15WebSocketEndpoint;
 import de.rwth.idsg.steve.ocpp.ws.ocpp16.Ocpp16WebSocketEndpoint;
@@ -31,6 +38,7 @@ import de.rwth.idsg.steve.repository.ChargePointRepository;
 import de.rwth.idsg.steve.repository.GenericRepository;
 import de.rwth.idsg.steve.repository.dto.ChargePointSelect;
 import de.rwth.idsg.steve.repository.dto.ConnectorStatus;
+import de.rwth.idsg.steve.repository.impl.ChargeBoxMetadataCache;
 import de.rwth.idsg.steve.service.dto.UnidentifiedIncomingObject;
 import de.rwth.idsg.steve.utils.ConnectorStatusCountFilter;
 import de.rwth.idsg.steve.utils.DateTimeUtils;
@@ -45,15 +53,11 @@ import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
 
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collection;
 import java.util.Collections;
-import java.util.Deque;
-import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.Set;
 import java.util.concurrent.locks.Lock;
 import java.util.stream.Collectors;
 
@@ -74,15 +78,37 @@ public class ChargePointHelperService {
 
     // SOAP-based charge points are stored in DB with an endpoint address
     @Autowired private ChargePointRepository chargePointRepository;
+    @Autowired private ChargeBoxMetadataCache chargeBoxMetadataCache;
 
     // For WebSocket-based charge points, the active sessions are stored in memory
     @Autowired private Ocpp12WebSocketEndpoint ocpp12WebSocketEndpoint;
     @Autowired private Ocpp15WebSocketEndpoint ocpp15WebSocketEndpoint;
     @Autowired private Ocpp16WebSocketEndpoint ocpp16WebSocketEndpoint;
+    @Autowired private WebSocketSessionRegistry webSocketSessionRegistry;
+    @Autowired private IncomingMessageDispatcher incomingMessageDispatcher;
+    @Autowired private HeartbeatService heartbeatService;
+    @Autowired private MeterValuesIngestionService meterValuesIngestionService;
+    @Autowired private CallReplayCache callReplayCache;
+    @Autowired private OutgoingCallQueue outgoingCallQueue;
+    @Autowired private ClientProvider clientProvider;
 
     private final UnidentifiedIncomingObjectService unknownChargePointService = new UnidentifiedIncomingObjectService(100);
 
     public Optional<RegistrationStatus> getRegistrationStatus(String chargeBoxId) {
+        // Known stations are served from the metadata cache, and do not need the lock, which is only there to
+        // prevent concurrent auto-registrations of the same station
+        Optional<String> knownStatus = chargePointRepository.getRegistrationStatus(chargeBoxId);
+        if (knownStatus.isPresent()) {
+            return toRegistrationStatus(knownStatus.get());
+        }
+
+        // The lock is not needed either, if unknown stations are rejected anyway. Attempts of unknown stations are
+        // answered from the cache of unknown chargeBoxIds, and should be as cheap as possible.
+        if (!autoRegisterUnknownStations) {
+            unknownChargePointService.processNewUnidentified(chargeBoxId);
+            return Optional.empty();
+        }
+
         Lock l = isRegisteredLocks.get(chargeBoxId);
         l.lock();
         try {
@@ -96,11 +122,38 @@ public class ChargePointHelperService {
         }
     }
 
+    /**
+     * Only looks into the cache, and never goes to the database.
+     */
+    public boolean isCachedAsKnown(String chargeBoxId) {
+        return chargeBoxMetadataCache.peek(chargeBoxId) == ChargeBoxMetadataCache.Lookup.KNOWN;
+    }
+
     public Statistics getStats() {
         Statistics stats = genericRepository.getStats();
         stats.setNumOcpp12JChargeBoxes(ocpp12WebSocketEndpoint.getNumberOfChargeBoxes());
         stats.setNumOcpp15JChargeBoxes(ocpp15WebSocketEndpoint.getNumberOfChargeBoxes());
         stats.setNumOcpp16JChargeBoxes(ocpp16WebSocketEndpoint.getNumberOfChargeBoxes());
+        stats.setHeartbeatWritesSaved(heartbeatService.getSavedWriteCount());
+        stats.setIncomingProcessedFrames(incomingMessageDispatcher.getProcessedCount());
+        stats.setIncomingRejectedFrames(incomingMessageDispatcher.getRejectedCount());
+        stats.setReplayedCalls(callReplayCache.getHitCount());
+        stats.setReplayHitRate(String.format("%.2f", callReplayCache.getHitRate()));
+        stats.setOutgoingQueueDepth(outgoingCallQueue.getTotalQueueDepth());
+        stats.setOutgoingQueueWaitMillis(outgoingCallQueue.getAverageWaitMillis());
+        stats.setOutgoingQueueWaitHistogram(toHistogram(OutgoingCallQueue.getWaitBucketsMillis(),
+                outgoingCallQueue.getWaitHistogram()));
+        stats.setOutgoingCoalescedCalls(outgoingCallQueue.getCoalescedCount());
+        stats.setSoapCallsInFlight(clientProvider.getInFlightCount());
+        stats.setSoapCallLatencyMillis(clientProvider.getAverageLatencyMillis());
+        stats.setSoapCallsFailed(clientProvider.getFailedCount());
+        stats.setSoapCallsRejected(clientProvider.getRejectedCount());
+        stats.setMeterValuesWritten(meterValuesIngestionService.getWrittenCount());
+        stats.setMeterValuesPerSecond(meterValuesIngestionService.getThroughputPerSecond());
+        stats.setMeterValuesQueued(meterValuesIngestionService.getQueuedCount());
+        stats.setMeterValuesFlushMillis(meterValuesIngestionService.getAverageFlushMillis());
+        stats.setMeterValuesFlushHistogram(toHistogram(MeterValuesIngestionService.getFlushLatencyBucketsMillis(),
+                meterValuesIngestionService.getFlushLatencyHistogram()));
 
         List<ConnectorStatus> latestList = chargePointRepository.getChargePointConnectorStatus();
         stats.setStatusCountMap(ConnectorStatusCountFilter.getStatusCountMap(latestList));
@@ -109,12 +162,6 @@ public class ChargePointHelperService {
     }
 
     public List<ConnectorStatus> getChargePointConnectorStatus(ConnectorStatusForm params) {
-        Map<String, Deque<SessionContext>> ocpp12Map = ocpp12WebSocketEndpoint.getACopy();
-        Map<String, Deque<SessionContext>> ocpp15Map = ocpp15WebSocketEndpoint.getACopy();
-        Map<String, Deque<SessionContext>> ocpp16Map = ocpp16WebSocketEndpoint.getACopy();
-
-        Set<String> connectedJsonChargeBoxIds = new HashSet<>(extractIds(Arrays.asList(ocpp12Map, ocpp15Map, ocpp16Map)));
-
         List<ConnectorStatus> latestList = chargePointRepository.getChargePointConnectorStatus(params);
 
         // iterate over JSON stations and mark disconnected ones
@@ -123,7 +170,7 @@ public class ChargePointHelperService {
         for (ConnectorStatus status : latestList) {
             OcppProtocol protocol = status.getOcppProtocol();
             if (protocol != null && protocol.getTransport() == OcppTransport.JSON) {
-                status.setJsonAndDisconnected(!connectedJsonChargeBoxIds.contains(status.getChargeBoxId()));
+                status.setJsonAndDisconnected(!webSocketSessionRegistry.isConnected(status.getChargeBoxId()));
             }
         }
 
@@ -131,19 +178,18 @@ public class ChargePointHelperService {
     }
 
     public List<OcppJsonStatus> getOcppJsonStatus() {
-        Map<String, Deque<SessionContext>> ocpp12Map = ocpp12WebSocketEndpoint.getACopy();
-        Map<String, Deque<SessionContext>> ocpp15Map = ocpp15WebSocketEndpoint.getACopy();
-        Map<String, Deque<SessionContext>> ocpp16Map = ocpp16WebSocketEndpoint.getACopy();
+        // Only references to the immutable entries. We need a stable list, since we iterate twice.
+        List<StationSessions> stations = webSocketSessionRegistry.stream().collect(Collectors.toList());
 
-        List<String> idList = extractIds(Arrays.asList(ocpp12Map, ocpp15Map, ocpp16Map));
+        List<String> idList = stations.stream().map(StationSessions::getChargeBoxId).collect(Collectors.toList());
         Map<String, Integer> primaryKeyLookup = chargePointRepository.getChargeBoxIdPkPair(idList);
 
         DateTime now = DateTime.now();
         List<OcppJsonStatus> returnList = new ArrayList<>();
 
-        appendList(ocpp12Map, returnList, now, OcppVersion.V_12, primaryKeyLookup);
-        appendList(ocpp15Map, returnList, now, OcppVersion.V_15, primaryKeyLookup);
-        appendList(ocpp16Map, returnList, now, OcppVersion.V_16, primaryKeyLookup);
+        for (StationSessions station : stations) {
+            appendList(station, returnList, now, primaryKeyLookup, incomingMessageDispatcher);
+        }
         return returnList;
     }
 
@@ -180,6 +226,15 @@ public class ChargePointHelperService {
         unknownChargePointService.removeAll(chargeBoxIdList);
     }
 
+    /**
+     * Logs all messages of the station in full, regardless of the sampling and truncation settings.
+     * Not persisted, i.e. it is reset with a restart.
+     */
+    public void setFullTrafficLogging(String chargeBoxId, boolean enabled) {
+        TrafficLogPolicy.INSTANCE.setFullLogging(chargeBoxId, enabled);
+        log.info("Full traffic logging for chargeBoxId '{}' is {}", chargeBoxId, enabled ? "enabled" : "disabled");
+    }
+
     // -------------------------------------------------------------------------
     // Helpers
     // -------------------------------------------------------------------------
@@ -188,13 +243,7 @@ public class ChargePointHelperService {
         // 1. exit if already registered
         Optional<String> status = chargePointRepository.getRegistrationStatus(chargeBoxId);
         if (status.isPresent()) {
-            try {
-                return Optional.ofNullable(RegistrationStatus.fromValue(status.get()));
-            } catch (Exception e) {
-                // in cases where the database entry (string) is altered, and therefore cannot be converted to enum
-                log.error("Exception happened", e);
-                return Optional.empty();
-            }
+            return toRegistrationStatus(status.get());
         }
 
         // 2. ok, this chargeBoxId is unknown. exit if auto-register is disabled
@@ -213,6 +262,16 @@ public class ChargePointHelperService {
         }
     }
 
+    private static Optional<RegistrationStatus> toRegistrationStatus(String status) {
+        try {
+            return Optional.ofNullable(RegistrationStatus.fromValue(status));
+        } catch (Exception e) {
+            // in cases where the database entry (string) is altered, and therefore cannot be converted to enum
+            log.error("Exception happened", e);
+            return Optional.empty();
+        }
+    }
+
     private List<ChargePointSelect> getChargePoints(OcppProtocol protocol, List<RegistrationStatus> inStatusFilter,
                                                     List<String> chargeBoxIdFilter, AbstractWebSocketEndpoint jsonEndpoint) {
         // soap stations
@@ -236,34 +295,35 @@ public class ChargePointHelperService {
         return returnList;
     }
 
-    private static List<String> extractIds(List<Map<String, Deque<SessionContext>>> ocppMaps) {
-        return ocppMaps.stream()
-                       .map(Map::keySet)
-                       .flatMap(Collection::stream)
-                       .collect(Collectors.toList());
+    private static void appendList(StationSessions station, List<OcppJsonStatus> returnList, DateTime now,
+                                   Map<String, Integer> primaryKeyLookup, IncomingMessageDispatcher dispatcher) {
+        String chargeBoxId = station.getChargeBoxId();
+
+        for (SessionContext ctx : station.getContexts()) {
+            DateTime openSince = ctx.getOpenSince();
+
+            OcppJsonStatus status = OcppJsonStatus.builder()
+                                                  .chargeBoxPk(primaryKeyLookup.get(chargeBoxId))
+                                                  .chargeBoxId(chargeBoxId)
+                                                  .connectedSinceDT(openSince)
+                                                  .connectedSince(DateTimeUtils.humanize(openSince))
+                                                  .connectionDuration(DateTimeUtils.timeElapsed(openSince, now))
+                                                  .version(station.getVersion())
+                                                  .queueDepth(dispatcher.getQueueDepth(chargeBoxId))
+                                                  .pingRttMillis(ctx.getPingState().getLastRttMillis())
+                                                  .fullLogging(TrafficLogPolicy.INSTANCE.isFullLogging(chargeBoxId))
+                                                  .build();
+
+            returnList.add(status);
+        }
     }
 
-    private static void appendList(Map<String, Deque<SessionContext>> map, List<OcppJsonStatus> returnList,
-                                   DateTime now, OcppVersion version, Map<String, Integer> primaryKeyLookup) {
-
-        for (Map.Entry<String, Deque<SessionContext>> entry : map.entrySet()) {
-            String chargeBoxId = entry.getKey();
-            Deque<SessionContext> endpointDeque = entry.getValue();
-
-            for (SessionContext ctx : endpointDeque) {
-                DateTime openSince = ctx.getOpenSince();
-
-                OcppJsonStatus status = OcppJsonStatus.builder()
-                                                      .chargeBoxPk(primaryKeyLookup.get(chargeBoxId))
-                                                      .chargeBoxId(chargeBoxId)
-                                                      .connectedSinceDT(openSince)
-                                                      .connectedSince(DateTimeUtils.humanize(openSince))
-                                                      .connectionDuration(DateTimeUtils.timeElapsed(openSince, now))
-                                                      .version(version)
-                                                      .build();
-
-                returnList.add(status);
-            }
+    private static Map<String, Long> toHistogram(long[] buckets, long[] counts) {
+        Map<String, Long> histogram = new LinkedHashMap<>(counts.length);
+        for (int i = 0; i < buckets.length; i++) {
+            histogram.put("<= " + buckets[i] + " ms", counts[i]);
         }
+        histogram.put("> " + buckets[buckets.length - 1] + " ms", counts[buckets.length]);
+        return histogram;
     }
 }
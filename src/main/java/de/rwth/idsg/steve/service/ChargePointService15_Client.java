@@ -80,8 +80,8 @@ public class ChargePointService15_Client extends ChargePointService12_Client {
     public int dataTransfer(DataTransferParams params) {
         DataTransferTask task = new DataTransferTask(getVersion(), params);
 
-        BackgroundService.with(executorService)
-                         .forEach(task.getParams().getChargePointSelectList())
+        BackgroundService.with(fanOutExecutor)
+                         .forEach(task)
                          .execute(c -> getOcpp15Invoker().dataTransfer(c, task));
 
         return taskStore.add(task);
@@ -90,8 +90,8 @@ public class ChargePointService15_Client extends ChargePointService12_Client {
     public int getConfiguration(GetConfigurationParams params) {
         GetConfigurationTask task = new GetConfigurationTask(getVersion(), params);
 
-        BackgroundService.with(executorService)
-                         .forEach(task.getParams().getChargePointSelectList())
+        BackgroundService.with(fanOutExecutor)
+                         .forEach(task)
                          .execute(c -> getOcpp15Invoker().getConfiguration(c, task));
 
         return taskStore.add(task);
@@ -100,8 +100,8 @@ public class ChargePointService15_Client extends ChargePointService12_Client {
     public int getLocalListVersion(MultipleChargePointSelect params) {
         GetLocalListVersionTask task = new GetLocalListVersionTask(getVersion(), params);
 
-        BackgroundService.with(executorService)
-                         .forEach(task.getParams().getChargePointSelectList())
+        BackgroundService.with(fanOutExecutor)
+                         .forEach(task)
                          .execute(c -> getOcpp15Invoker().getLocalListVersion(c, task));
 
         return taskStore.add(task);
@@ -110,8 +110,8 @@ public class ChargePointService15_Client extends ChargePointService12_Client {
     public int sendLocalList(SendLocalListParams params) {
         SendLocalListTask task = new SendLocalListTask(getVersion(), params, ocppTagService);
 
-        BackgroundService.with(executorService)
-                         .forEach(task.getParams().getChargePointSelectList())
+        BackgroundService.with(fanOutExecutor)
+                         .forEach(task)
                          .execute(c -> getOcpp15Invoker().sendLocalList(c, task));
 
         return taskStore.add(task);
@@ -138,8 +138,8 @@ public class ChargePointService15_Client extends ChargePointService12_Client {
         EnhancedReserveNowParams enhancedParams = new EnhancedReserveNowParams(params, reservationId, parentIdTag);
         ReserveNowTask task = new ReserveNowTask(getVersion(), enhancedParams, reservationRepository);
 
-        BackgroundService.with(executorService)
-                         .forFirst(task.getParams().getChargePointSelectList())
+        BackgroundService.with(fanOutExecutor)
+                         .forFirst(task)
                          .execute(c -> getOcpp15Invoker().reserveNow(c, task));
 
         return taskStore.add(task);
@@ -148,8 +148,8 @@ public class ChargePointService15_Client extends ChargePointService12_Client {
     public int cancelReservation(CancelReservationParams params) {
         CancelReservationTask task = new CancelReservationTask(getVersion(), params, reservationRepository);
 
-        BackgroundService.with(executorService)
-                         .forFirst(task.getParams().getChargePointSelectList())
+        BackgroundService.with(fanOutExecutor)
+                         .forFirst(task)
                          .execute(c -> getOcpp15Invoker().cancelReservation(c, task));
 
         return taskStore.add(task);
@@ -0,0 +1,112 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.service;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import de.rwth.idsg.steve.SteveException;
+import de.rwth.idsg.steve.ocpp.CommunicationTask;
+import de.rwth.idsg.steve.repository.dto.ChargePointSelect;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static de.rwth.idsg.steve.SteveConfiguration.CONFIG;
+
+/**
+ * Sends the requests of a task to its stations in parallel. SOAP and WebSocket/JSON stations have their own thread
+ * pools, because a SOAP request blocks a thread until the connection to the station is established, whereas a JSON
+ * request is only put into the outgoing queue of the station. A slow SOAP station therefore does not hold up the
+ * JSON stations of the same task.
+ *
+ * The results arrive at the task one by one, as the stations respond. A station, whose request could not be sent
+ * within task.station.deadline seconds (because the pool was busy with other stations), is not contacted anymore,
+ * and reported as failed to the task.
+ *
+ * @author agent <agent@local>
+ * @since 17.10.2026
+ */
+@Slf4j
+@Component
+public class FanOutExecutor {
+
+    private final ThreadPoolExecutor soapExecutor;
+    private final ThreadPoolExecutor jsonExecutor;
+    private final long stationDeadlineNanos;
+
+    public FanOutExecutor() {
+        this(CONFIG.getOcpp().getTaskThreadsSoap(), CONFIG.getOcpp().getTaskThreadsJson(),
+                CONFIG.getOcpp().getTaskStationDeadlineSeconds());
+    }
+
+    FanOutExecutor(int soapThreads, int jsonThreads, int stationDeadlineSeconds) {
+        this.soapExecutor = createExecutor("SteVe-Task-Soap-%d", soapThreads);
+        this.jsonExecutor = createExecutor("SteVe-Task-Json-%d", jsonThreads);
+        this.stationDeadlineNanos = TimeUnit.SECONDS.toNanos(stationDeadlineSeconds);
+    }
+
+    @PreDestroy
+    public void shutDown() {
+        soapExecutor.shutdownNow();
+        jsonExecutor.shutdownNow();
+    }
+
+    public void execute(CommunicationTask<?, ?> task, ChargePointSelect cps, Consumer<ChargePointSelect> consumer) {
+        long submittedAt = System.nanoTime();
+        ExecutorService executor = cps.isSoap() ? soapExecutor : jsonExecutor;
+
+        executor.execute(() -> {
+            if (stationDeadlineNanos > 0 && System.nanoTime() - submittedAt > stationDeadlineNanos) {
+                log.warn("[chargeBoxId={}] Request of task '{}' was not sent within the deadline",
+                        cps.getChargeBoxId(), task.getOperationName());
+                task.defaultCallback().failed(cps.getChargeBoxId(), new SteveException(
+                        "Request was not sent within %s seconds",
+                        TimeUnit.NANOSECONDS.toSeconds(stationDeadlineNanos)));
+                return;
+            }
+            try {
+                consumer.accept(cps);
+            } catch (Exception e) {
+                // do not let one station take the others down with it
+                log.error("[chargeBoxId={}] Exception occurred", cps.getChargeBoxId(), e);
+                task.defaultCallback().failed(cps.getChargeBoxId(), e);
+            }
+        });
+    }
+
+    /**
+     * @return number of requests that wait for a thread
+     */
+    public int getQueuedCount() {
+        return soapExecutor.getQueue().size() + jsonExecutor.getQueue().size();
+    }
+
+    private static ThreadPoolExecutor createExecutor(String nameFormat, int threads) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), new ThreadFactoryBuilder().setNameFormat(nameFormat).build());
+        // no idle threads, when there are no tasks
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.service;
+
+import de.rwth.idsg.steve.repository.OcppServerRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.joda.time.DateTime;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static de.rwth.idsg.steve.SteveConfiguration.CONFIG;
+
+/**
+ * Collects the heartbeat timestamps of stations (from Heartbeat messages and WebSocket pongs) and writes them
+ * to the database in batches. Only the latest timestamp of a station between two flushes matters, the earlier ones
+ * are overwritten in memory and never reach the database.
+ *
+ * @author agent <agent@local>
+ * @since 17.10.2026
+ */
+@Slf4j
+@Service
+public class HeartbeatService {
+
+    private final OcppServerRepository ocppServerRepository;
+    private final ScheduledExecutorService executorService;
+
+    private final int flushIntervalSeconds;
+
+    private final ConcurrentHashMap<String, DateTime> pendingMap = new ConcurrentHashMap<>();
+
+    private final AtomicLong receivedCount = new AtomicLong(0);
+    private final AtomicLong writtenCount = new AtomicLong(0);
+
+    private ScheduledFuture<?> flushSchedule;
+
+    @Autowired
+    public HeartbeatService(OcppServerRepository ocppServerRepository, ScheduledExecutorService executorService) {
+        this(ocppServerRepository, executorService, CONFIG.getOcpp().getHeartbeatFlushIntervalSeconds());
+    }
+
+    HeartbeatService(OcppServerRepository ocppServerRepository, ScheduledExecutorService executorService,
+                     int flushIntervalSeconds) {
+        this.ocppServerRepository = ocppServerRepository;
+        this.executorService = executorService;
+        this.flushIntervalSeconds = flushIntervalSeconds;
+    }
+
+    @PostConstruct
+    public void init() {
+        if (flushIntervalSeconds > 0) {
+            flushSchedule = executorService.scheduleWithFixedDelay(
+                    this::flush, flushIntervalSeconds, flushIntervalSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutDown() {
+        if (flushSchedule != null) {
+            flushSchedule.cancel(false);
+        }
+        flush();
+        log.info("Heartbeats received: {}, written to database: {}", receivedCount.get(), writtenCount.get());
+    }
+
+    public void updateHeartbeat(String chargeBoxId, DateTime timestamp) {
+        receivedCount.incrementAndGet();
+
+        if (flushIntervalSeconds > 0) {
+            pendingMap.merge(chargeBoxId, timestamp, HeartbeatService::latest);
+        } else {
+            ocppServerRepository.updateChargeboxHeartbeat(chargeBoxId, timestamp);
+            writtenCount.incrementAndGet();
+        }
+    }
+
+    public long getReceivedCount() {
+        return receivedCount.get();
+    }
+
+    public long getWrittenCount() {
+        return writtenCount.get();
+    }
+
+    /**
+     * @return number of heartbeats that were superseded by a later one of the same station before being written
+     */
+    public long getSavedWriteCount() {
+        return receivedCount.get() - writtenCount.get() - pendingMap.size();
+    }
+
+    // -------------------------------------------------------------------------
+    // Private helpers
+    // -------------------------------------------------------------------------
+
+    /**
+     * Synchronized, because the scheduled flush and the one at shutdown must not overlap
+     */
+    synchronized void flush() {
+        if (pendingMap.isEmpty()) {
+            return;
+        }
+
+        // Remove one by one: A heartbeat that arrives in the meantime either makes it into this batch or stays in
+        // the map for the next one, but is never lost.
+        Map<String, DateTime> batch = new HashMap<>(pendingMap.size());
+        for (String chargeBoxId : pendingMap.keySet()) {
+            DateTime timestamp = pendingMap.remove(chargeBoxId);
+            if (timestamp != null) {
+                batch.put(chargeBoxId, timestamp);
+            }
+        }
+
+        try {
+            ocppServerRepository.updateChargeboxHeartbeats(batch);
+            writtenCount.addAndGet(batch.size());
+            log.debug("Wrote the heartbeat timestamps of {} stations", batch.size());
+        } catch (Exception e) {
+            log.error("Failed to write the heartbeat timestamps of {} stations. Will retry with the next flush",
+                    batch.size(), e);
+            batch.forEach((chargeBoxId, timestamp) ->
+                    pendingMap.merge(chargeBoxId, timestamp, HeartbeatService::latest));
+        }
+    }
+
+    private static DateTime latest(DateTime a, DateTime b) {
+        return a.isAfter(b) ? a : b;
+    }
+}
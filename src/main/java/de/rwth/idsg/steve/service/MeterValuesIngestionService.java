@@ -0,0 +1,270 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.service;
+
+import de.rwth.idsg.steve.repository.OcppServerRepository;
+import de.rwth.idsg.steve.repository.dto.InsertMeterValuesParams;
+import lombok.extern.slf4j.Slf4j;
+import ocpp.cs._2015._10.MeterValue;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.util.CollectionUtils;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static de.rwth.idsg.steve.SteveConfiguration.CONFIG;
+
+/**
+ * Collects the meter values of all stations and writes them to the database in batches (one transaction with
+ * multi-row INSERTs per flush), instead of one transaction per message. A flush happens every
+ * meter.values.flush.interval millis, or earlier when meter.values.flush.size messages are waiting.
+ *
+ * Durability: With batching enabled, the station is acknowledged as soon as its meter values are queued. Values that
+ * are queued but not flushed yet are lost if the process crashes (not at a regular shutdown, which flushes). With
+ * meter.values.flush.interval = 0, the values are written before the station is acknowledged, like before.
+ *
+ * Backpressure: If meter.values.queue.limit messages are waiting, the values are written directly within the
+ * request of the station, which slows down the stations instead of growing the queue.
+ *
+ * The transaction data of StopTransaction is always written before the station is acknowledged (after everything that
+ * is queued), so that the transaction is complete in the database when the end of the transaction is announced.
+ *
+ * @author agent <agent@local>
+ * @since 17.10.2026
+ */
+@Slf4j
+@Service
+public class MeterValuesIngestionService {
+
+    /**
+     * Upper bounds (in millis) of the buckets of the flush latency histogram. The last bucket is for everything above.
+     */
+    private static final long[] LATENCY_BUCKETS_MILLIS = {10, 50, 100, 500, 1000};
+
+    private final OcppServerRepository ocppServerRepository;
+    private final ScheduledExecutorService executorService;
+
+    private final int flushIntervalMillis;
+    private final int flushSize;
+
+    private final LinkedBlockingQueue<InsertMeterValuesParams> queue;
+
+    private final AtomicBoolean flushRequested = new AtomicBoolean(false);
+
+    private final AtomicLong writtenCount = new AtomicLong(0);
+    private final AtomicLong directWriteCount = new AtomicLong(0);
+    private final AtomicLong flushCount = new AtomicLong(0);
+    private final AtomicLong totalFlushNanos = new AtomicLong(0);
+    private final AtomicLongArray flushLatencyHistogram = new AtomicLongArray(LATENCY_BUCKETS_MILLIS.length + 1);
+    private final long startedAt = System.nanoTime();
+
+    private ScheduledFuture<?> flushSchedule;
+
+    @Autowired
+    public MeterValuesIngestionService(OcppServerRepository ocppServerRepository,
+                                       ScheduledExecutorService executorService) {
+        this(ocppServerRepository, executorService, CONFIG.getOcpp().getMeterValuesFlushIntervalMillis(),
+             CONFIG.getOcpp().getMeterValuesFlushSize(), CONFIG.getOcpp().getMeterValuesQueueLimit());
+    }
+
+    MeterValuesIngestionService(OcppServerRepository ocppServerRepository, ScheduledExecutorService executorService,
+                                int flushIntervalMillis, int flushSize, int queueLimit) {
+        this.ocppServerRepository = ocppServerRepository;
+        this.executorService = executorService;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.flushSize = flushSize;
+        this.queue = new LinkedBlockingQueue<>(Math.max(1, queueLimit));
+    }
+
+    @PostConstruct
+    public void init() {
+        if (flushIntervalMillis > 0) {
+            flushSchedule = executorService.scheduleWithFixedDelay(
+                    this::flush, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutDown() {
+        if (flushSchedule != null) {
+            flushSchedule.cancel(false);
+        }
+        flushAll();
+        log.info("Sampled values written: {}, flushes: {}, written directly: {}",
+                writtenCount.get(), flushCount.get(), directWriteCount.get());
+    }
+
+    public void insertMeterValues(String chargeBoxId, List<MeterValue> list, int connectorId, Integer transactionId) {
+        if (CollectionUtils.isEmpty(list)) {
+            return;
+        }
+        add(InsertMeterValuesParams.builder()
+                                   .chargeBoxId(chargeBoxId)
+                                   .meterValues(list)
+                                   .connectorId(connectorId)
+                                   .transactionId(transactionId)
+                                   .build());
+    }
+
+    /**
+     * For the transaction data of StopTransaction. The connector is the one of the transaction. Unlike the other
+     * meter values, these are written right away, after the ones that are queued (which may belong to the same
+     * transaction).
+     */
+    public void insertStopTransactionMeterValues(String chargeBoxId, List<MeterValue> list, int transactionId) {
+        flushAll();
+        if (CollectionUtils.isEmpty(list)) {
+            return;
+        }
+        writeOneByOne(List.of(InsertMeterValuesParams.builder()
+                                                     .chargeBoxId(chargeBoxId)
+                                                     .meterValues(list)
+                                                     .transactionId(transactionId)
+                                                     .build()));
+    }
+
+    public int getQueuedCount() {
+        return queue.size();
+    }
+
+    public long getWrittenCount() {
+        return writtenCount.get();
+    }
+
+    /**
+     * @return sampled values written per second, since the start
+     */
+    public long getThroughputPerSecond() {
+        long seconds = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - startedAt);
+        return seconds == 0 ? writtenCount.get() : writtenCount.get() / seconds;
+    }
+
+    public long getAverageFlushMillis() {
+        long count = flushCount.get();
+        return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalFlushNanos.get() / count);
+    }
+
+    /**
+     * @return number of flushes per latency bucket. Index i counts the flushes that took up to
+     *         LATENCY_BUCKETS_MILLIS[i] millis, the last index the ones that took longer.
+     */
+    public long[] getFlushLatencyHistogram() {
+        long[] result = new long[flushLatencyHistogram.length()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = flushLatencyHistogram.get(i);
+        }
+        return result;
+    }
+
+    public static long[] getFlushLatencyBucketsMillis() {
+        return LATENCY_BUCKETS_MILLIS.clone();
+    }
+
+    // -------------------------------------------------------------------------
+    // Private helpers
+    // -------------------------------------------------------------------------
+
+    private void add(InsertMeterValuesParams params) {
+        if (flushIntervalMillis <= 0 || !queue.offer(params)) {
+            if (flushIntervalMillis > 0) {
+                directWriteCount.incrementAndGet();
+            }
+            writeOneByOne(List.of(params));
+            return;
+        }
+
+        if (queue.size() >= flushSize && flushRequested.compareAndSet(false, true)) {
+            executorService.execute(this::flush);
+        }
+    }
+
+    private void flushAll() {
+        while (!queue.isEmpty()) {
+            flush();
+        }
+    }
+
+    /**
+     * Synchronized, because the scheduled flush, the one triggered by size and the one at shutdown must not overlap
+     */
+    synchronized void flush() {
+        flushRequested.set(false);
+
+        List<InsertMeterValuesParams> batch = new ArrayList<>(flushSize);
+        queue.drainTo(batch, flushSize);
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        try {
+            ocppServerRepository.insertMeterValues(batch);
+            writtenCount.addAndGet(countSampledValues(batch));
+        } catch (Exception e) {
+            // A single bad message (e.g. unknown transaction) must not take the others down with it
+            log.warn("Failed to write the meter values of {} messages in one batch. Writing them one by one",
+                    batch.size(), e);
+            writeOneByOne(batch);
+        }
+        recordFlush(System.nanoTime() - start);
+
+        // More than one batch is waiting
+        if (queue.size() >= flushSize && flushRequested.compareAndSet(false, true)) {
+            executorService.execute(this::flush);
+        }
+    }
+
+    private void writeOneByOne(List<InsertMeterValuesParams> list) {
+        for (InsertMeterValuesParams p : list) {
+            if (p.getConnectorId() == null) {
+                ocppServerRepository.insertMeterValues(p.getChargeBoxId(), p.getMeterValues(), p.getTransactionId());
+            } else {
+                ocppServerRepository.insertMeterValues(p.getChargeBoxId(), p.getMeterValues(), p.getConnectorId(),
+                        p.getTransactionId());
+            }
+            writtenCount.addAndGet(p.getSampledValueCount());
+        }
+    }
+
+    private void recordFlush(long nanos) {
+        flushCount.incrementAndGet();
+        totalFlushNanos.addAndGet(nanos);
+
+        long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+        int bucket = 0;
+        while (bucket < LATENCY_BUCKETS_MILLIS.length && millis > LATENCY_BUCKETS_MILLIS[bucket]) {
+            bucket++;
+        }
+        flushLatencyHistogram.incrementAndGet(bucket);
+    }
+
+    private static long countSampledValues(List<InsertMeterValuesParams> batch) {
+        return batch.stream().mapToLong(InsertMeterValuesParams::getSampledValueCount).sum();
+    }
+}
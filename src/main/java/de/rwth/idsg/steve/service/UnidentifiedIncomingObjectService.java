@@ -37,8 +37,6 @@ import java.util.stream.Collectors;
 @Slf4j
 public class UnidentifiedIncomingObjectService {
 
-    private final Object changeLock = new Object();
-
     private final Cache<String, UnidentifiedIncomingObject> objectsHolder;
 
     public UnidentifiedIncomingObjectService(int maxSize) {
@@ -55,24 +53,24 @@ public class UnidentifiedIncomingObjectService {
                             .collect(Collectors.toList());
     }
 
+    /**
+     * No global lock needed: The cache is thread-safe and creates at most one object per key, and the object
+     * synchronizes its own stats. This is called for every attempt of an unknown station, which can be a lot.
+     */
     public void processNewUnidentified(String key) {
-        synchronized (changeLock) {
-            try {
-                objectsHolder.get(key, () -> new UnidentifiedIncomingObject(key))
-                             .updateStats();
-            } catch (ExecutionException e) {
-                log.error("Error occurred", e);
-            }
+        try {
+            objectsHolder.get(key, () -> new UnidentifiedIncomingObject(key))
+                         .updateStats();
+        } catch (ExecutionException e) {
+            log.error("Error occurred", e);
         }
     }
 
     public void removeAll(Iterable<String> keys) {
-        synchronized (changeLock) {
-            try {
-                objectsHolder.invalidateAll(keys);
-            } catch (Exception e) {
-                log.error("Error occurred", e);
-            }
+        try {
+            objectsHolder.invalidateAll(keys);
+        } catch (Exception e) {
+            log.error("Error occurred", e);
         }
     }
 }
@@ -0,0 +1,144 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.web.api;
+
+import de.rwth.idsg.steve.ocpp.soap.ClientProvider;
+import de.rwth.idsg.steve.ocpp.ws.FutureResponseContextStore;
+import de.rwth.idsg.steve.ocpp.ws.WebSocketDrainer;
+import de.rwth.idsg.steve.ocpp.ws.WebSocketSessionRegistry;
+import de.rwth.idsg.steve.repository.impl.ChargeBoxMetadataCache;
+import de.rwth.idsg.steve.repository.impl.ConnectorPkCache;
+import io.swagger.annotations.ApiResponse;
+import io.swagger.annotations.ApiResponses;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * Operational endpoints, e.g. for a preStop hook of Kubernetes during rolling updates.
+ *
+ * @author agent <agent@local>
+ * @since 17.10.2026
+ */
+@Slf4j
+@RestController
+@RequestMapping(value = "/api/v1/admin", produces = MediaType.APPLICATION_JSON_VALUE)
+public class AdminRestController {
+
+    @Autowired private WebSocketDrainer webSocketDrainer;
+    @Autowired private WebSocketSessionRegistry webSocketSessionRegistry;
+    @Autowired private FutureResponseContextStore futureResponseContextStore;
+    @Autowired private ChargeBoxMetadataCache chargeBoxMetadataCache;
+    @Autowired private ConnectorPkCache connectorPkCache;
+    @Autowired private ClientProvider clientProvider;
+
+    @ApiResponses(value = {
+        @ApiResponse(code = 200, message = "OK"),
+        @ApiResponse(code = 401, message = "Unauthorized")}
+    )
+    @GetMapping(value = "/drain")
+    @ResponseBody
+    public DrainStatus getDrainStatus() {
+        return buildStatus();
+    }
+
+    @ApiResponses(value = {
+        @ApiResponse(code = 202, message = "Accepted"),
+        @ApiResponse(code = 401, message = "Unauthorized")}
+    )
+    @PostMapping(value = "/drain")
+    @ResponseBody
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public DrainStatus startDrain() {
+        if (webSocketDrainer.startDrain()) {
+            log.info("Draining was triggered via API");
+        }
+        return buildStatus();
+    }
+
+    @ApiResponses(value = {
+        @ApiResponse(code = 200, message = "OK"),
+        @ApiResponse(code = 401, message = "Unauthorized")}
+    )
+    @DeleteMapping(value = "/drain")
+    @ResponseBody
+    public DrainStatus cancelDrain() {
+        if (webSocketDrainer.cancelDrain()) {
+            log.info("Draining was cancelled via API");
+        }
+        return buildStatus();
+    }
+
+    /**
+     * For changes in the database that bypass SteVe (manual edits, restored backups), so that they become visible
+     * without waiting for the TTLs or restarting.
+     */
+    @ApiResponses(value = {
+        @ApiResponse(code = 204, message = "No Content"),
+        @ApiResponse(code = 401, message = "Unauthorized")}
+    )
+    @PostMapping(value = "/caches/invalidate")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void invalidateCaches() {
+        chargeBoxMetadataCache.invalidateAll();
+        connectorPkCache.invalidateAll();
+        log.info("Caches were invalidated via API");
+    }
+
+    /**
+     * Latency and failures of the outgoing SOAP calls per endpoint address, the slowest first
+     */
+    @ApiResponses(value = {
+        @ApiResponse(code = 200, message = "OK"),
+        @ApiResponse(code = 401, message = "Unauthorized")}
+    )
+    @GetMapping(value = "/soap/endpoints")
+    @ResponseBody
+    public List<ClientProvider.EndpointStats> getSoapEndpointStats() {
+        return clientProvider.getEndpointStats();
+    }
+
+    private DrainStatus buildStatus() {
+        return DrainStatus.builder()
+                          .draining(webSocketDrainer.isDraining())
+                          .connectedStations(webSocketSessionRegistry.getNumberOfChargeBoxes())
+                          .pendingCalls(futureResponseContextStore.getNumberOfPendingCalls())
+                          .build();
+    }
+
+    @Getter
+    @Builder
+    public static class DrainStatus {
+        private final boolean draining;
+        private final int connectedStations;
+        private final int pendingCalls;
+    }
+}
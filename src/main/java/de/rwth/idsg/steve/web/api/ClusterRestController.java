@@ -0,0 +1,116 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.web.api;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.rwth.idsg.steve.SteveException;
+import de.rwth.idsg.steve.ocpp.ws.JsonObjectMapper;
+import de.rwth.idsg.steve.ocpp.ws.cluster.ClusterRouter;
+import de.rwth.idsg.steve.ocpp.ws.cluster.ForwardedCall;
+import de.rwth.idsg.steve.ocpp.ws.cluster.ForwardedCallResult;
+import de.rwth.idsg.steve.ocpp.ws.cluster.ForwardedCallService;
+import io.swagger.annotations.ApiResponse;
+import io.swagger.annotations.ApiResponses;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * For the communication between the nodes of a cluster (see {@link ClusterRouter}), not for external clients.
+ *
+ * The bodies are (de)serialized with the OCPP object mapper, since they contain OCPP payloads.
+ *
+ * A forwarded call waits for the station for up to minutes. Therefore, the response is written asynchronously, and
+ * the request thread is released in the meantime.
+ *
+ * @author agent <agent@local>
+ * @since 17.10.2026
+ */
+@Slf4j
+@RestController
+@RequestMapping(value = "/api/v1/cluster", produces = MediaType.APPLICATION_JSON_VALUE)
+public class ClusterRestController {
+
+    @Autowired private ClusterRouter clusterRouter;
+    @Autowired private ForwardedCallService forwardedCallService;
+
+    private final ObjectMapper mapper = JsonObjectMapper.INSTANCE.getMapper();
+
+    @ApiResponses(value = {
+        @ApiResponse(code = 200, message = "OK"),
+        @ApiResponse(code = 400, message = "Bad Request"),
+        @ApiResponse(code = 401, message = "Unauthorized"),
+        @ApiResponse(code = 404, message = "Not Found")}
+    )
+    @PostMapping(value = "/forward", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public DeferredResult<ResponseEntity<String>> forward(@RequestBody String body) {
+        if (!clusterRouter.isEnabled()) {
+            return completed(ResponseEntity.notFound().build());
+        }
+
+        ForwardedCall call;
+        try {
+            call = mapper.readValue(body, ForwardedCall.class);
+        } catch (IOException e) {
+            log.warn("Received an invalid forwarded call", e);
+            return completed(ResponseEntity.badRequest().build());
+        }
+
+        // the service completes the call within this time anyway. the timeout only overrides the (shorter) default
+        // timeout of async requests.
+        long timeoutMillis = TimeUnit.SECONDS.toMillis(ForwardedCallService.getMaxWaitSeconds(call.getAction()) + 1);
+        DeferredResult<ResponseEntity<String>> deferred = new DeferredResult<>(timeoutMillis,
+                () -> ResponseEntity.ok(toJson(ForwardedCallResult.failure("No result in time"))));
+
+        forwardedCallService.execute(call)
+                            .thenApply(result -> ResponseEntity.ok(toJson(result)))
+                            .whenComplete((response, e) -> {
+                                if (e == null) {
+                                    deferred.setResult(response);
+                                } else {
+                                    deferred.setErrorResult(e);
+                                }
+                            });
+        return deferred;
+    }
+
+    private static DeferredResult<ResponseEntity<String>> completed(ResponseEntity<String> response) {
+        DeferredResult<ResponseEntity<String>> deferred = new DeferredResult<>();
+        deferred.setResult(response);
+        return deferred;
+    }
+
+    private String toJson(ForwardedCallResult result) {
+        try {
+            return mapper.writeValueAsString(result);
+        } catch (JsonProcessingException e) {
+            throw new SteveException("Could not serialize the result of the forwarded call", e);
+        }
+    }
+}
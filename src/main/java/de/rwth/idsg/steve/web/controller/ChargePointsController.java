@@ -84,6 +84,8 @@ public class ChargePointsController {
     // Solution: https://stackoverflow.com/a/18378817
     protected static final String UNKNOWN_REMOVE_PATH = "/unknown/remove/{chargeBoxId}/";
     protected static final String UNKNOWN_ADD_PATH = "/unknown/add/{chargeBoxId}/";
+    protected static final String FULL_LOGGING_ENABLE_PATH = "/fullLogging/enable/{chargeBoxId}/";
+    protected static final String FULL_LOGGING_DISABLE_PATH = "/fullLogging/disable/{chargeBoxId}/";
 
     // -------------------------------------------------------------------------
     // HTTP methods
@@ -199,6 +201,18 @@ public class ChargePointsController {
         return toOverview();
     }
 
+    @RequestMapping(value = FULL_LOGGING_ENABLE_PATH, method = RequestMethod.POST)
+    public String enableFullLogging(@PathVariable("chargeBoxId") String chargeBoxId) {
+        chargePointHelperService.setFullTrafficLogging(chargeBoxId, true);
+        return "redirect:/manager/home/ocppJsonStatus";
+    }
+
+    @RequestMapping(value = FULL_LOGGING_DISABLE_PATH, method = RequestMethod.POST)
+    public String disableFullLogging(@PathVariable("chargeBoxId") String chargeBoxId) {
+        chargePointHelperService.setFullTrafficLogging(chargeBoxId, false);
+        return "redirect:/manager/home/ocppJsonStatus";
+    }
+
     protected void addCountryCodes(Model model) {
         model.addAttribute("countryCodes", ControllerHelper.COUNTRY_DROPDOWN);
     }
@@ -37,4 +37,10 @@ public final class OcppJsonStatus {
     private final String connectionDuration;
     private final OcppVersion version;
     private final DateTime connectedSinceDT;
+    // Number of incoming messages waiting to be processed (only relevant for MAILBOX dispatch mode)
+    private final int queueDepth;
+    // Round-trip time of the last answered ping in milliseconds, -1 if there was none yet
+    private final long pingRttMillis;
+    // Whether all messages of the station are logged in full (toggled at runtime)
+    private final boolean fullLogging;
 }
@@ -39,6 +39,37 @@ public final class Statistics {
     // Received heartbeats
     heartbeatToday, heartbeatYesterday, heartbeatEarlier;
 
+    // Heartbeats that were not written to database, because a later one of the same station replaced them
+    @Setter private long heartbeatWritesSaved;
+
+    // Incoming frames of WebSocket/JSON chargeboxes processed by the dispatcher, and rejected due to a full mailbox
+    @Setter private long incomingProcessedFrames;
+    @Setter private long incomingRejectedFrames;
+
+    // Retransmitted calls of WebSocket/JSON chargeboxes that were answered from the cache, and their share in percent
+    @Setter private long replayedCalls;
+    @Setter private String replayHitRate;
+
+    // Calls waiting to be sent to WebSocket/JSON chargeboxes, their (average) wait, and the ones sent only once
+    @Setter private int outgoingQueueDepth;
+    @Setter private long outgoingQueueWaitMillis;
+    @Setter private Map<String, Long> outgoingQueueWaitHistogram;
+    @Setter private long outgoingCoalescedCalls;
+
+    // Calls to SOAP chargeboxes that wait for a response, the average latency, and the ones that failed or were not
+    // sent due to the limit of calls in flight
+    @Setter private int soapCallsInFlight;
+    @Setter private long soapCallLatencyMillis;
+    @Setter private long soapCallsFailed;
+    @Setter private long soapCallsRejected;
+
+    // Sampled values written to database (per second since start), waiting to be written, and flush latencies
+    @Setter private long meterValuesWritten;
+    @Setter private long meterValuesPerSecond;
+    @Setter private int meterValuesQueued;
+    @Setter private long meterValuesFlushMillis;
+    @Setter private Map<String, Long> meterValuesFlushHistogram;
+
     // Number of connected WebSocket/JSON chargeboxes
     @Setter private int numOcpp12JChargeBoxes, numOcpp15JChargeBoxes, numOcpp16JChargeBoxes;
 
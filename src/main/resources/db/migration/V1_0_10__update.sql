@@ -0,0 +1,23 @@
+-- The number of active transactions of each idTag is maintained on transaction start and stop, instead of being
+-- aggregated over all open transactions for each authorization. SteVe reconciles it with the transactions
+-- periodically (see ocpp.tag.reconcile.interval).
+ALTER TABLE ocpp_tag
+  ADD COLUMN active_transaction_count BIGINT NOT NULL DEFAULT 0;
+
+UPDATE ocpp_tag
+  INNER JOIN
+    (SELECT id_tag, count(id_tag) as 'active_transaction_count'
+      FROM transaction_start
+      WHERE stop_timestamp IS NULL
+        AND stop_value IS NULL
+      GROUP BY id_tag) tx_activity
+    ON ocpp_tag.id_tag = tx_activity.id_tag
+SET ocpp_tag.active_transaction_count = tx_activity.active_transaction_count;
+
+-- same columns as before. active_transaction_count is the last column of ocpp_tag now.
+CREATE OR REPLACE VIEW ocpp_tag_activity AS
+SELECT
+    ocpp_tag.*,
+        CASE WHEN (ocpp_tag.active_transaction_count > 0) THEN TRUE ELSE FALSE END AS 'in_transaction',
+        CASE WHEN (ocpp_tag.max_active_transaction_count = 0) THEN TRUE ELSE FALSE END AS 'blocked'
+FROM ocpp_tag;
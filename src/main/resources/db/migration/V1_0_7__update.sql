@@ -0,0 +1,13 @@
+-- Which SteVe node holds the WebSocket connection of a station, when several nodes share one database.
+-- Outgoing calls for stations connected to another node are forwarded to node_url.
+-- The nodes refresh heartbeat_at of their rows periodically (see ws.cluster.heartbeat.interval). Rows of a node that
+-- stopped refreshing them (e.g. after a crash) are ignored and eventually deleted by the other nodes.
+CREATE TABLE ws_session_owner (
+  charge_box_id VARCHAR(255) NOT NULL,
+  node_url VARCHAR(255) NOT NULL,
+  ocpp_version VARCHAR(10) NOT NULL,
+  connected_at TIMESTAMP(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6),
+  heartbeat_at TIMESTAMP(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6),
+  PRIMARY KEY (charge_box_id),
+  INDEX ws_session_owner_node_url_idx (node_url)
+);
@@ -0,0 +1,23 @@
+-- The latest status of each connector. It is maintained on each insert into connector_status, so that reading the
+-- current statuses does not need to go over the whole status history. Statuses can arrive out of order (e.g. status
+-- updates after transaction messages from the past), therefore a status only replaces an older one.
+CREATE TABLE connector_status_latest (
+  connector_pk INT(11) UNSIGNED NOT NULL,
+  status_timestamp TIMESTAMP(6) NULL DEFAULT NULL,
+  status VARCHAR(255) NULL DEFAULT NULL,
+  error_code VARCHAR(255) NULL DEFAULT NULL,
+  error_info VARCHAR(255) NULL DEFAULT NULL,
+  vendor_id VARCHAR(255) NULL DEFAULT NULL,
+  vendor_error_code VARCHAR(255) NULL DEFAULT NULL,
+  PRIMARY KEY (connector_pk),
+  CONSTRAINT FK_connector_status_latest_cpk FOREIGN KEY (connector_pk) REFERENCES connector (connector_pk)
+    ON DELETE CASCADE ON UPDATE NO ACTION
+);
+
+-- if there are several statuses with the latest timestamp of a connector, one of them is kept
+INSERT IGNORE INTO connector_status_latest
+  (connector_pk, status_timestamp, status, error_code, error_info, vendor_id, vendor_error_code)
+SELECT cs.connector_pk, cs.status_timestamp, cs.status, cs.error_code, cs.error_info, cs.vendor_id, cs.vendor_error_code
+FROM connector_status cs
+  INNER JOIN (SELECT connector_pk, MAX(status_timestamp) AS max_timestamp FROM connector_status GROUP BY connector_pk)
+    AS t1 ON cs.connector_pk = t1.connector_pk AND cs.status_timestamp = t1.max_timestamp;
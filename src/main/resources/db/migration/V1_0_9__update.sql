@@ -0,0 +1,30 @@
+-- The current stop data of each transaction is kept in transaction_start as well, so that the `transaction` view
+-- does not need to find the latest stop event of each transaction with a correlated subquery. transaction_stop
+-- keeps the history of all stop events.
+ALTER TABLE transaction_start
+  ADD COLUMN stop_event_actor ENUM('station', 'manual') NULL DEFAULT NULL,
+  ADD COLUMN stop_event_timestamp TIMESTAMP(6) NULL DEFAULT NULL,
+  ADD COLUMN stop_timestamp TIMESTAMP(6) NULL DEFAULT NULL,
+  ADD COLUMN stop_value VARCHAR(255) NULL DEFAULT NULL,
+  ADD COLUMN stop_reason VARCHAR(255) NULL DEFAULT NULL,
+  ADD INDEX transaction_start_stop_idx (stop_timestamp);
+
+UPDATE transaction_start tx1
+  INNER JOIN (
+    SELECT s1.*
+    FROM transaction_stop s1
+    WHERE s1.event_timestamp = (SELECT MAX(event_timestamp) FROM transaction_stop s2 WHERE s1.transaction_pk = s2.transaction_pk)
+  ) tx2
+  ON tx1.transaction_pk = tx2.transaction_pk
+SET tx1.stop_event_actor = tx2.event_actor,
+    tx1.stop_event_timestamp = tx2.event_timestamp,
+    tx1.stop_timestamp = tx2.stop_timestamp,
+    tx1.stop_value = tx2.stop_value,
+    tx1.stop_reason = tx2.stop_reason;
+
+-- same columns as before, for the queries over the view (and ocpp_tag_activity, which uses it) to stay unchanged
+CREATE OR REPLACE VIEW `transaction` AS
+ SELECT
+  tx1.transaction_pk, tx1.connector_pk, tx1.id_tag, tx1.event_timestamp as 'start_event_timestamp', tx1.start_timestamp, tx1.start_value,
+  tx1.stop_event_actor, tx1.stop_event_timestamp, tx1.stop_timestamp, tx1.stop_value, tx1.stop_reason
+  FROM transaction_start tx1;
@@ -56,6 +56,40 @@
 				<span class="baseCell">OCPP 1.6 :</span>
 				<span class="baseCell formatNumber">${stats.numOcpp16JChargeBoxes}</span>
 			</span>
+			<span class="baseRow">
+				<span class="baseCell">Processed frames :</span>
+				<span class="baseCell formatNumber">${stats.incomingProcessedFrames}</span>
+			</span>
+			<span class="baseRow">
+				<span class="baseCell">Rejected frames :</span>
+				<span class="baseCell formatNumber">${stats.incomingRejectedFrames}</span>
+			</span>
+			<span class="baseRow">
+				<span class="baseCell">Replayed calls :</span>
+				<span class="baseCell formatNumber">${stats.replayedCalls}</span>
+			</span>
+			<span class="baseRow">
+				<span class="baseCell">Replay hit rate :</span>
+				<span class="baseCell">${stats.replayHitRate} %</span>
+			</span>
+			<span class="baseRow">
+				<span class="baseCell">Queued calls :</span>
+				<span class="baseCell formatNumber">${stats.outgoingQueueDepth}</span>
+			</span>
+			<span class="baseRow">
+				<span class="baseCell">Avg. queue wait :</span>
+				<span class="baseCell">${stats.outgoingQueueWaitMillis} ms</span>
+			</span>
+			<c:forEach items="${stats.outgoingQueueWaitHistogram}" var="it">
+				<span class="baseRow">
+					<span class="baseCell">Wait ${it.key} :</span>
+					<span class="baseCell formatNumber">${it.value}</span>
+				</span>
+			</c:forEach>
+			<span class="baseRow">
+				<span class="baseCell">Coalesced calls :</span>
+				<span class="baseCell formatNumber">${stats.outgoingCoalescedCalls}</span>
+			</span>
 		</span>
 	</a>
 	<a class="tileRow1" href="${ctxPath}/manager/chargepoints">
@@ -73,6 +107,58 @@
 				<span class="baseCell">Earlier :</span>
 				<span class="baseCell formatNumber">${stats.heartbeatEarlier}</span>
 			</span>
+			<span class="baseRow">
+				<span class="baseCell">Coalesced :</span>
+				<span class="baseCell formatNumber">${stats.heartbeatWritesSaved}</span>
+			</span>
+		</span>
+	</a>
+	<a class="tileRow1" href="${ctxPath}/manager/chargepoints">
+		Outgoing<br>SOAP Calls
+		<span class="baseTable">
+			<span class="baseRow">
+				<span class="baseCell">In flight :</span>
+				<span class="baseCell formatNumber">${stats.soapCallsInFlight}</span>
+			</span>
+			<span class="baseRow">
+				<span class="baseCell">Avg. latency :</span>
+				<span class="baseCell">${stats.soapCallLatencyMillis} ms</span>
+			</span>
+			<span class="baseRow">
+				<span class="baseCell">Failed :</span>
+				<span class="baseCell formatNumber">${stats.soapCallsFailed}</span>
+			</span>
+			<span class="baseRow">
+				<span class="baseCell">Rejected :</span>
+				<span class="baseCell formatNumber">${stats.soapCallsRejected}</span>
+			</span>
+		</span>
+	</a>
+	<a class="tileRow1" href="${ctxPath}/manager/transactions">
+		Meter Values
+		<span class="baseTable">
+			<span class="baseRow">
+				<span class="baseCell">Written :</span>
+				<span class="baseCell formatNumber">${stats.meterValuesWritten}</span>
+			</span>
+			<span class="baseRow">
+				<span class="baseCell">Per second :</span>
+				<span class="baseCell formatNumber">${stats.meterValuesPerSecond}</span>
+			</span>
+			<span class="baseRow">
+				<span class="baseCell">Queued :</span>
+				<span class="baseCell formatNumber">${stats.meterValuesQueued}</span>
+			</span>
+			<span class="baseRow">
+				<span class="baseCell">Avg. flush :</span>
+				<span class="baseCell">${stats.meterValuesFlushMillis} ms</span>
+			</span>
+			<c:forEach items="${stats.meterValuesFlushHistogram}" var="it">
+				<span class="baseRow">
+					<span class="baseCell">Flush ${it.key} :</span>
+					<span class="baseCell formatNumber">${it.value}</span>
+				</span>
+			</c:forEach>
 		</span>
 	</a>
 	<a class="tileRow1" href="${ctxPath}/manager/home/connectorStatus">
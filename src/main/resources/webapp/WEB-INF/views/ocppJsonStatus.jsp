@@ -39,6 +39,9 @@ Connection Status for JSON Charge Points
                 <th data-sort="string">OCPP Version</th>
                 <th data-sort="date">Connected Since</th>
                 <th data-sort="string">Connection Duration</th>
+                <th data-sort="int">Queued Messages</th>
+                <th data-sort="int">Ping RTT (ms)</th>
+                <th>Full Logging</th>
             </tr>
         </thead>
         <tbody>
@@ -47,6 +50,22 @@ Connection Status for JSON Charge Points
                 <td>${s.version.value}</td>
                 <td data-sort-value="${s.connectedSinceDT.millis}">${s.connectedSince}</td>
                 <td>${s.connectionDuration}</td>
+                <td>${s.queueDepth}</td>
+                <td data-sort-value="${s.pingRttMillis}">${s.pingRttMillis < 0 ? '-' : s.pingRttMillis}</td>
+                <td>
+                    <c:choose>
+                        <c:when test="${s.fullLogging}">
+                            <form:form cssClass="inline" action="${ctxPath}/manager/chargepoints/fullLogging/disable/${s.chargeBoxId}/" method="post">
+                                <input type="submit" class="redSubmit" value="Disable">
+                            </form:form>
+                        </c:when>
+                        <c:otherwise>
+                            <form:form cssClass="inline" action="${ctxPath}/manager/chargepoints/fullLogging/enable/${s.chargeBoxId}/" method="post">
+                                <input type="submit" class="blueSubmit" value="Enable">
+                            </form:form>
+                        </c:otherwise>
+                    </c:choose>
+                </td>
             </tr>
         </c:forEach>
         </tbody>
@@ -18,6 +18,8 @@
  */
 package de.rwth.idsg.steve;
 
+import de.rwth.idsg.ocpp.jaxb.ResponseType;
+import de.rwth.idsg.steve.ocpp.OcppProtocol;
 import de.rwth.idsg.steve.ocpp.OcppVersion;
 import de.rwth.idsg.steve.utils.OcppJsonChargePoint;
 import de.rwth.idsg.steve.utils.__DatabasePreparer__;
@@ -141,6 +143,25 @@ public class ApplicationJsonTest {
         chargePoint.processAndClose();
     }
 
+    /**
+     * The protocol of a station is cached, and the update is skipped if it did not change. A station that reconnects
+     * with another version must still be updated.
+     */
+    @Test
+    public void testProtocolUpdateWithCache() {
+        connectAndHeartbeat(OcppVersion.V_15, ocpp.cs._2012._06.HeartbeatResponse.class);
+        Assertions.assertEquals(OcppProtocol.V_15_JSON.getCompositeValue(), getOcppProtocol());
+
+        connectAndHeartbeat(OcppVersion.V_16, HeartbeatResponse.class);
+        Assertions.assertEquals(OcppProtocol.V_16_JSON.getCompositeValue(), getOcppProtocol());
+
+        connectAndHeartbeat(OcppVersion.V_16, HeartbeatResponse.class);
+        Assertions.assertEquals(OcppProtocol.V_16_JSON.getCompositeValue(), getOcppProtocol());
+
+        connectAndHeartbeat(OcppVersion.V_15, ocpp.cs._2012._06.HeartbeatResponse.class);
+        Assertions.assertEquals(OcppProtocol.V_15_JSON.getCompositeValue(), getOcppProtocol());
+    }
+
     @Test
     public void testWithMissingVersion() {
         RuntimeException e = Assertions.assertThrows(RuntimeException.class, () -> {
@@ -199,4 +220,19 @@ public class ApplicationJsonTest {
         chargePoint.processAndClose();
     }
 
+    private static <T extends ResponseType> void connectAndHeartbeat(OcppVersion version, Class<T> responseClass) {
+        OcppJsonChargePoint chargePoint = new OcppJsonChargePoint(version, REGISTERED_CHARGE_BOX_ID, PATH);
+        chargePoint.start();
+
+        chargePoint.prepare(null, "Heartbeat", responseClass,
+            Assertions::assertNotNull,
+            error -> Assertions.fail()
+        );
+
+        chargePoint.processAndClose();
+    }
+
+    private static String getOcppProtocol() {
+        return __DatabasePreparer__.getCBDetails(REGISTERED_CHARGE_BOX_ID).getChargeBox().getOcppProtocol();
+    }
 }
@@ -0,0 +1,130 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.ocpp;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * @author agent <agent@local>
+ * @since 17.10.2026
+ */
+public class TrafficLogPolicyTest {
+
+    private static final String HEARTBEAT = "[2,\"123\",\"Heartbeat\",{}]";
+    private static final String RESULT = "[3,\"123\",{\"currentTime\":\"2026-10-17T10:00:00.000Z\"}]";
+
+    @Test
+    public void testExtractAction() {
+        Assertions.assertEquals("Heartbeat", TrafficLogPolicy.extractAction(HEARTBEAT));
+        Assertions.assertEquals("MeterValues", TrafficLogPolicy.extractAction(" [ 2, \"a\\\"b\" , \"MeterValues\", {}]"));
+        Assertions.assertNull(TrafficLogPolicy.extractAction(RESULT));
+        Assertions.assertNull(TrafficLogPolicy.extractAction("[2,\"123\""));
+        Assertions.assertNull(TrafficLogPolicy.extractAction("not json"));
+        Assertions.assertNull(TrafficLogPolicy.extractAction(null));
+    }
+
+    @Test
+    public void testParseFrame() {
+        TrafficLogPolicy.Frame call = TrafficLogPolicy.parseFrame(HEARTBEAT);
+        Assertions.assertEquals('2', call.messageType);
+        Assertions.assertEquals("123", call.messageId);
+        Assertions.assertEquals("Heartbeat", call.action);
+
+        TrafficLogPolicy.Frame result = TrafficLogPolicy.parseFrame(RESULT);
+        Assertions.assertEquals('3', result.messageType);
+        Assertions.assertEquals("123", result.messageId);
+        Assertions.assertNull(result.action);
+
+        Assertions.assertNull(TrafficLogPolicy.parseFrame("[5,\"123\"]"));
+        Assertions.assertNull(TrafficLogPolicy.parseFrame("[3,\"123"));
+    }
+
+    @Test
+    public void testSamplingPrecedence() {
+        TrafficLogPolicy policy = new TrafficLogPolicy(0, 100,
+                Map.of("Heartbeat", 0), Map.of("CP2", 100, "CP3", 0));
+
+        // action rate
+        Assertions.assertFalse(policy.shouldLogMessage("CP1", HEARTBEAT, null));
+        // default rate for a result, whose call is not known
+        Assertions.assertTrue(policy.shouldLogMessage("CP1", "[3,\"456\",{}]", null));
+        // action rate for a result, whose call is not known, but its action
+        Assertions.assertFalse(policy.shouldLogMessage("CP1", "[3,\"789\",{}]", "Heartbeat"));
+        // station rate before action rate
+        Assertions.assertTrue(policy.shouldLogMessage("CP2", HEARTBEAT, null));
+        Assertions.assertFalse(policy.shouldLogMessage("CP3", RESULT, null));
+
+        // full logging before everything else
+        policy.setFullLogging("CP3", true);
+        Assertions.assertTrue(policy.shouldLogMessage("CP3", RESULT, null));
+        policy.setFullLogging("CP3", false);
+        Assertions.assertFalse(policy.shouldLogMessage("CP3", RESULT, null));
+    }
+
+    @Test
+    public void testDroppedCallDropsResult() {
+        TrafficLogPolicy policy = new TrafficLogPolicy(0, 100, Map.of("Heartbeat", 0), Collections.emptyMap());
+
+        Assertions.assertFalse(policy.shouldLogMessage("CP1", HEARTBEAT, null));
+        // the result has no action, but belongs to the dropped call
+        Assertions.assertFalse(policy.shouldLogMessage("CP1", RESULT, null));
+
+        // the same message id of another station is another exchange
+        Assertions.assertTrue(policy.shouldLogMessage("CP2", RESULT, null));
+    }
+
+    @Test
+    public void testOneDecisionPerExchange() {
+        TrafficLogPolicy policy = new TrafficLogPolicy(0, 50, Collections.emptyMap(), Collections.emptyMap());
+
+        for (int i = 0; i < 100; i++) {
+            String messageId = "msg" + i;
+            boolean call = policy.shouldLogMessage("CP1", "[2,\"" + messageId + "\",\"Reset\",{}]", null);
+            boolean result = policy.shouldLogMessage("CP1", "[3,\"" + messageId + "\",{}]", "Reset");
+            Assertions.assertEquals(call, result);
+        }
+    }
+
+    @Test
+    public void testSoapExchange() {
+        TrafficLogPolicy policy = new TrafficLogPolicy(0, 100, Map.of("MeterValues", 0), Collections.emptyMap());
+
+        Assertions.assertFalse(policy.shouldLogRequest(null, "exchange1", "MeterValues"));
+        // the response of the dropped request, even without the operation name
+        Assertions.assertFalse(policy.shouldLogResponse(null, "exchange1", null));
+
+        Assertions.assertTrue(policy.shouldLogRequest(null, "exchange2", "StartTransaction"));
+        Assertions.assertTrue(policy.shouldLogResponse(null, "exchange2", null));
+    }
+
+    @Test
+    public void testTruncate() {
+        TrafficLogPolicy policy = new TrafficLogPolicy(10, 100, Collections.emptyMap(), Collections.emptyMap());
+
+        Assertions.assertEquals("short", policy.truncate("CP1", "short"));
+        Assertions.assertEquals("[2,\"123\",\"... [truncated, 24 chars in total]", policy.truncate("CP1", HEARTBEAT));
+
+        policy.setFullLogging("CP1", true);
+        Assertions.assertEquals(HEARTBEAT, policy.truncate("CP1", HEARTBEAT));
+    }
+}
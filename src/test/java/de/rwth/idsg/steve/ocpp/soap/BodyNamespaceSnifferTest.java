@@ -0,0 +1,116 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.ocpp.soap;
+
+import com.google.common.base.Strings;
+import com.google.common.io.ByteStreams;
+import org.apache.cxf.binding.soap.Soap12;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import javax.xml.namespace.QName;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * @author agent <agent@local>
+ * @since 17.10.2026
+ */
+public class BodyNamespaceSnifferTest {
+
+    private static final QName BODY = Soap12.getInstance().getBody();
+
+    @Test
+    public void testOcpp12() throws IOException {
+        assertSniffed("urn://Ocpp/Cs/2010/08", envelope("urn://Ocpp/Cs/2010/08", ""));
+    }
+
+    @Test
+    public void testOcpp15() throws IOException {
+        assertSniffed("urn://Ocpp/Cs/2012/06", envelope("urn://Ocpp/Cs/2012/06", ""));
+    }
+
+    @Test
+    public void testOcpp16() throws IOException {
+        assertSniffed("urn://Ocpp/Cs/2015/10", envelope("urn://Ocpp/Cs/2015/10", ""));
+    }
+
+    /**
+     * The message is larger than the prefix, but the body starts within it
+     */
+    @Test
+    public void testLargeBody() throws IOException {
+        String padding = "<idTag>" + Strings.repeat("x", BodyNamespaceSniffer.PEEK_LIMIT * 2) + "</idTag>";
+        String message = envelope("urn://Ocpp/Cs/2015/10", padding);
+        assertSniffed("urn://Ocpp/Cs/2015/10", message);
+    }
+
+    /**
+     * The body starts only after the prefix
+     */
+    @Test
+    public void testLargeHeader() throws IOException {
+        String header = "<Foo xmlns=\"urn:foo\">" + Strings.repeat("x", BodyNamespaceSniffer.PEEK_LIMIT * 2) + "</Foo>";
+        String message = "<soap:Envelope xmlns:soap=\"http://www.w3.org/2003/05/soap-envelope\">"
+                + "<soap:Header>" + header + "</soap:Header>"
+                + "<soap:Body><authorizeRequest xmlns=\"urn://Ocpp/Cs/2015/10\"><idTag>abc</idTag>"
+                + "</authorizeRequest></soap:Body></soap:Envelope>";
+        assertSniffed("urn://Ocpp/Cs/2015/10", message);
+    }
+
+    /**
+     * The body starts only after the fallback limit. The namespace is not found, but the stream handed on must still
+     * be complete.
+     */
+    @Test
+    public void testHeaderBeyondFallbackLimit() throws IOException {
+        String header = "<Foo xmlns=\"urn:foo\">" + Strings.repeat("x", BodyNamespaceSniffer.FALLBACK_LIMIT * 2)
+                + "</Foo>";
+        String message = "<soap:Envelope xmlns:soap=\"http://www.w3.org/2003/05/soap-envelope\">"
+                + "<soap:Header>" + header + "</soap:Header>"
+                + "<soap:Body><authorizeRequest xmlns=\"urn://Ocpp/Cs/2015/10\"><idTag>abc</idTag>"
+                + "</authorizeRequest></soap:Body></soap:Envelope>";
+        assertSniffed(null, message);
+    }
+
+    @Test
+    public void testInvalid() throws IOException {
+        assertSniffed(null, "not xml at all");
+    }
+
+    private static void assertSniffed(String expectedNamespace, String message) throws IOException {
+        byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+        BodyNamespaceSniffer.Result result = BodyNamespaceSniffer.sniff(new ByteArrayInputStream(bytes), "UTF-8", BODY);
+
+        Assertions.assertEquals(expectedNamespace, result.getNamespace());
+        // the stream handed on must still contain the whole message
+        Assertions.assertArrayEquals(bytes, ByteStreams.toByteArray(result.getStream()));
+    }
+
+    private static String envelope(String namespace, String extraContent) {
+        return "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+                + "<soap:Envelope xmlns:soap=\"http://www.w3.org/2003/05/soap-envelope\" xmlns:cs=\"" + namespace + "\""
+                + " xmlns:wsa=\"http://www.w3.org/2005/08/addressing\">"
+                + "<soap:Header><cs:chargeBoxIdentity>CP-1</cs:chargeBoxIdentity>"
+                + "<wsa:Action>/Authorize</wsa:Action><wsa:MessageID>urn:uuid:1</wsa:MessageID></soap:Header>"
+                + "<soap:Body><cs:authorizeRequest><cs:idTag>abc</cs:idTag>" + extraContent
+                + "</cs:authorizeRequest></soap:Body></soap:Envelope>";
+    }
+}
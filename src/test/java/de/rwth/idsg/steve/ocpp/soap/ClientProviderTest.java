@@ -0,0 +1,212 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.ocpp.soap;
+
+import de.rwth.idsg.steve.SteveException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import javax.xml.ws.AsyncHandler;
+import javax.xml.ws.Response;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * @author agent <agent@local>
+ * @since 17.10.2026
+ */
+public class ClientProviderTest {
+
+    private static final String ADDRESS = "http://localhost:8080/cp1";
+    private static final String ADDRESS_2 = "http://localhost:8080/cp2";
+
+    @Test
+    public void testLimitInFlight() {
+        ClientProvider provider = new ClientProvider(2, 100);
+        FakeService target = new FakeService();
+        TestService client = provider.limitAndMeasure(TestService.class, ADDRESS, target);
+
+        client.pingAsync("1", res -> { });
+        client.pingAsync("2", res -> { });
+        Assertions.assertEquals(2, provider.getInFlightCount());
+
+        // does not wait for a free slot
+        Assertions.assertThrows(SteveException.class, () -> client.pingAsync("3", res -> { }));
+        Assertions.assertEquals(1, provider.getRejectedCount());
+        Assertions.assertEquals(2, target.handlers.size());
+
+        // the response frees the slot
+        target.respond(0, "pong");
+        Assertions.assertEquals(1, provider.getInFlightCount());
+        client.pingAsync("3", res -> { });
+        Assertions.assertEquals(2, provider.getInFlightCount());
+    }
+
+    @Test
+    public void testResponseIsPassedOn() throws Exception {
+        ClientProvider provider = new ClientProvider(2, 100);
+        FakeService target = new FakeService();
+        TestService client = provider.limitAndMeasure(TestService.class, ADDRESS, target);
+
+        AtomicReference<String> received = new AtomicReference<>();
+        client.pingAsync("1", res -> received.set(getQuietly(res)));
+        target.respond(0, "pong");
+
+        Assertions.assertEquals("pong", received.get());
+        Assertions.assertEquals(0, provider.getFailedCount());
+    }
+
+    @Test
+    public void testFailedResponse() {
+        ClientProvider provider = new ClientProvider(1, 100);
+        FakeService target = new FakeService();
+        TestService client = provider.limitAndMeasure(TestService.class, ADDRESS, target);
+
+        client.pingAsync("1", res -> { });
+        target.fail(0, new IllegalStateException("connection refused"));
+
+        Assertions.assertEquals(0, provider.getInFlightCount());
+        Assertions.assertEquals(1, provider.getFailedCount());
+    }
+
+    /**
+     * The slot is also freed, if the call fails before it is sent. A response that arrives anyway must not free
+     * it a second time.
+     */
+    @Test
+    public void testExceptionWhenSending() {
+        ClientProvider provider = new ClientProvider(1, 100);
+        FakeService target = new FakeService();
+        target.failOnSend = true;
+        TestService client = provider.limitAndMeasure(TestService.class, ADDRESS, target);
+
+        Assertions.assertThrows(IllegalStateException.class, () -> client.pingAsync("1", res -> { }));
+        Assertions.assertEquals(0, provider.getInFlightCount());
+        Assertions.assertEquals(1, provider.getFailedCount());
+
+        target.respond(0, "pong");
+        Assertions.assertEquals(0, provider.getInFlightCount());
+    }
+
+    @Test
+    public void testEndpointStats() {
+        ClientProvider provider = new ClientProvider(10, 100);
+        FakeService target1 = new FakeService();
+        FakeService target2 = new FakeService();
+        TestService client1 = provider.limitAndMeasure(TestService.class, ADDRESS, target1);
+        TestService client2 = provider.limitAndMeasure(TestService.class, ADDRESS_2, target2);
+
+        client1.pingAsync("1", res -> { });
+        client1.pingAsync("2", res -> { });
+        client2.pingAsync("1", res -> { });
+        target1.respond(0, "pong");
+        target1.fail(1, new IllegalStateException("connection refused"));
+        target2.respond(0, "pong");
+
+        Map<String, ClientProvider.EndpointStats> stats = provider.getEndpointStats().stream().collect(
+                Collectors.toMap(ClientProvider.EndpointStats::getEndpointAddress, Function.identity()));
+
+        Assertions.assertEquals(2, stats.size());
+        Assertions.assertEquals(2, stats.get(ADDRESS).getCallCount());
+        Assertions.assertEquals(1, stats.get(ADDRESS).getFailedCount());
+        Assertions.assertEquals(1, stats.get(ADDRESS_2).getCallCount());
+        Assertions.assertEquals(0, stats.get(ADDRESS_2).getFailedCount());
+    }
+
+    @Test
+    public void testEndpointStatsAreBounded() {
+        ClientProvider provider = new ClientProvider(10, 1);
+
+        for (String address : List.of(ADDRESS, ADDRESS_2)) {
+            FakeService target = new FakeService();
+            provider.limitAndMeasure(TestService.class, address, target).pingAsync("1", res -> { });
+            target.respond(0, "pong");
+        }
+
+        Assertions.assertEquals(1, provider.getEndpointStats().size());
+    }
+
+    @Test
+    public void testSyncMethodsArePassedThrough() {
+        ClientProvider provider = new ClientProvider(1, 100);
+        TestService client = provider.limitAndMeasure(TestService.class, ADDRESS, new FakeService());
+
+        Assertions.assertEquals("pong-1", client.ping("1"));
+        Assertions.assertEquals(0, provider.getInFlightCount());
+    }
+
+    private static String getQuietly(Response<String> res) {
+        try {
+            return res.get();
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    public interface TestService {
+        String ping(String s);
+
+        Future<?> pingAsync(String s, AsyncHandler<String> handler);
+    }
+
+    private static class FakeService implements TestService {
+        private final List<AsyncHandler<String>> handlers = new ArrayList<>();
+        private boolean failOnSend = false;
+
+        @Override
+        public String ping(String s) {
+            return "pong-" + s;
+        }
+
+        @Override
+        public Future<?> pingAsync(String s, AsyncHandler<String> handler) {
+            handlers.add(handler);
+            if (failOnSend) {
+                throw new IllegalStateException("could not connect");
+            }
+            return new FakeResponse();
+        }
+
+        private void respond(int i, String value) {
+            FakeResponse res = new FakeResponse();
+            res.complete(value);
+            handlers.get(i).handleResponse(res);
+        }
+
+        private void fail(int i, Exception e) {
+            FakeResponse res = new FakeResponse();
+            res.completeExceptionally(e);
+            handlers.get(i).handleResponse(res);
+        }
+    }
+
+    private static class FakeResponse extends CompletableFuture<String> implements Response<String> {
+        @Override
+        public Map<String, Object> getContext() {
+            return Collections.emptyMap();
+        }
+    }
+}
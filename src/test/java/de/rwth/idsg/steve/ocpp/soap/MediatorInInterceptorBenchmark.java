@@ -0,0 +1,167 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.ocpp.soap;
+
+import org.apache.cxf.binding.soap.Soap12;
+import org.apache.cxf.staxutils.DepthXMLStreamReader;
+import org.apache.cxf.staxutils.StaxUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the namespace sniffing of {@link MediatorInInterceptor} via {@link BodyNamespaceSniffer} (bounded prefix,
+ * original stream chained behind it) with the previous approach (BufferedInputStream marked over the whole message,
+ * then reset) for typical OCPP 1.2, 1.5 and 1.6 SOAP requests. Both variants consume the resulting stream, like CXF
+ * does afterwards.
+ *
+ * Not part of the test suite. Run the main method from the IDE, or with the test classpath. The GC profiler
+ * reports the allocation rate (gc.alloc.rate.norm = bytes per operation).
+ *
+ * @author agent <agent@local>
+ * @since 17.10.2026
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MediatorInInterceptorBenchmark {
+
+    private static final QName BODY = Soap12.getInstance().getBody();
+
+    private static final String OCPP12_BOOT_NOTIFICATION = envelope("urn://Ocpp/Cs/2010/08", "BootNotification",
+            "<cs:bootNotificationRequest><cs:chargePointVendor>Vendor</cs:chargePointVendor>"
+            + "<cs:chargePointModel>Model-1</cs:chargePointModel><cs:chargePointSerialNumber>SN-0001"
+            + "</cs:chargePointSerialNumber><cs:firmwareVersion>1.2.3</cs:firmwareVersion>"
+            + "</cs:bootNotificationRequest>");
+
+    private static final String OCPP15_STATUS_NOTIFICATION = envelope("urn://Ocpp/Cs/2012/06", "StatusNotification",
+            "<cs:statusNotificationRequest><cs:connectorId>1</cs:connectorId><cs:status>Available</cs:status>"
+            + "<cs:errorCode>NoError</cs:errorCode><cs:timestamp>2023-06-01T10:15:30.000Z</cs:timestamp>"
+            + "</cs:statusNotificationRequest>");
+
+    private static final String OCPP16_METER_VALUES = envelope("urn://Ocpp/Cs/2015/10", "MeterValues",
+            "<cs:meterValuesRequest><cs:connectorId>1</cs:connectorId><cs:transactionId>1234</cs:transactionId>"
+            + "<cs:meterValue><cs:timestamp>2023-06-01T10:15:30.000Z</cs:timestamp>"
+            + sampledValue("12345.6", "Energy.Active.Import.Register", "Wh")
+            + sampledValue("7400", "Power.Active.Import", "W")
+            + sampledValue("32.1", "Current.Import", "A")
+            + sampledValue("230.4", "Voltage", "V")
+            + sampledValue("64", "SoC", "Percent")
+            + "</cs:meterValue></cs:meterValuesRequest>");
+
+    @Param({"OCPP12", "OCPP15", "OCPP16"})
+    private String version;
+
+    private byte[] message;
+
+    @Setup
+    public void setup() {
+        switch (version) {
+            case "OCPP12": message = OCPP12_BOOT_NOTIFICATION.getBytes(StandardCharsets.UTF_8); break;
+            case "OCPP15": message = OCPP15_STATUS_NOTIFICATION.getBytes(StandardCharsets.UTF_8); break;
+            case "OCPP16": message = OCPP16_METER_VALUES.getBytes(StandardCharsets.UTF_8); break;
+            default: throw new IllegalArgumentException(version);
+        }
+    }
+
+    @Benchmark
+    public void boundedPrefix(Blackhole bh) throws Exception {
+        BodyNamespaceSniffer.Result result =
+                BodyNamespaceSniffer.sniff(new ByteArrayInputStream(message), "UTF-8", BODY);
+        bh.consume(result.getNamespace());
+        consume(result.getStream(), bh);
+    }
+
+    /**
+     * The way MediatorInInterceptor worked before
+     */
+    @Benchmark
+    public void markWholeMessage(Blackhole bh) throws Exception {
+        BufferedInputStream bis = new BufferedInputStream(new ByteArrayInputStream(message));
+        bis.mark(bis.available());
+
+        XMLStreamReader reader = StaxUtils.createXMLStreamReader(bis, "UTF-8");
+        DepthXMLStreamReader xmlReader = new DepthXMLStreamReader(reader);
+        if (xmlReader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            StaxUtils.toNextTag(xmlReader, BODY);
+            xmlReader.nextTag();
+        }
+        bh.consume(xmlReader.getName().getNamespaceURI());
+        bis.reset();
+
+        consume(bis, bh);
+    }
+
+    private static void consume(InputStream in, Blackhole bh) throws Exception {
+        byte[] buffer = new byte[4096];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            bh.consume(read);
+        }
+    }
+
+    private static String sampledValue(String value, String measurand, String unit) {
+        return "<cs:sampledValue><cs:value>" + value + "</cs:value><cs:context>Sample.Periodic</cs:context>"
+                + "<cs:format>Raw</cs:format><cs:measurand>" + measurand + "</cs:measurand>"
+                + "<cs:location>Outlet</cs:location><cs:unit>" + unit + "</cs:unit></cs:sampledValue>";
+    }
+
+    private static String envelope(String namespace, String action, String body) {
+        return "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+                + "<soap:Envelope xmlns:soap=\"http://www.w3.org/2003/05/soap-envelope\" xmlns:cs=\"" + namespace + "\""
+                + " xmlns:wsa=\"http://www.w3.org/2005/08/addressing\">"
+                + "<soap:Header><cs:chargeBoxIdentity>CP-0001</cs:chargeBoxIdentity>"
+                + "<wsa:Action>/" + action + "</wsa:Action>"
+                + "<wsa:MessageID>urn:uuid:0c1a7a8e-5b2b-4e4f-9a9d-1f2e3d4c5b6a</wsa:MessageID>"
+                + "<wsa:From><wsa:Address>http://192.168.0.10:8080/ocpp</wsa:Address></wsa:From>"
+                + "<wsa:To>http://steve.example.com:8180/steve/services/CentralSystemService</wsa:To>"
+                + "</soap:Header><soap:Body>" + body + "</soap:Body></soap:Envelope>";
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(MediatorInInterceptorBenchmark.class.getSimpleName())
+                                       .addProfiler(GCProfiler.class)
+                                       .build())
+                .run();
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.ocpp.ws;
+
+import com.google.common.base.Ticker;
+import de.rwth.idsg.steve.ocpp.ws.data.OcppJsonCall;
+import de.rwth.idsg.steve.ocpp.ws.data.OcppJsonError;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author agent <agent@local>
+ * @since 17.10.2026
+ */
+public class AdmissionControllerTest {
+
+    private final AtomicLong nanos = new AtomicLong(0);
+    private final Ticker ticker = new Ticker() {
+        @Override
+        public long read() {
+            return nanos.get();
+        }
+    };
+
+    @Test
+    public void testRateLimitPerStation() {
+        AdmissionController controller = new AdmissionController(1, 2, 0, ticker);
+
+        Assertions.assertNull(acquireAndRelease(controller, "cp1", "MeterValues"));
+        Assertions.assertNull(acquireAndRelease(controller, "cp1", "MeterValues"));
+
+        OcppJsonError error = acquireAndRelease(controller, "cp1", "MeterValues");
+        Assertions.assertNotNull(error);
+        Assertions.assertEquals("1", error.getMessageId());
+
+        // high priority and other stations are not affected
+        Assertions.assertNull(acquireAndRelease(controller, "cp1", "StopTransaction"));
+        Assertions.assertNull(acquireAndRelease(controller, "cp2", "MeterValues"));
+
+        Assertions.assertEquals(1, controller.getRateLimitedCount());
+    }
+
+    /**
+     * The bucket must survive a reconnect, and is only dropped after it was idle long enough to be full again
+     */
+    @Test
+    public void testBucketIdleExpiry() {
+        AdmissionController controller = new AdmissionController(1, 10, 0, ticker);
+
+        for (int i = 0; i < 10; i++) {
+            Assertions.assertNull(acquireAndRelease(controller, "cp1", "MeterValues"));
+        }
+        Assertions.assertNotNull(acquireAndRelease(controller, "cp1", "MeterValues"));
+
+        // refilled by 5 tokens, whereas a new bucket would be full
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(5));
+        for (int i = 0; i < 5; i++) {
+            Assertions.assertNull(acquireAndRelease(controller, "cp1", "MeterValues"));
+        }
+        Assertions.assertNotNull(acquireAndRelease(controller, "cp1", "MeterValues"));
+
+        // 10 tokens at 1 per second: idle for 10 seconds since the last use
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        for (int i = 0; i < 10; i++) {
+            Assertions.assertNull(acquireAndRelease(controller, "cp1", "MeterValues"));
+        }
+        Assertions.assertNotNull(acquireAndRelease(controller, "cp1", "MeterValues"));
+    }
+
+    @Test
+    public void testLoadShedding() {
+        AdmissionController controller = new AdmissionController(0, 0, 4, ticker);
+
+        // two in flight: low priority still gets half of the capacity
+        Assertions.assertNull(controller.tryAcquire("cp1", call("MeterValues")));
+        Assertions.assertNull(controller.tryAcquire("cp2", call("StatusNotification")));
+        Assertions.assertNotNull(controller.tryAcquire("cp3", call("MeterValues")));
+
+        Assertions.assertNull(controller.tryAcquire("cp4", call("Heartbeat")));
+        Assertions.assertNull(controller.tryAcquire("cp5", call("StatusNotification")));
+        Assertions.assertNotNull(controller.tryAcquire("cp6", call("StatusNotification")));
+
+        // full, but high priority is always admitted
+        Assertions.assertNull(controller.tryAcquire("cp7", call("StartTransaction")));
+        Assertions.assertEquals(5, controller.getInFlightCount());
+        Assertions.assertEquals(2, controller.getShedCount());
+
+        controller.release();
+        controller.release();
+        Assertions.assertNull(controller.tryAcquire("cp6", call("StatusNotification")));
+    }
+
+    private static OcppJsonError acquireAndRelease(AdmissionController controller, String chargeBoxId, String action) {
+        OcppJsonError error = controller.tryAcquire(chargeBoxId, call(action));
+        if (error == null) {
+            controller.release();
+        }
+        return error;
+    }
+
+    private static OcppJsonCall call(String action) {
+        OcppJsonCall call = new OcppJsonCall();
+        call.setMessageId("1");
+        call.setAction(action);
+        return call;
+    }
+}
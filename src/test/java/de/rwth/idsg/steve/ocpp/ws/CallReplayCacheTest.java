@@ -0,0 +1,150 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.ocpp.ws;
+
+import com.google.common.base.Ticker;
+import de.rwth.idsg.steve.ocpp.ws.data.OcppJsonCall;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author agent <agent@local>
+ * @since 17.10.2026
+ */
+public class CallReplayCacheTest {
+
+    private static final String START_1 = "[2,\"1\",\"StartTransaction\",{\"connectorId\":1,\"idTag\":\"a\"}]";
+    private static final String START_1_OTHER = "[2,\"1\",\"StartTransaction\",{\"connectorId\":2,\"idTag\":\"b\"}]";
+    private static final String RESPONSE_1 = "[3,\"1\",{\"transactionId\":10}]";
+    private static final int MAX_AGE = 60;
+
+    private final AtomicLong nanos = new AtomicLong(0);
+
+    @Test
+    public void testRetransmission() {
+        CallReplayCache cache = newCache(10);
+        OcppJsonCall call = call("1", "StartTransaction");
+
+        Assertions.assertNull(cache.getResponse("cb1", call, START_1));
+        cache.putResponse("cb1", call, START_1, RESPONSE_1);
+
+        Assertions.assertEquals(RESPONSE_1, cache.getResponse("cb1", call, START_1));
+        Assertions.assertEquals(2, cache.getLookupCount());
+        Assertions.assertEquals(1, cache.getHitCount());
+        Assertions.assertEquals(50.0, cache.getHitRate(), 0.001);
+    }
+
+    @Test
+    public void testOtherStation() {
+        CallReplayCache cache = newCache(10);
+        OcppJsonCall call = call("1", "StartTransaction");
+        cache.putResponse("cb1", call, START_1, RESPONSE_1);
+
+        Assertions.assertNull(cache.getResponse("cb2", call, START_1));
+    }
+
+    /**
+     * The station restarted counting its messageIds (e.g. after a reboot). This is a new call, and not a
+     * retransmission.
+     */
+    @Test
+    public void testSameMessageIdOtherContent() {
+        CallReplayCache cache = newCache(10);
+        OcppJsonCall call = call("1", "StartTransaction");
+        cache.putResponse("cb1", call, START_1, RESPONSE_1);
+
+        Assertions.assertNull(cache.getResponse("cb1", call, START_1_OTHER));
+    }
+
+    @Test
+    public void testEviction() {
+        CallReplayCache cache = newCache(2);
+
+        for (int i = 1; i <= 3; i++) {
+            OcppJsonCall call = call(String.valueOf(i), "MeterValues");
+            cache.putResponse("cb1", call, request(i), "response-" + i);
+        }
+
+        Assertions.assertNull(cache.getResponse("cb1", call("1", "MeterValues"), request(1)));
+        Assertions.assertEquals("response-2", cache.getResponse("cb1", call("2", "MeterValues"), request(2)));
+        Assertions.assertEquals("response-3", cache.getResponse("cb1", call("3", "MeterValues"), request(3)));
+    }
+
+    /**
+     * The same content much later is a new call of a station that restarted counting its messageIds, and not a
+     * retransmission.
+     */
+    @Test
+    public void testMaxAge() {
+        CallReplayCache cache = newCache(10);
+        OcppJsonCall call = call("1", "StartTransaction");
+        cache.putResponse("cb1", call, START_1, RESPONSE_1);
+
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(MAX_AGE - 1));
+        Assertions.assertEquals(RESPONSE_1, cache.getResponse("cb1", call, START_1));
+
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        Assertions.assertNull(cache.getResponse("cb1", call, START_1));
+    }
+
+    @Test
+    public void testNotReplayedActions() {
+        CallReplayCache cache = newCache(10);
+
+        for (String action : new String[] {"Heartbeat", "BootNotification", "Authorize"}) {
+            OcppJsonCall call = call("1", action);
+            String request = "[2,\"1\",\"" + action + "\",{}]";
+            cache.putResponse("cb1", call, request, "response");
+            Assertions.assertNull(cache.getResponse("cb1", call, request));
+        }
+    }
+
+    @Test
+    public void testDisabled() {
+        CallReplayCache cache = newCache(0);
+        OcppJsonCall call = call("1", "StartTransaction");
+        cache.putResponse("cb1", call, START_1, RESPONSE_1);
+
+        Assertions.assertNull(cache.getResponse("cb1", call, START_1));
+        Assertions.assertEquals(0, cache.getLookupCount());
+    }
+
+    private static String request(int messageId) {
+        return "[2,\"" + messageId + "\",\"MeterValues\",{}]";
+    }
+
+    private CallReplayCache newCache(int sizePerStation) {
+        return new CallReplayCache(sizePerStation, MAX_AGE, new Ticker() {
+            @Override
+            public long read() {
+                return nanos.get();
+            }
+        });
+    }
+
+    private static OcppJsonCall call(String messageId, String action) {
+        OcppJsonCall call = new OcppJsonCall();
+        call.setMessageId(messageId);
+        call.setAction(action);
+        return call;
+    }
+}
@@ -0,0 +1,221 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.ocpp.ws;
+
+import de.rwth.idsg.steve.SteveException;
+import de.rwth.idsg.steve.ocpp.OcppTransport;
+import de.rwth.idsg.steve.ocpp.OcppVersion;
+import de.rwth.idsg.steve.ocpp.task.ClearCacheTask;
+import de.rwth.idsg.steve.ocpp.ws.data.FutureResponseContext;
+import de.rwth.idsg.steve.repository.dto.ChargePointSelect;
+import de.rwth.idsg.steve.web.dto.ocpp.MultipleChargePointSelect;
+import ocpp.cp._2015._10.ClearCacheResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author agent <agent@local>
+ * @since 17.10.2026
+ */
+public class FutureResponseContextStoreTest {
+
+    private static final String CHARGE_BOX_ID = "cp1";
+    private static final String EXECUTOR_THREAD = "test-executor";
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> new Thread(r, EXECUTOR_THREAD));
+    private final WebSocketSession session = session();
+
+    private FutureResponseContextStore store;
+
+    @AfterEach
+    public void tearDown() {
+        if (store != null) {
+            store.shutDown();
+        }
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testExpiry() throws Exception {
+        store = new FutureResponseContextStore(executor, 10, action -> 0);
+        store.addSession(session);
+
+        CountDownLatch completed = new CountDownLatch(1);
+        String[] completedOn = new String[1];
+
+        FutureResponseContext context = context();
+        context.setCompletionListener(() -> {
+            completedOn[0] = Thread.currentThread().getName();
+            completed.countDown();
+        });
+        store.add(session, "msg1", context);
+
+        Assertions.assertTrue(completed.await(5, TimeUnit.SECONDS));
+        Assertions.assertEquals(EXECUTOR_THREAD, completedOn[0]);
+        Assertions.assertTrue(context.getTask().isFinished());
+        Assertions.assertEquals(1, store.getExpiredCount());
+        Assertions.assertNull(store.get(session, "msg1"));
+    }
+
+    @Test
+    public void testNoExpiryAfterResponse() throws Exception {
+        store = new FutureResponseContextStore(executor, 10, action -> 1);
+        store.addSession(session);
+
+        FutureResponseContext context = context();
+        store.add(session, "msg1", context);
+        Assertions.assertSame(context, store.get(session, "msg1"));
+
+        TimeUnit.MILLISECONDS.sleep(2500);
+        Assertions.assertEquals(0, store.getExpiredCount());
+        Assertions.assertFalse(context.getTask().isFinished());
+    }
+
+    @Test
+    public void testMaxPending() {
+        store = new FutureResponseContextStore(executor, 2, action -> 60);
+        store.addSession(session);
+
+        store.add(session, "msg1", context());
+        store.add(session, "msg2", context());
+        Assertions.assertThrows(SteveException.class, () -> store.add(session, "msg3", context()));
+
+        // a response makes room again
+        store.get(session, "msg1");
+        store.add(session, "msg3", context());
+    }
+
+    @Test
+    public void testMaxPendingConcurrent() throws Exception {
+        int maxPending = 5;
+        int threads = 8;
+        store = new FutureResponseContextStore(executor, maxPending, action -> 60);
+        store.addSession(session);
+
+        ExecutorService adders = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger accepted = new AtomicInteger();
+        try {
+            for (int i = 0; i < threads * 10; i++) {
+                String messageId = "msg" + i;
+                adders.execute(() -> {
+                    try {
+                        start.await();
+                        store.add(session, messageId, context());
+                        accepted.incrementAndGet();
+                    } catch (SteveException | InterruptedException e) {
+                        // expected for the calls over the limit
+                    }
+                });
+            }
+            start.countDown();
+            adders.shutdown();
+            Assertions.assertTrue(adders.awaitTermination(5, TimeUnit.SECONDS));
+        } finally {
+            adders.shutdownNow();
+        }
+
+        Assertions.assertEquals(maxPending, accepted.get());
+        Assertions.assertEquals(maxPending, store.getNumberOfPendingCalls());
+    }
+
+    @Test
+    public void testAddAfterSessionClosed() {
+        store = new FutureResponseContextStore(executor, 10, action -> 60);
+        store.addSession(session);
+        store.removeSession(session);
+
+        Assertions.assertThrows(SteveException.class, () -> store.add(session, "msg1", context()));
+
+        // neither the timeout nor the store of the closed session are left behind
+        Assertions.assertEquals(0, store.getNumberOfPendingCalls());
+        Assertions.assertNull(store.get(session, "msg1"));
+    }
+
+    @Test
+    public void testRejectedAddCancelsTimeout() {
+        store = new FutureResponseContextStore(executor, 1, action -> 60);
+        store.addSession(session);
+
+        store.add(session, "msg1", context());
+        Assertions.assertThrows(SteveException.class, () -> store.add(session, "msg2", context()));
+
+        Assertions.assertEquals(1, store.getNumberOfPendingCalls());
+    }
+
+    @Test
+    public void testResponseCancelsTimeout() {
+        store = new FutureResponseContextStore(executor, 10, action -> 60);
+        store.addSession(session);
+
+        FutureResponseContext context = context();
+        store.add(session, "msg1", context);
+        Assertions.assertNotNull(context.getTimeout());
+
+        store.get(session, "msg1");
+        Assertions.assertEquals(0, store.getNumberOfPendingCalls());
+    }
+
+    @Test
+    public void testRemoveSessionFailsPendingCalls() {
+        store = new FutureResponseContextStore(executor, 10, action -> 60);
+        store.addSession(session);
+
+        FutureResponseContext context = context();
+        store.add(session, "msg1", context);
+        store.removeSession(session);
+
+        Assertions.assertTrue(context.getTask().isFinished());
+        Assertions.assertEquals(0, store.getNumberOfPendingCalls());
+    }
+
+    // -------------------------------------------------------------------------
+    // Private helpers
+    // -------------------------------------------------------------------------
+
+    private static FutureResponseContext context() {
+        MultipleChargePointSelect params = new MultipleChargePointSelect();
+        params.setChargePointSelectList(
+                Collections.singletonList(new ChargePointSelect(OcppTransport.JSON, CHARGE_BOX_ID)));
+        return new FutureResponseContext(new ClearCacheTask(OcppVersion.V_16, params), ClearCacheResponse.class,
+                "ClearCache");
+    }
+
+    private static WebSocketSession session() {
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put(AbstractWebSocketEndpoint.CHARGEBOX_ID_KEY, CHARGE_BOX_ID);
+
+        WebSocketSession session = Mockito.mock(WebSocketSession.class);
+        Mockito.when(session.getId()).thenReturn("session1");
+        Mockito.when(session.getAttributes()).thenReturn(attributes);
+        return session;
+    }
+}
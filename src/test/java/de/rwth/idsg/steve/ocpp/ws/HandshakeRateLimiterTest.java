@@ -0,0 +1,103 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.ocpp.ws;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * @author agent <agent@local>
+ * @since 17.10.2026
+ */
+public class HandshakeRateLimiterTest {
+
+    @Test
+    public void testPerStation() {
+        HandshakeRateLimiter limiter = new HandshakeRateLimiter(3, 0, Collections.emptySet());
+
+        for (int i = 0; i < 3; i++) {
+            Assertions.assertTrue(limiter.tryAcquireForStation("cb1"));
+        }
+        Assertions.assertFalse(limiter.tryAcquireForStation("cb1"));
+
+        // other stations are not affected
+        Assertions.assertTrue(limiter.tryAcquireForStation("cb2"));
+        Assertions.assertEquals(1, limiter.getRejectedCount());
+    }
+
+    @Test
+    public void testPerAddress() {
+        HandshakeRateLimiter limiter = new HandshakeRateLimiter(0, 2, Collections.emptySet());
+
+        // checking alone does not use up the limit, e.g. a fleet of known stations after a restart
+        for (int i = 0; i < 100; i++) {
+            Assertions.assertFalse(limiter.isBlockedForAddress("10.0.0.1"));
+        }
+
+        limiter.countUnknownForAddress("10.0.0.1");
+        Assertions.assertFalse(limiter.isBlockedForAddress("10.0.0.1"));
+        limiter.countUnknownForAddress("10.0.0.1");
+        Assertions.assertTrue(limiter.isBlockedForAddress("10.0.0.1"));
+
+        Assertions.assertFalse(limiter.isBlockedForAddress("10.0.0.2"));
+        Assertions.assertEquals(1, limiter.getRejectedCount());
+    }
+
+    @Test
+    public void testNoLimit() {
+        HandshakeRateLimiter limiter = new HandshakeRateLimiter(0, 0, Collections.emptySet());
+
+        for (int i = 0; i < 1000; i++) {
+            Assertions.assertTrue(limiter.tryAcquireForStation("cb1"));
+            limiter.countUnknownForAddress("10.0.0.1");
+            Assertions.assertFalse(limiter.isBlockedForAddress("10.0.0.1"));
+        }
+    }
+
+    @Test
+    public void testUnknownAddress() {
+        HandshakeRateLimiter limiter = new HandshakeRateLimiter(0, 1, Collections.emptySet());
+
+        limiter.countUnknownForAddress(null);
+        limiter.countUnknownForAddress(null);
+        Assertions.assertFalse(limiter.isBlockedForAddress(null));
+    }
+
+    @Test
+    public void testResolveClientAddress() {
+        HandshakeRateLimiter limiter = new HandshakeRateLimiter(0, 1, Set.of("10.0.0.1", "10.0.0.2"));
+
+        // not from a trusted proxy: the header can be set by anyone
+        Assertions.assertEquals("192.168.1.1",
+                limiter.resolveClientAddress("192.168.1.1", List.of("1.2.3.4")));
+
+        Assertions.assertEquals("10.0.0.1", limiter.resolveClientAddress("10.0.0.1", null));
+        Assertions.assertEquals("1.2.3.4", limiter.resolveClientAddress("10.0.0.1", List.of("1.2.3.4")));
+
+        // the rightmost address that is not a trusted proxy. the ones left of it can be spoofed by the client
+        Assertions.assertEquals("1.2.3.4",
+                limiter.resolveClientAddress("10.0.0.1", List.of("6.6.6.6, 1.2.3.4, 10.0.0.2")));
+        Assertions.assertEquals("1.2.3.4",
+                limiter.resolveClientAddress("10.0.0.1", List.of("6.6.6.6", "1.2.3.4", "10.0.0.2")));
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.ocpp.ws;
+
+import de.rwth.idsg.steve.ocpp.ws.custom.WsDispatchMode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author agent <agent@local>
+ * @since 17.10.2026
+ */
+public class IncomingMessageDispatcherTest {
+
+    private final WebSocketSession session = Mockito.mock(WebSocketSession.class);
+
+    private IncomingMessageDispatcher dispatcher;
+
+    @AfterEach
+    public void tearDown() {
+        if (dispatcher != null) {
+            dispatcher.shutDown();
+        }
+    }
+
+    @Test
+    public void testInline() {
+        dispatcher = new IncomingMessageDispatcher(WsDispatchMode.INLINE, 1, 1);
+
+        Thread caller = Thread.currentThread();
+        List<Thread> executedBy = new ArrayList<>();
+
+        Assertions.assertTrue(dispatcher.dispatch("cp1", session, () -> executedBy.add(Thread.currentThread())));
+        Assertions.assertEquals(Collections.singletonList(caller), executedBy);
+    }
+
+    @Test
+    public void testOrderPerStation() throws Exception {
+        dispatcher = new IncomingMessageDispatcher(WsDispatchMode.MAILBOX, 4, 1_000);
+
+        int count = 500;
+        CountDownLatch done = new CountDownLatch(count);
+        List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+
+        for (int i = 0; i < count; i++) {
+            int nr = i;
+            dispatcher.dispatch("cp1", session, () -> {
+                order.add(nr);
+                done.countDown();
+            });
+        }
+
+        Assertions.assertTrue(done.await(10, TimeUnit.SECONDS));
+        for (int i = 0; i < count; i++) {
+            Assertions.assertEquals(i, order.get(i));
+        }
+        Assertions.assertEquals(count, dispatcher.getProcessedCount());
+    }
+
+    @Test
+    public void testOrderWithConcurrentRemove() throws Exception {
+        dispatcher = new IncomingMessageDispatcher(WsDispatchMode.MAILBOX, 4, 100_000);
+
+        int count = 20_000;
+        CountDownLatch done = new CountDownLatch(count);
+        List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger running = new AtomicInteger(0);
+        AtomicInteger maxRunning = new AtomicInteger(0);
+
+        AtomicBoolean stop = new AtomicBoolean(false);
+        Thread remover = new Thread(() -> {
+            while (!stop.get()) {
+                dispatcher.removeMailbox("cp1");
+            }
+        });
+        remover.start();
+
+        try {
+            for (int i = 0; i < count; i++) {
+                int nr = i;
+                dispatcher.dispatch("cp1", session, () -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    order.add(nr);
+                    running.decrementAndGet();
+                    done.countDown();
+                });
+            }
+            Assertions.assertTrue(done.await(30, TimeUnit.SECONDS));
+        } finally {
+            stop.set(true);
+            remover.join();
+        }
+
+        Assertions.assertEquals(1, maxRunning.get());
+        for (int i = 0; i < count; i++) {
+            Assertions.assertEquals(i, order.get(i));
+        }
+    }
+
+    @Test
+    public void testQueueLimit() throws Exception {
+        dispatcher = new IncomingMessageDispatcher(WsDispatchMode.MAILBOX, 1, 2);
+
+        CountDownLatch blocker = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+
+        Assertions.assertTrue(dispatcher.dispatch("cp1", session, () -> {
+            started.countDown();
+            await(blocker);
+        }));
+        Assertions.assertTrue(started.await(10, TimeUnit.SECONDS));
+
+        // the first one is being processed, but still counted until it is done
+        Assertions.assertTrue(dispatcher.dispatch("cp1", session, () -> { }));
+        Assertions.assertFalse(dispatcher.dispatch("cp1", session, () -> { }));
+        Assertions.assertEquals(2, dispatcher.getQueueDepth("cp1"));
+        Assertions.assertEquals(1, dispatcher.getRejectedCount());
+
+        // another station is not affected by the full mailbox of cp1
+        Assertions.assertTrue(dispatcher.dispatch("cp2", session, () -> { }));
+
+        blocker.countDown();
+    }
+
+    @Test
+    public void testExceptionClosesSession() throws Exception {
+        dispatcher = new IncomingMessageDispatcher(WsDispatchMode.MAILBOX, 1, 10);
+        Mockito.when(session.isOpen()).thenReturn(true);
+
+        CountDownLatch done = new CountDownLatch(1);
+        dispatcher.dispatch("cp1", session, () -> {
+            throw new IllegalStateException("boom");
+        });
+        dispatcher.dispatch("cp1", session, done::countDown);
+
+        // the mailbox keeps working after a failure
+        Assertions.assertTrue(done.await(10, TimeUnit.SECONDS));
+        Mockito.verify(session).close(Mockito.any());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,292 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.ocpp.ws;
+
+import de.rwth.idsg.ocpp.jaxb.RequestType;
+import de.rwth.idsg.steve.SteveException;
+import de.rwth.idsg.steve.ocpp.OcppTransport;
+import de.rwth.idsg.steve.ocpp.OcppVersion;
+import de.rwth.idsg.steve.ocpp.task.ClearCacheTask;
+import de.rwth.idsg.steve.ocpp.ws.data.FutureResponseContext;
+import de.rwth.idsg.steve.ocpp.ws.data.OcppJsonCall;
+import de.rwth.idsg.steve.repository.dto.ChargePointSelect;
+import de.rwth.idsg.steve.web.dto.ocpp.MultipleChargePointSelect;
+import ocpp.cp._2015._10.ClearCacheRequest;
+import ocpp.cp._2015._10.ClearCacheResponse;
+import ocpp.cp._2015._10.ResetRequest;
+import ocpp.cp._2015._10.ResetResponse;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @author agent <agent@local>
+ * @since 17.10.2026
+ */
+public class OutgoingCallQueueTest {
+
+    private static final String CHARGE_BOX_ID = "cp1";
+
+    private final FakeTarget target = new FakeTarget();
+
+    @Test
+    public void testOneCallInFlight() {
+        OutgoingCallQueue queue = newQueue(10, 0);
+
+        FutureResponseContext first = resetContext();
+        queue.submit(target, CHARGE_BOX_ID, call("Reset", new ResetRequest()), first);
+        queue.submit(target, CHARGE_BOX_ID, call("Reset", new ResetRequest()), resetContext());
+
+        Assertions.assertEquals(1, target.sent.size());
+        Assertions.assertEquals(2, queue.getQueueDepth(CHARGE_BOX_ID));
+
+        first.complete();
+        Assertions.assertEquals(2, target.sent.size());
+        Assertions.assertEquals(1, queue.getQueueDepth(CHARGE_BOX_ID));
+
+        target.sent.get(1).complete();
+        Assertions.assertEquals(0, queue.getQueueDepth(CHARGE_BOX_ID));
+    }
+
+    @Test
+    public void testCoalescing() {
+        OutgoingCallQueue queue = newQueue(10, 0);
+
+        // the first one is sent right away, the other two wait and are identical
+        queue.submit(target, CHARGE_BOX_ID, call("Reset", new ResetRequest()), resetContext());
+        FutureResponseContext waiting = clearCacheContext();
+        queue.submit(target, CHARGE_BOX_ID, call("ClearCache", new ClearCacheRequest()), waiting);
+        queue.submit(target, CHARGE_BOX_ID, call("ClearCache", new ClearCacheRequest()), clearCacheContext());
+
+        Assertions.assertEquals(1, queue.getCoalescedCount());
+        Assertions.assertEquals(2, queue.getQueueDepth(CHARGE_BOX_ID));
+        Assertions.assertEquals(2, waiting.getAllTasks().size());
+    }
+
+    @Test
+    public void testNoCoalescingWithSideEffects() {
+        OutgoingCallQueue queue = newQueue(10, 0);
+
+        queue.submit(target, CHARGE_BOX_ID, call("Reset", new ResetRequest()), resetContext());
+        queue.submit(target, CHARGE_BOX_ID, call("Reset", new ResetRequest()), resetContext());
+        queue.submit(target, CHARGE_BOX_ID, call("Reset", new ResetRequest()), resetContext());
+
+        Assertions.assertEquals(0, queue.getCoalescedCount());
+        Assertions.assertEquals(3, queue.getQueueDepth(CHARGE_BOX_ID));
+    }
+
+    @Test
+    public void testQueueLimit() {
+        OutgoingCallQueue queue = newQueue(1, 0);
+
+        queue.submit(target, CHARGE_BOX_ID, call("Reset", new ResetRequest()), resetContext());
+        queue.submit(target, CHARGE_BOX_ID, call("Reset", new ResetRequest()), resetContext());
+
+        Assertions.assertThrows(SteveException.class,
+                () -> queue.submit(target, CHARGE_BOX_ID, call("Reset", new ResetRequest()), resetContext()));
+    }
+
+    @Test
+    public void testOfflineFailsFastWithoutHold() {
+        OutgoingCallQueue queue = newQueue(10, 0);
+        target.connected = false;
+
+        Assertions.assertThrows(SteveException.class,
+                () -> queue.submit(target, CHARGE_BOX_ID, call("Reset", new ResetRequest()), resetContext()));
+        Assertions.assertEquals(0, queue.getTotalQueueDepth());
+    }
+
+    @Test
+    public void testOfflineHold() {
+        OutgoingCallQueue queue = newQueue(10, 60);
+        target.connected = false;
+
+        queue.submit(target, CHARGE_BOX_ID, call("Reset", new ResetRequest()), resetContext());
+        Assertions.assertEquals(0, target.sent.size());
+        Assertions.assertEquals(1, queue.getQueueDepth(CHARGE_BOX_ID));
+
+        // still within the hold period
+        queue.expireOfflineCalls();
+        Assertions.assertEquals(1, queue.getQueueDepth(CHARGE_BOX_ID));
+
+        target.connected = true;
+        queue.stationConnected(CHARGE_BOX_ID);
+        Assertions.assertEquals(1, target.sent.size());
+    }
+
+    @Test
+    public void testExpiry() {
+        OutgoingCallQueue queue = newQueue(10, 0);
+
+        FutureResponseContext first = resetContext();
+        FutureResponseContext second = resetContext();
+        queue.submit(target, CHARGE_BOX_ID, call("Reset", new ResetRequest()), first);
+        queue.submit(target, CHARGE_BOX_ID, call("Reset", new ResetRequest()), second);
+
+        // the station disconnects while the second call is waiting
+        target.connected = false;
+        first.complete();
+        queue.expireOfflineCalls();
+
+        Assertions.assertEquals(1, queue.getExpiredCount());
+        Assertions.assertEquals(0, queue.getTotalQueueDepth());
+        Assertions.assertTrue(second.getTask().isFinished());
+    }
+
+    @Test
+    public void testCancel() {
+        OutgoingCallQueue queue = newQueue(10, 0);
+
+        FutureResponseContext first = resetContext();
+        FutureResponseContext second = resetContext();
+        queue.submit(target, CHARGE_BOX_ID, call("Reset", new ResetRequest()), first);
+        queue.submit(target, CHARGE_BOX_ID, call("Reset", new ResetRequest()), second);
+
+        // already sent
+        Assertions.assertFalse(queue.cancel(CHARGE_BOX_ID, first.getTask()));
+
+        Assertions.assertTrue(queue.cancel(CHARGE_BOX_ID, second.getTask()));
+        Assertions.assertEquals(1, queue.getQueueDepth(CHARGE_BOX_ID));
+
+        first.complete();
+        Assertions.assertEquals(1, target.sent.size());
+        Assertions.assertEquals(0, queue.getTotalQueueDepth());
+    }
+
+    @Test
+    public void testCancelCoalesced() {
+        OutgoingCallQueue queue = newQueue(10, 0);
+
+        queue.submit(target, CHARGE_BOX_ID, call("Reset", new ResetRequest()), resetContext());
+        FutureResponseContext waiting = clearCacheContext();
+        FutureResponseContext coalesced = clearCacheContext();
+        queue.submit(target, CHARGE_BOX_ID, call("ClearCache", new ClearCacheRequest()), waiting);
+        queue.submit(target, CHARGE_BOX_ID, call("ClearCache", new ClearCacheRequest()), coalesced);
+
+        // the other task still waits for the response of this call
+        Assertions.assertFalse(queue.cancel(CHARGE_BOX_ID, waiting.getTask()));
+
+        Assertions.assertTrue(queue.cancel(CHARGE_BOX_ID, coalesced.getTask()));
+        Assertions.assertEquals(1, waiting.getAllTasks().size());
+
+        Assertions.assertTrue(queue.cancel(CHARGE_BOX_ID, waiting.getTask()));
+        Assertions.assertEquals(1, queue.getQueueDepth(CHARGE_BOX_ID));
+    }
+
+    @Test
+    public void testSendFailure() {
+        OutgoingCallQueue queue = newQueue(10, 0);
+        target.failing = true;
+
+        FutureResponseContext context = resetContext();
+        queue.submit(target, CHARGE_BOX_ID, call("Reset", new ResetRequest()), context);
+
+        Assertions.assertTrue(context.getTask().isFinished());
+        Assertions.assertEquals(0, queue.getTotalQueueDepth());
+    }
+
+    // -------------------------------------------------------------------------
+    // Private helpers
+    // -------------------------------------------------------------------------
+
+    /**
+     * The completion of a call (e.g. by the thread that processes the response) does not send the next one itself.
+     */
+    @Test
+    public void testNextCallIsSentByExecutor() {
+        List<Runnable> handedOff = new ArrayList<>();
+        OutgoingCallQueue queue = new OutgoingCallQueue(10, 0, null, handedOff::add);
+
+        FutureResponseContext first = resetContext();
+        queue.submit(target, CHARGE_BOX_ID, call("Reset", new ResetRequest()), first);
+        queue.submit(target, CHARGE_BOX_ID, call("Reset", new ResetRequest()), resetContext());
+
+        first.complete();
+        Assertions.assertEquals(1, target.sent.size());
+        Assertions.assertEquals(1, handedOff.size());
+
+        handedOff.get(0).run();
+        Assertions.assertEquals(2, target.sent.size());
+    }
+
+    @Test
+    public void testWaitHistogram() {
+        OutgoingCallQueue queue = newQueue(10, 0);
+
+        FutureResponseContext first = resetContext();
+        queue.submit(target, CHARGE_BOX_ID, call("Reset", new ResetRequest()), first);
+        queue.submit(target, CHARGE_BOX_ID, call("Reset", new ResetRequest()), resetContext());
+        first.complete();
+
+        long[] histogram = queue.getWaitHistogram();
+        Assertions.assertEquals(OutgoingCallQueue.getWaitBucketsMillis().length + 1, histogram.length);
+        Assertions.assertEquals(2, Arrays.stream(histogram).sum());
+    }
+
+    private static OutgoingCallQueue newQueue(int queueLimit, int offlineHoldSeconds) {
+        return new OutgoingCallQueue(queueLimit, offlineHoldSeconds, null, Runnable::run);
+    }
+
+    private static OcppJsonCall call(String action, RequestType payload) {
+        OcppJsonCall call = new OcppJsonCall();
+        call.setMessageId(action + System.nanoTime());
+        call.setAction(action);
+        call.setPayload(payload);
+        return call;
+    }
+
+    private static FutureResponseContext resetContext() {
+        return new FutureResponseContext(new ClearCacheTask(OcppVersion.V_16, params()), ResetResponse.class, "Reset");
+    }
+
+    private static FutureResponseContext clearCacheContext() {
+        return new FutureResponseContext(new ClearCacheTask(OcppVersion.V_16, params()), ClearCacheResponse.class,
+                "ClearCache");
+    }
+
+    private static MultipleChargePointSelect params() {
+        MultipleChargePointSelect params = new MultipleChargePointSelect();
+        params.setChargePointSelectList(
+                Collections.singletonList(new ChargePointSelect(OcppTransport.JSON, CHARGE_BOX_ID)));
+        return params;
+    }
+
+    private static class FakeTarget implements OutgoingCallQueue.Target {
+        private final List<FutureResponseContext> sent = new ArrayList<>();
+        private boolean connected = true;
+        private boolean failing = false;
+
+        @Override
+        public boolean isConnected(String chargeBoxId) {
+            return connected;
+        }
+
+        @Override
+        public void send(String chargeBoxId, OcppJsonCall call, FutureResponseContext context) {
+            if (failing) {
+                throw new IllegalStateException("session closed");
+            }
+            sent.add(context);
+        }
+    }
+}
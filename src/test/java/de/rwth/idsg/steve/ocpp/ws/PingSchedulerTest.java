@@ -0,0 +1,133 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.ocpp.ws;
+
+import de.rwth.idsg.steve.ocpp.ws.data.PingState;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.PingMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The pings are driven by the test. The interval is long enough that the timer does not fire on its own.
+ *
+ * @author agent <agent@local>
+ * @since 17.10.2026
+ */
+public class PingSchedulerTest {
+
+    private static final String CHARGE_BOX_ID = "cp1";
+    private static final int MAX_MISSED = 3;
+
+    private final ScheduledExecutorService executor = Mockito.mock(ScheduledExecutorService.class);
+    private final WebSocketSession session = Mockito.mock(WebSocketSession.class);
+
+    private PingScheduler scheduler;
+
+    @BeforeEach
+    public void init() {
+        Mockito.when(session.getId()).thenReturn("session-1");
+        Mockito.when(session.isOpen()).thenReturn(true);
+
+        scheduler = new PingScheduler(executor, TimeUnit.MINUTES.toMillis(10), MAX_MISSED);
+        scheduler.init();
+    }
+
+    @AfterEach
+    public void destroy() {
+        scheduler.shutDown();
+    }
+
+    @Test
+    public void testDisconnectAfterMissedPongs() throws Exception {
+        PingState state = scheduler.start(CHARGE_BOX_ID, session);
+
+        for (int i = 0; i < MAX_MISSED; i++) {
+            scheduler.ping(state);
+        }
+
+        // the first ping was not due to be answered yet, the others were not answered
+        Assertions.assertEquals(MAX_MISSED - 1, state.getMissedPongs());
+        Mockito.verify(session, Mockito.times(MAX_MISSED)).sendMessage(ArgumentMatchers.any(PingMessage.class));
+        Mockito.verify(session, Mockito.never()).close(ArgumentMatchers.any(CloseStatus.class));
+
+        scheduler.ping(state);
+
+        Mockito.verify(session).close(ArgumentMatchers.any(CloseStatus.class));
+        Mockito.verify(session, Mockito.times(MAX_MISSED)).sendMessage(ArgumentMatchers.any(PingMessage.class));
+    }
+
+    @Test
+    public void testAliveSignalResetsMissedPongs() throws Exception {
+        PingState state = scheduler.start(CHARGE_BOX_ID, session);
+
+        for (int i = 0; i < MAX_MISSED; i++) {
+            scheduler.ping(state);
+        }
+        Assertions.assertEquals(MAX_MISSED - 1, state.getMissedPongs());
+
+        // e.g. an OCPP message of the station
+        scheduler.aliveSignalReceived(session);
+        Assertions.assertEquals(0, state.getMissedPongs());
+
+        for (int i = 0; i < MAX_MISSED; i++) {
+            scheduler.ping(state);
+        }
+
+        Mockito.verify(session, Mockito.never()).close(ArgumentMatchers.any(CloseStatus.class));
+        Mockito.verify(session, Mockito.times(2 * MAX_MISSED)).sendMessage(ArgumentMatchers.any(PingMessage.class));
+    }
+
+    @Test
+    public void testPongResetsMissedPongs() {
+        PingState state = scheduler.start(CHARGE_BOX_ID, session);
+
+        scheduler.ping(state);
+        scheduler.ping(state);
+        Assertions.assertEquals(1, state.getMissedPongs());
+
+        scheduler.pongReceived(session);
+        Assertions.assertEquals(0, state.getMissedPongs());
+        Assertions.assertTrue(state.getLastRttMillis() >= 0);
+    }
+
+    @Test
+    public void testStopCancelsTimeout() throws Exception {
+        PingState state = scheduler.start(CHARGE_BOX_ID, session);
+        Assertions.assertEquals(1, scheduler.getPendingCount());
+
+        scheduler.stop(session);
+
+        Assertions.assertTrue(state.isStopped());
+        Assertions.assertEquals(0, scheduler.getPendingCount());
+
+        // a ping that was already running when the session stopped neither sends nor schedules the next one
+        scheduler.ping(state);
+        Mockito.verify(session, Mockito.never()).sendMessage(ArgumentMatchers.any());
+        Assertions.assertEquals(0, scheduler.getPendingCount());
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.ocpp.ws;
+
+import de.rwth.idsg.steve.SteveException;
+import de.rwth.idsg.steve.ocpp.OcppVersion;
+import de.rwth.idsg.steve.ocpp.ws.custom.WsSessionSelectStrategyEnum;
+import de.rwth.idsg.steve.ocpp.ws.data.StationSessions;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.Collection;
+
+/**
+ * @author agent <agent@local>
+ * @since 17.10.2026
+ */
+public class SessionContextStoreTest {
+
+    private final SessionContextStore store = new SessionContextStore(OcppVersion.V_16);
+
+    @Test
+    public void testAddRemove() {
+        WebSocketSession s1 = session("1");
+        WebSocketSession s2 = session("2");
+
+        Assertions.assertEquals(1, store.add("cp1", s1, null));
+        Assertions.assertEquals(2, store.add("cp1", s2, null));
+        Assertions.assertEquals(1, store.getNumberOfChargeBoxes());
+
+        // unknown session does not change anything
+        Assertions.assertEquals(2, store.remove("cp1", session("3")));
+
+        Assertions.assertEquals(1, store.remove("cp1", s1));
+        Assertions.assertTrue(store.contains("cp1"));
+        Assertions.assertSame(s2, store.getSession("cp1"));
+
+        Assertions.assertEquals(0, store.remove("cp1", s2));
+        Assertions.assertFalse(store.contains("cp1"));
+        Assertions.assertEquals(0, store.getNumberOfChargeBoxes());
+        Assertions.assertThrows(SteveException.class, () -> store.getSession("cp1"));
+    }
+
+    @Test
+    public void testViewIsNotAffectedByLaterChanges() {
+        WebSocketSession s1 = session("1");
+        store.add("cp1", s1, null);
+
+        Collection<StationSessions> view = store.getStationSessions();
+        StationSessions before = view.iterator().next();
+
+        store.add("cp1", session("2"), null);
+
+        // the entry that was read before is immutable, the view shows the new one
+        Assertions.assertEquals(1, before.size());
+        Assertions.assertEquals(2, view.iterator().next().size());
+        Assertions.assertEquals(OcppVersion.V_16, before.getVersion());
+    }
+
+    @Test
+    public void testRoundRobin() {
+        WebSocketSession s1 = session("1");
+        WebSocketSession s2 = session("2");
+        store.add("cp1", s1, null);
+        store.add("cp1", s2, null);
+
+        StationSessions entry = store.getStationSessions().iterator().next();
+        Assertions.assertSame(s1, WsSessionSelectStrategyEnum.ROUND_ROBIN.getSession(entry));
+        Assertions.assertSame(s2, WsSessionSelectStrategyEnum.ROUND_ROBIN.getSession(entry));
+        Assertions.assertSame(s1, WsSessionSelectStrategyEnum.ROUND_ROBIN.getSession(entry));
+        Assertions.assertSame(s2, WsSessionSelectStrategyEnum.ALWAYS_LAST.getSession(entry));
+    }
+
+    private static WebSocketSession session(String id) {
+        WebSocketSession session = Mockito.mock(WebSocketSession.class);
+        Mockito.when(session.getId()).thenReturn(id);
+        return session;
+    }
+}
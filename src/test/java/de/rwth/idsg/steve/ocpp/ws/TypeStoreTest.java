@@ -0,0 +1,96 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.ocpp.ws;
+
+import com.google.common.reflect.ClassPath;
+import de.rwth.idsg.ocpp.jaxb.RequestType;
+import de.rwth.idsg.steve.ocpp.ws.data.ActionResponsePair;
+import de.rwth.idsg.steve.ocpp.ws.ocpp12.Ocpp12TypeStore;
+import de.rwth.idsg.steve.ocpp.ws.ocpp15.Ocpp15TypeStore;
+import de.rwth.idsg.steve.ocpp.ws.ocpp16.Ocpp16TypeStore;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * The type stores are filled by hand. These tests compare them with what a scan of the JAXB packages finds in both
+ * directions, so that a request class that is added to (or removed from) the JAXB packages does not go unnoticed,
+ * and that every outgoing request is paired with the response class of its own package.
+ *
+ * @author agent <agent@local>
+ * @since 17.10.2026
+ */
+public class TypeStoreTest {
+
+    @Test
+    public void testOcpp12() throws Exception {
+        check(Ocpp12TypeStore.INSTANCE, "ocpp.cs._2010._08", "ocpp.cp._2010._08");
+    }
+
+    @Test
+    public void testOcpp15() throws Exception {
+        check(Ocpp15TypeStore.INSTANCE, "ocpp.cs._2012._06", "ocpp.cp._2012._06");
+    }
+
+    @Test
+    public void testOcpp16() throws Exception {
+        check(Ocpp16TypeStore.INSTANCE, "ocpp.cs._2015._10", "ocpp.cp._2015._10");
+    }
+
+    private static void check(AbstractTypeStore store, String incomingPackage, String outgoingPackage)
+            throws Exception {
+        Set<Class<? extends RequestType>> incoming = findRequestClasses(incomingPackage);
+        Assertions.assertEquals(incoming, store.getIncomingRequestClasses());
+        for (Class<? extends RequestType> clazz : incoming) {
+            Assertions.assertEquals(clazz, store.findRequestClass(getAction(clazz)), clazz.getName());
+        }
+
+        Set<Class<? extends RequestType>> outgoing = findRequestClasses(outgoingPackage);
+        Assertions.assertEquals(outgoing, store.getOutgoingRequestClasses());
+        for (Class<? extends RequestType> clazz : outgoing) {
+            String action = getAction(clazz);
+            ActionResponsePair pair = store.findActionResponse(clazz.getDeclaredConstructor().newInstance());
+            Assertions.assertNotNull(pair, clazz.getName());
+            Assertions.assertEquals(action, pair.getAction());
+            Class<?> responseClass = Class.forName(outgoingPackage + "." + action + "Response");
+            Assertions.assertEquals(responseClass, pair.getResponseClass());
+            Assertions.assertEquals(clazz, store.findOutgoingRequestClass(action));
+        }
+    }
+
+    private static Set<Class<? extends RequestType>> findRequestClasses(String packageName) throws Exception {
+        Set<Class<? extends RequestType>> classes = new HashSet<>();
+        for (ClassPath.ClassInfo info : ClassPath.from(Thread.currentThread().getContextClassLoader())
+                                                 .getTopLevelClasses(packageName)) {
+            Class<?> clazz = info.load();
+            if (RequestType.class.isAssignableFrom(clazz)) {
+                classes.add(clazz.asSubclass(RequestType.class));
+            }
+        }
+        Assertions.assertFalse(classes.isEmpty(), packageName);
+        return classes;
+    }
+
+    private static String getAction(Class<?> clazz) {
+        String name = clazz.getSimpleName();
+        return name.substring(0, name.length() - "Request".length());
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.ocpp.ws;
+
+import de.rwth.idsg.steve.ocpp.OcppVersion;
+import de.rwth.idsg.steve.ocpp.ws.data.SessionContext;
+import de.rwth.idsg.steve.ocpp.ws.data.StationSessions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author agent <agent@local>
+ * @since 17.10.2026
+ */
+public class WebSocketDrainerTest {
+
+    private final FutureResponseContextStore store = Mockito.mock(FutureResponseContextStore.class);
+    private final WebSocketSessionRegistry registry = Mockito.mock(WebSocketSessionRegistry.class);
+
+    private final List<WebSocketSession> sessions = new ArrayList<>();
+
+    private WebSocketDrainer drainer;
+
+    @AfterEach
+    public void tearDown() {
+        if (drainer != null) {
+            drainer.cancelDrain();
+        }
+    }
+
+    @Test
+    public void testDrain() throws Exception {
+        connect(3);
+        drainer = new WebSocketDrainer(store, registry, 0, 0);
+
+        Assertions.assertTrue(drainer.startDrain());
+        Assertions.assertTrue(drainer.isDraining());
+        Assertions.assertFalse(drainer.startDrain());
+
+        drainer.drainAndWait();
+        for (WebSocketSession session : sessions) {
+            Mockito.verify(session).close(CloseStatus.SERVICE_RESTARTED);
+        }
+    }
+
+    @Test
+    public void testWaitForPendingCalls() throws Exception {
+        connect(1);
+        Mockito.when(store.getNumberOfPendingCalls()).thenReturn(1, 1, 0);
+        drainer = new WebSocketDrainer(store, registry, 0, 10);
+
+        drainer.drainAndWait();
+        Mockito.verify(store, Mockito.times(3)).getNumberOfPendingCalls();
+        Mockito.verify(sessions.get(0)).close(CloseStatus.SERVICE_RESTARTED);
+    }
+
+    @Test
+    public void testCancel() throws Exception {
+        // 10 batches of 2 sessions, one per second
+        connect(20);
+        drainer = new WebSocketDrainer(store, registry, 10, 0);
+
+        Assertions.assertFalse(drainer.cancelDrain());
+        Assertions.assertTrue(drainer.startDrain());
+
+        // the first batch is closed right away
+        Mockito.verify(registry, Mockito.timeout(1000)).stream();
+        TimeUnit.MILLISECONDS.sleep(200);
+
+        Assertions.assertTrue(drainer.cancelDrain());
+        Assertions.assertFalse(drainer.isDraining());
+        Assertions.assertFalse(drainer.cancelDrain());
+
+        TimeUnit.MILLISECONDS.sleep(1500);
+        Assertions.assertEquals(2, countClosed());
+
+        // can be started again
+        Assertions.assertTrue(drainer.startDrain());
+        Assertions.assertTrue(drainer.isDraining());
+    }
+
+    private void connect(int count) {
+        List<StationSessions> stations = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            WebSocketSession session = Mockito.mock(WebSocketSession.class);
+            Mockito.when(session.getId()).thenReturn("session" + i);
+            sessions.add(session);
+            stations.add(StationSessions.of("cp" + i, OcppVersion.V_16, new SessionContext(session, null, null)));
+        }
+        Mockito.when(registry.stream()).thenAnswer(invocation -> stations.stream());
+    }
+
+    private int countClosed() {
+        int closed = 0;
+        for (WebSocketSession session : sessions) {
+            closed += Mockito.mockingDetails(session).getInvocations().stream()
+                             .filter(invocation -> invocation.getMethod().getName().equals("close"))
+                             .count();
+        }
+        return closed;
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.ocpp.ws.cluster;
+
+import de.rwth.idsg.steve.ocpp.OcppVersion;
+import de.rwth.idsg.steve.ocpp.ws.WebSocketSessionRegistry;
+import de.rwth.idsg.steve.ocpp.ws.data.SessionContext;
+import de.rwth.idsg.steve.ocpp.ws.data.StationSessions;
+import de.rwth.idsg.steve.repository.WsSessionOwnerRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.mockito.ArgumentMatchers.anyString;
+
+/**
+ * @author agent <agent@local>
+ * @since 17.10.2026
+ */
+public class ClusterRouterTest {
+
+    private static final String NODE_URL = "http://node1:8180/steve";
+    private static final String CHARGE_BOX_ID = "cp1";
+
+    private final WsSessionOwnerRepository repository = Mockito.mock(WsSessionOwnerRepository.class);
+    private final WebSocketSessionRegistry registry = Mockito.mock(WebSocketSessionRegistry.class);
+
+    // the stations that are connected to this node at the moment
+    private final Map<String, StationSessions> connected = new ConcurrentHashMap<>();
+
+    private ClusterRouter router;
+
+    @BeforeEach
+    public void init() {
+        Mockito.when(registry.isConnected(anyString())).thenAnswer(inv -> connected.containsKey(inv.getArgument(0)));
+        Mockito.when(registry.stream()).thenAnswer(inv -> connected.values().stream());
+
+        router = new ClusterRouter(NODE_URL, 10);
+        ReflectionTestUtils.setField(router, "wsSessionOwnerRepository", repository);
+        ReflectionTestUtils.setField(router, "sessionRegistry", registry);
+    }
+
+    /**
+     * The station reconnects to the same node, and the old connection is closed only after the new one was opened.
+     * The release for the old connection comes last, and must not remove the claim of the new connection.
+     */
+    @Test
+    public void testReleaseAfterReopen() {
+        open();
+        router.stationConnected(CHARGE_BOX_ID, OcppVersion.V_16);
+
+        // the old connection is removed from the session store...
+        connected.remove(CHARGE_BOX_ID);
+
+        // ...but before its release, the new connection is opened
+        open();
+        router.stationConnected(CHARGE_BOX_ID, OcppVersion.V_16);
+
+        router.stationDisconnected(CHARGE_BOX_ID);
+
+        Mockito.verify(repository, Mockito.times(2)).claim(CHARGE_BOX_ID, NODE_URL, OcppVersion.V_16);
+        Mockito.verify(repository, Mockito.never()).release(anyString(), anyString());
+    }
+
+    @Test
+    public void testReleaseAfterClose() {
+        open();
+        router.stationConnected(CHARGE_BOX_ID, OcppVersion.V_16);
+
+        connected.remove(CHARGE_BOX_ID);
+        router.stationDisconnected(CHARGE_BOX_ID);
+
+        Mockito.verify(repository).release(CHARGE_BOX_ID, NODE_URL);
+    }
+
+    @Test
+    public void testHeartbeatAddsMissingClaim() {
+        Mockito.doThrow(new RuntimeException("database is gone"))
+               .when(repository).claim(CHARGE_BOX_ID, NODE_URL, OcppVersion.V_16);
+        Mockito.when(repository.getChargeBoxIds(NODE_URL)).thenReturn(Set.of());
+
+        open();
+        router.stationConnected(CHARGE_BOX_ID, OcppVersion.V_16);
+        router.heartbeat();
+
+        Mockito.verify(repository).claimIfAbsent(CHARGE_BOX_ID, NODE_URL, OcppVersion.V_16);
+    }
+
+    @Test
+    public void testHeartbeatReleasesClaimOfDisconnected() {
+        Mockito.when(repository.getChargeBoxIds(NODE_URL)).thenReturn(Set.of(CHARGE_BOX_ID, "cp2"));
+
+        open();
+        router.heartbeat();
+
+        Mockito.verify(repository).heartbeat(NODE_URL);
+        Mockito.verify(repository).release("cp2", NODE_URL);
+        Mockito.verify(repository, Mockito.never()).release(CHARGE_BOX_ID, NODE_URL);
+        Mockito.verify(repository, Mockito.never()).claimIfAbsent(anyString(), anyString(), Mockito.any());
+    }
+
+    private void open() {
+        WebSocketSession session = Mockito.mock(WebSocketSession.class);
+        connected.put(CHARGE_BOX_ID, StationSessions.of(CHARGE_BOX_ID, OcppVersion.V_16,
+                new SessionContext(session, null, null)));
+    }
+}
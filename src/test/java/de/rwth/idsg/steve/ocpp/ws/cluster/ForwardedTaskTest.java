@@ -0,0 +1,102 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.ocpp.ws.cluster;
+
+import de.rwth.idsg.steve.ocpp.OcppVersion;
+import de.rwth.idsg.steve.ocpp.ws.data.CommunicationContext;
+import de.rwth.idsg.steve.ocpp.ws.data.ErrorCode;
+import de.rwth.idsg.steve.ocpp.ws.data.FailedResponse;
+import de.rwth.idsg.steve.ocpp.ws.data.OcppJsonError;
+import de.rwth.idsg.steve.ocpp.ws.data.OcppJsonResult;
+import ocpp.cp._2015._10.ResetRequest;
+import ocpp.cp._2015._10.ResetResponse;
+import ocpp.cp._2015._10.ResetStatus;
+import ocpp.cp._2015._10.ResetType;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author agent <agent@local>
+ * @since 17.10.2026
+ */
+public class ForwardedTaskTest {
+
+    private static final String CHARGE_BOX_ID = "cp1";
+
+    private final ForwardedTask task = new ForwardedTask(
+            OcppVersion.V_16, CHARGE_BOX_ID, new ResetRequest().withType(ResetType.SOFT)
+    );
+
+    @Test
+    public void testResult() {
+        OcppJsonResult result = new OcppJsonResult();
+        result.setPayload(new ResetResponse().withStatus(ResetStatus.ACCEPTED));
+
+        CommunicationContext context = new CommunicationContext(null, CHARGE_BOX_ID);
+        context.createResultHandler(task);
+        context.getResultHandler().accept(result);
+
+        ForwardedCallResult forwarded = task.getResult().getNow(null);
+        Assertions.assertEquals(ForwardedCallResult.Type.RESULT, forwarded.getType());
+        Assertions.assertEquals("Accepted", forwarded.getPayload().get("status").asText());
+    }
+
+    @Test
+    public void testError() {
+        OcppJsonError error = new OcppJsonError();
+        error.setErrorCode(ErrorCode.NotSupported);
+        error.setErrorDescription("not today");
+
+        CommunicationContext context = new CommunicationContext(null, CHARGE_BOX_ID);
+        context.createErrorHandler(task);
+        context.getErrorHandler().accept(error);
+
+        ForwardedCallResult forwarded = task.getResult().getNow(null);
+        Assertions.assertEquals(ForwardedCallResult.Type.ERROR, forwarded.getType());
+        Assertions.assertEquals(ErrorCode.NotSupported, forwarded.getErrorCode());
+        Assertions.assertEquals("not today", forwarded.getErrorDescription());
+    }
+
+    @Test
+    public void testFailure() {
+        task.getHandler(CHARGE_BOX_ID).handleResponse(new FailedResponse(new RuntimeException("timed out")));
+
+        ForwardedCallResult forwarded = task.getResult().getNow(null);
+        Assertions.assertEquals(ForwardedCallResult.Type.FAILURE, forwarded.getType());
+        Assertions.assertEquals("timed out", forwarded.getErrorDescription());
+    }
+
+    @Test
+    public void testNoResult() {
+        Assertions.assertFalse(task.getResult().isDone());
+
+        Assertions.assertTrue(task.fail("not sent"));
+        ForwardedCallResult forwarded = task.getResult().getNow(null);
+        Assertions.assertEquals(ForwardedCallResult.Type.FAILURE, forwarded.getType());
+        Assertions.assertEquals("not sent", forwarded.getErrorDescription());
+    }
+
+    @Test
+    public void testFailAfterResult() {
+        task.getHandler(CHARGE_BOX_ID).handleResponse(new FailedResponse(new RuntimeException("timed out")));
+
+        Assertions.assertFalse(task.fail("not sent"));
+        Assertions.assertEquals("timed out", task.getResult().getNow(null).getErrorDescription());
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.ocpp.ws.pipeline;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.rwth.idsg.ocpp.jaxb.RequestType;
+import de.rwth.idsg.steve.ocpp.ws.JsonObjectMapper;
+import de.rwth.idsg.steve.ocpp.ws.data.CommunicationContext;
+import de.rwth.idsg.steve.ocpp.ws.ocpp16.Ocpp16TypeStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the streaming payload binding of {@link Deserializer} with the previous two-pass approach
+ * (JsonParser to JsonNode tree, then tree to JAXB object) for a typical MeterValues CALL.
+ *
+ * Not part of the test suite. Run the main method from the IDE, or with the test classpath. The GC profiler
+ * reports the allocation rate (gc.alloc.rate.norm = bytes per operation).
+ *
+ * @author agent <agent@local>
+ * @since 17.10.2026
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DeserializerBenchmark {
+
+    private static final String METER_VALUES_CALL = "[2,\"a7b3c1d2\",\"MeterValues\",{\"connectorId\":1,"
+            + "\"transactionId\":1234,\"meterValue\":[{\"timestamp\":\"2023-06-01T10:15:30.000Z\",\"sampledValue\":["
+            + "{\"value\":\"12345.6\",\"context\":\"Sample.Periodic\",\"format\":\"Raw\",\"measurand\":\"Energy.Active.Import.Register\",\"location\":\"Outlet\",\"unit\":\"Wh\"},"
+            + "{\"value\":\"7400\",\"context\":\"Sample.Periodic\",\"format\":\"Raw\",\"measurand\":\"Power.Active.Import\",\"location\":\"Outlet\",\"unit\":\"W\"},"
+            + "{\"value\":\"32.1\",\"context\":\"Sample.Periodic\",\"format\":\"Raw\",\"measurand\":\"Current.Import\",\"phase\":\"L1\",\"location\":\"Outlet\",\"unit\":\"A\"},"
+            + "{\"value\":\"230.4\",\"context\":\"Sample.Periodic\",\"format\":\"Raw\",\"measurand\":\"Voltage\",\"phase\":\"L1-N\",\"location\":\"Outlet\",\"unit\":\"V\"},"
+            + "{\"value\":\"64\",\"context\":\"Sample.Periodic\",\"format\":\"Raw\",\"measurand\":\"SoC\",\"location\":\"EV\",\"unit\":\"Percent\"}"
+            + "]}]}]";
+
+    private final ObjectMapper mapper = JsonObjectMapper.INSTANCE.getMapper();
+    private final Deserializer deserializer = new Deserializer(null, Ocpp16TypeStore.INSTANCE);
+
+    @Benchmark
+    public Object streaming() {
+        CommunicationContext context = new CommunicationContext(null, "benchmark");
+        context.setIncomingString(METER_VALUES_CALL);
+        deserializer.accept(context);
+        return context.getIncomingMessage();
+    }
+
+    /**
+     * The way Deserializer worked before
+     */
+    @Benchmark
+    public Object treeThenBind() throws IOException {
+        try (JsonParser parser = mapper.getFactory().createParser(METER_VALUES_CALL)) {
+            parser.nextToken();
+            parser.nextToken();
+            parser.getIntValue();
+            parser.nextToken();
+            parser.getText();
+            parser.nextToken();
+            Class<? extends RequestType> clazz = Ocpp16TypeStore.INSTANCE.findRequestClass(parser.getText());
+            parser.nextToken();
+            JsonNode payload = parser.readValueAsTree();
+            return mapper.treeToValue(payload, clazz);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(DeserializerBenchmark.class.getSimpleName())
+                                       .addProfiler(GCProfiler.class)
+                                       .build())
+                .run();
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.ocpp.ws.pipeline;
+
+import de.rwth.idsg.steve.ocpp.OcppTransport;
+import de.rwth.idsg.steve.ocpp.OcppVersion;
+import de.rwth.idsg.steve.ocpp.task.ClearCacheTask;
+import de.rwth.idsg.steve.ocpp.ws.FutureResponseContextStore;
+import de.rwth.idsg.steve.ocpp.ws.data.CommunicationContext;
+import de.rwth.idsg.steve.ocpp.ws.data.ErrorCode;
+import de.rwth.idsg.steve.ocpp.ws.data.FutureResponseContext;
+import de.rwth.idsg.steve.ocpp.ws.data.OcppJsonCall;
+import de.rwth.idsg.steve.ocpp.ws.data.OcppJsonError;
+import de.rwth.idsg.steve.ocpp.ws.data.OcppJsonResult;
+import de.rwth.idsg.steve.ocpp.ws.ocpp16.Ocpp16TypeStore;
+import de.rwth.idsg.steve.repository.dto.ChargePointSelect;
+import de.rwth.idsg.steve.web.dto.ocpp.MultipleChargePointSelect;
+import ocpp.cp._2015._10.ClearCacheResponse;
+import ocpp.cs._2015._10.HeartbeatRequest;
+import ocpp.cs._2015._10.StatusNotificationRequest;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.Collections;
+
+/**
+ * @author agent <agent@local>
+ * @since 17.10.2026
+ */
+public class DeserializerTest {
+
+    private final FutureResponseContextStore store = Mockito.mock(FutureResponseContextStore.class);
+    private final Deserializer deserializer = new Deserializer(store, Ocpp16TypeStore.INSTANCE);
+
+    @Test
+    public void testCall() {
+        CommunicationContext context = deserialize("[2,\"123\",\"StatusNotification\","
+                + "{\"connectorId\":1,\"errorCode\":\"NoError\",\"status\":\"Available\"}]");
+
+        Assertions.assertFalse(context.isSetOutgoingError());
+
+        OcppJsonCall call = (OcppJsonCall) context.getIncomingMessage();
+        Assertions.assertEquals("123", call.getMessageId());
+        Assertions.assertEquals("StatusNotification", call.getAction());
+
+        StatusNotificationRequest payload = (StatusNotificationRequest) call.getPayload();
+        Assertions.assertEquals(1, payload.getConnectorId());
+        Assertions.assertEquals("Available", payload.getStatus().value());
+    }
+
+    /**
+     * https://github.com/steve-community/steve/issues/1109
+     */
+    @Test
+    public void testCallWithNullPayload() {
+        CommunicationContext context = deserialize("[2,\"123\",\"Heartbeat\",null]");
+
+        Assertions.assertFalse(context.isSetOutgoingError());
+        OcppJsonCall call = (OcppJsonCall) context.getIncomingMessage();
+        Assertions.assertTrue(call.getPayload() instanceof HeartbeatRequest);
+    }
+
+    @Test
+    public void testCallWithInvalidPayload() {
+        CommunicationContext context = deserialize("[2,\"123\",\"StatusNotification\",{\"connectorId\":\"abc\"}]");
+
+        Assertions.assertTrue(context.isSetOutgoingError());
+        OcppJsonError error = (OcppJsonError) context.getOutgoingMessage();
+        Assertions.assertEquals("123", error.getMessageId());
+        Assertions.assertEquals(ErrorCode.FormationViolation, error.getErrorCode());
+        Assertions.assertNotNull(error.getErrorDetails());
+    }
+
+    @Test
+    public void testCallWithUnknownAction() {
+        CommunicationContext context = deserialize("[2,\"123\",\"DoesNotExist\",{}]");
+
+        Assertions.assertTrue(context.isSetOutgoingError());
+        OcppJsonError error = (OcppJsonError) context.getOutgoingMessage();
+        Assertions.assertEquals(ErrorCode.NotImplemented, error.getErrorCode());
+    }
+
+    @Test
+    public void testResult() {
+        Mockito.when(store.get(null, "123")).thenReturn(clearCacheContext());
+        CommunicationContext context = deserialize("[3,\"123\",{\"status\":\"Accepted\"}]");
+
+        OcppJsonResult result = (OcppJsonResult) context.getIncomingMessage();
+        ClearCacheResponse payload = (ClearCacheResponse) result.getPayload();
+        Assertions.assertEquals("Accepted", payload.getStatus().value());
+    }
+
+    /**
+     * The workaround for https://github.com/steve-community/steve/issues/1109 is only meant for incoming calls.
+     * A result without payload must not be turned into a response with default values.
+     */
+    @Test
+    public void testResultWithNullPayload() {
+        Mockito.when(store.get(null, "123")).thenReturn(clearCacheContext());
+        CommunicationContext context = deserialize("[3,\"123\",null]");
+
+        OcppJsonResult result = (OcppJsonResult) context.getIncomingMessage();
+        Assertions.assertNull(result.getPayload());
+    }
+
+    private static FutureResponseContext clearCacheContext() {
+        MultipleChargePointSelect params = new MultipleChargePointSelect();
+        params.setChargePointSelectList(
+                Collections.singletonList(new ChargePointSelect(OcppTransport.JSON, "cp1")));
+        return new FutureResponseContext(new ClearCacheTask(OcppVersion.V_16, params), ClearCacheResponse.class,
+                "ClearCache");
+    }
+
+    private CommunicationContext deserialize(String input) {
+        CommunicationContext context = new CommunicationContext(null, "test");
+        context.setIncomingString(input);
+        deserializer.accept(context);
+        return context;
+    }
+}
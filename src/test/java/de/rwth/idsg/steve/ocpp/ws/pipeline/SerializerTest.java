@@ -0,0 +1,106 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.ocpp.ws.pipeline;
+
+import de.rwth.idsg.steve.ocpp.ws.ErrorFactory;
+import de.rwth.idsg.steve.ocpp.ws.data.CommunicationContext;
+import de.rwth.idsg.steve.ocpp.ws.data.OcppJsonCall;
+import de.rwth.idsg.steve.ocpp.ws.data.OcppJsonMessage;
+import de.rwth.idsg.steve.ocpp.ws.data.OcppJsonResult;
+import ocpp.cp._2015._10.ResetRequest;
+import ocpp.cp._2015._10.ResetType;
+import ocpp.cs._2015._10.StatusNotificationResponse;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author agent <agent@local>
+ * @since 17.10.2026
+ */
+public class SerializerTest {
+
+    @Test
+    public void testCall() {
+        OcppJsonCall call = new OcppJsonCall();
+        call.setMessageId("123");
+        call.setAction("Reset");
+        call.setPayload(new ResetRequest().withType(ResetType.HARD));
+
+        Assertions.assertEquals("[2,\"123\",\"Reset\",{\"type\":\"Hard\"}]", serialize(call));
+    }
+
+    /**
+     * A payload that is shared by many stations is serialized once, and only spliced into each frame
+     */
+    @Test
+    public void testCallWithSerializedPayload() {
+        ResetRequest payload = new ResetRequest().withType(ResetType.HARD);
+
+        OcppJsonCall call = new OcppJsonCall();
+        call.setMessageId("123");
+        call.setAction("Reset");
+        call.setPayload(payload);
+        call.setPayloadJson(Serializer.INSTANCE.serializePayload(payload));
+
+        Assertions.assertEquals("[2,\"123\",\"Reset\",{\"type\":\"Hard\"}]", serialize(call));
+    }
+
+    @Test
+    public void testResult() {
+        OcppJsonResult result = new OcppJsonResult();
+        result.setMessageId("123");
+        result.setPayload(new StatusNotificationResponse());
+
+        Assertions.assertEquals("[3,\"123\",{}]", serialize(result));
+    }
+
+    @Test
+    public void testErrorWithoutDetails() {
+        String str = serialize(ErrorFactory.actionNotFound("123", "Foo"));
+        Assertions.assertEquals("[4,\"123\",\"NotImplemented\",\"The action 'Foo' you are looking for is not found\",{}]", str);
+    }
+
+    @Test
+    public void testErrorWithDetails() {
+        String str = serialize(ErrorFactory.payloadSerializeError("123", "details"));
+        Assertions.assertEquals("[4,\"123\",\"InternalError\",\"The payload for action could not be serialized\","
+                + "{\"errorMsg\":\"details\"}]", str);
+    }
+
+    /**
+     * The thread-local buffer must not leak the content of a previous frame into the next one.
+     */
+    @Test
+    public void testBufferReuse() {
+        OcppJsonResult result = new OcppJsonResult();
+        result.setMessageId("a-rather-long-message-id-to-fill-the-buffer");
+        result.setPayload(new StatusNotificationResponse());
+        serialize(result);
+
+        result.setMessageId("1");
+        Assertions.assertEquals("[3,\"1\",{}]", serialize(result));
+    }
+
+    private static String serialize(OcppJsonMessage message) {
+        CommunicationContext context = new CommunicationContext(null, "test");
+        context.setOutgoingMessage(message);
+        Serializer.INSTANCE.accept(context);
+        return context.getOutgoingString();
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.repository.impl;
+
+import de.rwth.idsg.steve.ApplicationProfile;
+import de.rwth.idsg.steve.SteveConfiguration;
+import de.rwth.idsg.steve.repository.OcppServerRepository;
+import de.rwth.idsg.steve.repository.dto.InsertTransactionParams;
+import de.rwth.idsg.steve.repository.dto.UpdateTransactionParams;
+import de.rwth.idsg.steve.utils.__DatabasePreparer__;
+import jooq.steve.db.enums.TransactionStopEventActor;
+import org.joda.time.DateTime;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The active transaction count of an idTag is maintained on transaction start and stop, and on deletion of a charge
+ * point. The periodic reconciliation corrects counts that drifted anyway.
+ *
+ * @author agent <agent@local>
+ * @since 17.10.2026
+ */
+public class ActiveTransactionCountTest {
+
+    private static final String REGISTERED_CHARGE_BOX_ID = __DatabasePreparer__.getRegisteredChargeBoxId();
+    private static final String REGISTERED_CHARGE_BOX_ID_2 = __DatabasePreparer__.getRegisteredChargeBoxId2();
+    private static final String REGISTERED_OCPP_TAG = __DatabasePreparer__.getRegisteredOcppTag();
+
+    private OcppServerRepository repository;
+
+    @BeforeEach
+    public void init() {
+        Assertions.assertEquals(ApplicationProfile.TEST, SteveConfiguration.CONFIG.getProfile());
+        __DatabasePreparer__.prepare();
+        repository = __DatabasePreparer__.getOcppServerRepository();
+    }
+
+    @AfterEach
+    public void destroy() {
+        __DatabasePreparer__.cleanUp();
+    }
+
+    @Test
+    public void testStartAndStop() {
+        int transactionId1 = startTransaction(REGISTERED_CHARGE_BOX_ID, 1);
+        int transactionId2 = startTransaction(REGISTERED_CHARGE_BOX_ID, 2);
+        Assertions.assertEquals(2, getCount());
+
+        stopTransaction(REGISTERED_CHARGE_BOX_ID, transactionId1);
+        Assertions.assertEquals(1, getCount());
+
+        stopTransaction(REGISTERED_CHARGE_BOX_ID, transactionId2);
+        Assertions.assertEquals(0, getCount());
+    }
+
+    @Test
+    public void testRepeatedStop() {
+        int transactionId = startTransaction(REGISTERED_CHARGE_BOX_ID, 1);
+
+        stopTransaction(REGISTERED_CHARGE_BOX_ID, transactionId);
+        stopTransaction(REGISTERED_CHARGE_BOX_ID, transactionId);
+
+        Assertions.assertEquals(0, getCount());
+    }
+
+    @Test
+    public void testDeleteChargePoint() {
+        startTransaction(REGISTERED_CHARGE_BOX_ID, 1);
+        startTransaction(REGISTERED_CHARGE_BOX_ID, 2);
+        startTransaction(REGISTERED_CHARGE_BOX_ID_2, 1);
+        int stoppedTransactionId = startTransaction(REGISTERED_CHARGE_BOX_ID, 3);
+        stopTransaction(REGISTERED_CHARGE_BOX_ID, stoppedTransactionId);
+        Assertions.assertEquals(3, getCount());
+
+        __DatabasePreparer__.deleteChargePoint(REGISTERED_CHARGE_BOX_ID);
+
+        // only the active transaction of the other charge point is left
+        Assertions.assertEquals(1, getCount());
+    }
+
+    @Test
+    public void testReconcileCorrectsDrift() {
+        startTransaction(REGISTERED_CHARGE_BOX_ID, 1);
+
+        __DatabasePreparer__.setActiveTransactionCount(REGISTERED_OCPP_TAG, 5);
+        Assertions.assertEquals(1, __DatabasePreparer__.reconcileActiveTransactionCounts());
+        Assertions.assertEquals(1, getCount());
+
+        __DatabasePreparer__.setActiveTransactionCount(REGISTERED_OCPP_TAG, 0);
+        Assertions.assertEquals(1, __DatabasePreparer__.reconcileActiveTransactionCounts());
+        Assertions.assertEquals(1, getCount());
+    }
+
+    @Test
+    public void testReconcileKeepsCorrectCount() {
+        int transactionId = startTransaction(REGISTERED_CHARGE_BOX_ID, 1);
+        startTransaction(REGISTERED_CHARGE_BOX_ID, 2);
+        stopTransaction(REGISTERED_CHARGE_BOX_ID, transactionId);
+
+        Assertions.assertEquals(0, __DatabasePreparer__.reconcileActiveTransactionCounts());
+        Assertions.assertEquals(1, getCount());
+    }
+
+    private int startTransaction(String chargeBoxId, int connectorId) {
+        DateTime now = DateTime.now();
+        return repository.insertTransaction(InsertTransactionParams.builder()
+                                                                   .chargeBoxId(chargeBoxId)
+                                                                   .connectorId(connectorId)
+                                                                   .idTag(REGISTERED_OCPP_TAG)
+                                                                   .startTimestamp(now)
+                                                                   .startMeterValue("0")
+                                                                   .eventTimestamp(now)
+                                                                   .build());
+    }
+
+    private void stopTransaction(String chargeBoxId, int transactionId) {
+        DateTime now = DateTime.now();
+        repository.updateTransaction(UpdateTransactionParams.builder()
+                                                            .chargeBoxId(chargeBoxId)
+                                                            .transactionId(transactionId)
+                                                            .stopTimestamp(now)
+                                                            .stopMeterValue("100")
+                                                            .eventActor(TransactionStopEventActor.station)
+                                                            .eventTimestamp(now)
+                                                            .build());
+    }
+
+    private static long getCount() {
+        return __DatabasePreparer__.getOcppTagRecord(REGISTERED_OCPP_TAG).getActiveTransactionCount();
+    }
+}
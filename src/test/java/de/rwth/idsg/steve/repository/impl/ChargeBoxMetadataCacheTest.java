@@ -0,0 +1,220 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.repository.impl;
+
+import de.rwth.idsg.steve.repository.dto.ChargeBoxMetadata;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * @author agent <agent@local>
+ * @since 17.10.2026
+ */
+public class ChargeBoxMetadataCacheTest {
+
+    private static final long TTL = TimeUnit.SECONDS.toNanos(300);
+    private static final long UNKNOWN_TTL = TimeUnit.SECONDS.toNanos(60);
+
+    private final Map<String, ChargeBoxMetadata> db = new HashMap<>();
+    private final AtomicInteger loadCount = new AtomicInteger(0);
+    private final AtomicLong clock = new AtomicLong(0);
+
+    @Test
+    public void testHitAfterLoad() {
+        db.put("cb1", metadata(1, "cb1", "Accepted"));
+        ChargeBoxMetadataCache cache = newCache(this::load, TTL);
+
+        Assertions.assertEquals("Accepted", cache.get("cb1").getRegistrationStatus());
+        Assertions.assertEquals("Accepted", cache.get("cb1").getRegistrationStatus());
+
+        Assertions.assertEquals(1, loadCount.get());
+        Assertions.assertEquals(1, cache.getHitCount());
+        Assertions.assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void testGetIfCached() {
+        db.put("cb1", metadata(1, "cb1", "Accepted"));
+        ChargeBoxMetadataCache cache = newCache(this::load, TTL);
+
+        Assertions.assertNull(cache.getIfCached("cb1"));
+        cache.get("cb1");
+        Assertions.assertEquals("Accepted", cache.getIfCached("cb1").getRegistrationStatus());
+
+        clock.addAndGet(TTL);
+        Assertions.assertNull(cache.getIfCached("cb1"));
+        Assertions.assertEquals(1, loadCount.get());
+    }
+
+    @Test
+    public void testGetIfCachedDisabled() {
+        db.put("cb1", metadata(1, "cb1", "Accepted"));
+        ChargeBoxMetadataCache cache = newCache(this::load, 0);
+
+        cache.get("cb1");
+        Assertions.assertNull(cache.getIfCached("cb1"));
+        Assertions.assertEquals(1, loadCount.get());
+    }
+
+    @Test
+    public void testUnknown() {
+        ChargeBoxMetadataCache cache = newCache(this::load, TTL);
+        Assertions.assertEquals(ChargeBoxMetadataCache.Lookup.NOT_CACHED, cache.peek("unknown"));
+
+        Assertions.assertNull(cache.get("unknown"));
+        Assertions.assertNull(cache.get("unknown"));
+
+        Assertions.assertEquals(1, loadCount.get());
+        Assertions.assertEquals(1, cache.getUnknownHitCount());
+        Assertions.assertEquals(ChargeBoxMetadataCache.Lookup.UNKNOWN, cache.peek("unknown"));
+    }
+
+    @Test
+    public void testUnknownExpiry() {
+        ChargeBoxMetadataCache cache = newCache(this::load, TTL);
+        cache.get("unknown");
+
+        clock.addAndGet(UNKNOWN_TTL);
+
+        Assertions.assertEquals(ChargeBoxMetadataCache.Lookup.NOT_CACHED, cache.peek("unknown"));
+        Assertions.assertNull(cache.get("unknown"));
+        Assertions.assertEquals(2, loadCount.get());
+    }
+
+    /**
+     * A station that is added must be accepted right away, even if it was cached as unknown before.
+     */
+    @Test
+    public void testUnknownThenAdded() {
+        ChargeBoxMetadataCache cache = newCache(this::load, TTL);
+        Assertions.assertNull(cache.get("cb1"));
+
+        db.put("cb1", metadata(1, "cb1", "Accepted"));
+        cache.invalidate("cb1");
+
+        Assertions.assertEquals("Accepted", cache.get("cb1").getRegistrationStatus());
+        Assertions.assertEquals(ChargeBoxMetadataCache.Lookup.KNOWN, cache.peek("cb1"));
+    }
+
+    @Test
+    public void testInvalidate() {
+        db.put("cb1", metadata(1, "cb1", "Accepted"));
+        ChargeBoxMetadataCache cache = newCache(this::load, TTL);
+        cache.get("cb1");
+
+        db.put("cb1", metadata(1, "cb1", "Rejected"));
+        Assertions.assertEquals("Accepted", cache.get("cb1").getRegistrationStatus());
+
+        cache.invalidate("cb1");
+        Assertions.assertEquals("Rejected", cache.get("cb1").getRegistrationStatus());
+    }
+
+    @Test
+    public void testInvalidateByPk() {
+        db.put("cb1", metadata(1, "cb1", "Accepted"));
+        db.put("cb2", metadata(2, "cb2", "Accepted"));
+        ChargeBoxMetadataCache cache = newCache(this::load, TTL);
+        cache.get("cb1");
+        cache.get("cb2");
+
+        cache.invalidate(2);
+
+        Assertions.assertEquals(1, cache.size());
+        cache.get("cb1");
+        Assertions.assertEquals(2, loadCount.get());
+    }
+
+    @Test
+    public void testExpiry() {
+        db.put("cb1", metadata(1, "cb1", "Accepted"));
+        ChargeBoxMetadataCache cache = newCache(this::load, TTL);
+        cache.get("cb1");
+
+        db.put("cb1", metadata(1, "cb1", "Rejected"));
+        clock.addAndGet(TTL);
+
+        Assertions.assertEquals("Rejected", cache.get("cb1").getRegistrationStatus());
+        Assertions.assertEquals(2, loadCount.get());
+    }
+
+    @Test
+    public void testDisabled() {
+        db.put("cb1", metadata(1, "cb1", "Accepted"));
+        ChargeBoxMetadataCache cache = new ChargeBoxMetadataCache(this::load, 0, 0, clock::get);
+
+        cache.get("cb1");
+        cache.get("cb1");
+        cache.get("unknown");
+        cache.get("unknown");
+
+        Assertions.assertEquals(4, loadCount.get());
+        Assertions.assertEquals(0, cache.size());
+        Assertions.assertEquals(ChargeBoxMetadataCache.Lookup.NOT_CACHED, cache.peek("cb1"));
+        Assertions.assertEquals(ChargeBoxMetadataCache.Lookup.NOT_CACHED, cache.peek("unknown"));
+    }
+
+    /**
+     * An invalidation while the value is being loaded must not let the (possibly outdated) loaded value into
+     * the cache.
+     */
+    @Test
+    public void testInvalidateDuringLoad() {
+        db.put("cb1", metadata(1, "cb1", "Accepted"));
+
+        ChargeBoxMetadataCache[] holder = new ChargeBoxMetadataCache[1];
+        ChargeBoxMetadataCache cache = newCache(id -> {
+            ChargeBoxMetadata loaded = load(id);
+            if (loadCount.get() == 1) {
+                // a write happens after we read from the database, but before we put the value into the cache
+                db.put("cb1", metadata(1, "cb1", "Rejected"));
+                holder[0].invalidate("cb1");
+            }
+            return loaded;
+        }, TTL);
+        holder[0] = cache;
+
+        Assertions.assertEquals("Accepted", cache.get("cb1").getRegistrationStatus());
+        Assertions.assertEquals(0, cache.size());
+        Assertions.assertEquals("Rejected", cache.get("cb1").getRegistrationStatus());
+    }
+
+    private ChargeBoxMetadataCache newCache(Function<String, ChargeBoxMetadata> loader, long ttl) {
+        return new ChargeBoxMetadataCache(loader, ttl, UNKNOWN_TTL, clock::get);
+    }
+
+    private ChargeBoxMetadata load(String chargeBoxId) {
+        loadCount.incrementAndGet();
+        return db.get(chargeBoxId);
+    }
+
+    private static ChargeBoxMetadata metadata(int pk, String chargeBoxId, String registrationStatus) {
+        return ChargeBoxMetadata.builder()
+                                .chargeBoxPk(pk)
+                                .chargeBoxId(chargeBoxId)
+                                .registrationStatus(registrationStatus)
+                                .build();
+    }
+}
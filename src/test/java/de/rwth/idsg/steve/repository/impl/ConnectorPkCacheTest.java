@@ -0,0 +1,199 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.repository.impl;
+
+import com.google.common.base.Ticker;
+import com.google.common.collect.HashBasedTable;
+import com.google.common.collect.ImmutableSetMultimap;
+import com.google.common.collect.SetMultimap;
+import com.google.common.collect.Table;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author agent <agent@local>
+ * @since 17.10.2026
+ */
+public class ConnectorPkCacheTest {
+
+    private static final long TTL = TimeUnit.MINUTES.toNanos(60);
+
+    private final Table<String, Integer, Integer> connectors = HashBasedTable.create();
+    private final Map<Integer, Integer> transactions = new HashMap<>();
+    private final AtomicInteger connectorLoadCount = new AtomicInteger(0);
+    private final AtomicInteger transactionLoadCount = new AtomicInteger(0);
+
+    private final AtomicLong nanos = new AtomicLong(0);
+    private final Ticker ticker = new Ticker() {
+        @Override
+        public long read() {
+            return nanos.get();
+        }
+    };
+
+    @Test
+    public void testConnectorHitAfterLoad() {
+        ConnectorPkCache cache = newCache(100);
+
+        Assertions.assertEquals(1, cache.getConnectorPk("cb1", 1));
+        Assertions.assertEquals(1, cache.getConnectorPk("cb1", 1));
+
+        Assertions.assertEquals(1, connectorLoadCount.get());
+        Assertions.assertEquals(1, cache.getHitCount());
+        Assertions.assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void testBatchLoadsOnlyMissing() {
+        ConnectorPkCache cache = newCache(100);
+        cache.getConnectorPk("cb1", 1);
+
+        Table<String, Integer, Integer> pks =
+                cache.getConnectorPks(ImmutableSetMultimap.of("cb1", 1, "cb1", 2, "cb2", 1));
+
+        Assertions.assertEquals(3, pks.size());
+        Assertions.assertEquals(1, pks.get("cb1", 1));
+        Assertions.assertEquals(2, connectorLoadCount.get());
+        Assertions.assertEquals(1, cache.getHitCount());
+        Assertions.assertEquals(3, cache.getMissCount());
+    }
+
+    @Test
+    public void testTransaction() {
+        transactions.put(10, 5);
+        ConnectorPkCache cache = newCache(100);
+
+        Assertions.assertEquals(5, cache.getConnectorPkOfTransaction(10));
+        Assertions.assertEquals(5, cache.getConnectorPkOfTransaction(10));
+        Assertions.assertNull(cache.getConnectorPkOfTransaction(11));
+
+        Assertions.assertEquals(2, transactionLoadCount.get());
+    }
+
+    @Test
+    public void testPutTransaction() {
+        ConnectorPkCache cache = newCache(100);
+        cache.putTransaction(10, 5);
+
+        Assertions.assertEquals(5, cache.getConnectorPkOfTransaction(10));
+        Assertions.assertEquals(0, transactionLoadCount.get());
+    }
+
+    @Test
+    public void testInvalidate() {
+        ConnectorPkCache cache = newCache(100);
+        cache.getConnectorPk("cb1", 1);
+        cache.getConnectorPk("cb2", 1);
+        cache.putTransaction(10, 1);
+
+        cache.invalidate("cb1");
+
+        cache.getConnectorPk("cb1", 1);
+        cache.getConnectorPk("cb2", 1);
+        Assertions.assertEquals(3, connectorLoadCount.get());
+
+        transactions.put(10, 1);
+        cache.getConnectorPkOfTransaction(10);
+        Assertions.assertEquals(1, transactionLoadCount.get());
+    }
+
+    @Test
+    public void testDisabled() {
+        ConnectorPkCache cache = newCache(0);
+
+        cache.getConnectorPk("cb1", 1);
+        cache.getConnectorPk("cb1", 1);
+
+        Assertions.assertEquals(2, connectorLoadCount.get());
+    }
+
+    @Test
+    public void testInvalidateDuringLoad() {
+        ConnectorPkCache[] holder = new ConnectorPkCache[1];
+        ConnectorPkCache cache = new ConnectorPkCache(100, TTL, ticker, keys -> {
+            Table<String, Integer, Integer> result = loadConnectors(keys);
+            // the charge point is deleted after our SELECT, but before we put the result into the cache
+            holder[0].invalidate("cb1");
+            return result;
+        }, this::loadTransactions);
+        holder[0] = cache;
+
+        cache.getConnectorPk("cb1", 1);
+        cache.getConnectorPk("cb1", 1);
+
+        Assertions.assertEquals(2, connectorLoadCount.get());
+    }
+
+    @Test
+    public void testExpiry() {
+        ConnectorPkCache cache = newCache(100);
+        cache.getConnectorPk("cb1", 1);
+        cache.putTransaction(10, 1);
+
+        nanos.addAndGet(TTL - 1);
+        cache.getConnectorPk("cb1", 1);
+        cache.getConnectorPkOfTransaction(10);
+        Assertions.assertEquals(1, connectorLoadCount.get());
+        Assertions.assertEquals(0, transactionLoadCount.get());
+
+        // e.g. the charge point was deleted directly in the database in the meantime
+        nanos.addAndGet(1);
+        cache.getConnectorPk("cb1", 1);
+        Assertions.assertNull(cache.getConnectorPkOfTransaction(10));
+        Assertions.assertEquals(2, connectorLoadCount.get());
+        Assertions.assertEquals(1, transactionLoadCount.get());
+    }
+
+    private ConnectorPkCache newCache(long maxSize) {
+        return new ConnectorPkCache(maxSize, TTL, ticker, this::loadConnectors, this::loadTransactions);
+    }
+
+    /**
+     * Behaves like INSERT IGNORE + SELECT: assigns a new pk to each unknown connector
+     */
+    private Table<String, Integer, Integer> loadConnectors(SetMultimap<String, Integer> keys) {
+        connectorLoadCount.incrementAndGet();
+        Table<String, Integer, Integer> result = HashBasedTable.create();
+        for (Map.Entry<String, Integer> entry : keys.entries()) {
+            if (!connectors.contains(entry.getKey(), entry.getValue())) {
+                connectors.put(entry.getKey(), entry.getValue(), connectors.size() + 1);
+            }
+            result.put(entry.getKey(), entry.getValue(), connectors.get(entry.getKey(), entry.getValue()));
+        }
+        return result;
+    }
+
+    private Map<Integer, Integer> loadTransactions(Set<Integer> transactionPks) {
+        transactionLoadCount.incrementAndGet();
+        Map<Integer, Integer> result = new HashMap<>();
+        for (Integer transactionPk : transactionPks) {
+            if (transactions.containsKey(transactionPk)) {
+                result.put(transactionPk, transactions.get(transactionPk));
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.repository.impl;
+
+import de.rwth.idsg.steve.ApplicationProfile;
+import de.rwth.idsg.steve.SteveConfiguration;
+import de.rwth.idsg.steve.repository.OcppServerRepository;
+import de.rwth.idsg.steve.repository.dto.ConnectorStatus;
+import de.rwth.idsg.steve.repository.dto.InsertConnectorStatusParams;
+import de.rwth.idsg.steve.utils.__DatabasePreparer__;
+import org.joda.time.DateTime;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+/**
+ * The current status of a connector comes from connector_status_latest, which must always hold the status with the
+ * most recent timestamp, independent of the order in which the statuses arrive.
+ *
+ * @author agent <agent@local>
+ * @since 17.10.2026
+ */
+public class ConnectorStatusLatestTest {
+
+    private static final String REGISTERED_CHARGE_BOX_ID = __DatabasePreparer__.getRegisteredChargeBoxId();
+
+    private OcppServerRepository repository;
+
+    @BeforeEach
+    public void init() {
+        Assertions.assertEquals(ApplicationProfile.TEST, SteveConfiguration.CONFIG.getProfile());
+        __DatabasePreparer__.prepare();
+        repository = __DatabasePreparer__.getOcppServerRepository();
+    }
+
+    @AfterEach
+    public void destroy() {
+        __DatabasePreparer__.cleanUp();
+    }
+
+    @Test
+    public void testNewerReplacesOlder() {
+        DateTime now = DateTime.now();
+
+        insertStatus(now.minusMinutes(1), "Available");
+        insertStatus(now, "Charging");
+
+        assertLatest(now, "Charging");
+    }
+
+    @Test
+    public void testOlderDoesNotReplaceNewer() {
+        DateTime now = DateTime.now();
+
+        insertStatus(now, "Charging");
+        // e.g. a status that the station could not deliver earlier
+        insertStatus(now.minusMinutes(1), "Available");
+
+        assertLatest(now, "Charging");
+    }
+
+    private void insertStatus(DateTime timestamp, String status) {
+        repository.insertConnectorStatus(InsertConnectorStatusParams.builder()
+                                                                    .chargeBoxId(REGISTERED_CHARGE_BOX_ID)
+                                                                    .connectorId(1)
+                                                                    .timestamp(timestamp)
+                                                                    .status(status)
+                                                                    .errorCode("NoError")
+                                                                    .build());
+    }
+
+    private static void assertLatest(DateTime timestamp, String status) {
+        List<ConnectorStatus> statuses = __DatabasePreparer__.getChargePointConnectorStatus();
+
+        Assertions.assertEquals(1, statuses.size());
+        Assertions.assertEquals(status, statuses.get(0).getStatus());
+        Assertions.assertEquals(timestamp.getMillis(), statuses.get(0).getStatusTimestamp().getMillis());
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.repository.impl;
+
+import de.rwth.idsg.steve.ApplicationProfile;
+import de.rwth.idsg.steve.SteveConfiguration;
+import de.rwth.idsg.steve.repository.OcppServerRepository;
+import de.rwth.idsg.steve.repository.dto.InsertTransactionParams;
+import de.rwth.idsg.steve.repository.dto.Transaction;
+import de.rwth.idsg.steve.repository.dto.UpdateTransactionParams;
+import de.rwth.idsg.steve.utils.__DatabasePreparer__;
+import jooq.steve.db.enums.TransactionStopEventActor;
+import jooq.steve.db.tables.records.TransactionRecord;
+import org.joda.time.DateTime;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * The current stop data of a transaction is kept in transaction_start, and only replaced by a more recent stop event.
+ * The `transaction` view over it must look like the former view, which joined the latest event of transaction_stop.
+ *
+ * @author agent <agent@local>
+ * @since 17.10.2026
+ */
+public class TransactionStopTest {
+
+    private static final String REGISTERED_CHARGE_BOX_ID = __DatabasePreparer__.getRegisteredChargeBoxId();
+    private static final String REGISTERED_OCPP_TAG = __DatabasePreparer__.getRegisteredOcppTag();
+
+    private OcppServerRepository repository;
+
+    @BeforeEach
+    public void init() {
+        Assertions.assertEquals(ApplicationProfile.TEST, SteveConfiguration.CONFIG.getProfile());
+        __DatabasePreparer__.prepare();
+        repository = __DatabasePreparer__.getOcppServerRepository();
+    }
+
+    @AfterEach
+    public void destroy() {
+        __DatabasePreparer__.cleanUp();
+    }
+
+    @Test
+    public void testOlderManualStopDoesNotReplaceStationStop() {
+        DateTime stationEvent = DateTime.now();
+        int transactionId = startTransaction(1, stationEvent.minusHours(1));
+
+        stopTransaction(transactionId, TransactionStopEventActor.station, stationEvent, "100");
+        stopTransaction(transactionId, TransactionStopEventActor.manual, stationEvent.minusMinutes(1), "90");
+
+        Transaction tx = __DatabasePreparer__.getDetails(transactionId).getTransaction();
+        Assertions.assertEquals(TransactionStopEventActor.station, tx.getStopEventActor());
+        Assertions.assertEquals("100", tx.getStopValue());
+        Assertions.assertEquals(stationEvent.getMillis(), tx.getStopTimestamp().getMillis());
+
+        // both events are in the history
+        Assertions.assertEquals(2, __DatabasePreparer__.getTransactionStopEventCount(transactionId));
+    }
+
+    @Test
+    public void testNewerManualStopReplacesStationStop() {
+        DateTime stationEvent = DateTime.now().minusMinutes(1);
+        int transactionId = startTransaction(1, stationEvent.minusHours(1));
+
+        stopTransaction(transactionId, TransactionStopEventActor.station, stationEvent, "100");
+        stopTransaction(transactionId, TransactionStopEventActor.manual, stationEvent.plusMinutes(1), "110");
+
+        Transaction tx = __DatabasePreparer__.getDetails(transactionId).getTransaction();
+        Assertions.assertEquals(TransactionStopEventActor.manual, tx.getStopEventActor());
+        Assertions.assertEquals("110", tx.getStopValue());
+    }
+
+    @Test
+    public void testRepeatedStopDecrementsCountOnce() {
+        DateTime now = DateTime.now();
+        int transactionId = startTransaction(1, now.minusHours(1));
+        startTransaction(2, now.minusHours(1));
+        Assertions.assertEquals(2, getCount());
+
+        stopTransaction(transactionId, TransactionStopEventActor.station, now.minusMinutes(2), "100");
+        stopTransaction(transactionId, TransactionStopEventActor.manual, now.minusMinutes(1), "100");
+        stopTransaction(transactionId, TransactionStopEventActor.station, now.minusMinutes(3), "100");
+
+        Assertions.assertEquals(1, getCount());
+    }
+
+    @Test
+    public void testViewIsSameAsFormerView() {
+        List<String> columns = List.of(
+                "transaction_pk", "connector_pk", "id_tag", "start_event_timestamp", "start_timestamp", "start_value",
+                "stop_event_actor", "stop_event_timestamp", "stop_timestamp", "stop_value", "stop_reason"
+        );
+        Assertions.assertEquals(columns, __DatabasePreparer__.getTransactionViewColumns());
+
+        DateTime now = DateTime.now();
+
+        // active
+        startTransaction(1, now.minusHours(1));
+
+        // stopped by the station
+        int stopped = startTransaction(2, now.minusHours(1));
+        stopTransaction(stopped, TransactionStopEventActor.station, now.minusMinutes(3), "100");
+
+        // stopped by the station, then manually with an older event
+        int olderManual = startTransaction(3, now.minusHours(1));
+        stopTransaction(olderManual, TransactionStopEventActor.station, now.minusMinutes(2), "100");
+        stopTransaction(olderManual, TransactionStopEventActor.manual, now.minusMinutes(3), "90");
+
+        // stopped by the station, then manually with a newer event
+        int newerManual = startTransaction(4, now.minusHours(1));
+        stopTransaction(newerManual, TransactionStopEventActor.station, now.minusMinutes(2), "100");
+        stopTransaction(newerManual, TransactionStopEventActor.manual, now.minusMinutes(1), "110");
+
+        List<TransactionRecord> expected = __DatabasePreparer__.getTransactionRecordsOfFormerView();
+        List<TransactionRecord> actual = __DatabasePreparer__.getTransactionRecords()
+                                                             .stream()
+                                                             .sorted(Comparator.comparing(
+                                                                     TransactionRecord::getTransactionPk))
+                                                             .collect(Collectors.toList());
+
+        Assertions.assertEquals(4, actual.size());
+        Assertions.assertEquals(expected, actual);
+    }
+
+    private int startTransaction(int connectorId, DateTime timestamp) {
+        return repository.insertTransaction(InsertTransactionParams.builder()
+                                                                   .chargeBoxId(REGISTERED_CHARGE_BOX_ID)
+                                                                   .connectorId(connectorId)
+                                                                   .idTag(REGISTERED_OCPP_TAG)
+                                                                   .startTimestamp(timestamp)
+                                                                   .startMeterValue("0")
+                                                                   .eventTimestamp(timestamp)
+                                                                   .build());
+    }
+
+    /**
+     * The stop timestamp is the event timestamp, to tell the stops apart
+     */
+    private void stopTransaction(int transactionId, TransactionStopEventActor actor, DateTime eventTimestamp,
+                                 String stopValue) {
+        repository.updateTransaction(UpdateTransactionParams.builder()
+                                                            .chargeBoxId(REGISTERED_CHARGE_BOX_ID)
+                                                            .transactionId(transactionId)
+                                                            .stopTimestamp(eventTimestamp)
+                                                            .stopMeterValue(stopValue)
+                                                            .eventActor(actor)
+                                                            .eventTimestamp(eventTimestamp)
+                                                            .build());
+    }
+
+    private static long getCount() {
+        return __DatabasePreparer__.getOcppTagRecord(REGISTERED_OCPP_TAG).getActiveTransactionCount();
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.service;
+
+import de.rwth.idsg.steve.ocpp.OcppTransport;
+import de.rwth.idsg.steve.ocpp.OcppVersion;
+import de.rwth.idsg.steve.ocpp.task.ClearCacheTask;
+import de.rwth.idsg.steve.repository.dto.ChargePointSelect;
+import de.rwth.idsg.steve.web.dto.ocpp.MultipleChargePointSelect;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author agent <agent@local>
+ * @since 17.10.2026
+ */
+public class FanOutExecutorTest {
+
+    private final FanOutExecutor fanOutExecutor = new FanOutExecutor(2, 4, 60);
+
+    @AfterEach
+    public void tearDown() {
+        fanOutExecutor.shutDown();
+    }
+
+    @Test
+    public void testStationsInParallel() throws InterruptedException {
+        ClearCacheTask task = new ClearCacheTask(OcppVersion.V_16, params(OcppTransport.JSON, 4));
+
+        // only completes if all four stations are being processed at the same time
+        CountDownLatch allStarted = new CountDownLatch(4);
+        CountDownLatch allDone = new CountDownLatch(4);
+
+        BackgroundService.with(fanOutExecutor)
+                         .forEach(task)
+                         .execute(c -> {
+                             allStarted.countDown();
+                             try {
+                                 allStarted.await(5, TimeUnit.SECONDS);
+                             } catch (InterruptedException e) {
+                                 Thread.currentThread().interrupt();
+                             }
+                             allDone.countDown();
+                         });
+
+        Assertions.assertTrue(allDone.await(10, TimeUnit.SECONDS));
+        Assertions.assertEquals(0, allStarted.getCount());
+    }
+
+    @Test
+    public void testFailureOfOneStation() throws InterruptedException {
+        ClearCacheTask task = new ClearCacheTask(OcppVersion.V_16, params(OcppTransport.SOAP, 3));
+        CountDownLatch others = new CountDownLatch(2);
+
+        BackgroundService.with(fanOutExecutor)
+                         .forEach(task)
+                         .execute(c -> {
+                             if ("cp0".equals(c.getChargeBoxId())) {
+                                 throw new IllegalStateException("unreachable");
+                             }
+                             others.countDown();
+                         });
+
+        Assertions.assertTrue(others.await(10, TimeUnit.SECONDS));
+        waitForError(task, "cp0");
+        Assertions.assertEquals("unreachable", task.getResultMap().get("cp0").getErrorMessage());
+    }
+
+    private static void waitForError(ClearCacheTask task, String chargeBoxId) throws InterruptedException {
+        for (int i = 0; i < 100 && task.getResultMap().get(chargeBoxId).getErrorMessage() == null; i++) {
+            Thread.sleep(50);
+        }
+    }
+
+    private static MultipleChargePointSelect params(OcppTransport transport, int count) {
+        List<ChargePointSelect> list = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            list.add(new ChargePointSelect(transport, "cp" + i));
+        }
+        MultipleChargePointSelect params = new MultipleChargePointSelect();
+        params.setChargePointSelectList(list);
+        return params;
+    }
+}
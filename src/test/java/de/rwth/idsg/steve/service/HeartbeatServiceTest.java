@@ -0,0 +1,139 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.service;
+
+import de.rwth.idsg.steve.repository.OcppServerRepository;
+import org.joda.time.DateTime;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author agent <agent@local>
+ * @since 17.10.2026
+ */
+public class HeartbeatServiceTest {
+
+    private static final String CHARGE_BOX_ID = "cp1";
+    private static final String CHARGE_BOX_ID_2 = "cp2";
+    private static final DateTime T0 = new DateTime(2026, 10, 17, 12, 0);
+
+    private final OcppServerRepository repository = Mockito.mock(OcppServerRepository.class);
+    private final ScheduledExecutorService executor = Mockito.mock(ScheduledExecutorService.class);
+
+    @Test
+    public void testOnlyLatestIsWritten() {
+        HeartbeatService service = newService(60);
+
+        service.updateHeartbeat(CHARGE_BOX_ID, T0.plusSeconds(1));
+        service.updateHeartbeat(CHARGE_BOX_ID, T0.plusSeconds(3));
+        // arrived out of order
+        service.updateHeartbeat(CHARGE_BOX_ID, T0.plusSeconds(2));
+        service.updateHeartbeat(CHARGE_BOX_ID_2, T0);
+
+        Mockito.verifyNoInteractions(repository);
+
+        service.flush();
+
+        Assertions.assertEquals(Map.of(CHARGE_BOX_ID, T0.plusSeconds(3), CHARGE_BOX_ID_2, T0),
+                captureBatches(1).get(0));
+        Assertions.assertEquals(4, service.getReceivedCount());
+        Assertions.assertEquals(2, service.getWrittenCount());
+        Assertions.assertEquals(2, service.getSavedWriteCount());
+        Mockito.verify(repository, Mockito.never()).updateChargeboxHeartbeat(ArgumentMatchers.any(),
+                ArgumentMatchers.any());
+    }
+
+    @Test
+    public void testFailedBatchKeepsNewerTimestamp() {
+        HeartbeatService service = newService(60);
+
+        service.updateHeartbeat(CHARGE_BOX_ID, T0);
+        service.updateHeartbeat(CHARGE_BOX_ID_2, T0);
+
+        // a newer heartbeat of cp1 arrives while the batch is being written, then the batch fails
+        Mockito.doAnswer(invocation -> {
+            service.updateHeartbeat(CHARGE_BOX_ID, T0.plusSeconds(10));
+            throw new IllegalStateException("database unavailable");
+        }).doNothing().when(repository).updateChargeboxHeartbeats(ArgumentMatchers.any());
+
+        service.flush();
+        Assertions.assertEquals(0, service.getWrittenCount());
+
+        service.flush();
+
+        List<Map<String, DateTime>> batches = captureBatches(2);
+        Assertions.assertEquals(Map.of(CHARGE_BOX_ID, T0, CHARGE_BOX_ID_2, T0), batches.get(0));
+        Assertions.assertEquals(Map.of(CHARGE_BOX_ID, T0.plusSeconds(10), CHARGE_BOX_ID_2, T0), batches.get(1));
+        Assertions.assertEquals(2, service.getWrittenCount());
+    }
+
+    @Test
+    public void testSynchronousWithoutInterval() {
+        HeartbeatService service = newService(0);
+
+        service.updateHeartbeat(CHARGE_BOX_ID, T0);
+        service.updateHeartbeat(CHARGE_BOX_ID, T0.plusSeconds(1));
+
+        Mockito.verify(repository).updateChargeboxHeartbeat(CHARGE_BOX_ID, T0);
+        Mockito.verify(repository).updateChargeboxHeartbeat(CHARGE_BOX_ID, T0.plusSeconds(1));
+        Mockito.verify(executor, Mockito.never()).scheduleWithFixedDelay(ArgumentMatchers.any(),
+                ArgumentMatchers.anyLong(), ArgumentMatchers.anyLong(), ArgumentMatchers.any());
+        Assertions.assertEquals(2, service.getWrittenCount());
+
+        service.shutDown();
+        Mockito.verify(repository, Mockito.never()).updateChargeboxHeartbeats(ArgumentMatchers.any());
+    }
+
+    @Test
+    public void testShutDownFlushes() {
+        ScheduledFuture<?> schedule = Mockito.mock(ScheduledFuture.class);
+        Mockito.doReturn(schedule).when(executor).scheduleWithFixedDelay(ArgumentMatchers.any(),
+                ArgumentMatchers.eq(60L), ArgumentMatchers.eq(60L), ArgumentMatchers.eq(TimeUnit.SECONDS));
+
+        HeartbeatService service = newService(60);
+        service.init();
+
+        service.updateHeartbeat(CHARGE_BOX_ID, T0);
+        service.shutDown();
+
+        Mockito.verify(schedule).cancel(false);
+        Assertions.assertEquals(Map.of(CHARGE_BOX_ID, T0), captureBatches(1).get(0));
+        Assertions.assertEquals(1, service.getWrittenCount());
+    }
+
+    private HeartbeatService newService(int flushIntervalSeconds) {
+        return new HeartbeatService(repository, executor, flushIntervalSeconds);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Map<String, DateTime>> captureBatches(int times) {
+        ArgumentCaptor<Map<String, DateTime>> captor = ArgumentCaptor.forClass(Map.class);
+        Mockito.verify(repository, Mockito.times(times)).updateChargeboxHeartbeats(captor.capture());
+        return captor.getAllValues();
+    }
+}
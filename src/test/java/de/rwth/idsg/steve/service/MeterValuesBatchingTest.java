@@ -0,0 +1,123 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.service;
+
+import de.rwth.idsg.steve.ApplicationProfile;
+import de.rwth.idsg.steve.SteveConfiguration;
+import de.rwth.idsg.steve.repository.OcppServerRepository;
+import de.rwth.idsg.steve.repository.dto.InsertTransactionParams;
+import de.rwth.idsg.steve.repository.dto.TransactionDetails;
+import de.rwth.idsg.steve.utils.__DatabasePreparer__;
+import ocpp.cs._2015._10.MeterValue;
+import ocpp.cs._2015._10.SampledValue;
+import org.joda.time.DateTime;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.stream.Collectors;
+
+/**
+ * Meter values with batching enabled, written to the database via {@link OcppServerRepository#insertMeterValues(List)}.
+ * The test profile disables batching for the other tests, since they check the database right after the response.
+ *
+ * @author agent <agent@local>
+ * @since 17.10.2026
+ */
+public class MeterValuesBatchingTest {
+
+    private static final String REGISTERED_CHARGE_BOX_ID = __DatabasePreparer__.getRegisteredChargeBoxId();
+    private static final String REGISTERED_OCPP_TAG = __DatabasePreparer__.getRegisteredOcppTag();
+
+    private ScheduledExecutorService executor;
+    private MeterValuesIngestionService service;
+    private int transactionId;
+
+    @BeforeEach
+    public void init() {
+        Assertions.assertEquals(ApplicationProfile.TEST, SteveConfiguration.CONFIG.getProfile());
+        __DatabasePreparer__.prepare();
+
+        OcppServerRepository repository = __DatabasePreparer__.getOcppServerRepository();
+        transactionId = repository.insertTransaction(InsertTransactionParams.builder()
+                                                                            .chargeBoxId(REGISTERED_CHARGE_BOX_ID)
+                                                                            .connectorId(1)
+                                                                            .idTag(REGISTERED_OCPP_TAG)
+                                                                            .startTimestamp(DateTime.now())
+                                                                            .startMeterValue("0")
+                                                                            .eventTimestamp(DateTime.now())
+                                                                            .build());
+
+        // the interval is long enough that only the flushes of the test happen
+        executor = Executors.newSingleThreadScheduledExecutor();
+        service = new MeterValuesIngestionService(repository, executor, 60_000, 100, 1000);
+        service.init();
+    }
+
+    @AfterEach
+    public void destroy() {
+        service.shutDown();
+        executor.shutdownNow();
+        __DatabasePreparer__.cleanUp();
+    }
+
+    @Test
+    public void testBatch() {
+        service.insertMeterValues(REGISTERED_CHARGE_BOX_ID, meterValues("1", "2"), 1, transactionId);
+        service.insertMeterValues(REGISTERED_CHARGE_BOX_ID, meterValues("3"), 1, transactionId);
+        // connector that is new to us, and values without a transaction
+        service.insertMeterValues(REGISTERED_CHARGE_BOX_ID, meterValues("4"), 2, null);
+
+        Assertions.assertTrue(getValues().isEmpty());
+
+        service.flush();
+
+        Assertions.assertEquals(List.of("1", "2", "3"), getValues());
+        Assertions.assertEquals(4, service.getWrittenCount());
+    }
+
+    @Test
+    public void testStopTransactionData() {
+        service.insertMeterValues(REGISTERED_CHARGE_BOX_ID, meterValues("1"), 1, transactionId);
+        service.insertStopTransactionMeterValues(REGISTERED_CHARGE_BOX_ID, meterValues("2"), transactionId);
+
+        // written before returning, without waiting for a flush
+        Assertions.assertEquals(List.of("1", "2"), getValues());
+    }
+
+    private List<String> getValues() {
+        TransactionDetails details = __DatabasePreparer__.getDetails(transactionId);
+        return details.getValues().stream()
+                      .map(TransactionDetails.MeterValues::getValue)
+                      .sorted()
+                      .collect(Collectors.toList());
+    }
+
+    private static List<MeterValue> meterValues(String... values) {
+        MeterValue meterValue = new MeterValue().withTimestamp(DateTime.now());
+        for (String value : values) {
+            meterValue.getSampledValue().add(new SampledValue().withValue(value));
+        }
+        return List.of(meterValue);
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.service;
+
+import de.rwth.idsg.steve.repository.OcppServerRepository;
+import de.rwth.idsg.steve.repository.dto.InsertMeterValuesParams;
+import ocpp.cs._2015._10.MeterValue;
+import ocpp.cs._2015._10.SampledValue;
+import org.joda.time.DateTime;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.InOrder;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * @author agent <agent@local>
+ * @since 17.10.2026
+ */
+public class MeterValuesIngestionServiceTest {
+
+    private static final String CHARGE_BOX_ID = "cp1";
+
+    private final OcppServerRepository repository = Mockito.mock(OcppServerRepository.class);
+    private final ScheduledExecutorService executor = Mockito.mock(ScheduledExecutorService.class);
+
+    @Test
+    public void testQueuedUntilFlush() {
+        MeterValuesIngestionService service = newService(1000, 10, 100);
+
+        service.insertMeterValues(CHARGE_BOX_ID, meterValues(2), 1, 10);
+        service.insertMeterValues(CHARGE_BOX_ID, meterValues(3), 1, 10);
+
+        Mockito.verifyNoInteractions(repository);
+        Assertions.assertEquals(2, service.getQueuedCount());
+
+        service.flush();
+
+        Assertions.assertEquals(List.of(2, 3), sampledValueCounts(captureBatches(1).get(0)));
+        Assertions.assertEquals(0, service.getQueuedCount());
+        Assertions.assertEquals(5, service.getWrittenCount());
+    }
+
+    @Test
+    public void testFlushTriggeredBySize() {
+        MeterValuesIngestionService service = newService(1000, 2, 100);
+
+        service.insertMeterValues(CHARGE_BOX_ID, meterValues(1), 1, null);
+        Mockito.verify(executor, Mockito.never()).execute(ArgumentMatchers.any());
+
+        service.insertMeterValues(CHARGE_BOX_ID, meterValues(1), 1, null);
+        service.insertMeterValues(CHARGE_BOX_ID, meterValues(1), 1, null);
+
+        // only one flush is requested while one is pending
+        ArgumentCaptor<Runnable> flush = ArgumentCaptor.forClass(Runnable.class);
+        Mockito.verify(executor).execute(flush.capture());
+
+        flush.getValue().run();
+        Assertions.assertEquals(2, captureBatches(1).get(0).size());
+        Assertions.assertEquals(1, service.getQueuedCount());
+    }
+
+    /**
+     * With a full queue, the values are written within the request of the station
+     */
+    @Test
+    public void testBackpressure() {
+        MeterValuesIngestionService service = newService(1000, 10, 1);
+
+        List<MeterValue> first = meterValues(1);
+        List<MeterValue> second = meterValues(1);
+        service.insertMeterValues(CHARGE_BOX_ID, first, 1, 10);
+        service.insertMeterValues(CHARGE_BOX_ID, second, 2, 10);
+
+        Mockito.verify(repository).insertMeterValues(CHARGE_BOX_ID, second, 2, 10);
+        Mockito.verify(repository, Mockito.never()).insertMeterValues(CHARGE_BOX_ID, first, 1, 10);
+        Assertions.assertEquals(1, service.getQueuedCount());
+    }
+
+    @Test
+    public void testFallbackToOneByOne() {
+        MeterValuesIngestionService service = newService(1000, 10, 100);
+        Mockito.doThrow(new RuntimeException("unknown transaction"))
+               .when(repository).insertMeterValues(ArgumentMatchers.<List<InsertMeterValuesParams>>any());
+
+        List<MeterValue> first = meterValues(1);
+        List<MeterValue> second = meterValues(2);
+        service.insertMeterValues(CHARGE_BOX_ID, first, 1, 10);
+        service.insertMeterValues(CHARGE_BOX_ID, second, 2, null);
+
+        service.flush();
+
+        Mockito.verify(repository).insertMeterValues(CHARGE_BOX_ID, first, 1, 10);
+        Mockito.verify(repository).insertMeterValues(CHARGE_BOX_ID, second, 2, null);
+        Assertions.assertEquals(3, service.getWrittenCount());
+    }
+
+    @Test
+    public void testShutDownFlushesEverything() {
+        MeterValuesIngestionService service = newService(1000, 2, 100);
+
+        for (int i = 0; i < 5; i++) {
+            service.insertMeterValues(CHARGE_BOX_ID, meterValues(1), 1, null);
+        }
+
+        service.shutDown();
+
+        List<List<InsertMeterValuesParams>> batches = captureBatches(3);
+        Assertions.assertEquals(5, batches.stream().mapToInt(List::size).sum());
+        Assertions.assertEquals(0, service.getQueuedCount());
+    }
+
+    @Test
+    public void testBatchingDisabled() {
+        MeterValuesIngestionService service = newService(0, 10, 100);
+
+        List<MeterValue> values = meterValues(1);
+        service.insertMeterValues(CHARGE_BOX_ID, values, 1, 10);
+
+        Mockito.verify(repository).insertMeterValues(CHARGE_BOX_ID, values, 1, 10);
+        Assertions.assertEquals(0, service.getQueuedCount());
+    }
+
+    /**
+     * The transaction data of StopTransaction is written right away, and after the queued values of the transaction
+     */
+    @Test
+    public void testStopTransactionData() {
+        MeterValuesIngestionService service = newService(1000, 10, 100);
+
+        service.insertMeterValues(CHARGE_BOX_ID, meterValues(1), 1, 10);
+        List<MeterValue> stopValues = meterValues(2);
+        service.insertStopTransactionMeterValues(CHARGE_BOX_ID, stopValues, 10);
+
+        InOrder inOrder = Mockito.inOrder(repository);
+        inOrder.verify(repository).insertMeterValues(ArgumentMatchers.<List<InsertMeterValuesParams>>any());
+        inOrder.verify(repository).insertMeterValues(CHARGE_BOX_ID, stopValues, 10);
+        Assertions.assertEquals(0, service.getQueuedCount());
+    }
+
+    private MeterValuesIngestionService newService(int flushIntervalMillis, int flushSize, int queueLimit) {
+        return new MeterValuesIngestionService(repository, executor, flushIntervalMillis, flushSize, queueLimit);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<List<InsertMeterValuesParams>> captureBatches(int times) {
+        ArgumentCaptor<List<InsertMeterValuesParams>> captor = ArgumentCaptor.forClass(List.class);
+        Mockito.verify(repository, Mockito.times(times)).insertMeterValues(captor.capture());
+        return captor.getAllValues();
+    }
+
+    private static List<Integer> sampledValueCounts(List<InsertMeterValuesParams> batch) {
+        List<Integer> counts = new ArrayList<>();
+        for (InsertMeterValuesParams p : batch) {
+            counts.add(p.getSampledValueCount());
+        }
+        return counts;
+    }
+
+    private static List<MeterValue> meterValues(int sampledValues) {
+        MeterValue value = new MeterValue().withTimestamp(DateTime.now());
+        for (int i = 0; i < sampledValues; i++) {
+            value.getSampledValue().add(new SampledValue().withValue(String.valueOf(i)));
+        }
+        return List.of(value);
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.utils;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * @author agent <agent@local>
+ * @since 17.10.2026
+ */
+public class HashedWheelTimerTest {
+
+    // small wheel, such that timeouts need more than one round
+    private final HashedWheelTimer timer = new HashedWheelTimer("test-timer", 10, TimeUnit.MILLISECONDS, 4);
+
+    @AfterEach
+    public void tearDown() {
+        timer.stop();
+    }
+
+    @Test
+    public void testExpire() throws Exception {
+        CountDownLatch latch = new CountDownLatch(1);
+        long start = System.nanoTime();
+
+        HashedWheelTimer.Timeout timeout = timer.newTimeout(latch::countDown, 100, TimeUnit.MILLISECONDS);
+
+        Assertions.assertTrue(latch.await(5, TimeUnit.SECONDS));
+        Assertions.assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(100));
+        Assertions.assertTrue(timeout.isExpired());
+        Assertions.assertEquals(0, timer.getPendingCount());
+    }
+
+    @Test
+    public void testCancel() throws Exception {
+        AtomicBoolean fired = new AtomicBoolean(false);
+        HashedWheelTimer.Timeout timeout = timer.newTimeout(() -> fired.set(true), 50, TimeUnit.MILLISECONDS);
+
+        Assertions.assertTrue(timeout.cancel());
+        Assertions.assertFalse(timeout.cancel());
+        Assertions.assertEquals(0, timer.getPendingCount());
+
+        Thread.sleep(200);
+        Assertions.assertFalse(fired.get());
+        Assertions.assertTrue(timeout.isCancelled());
+    }
+
+    @Test
+    public void testOrder() throws Exception {
+        CountDownLatch early = new CountDownLatch(1);
+        CountDownLatch late = new CountDownLatch(1);
+
+        timer.newTimeout(late::countDown, 300, TimeUnit.MILLISECONDS);
+        timer.newTimeout(early::countDown, 30, TimeUnit.MILLISECONDS);
+
+        Assertions.assertTrue(early.await(5, TimeUnit.SECONDS));
+        Assertions.assertEquals(1, late.getCount());
+        Assertions.assertTrue(late.await(5, TimeUnit.SECONDS));
+    }
+}
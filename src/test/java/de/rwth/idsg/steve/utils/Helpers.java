@@ -64,6 +64,23 @@ public class Helpers {
                 + CONFIG.getContextPath() + "/services" + CONFIG.getRouterEndpointPath();
     }
 
+    public static String getApiPath() {
+        String prefix;
+        int port;
+
+        if (CONFIG.getJetty().isHttpEnabled()) {
+            prefix = "http://";
+            port = CONFIG.getJetty().getHttpPort();
+        } else if (CONFIG.getJetty().isHttpsEnabled()) {
+            prefix = "https://";
+            port = CONFIG.getJetty().getHttpsPort();
+        } else {
+            throw new RuntimeException();
+        }
+
+        return prefix + CONFIG.getJetty().getServerHost() + ":" + port + CONFIG.getContextPath() + "/api";
+    }
+
     public static String getJsonPath() {
         String prefix;
         int port;
@@ -0,0 +1,83 @@
+/*
+ * SteVe - SteckdosenVerwaltung - https://github.com/steve-community/steve
+ * Copyright (C) 2013-2023 SteVe Community Team
+ * All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.rwth.idsg.steve.utils;
+
+import com.google.common.base.Ticker;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author agent <agent@local>
+ * @since 17.10.2026
+ */
+public class TokenBucketTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final AtomicLong nanos = new AtomicLong(0);
+    private final Ticker ticker = new Ticker() {
+        @Override
+        public long read() {
+            return nanos.get();
+        }
+    };
+
+    @Test
+    public void testBurstThenRate() {
+        TokenBucket bucket = new TokenBucket(2, 5, ticker);
+
+        for (int i = 0; i < 5; i++) {
+            Assertions.assertTrue(bucket.tryAcquire());
+        }
+        Assertions.assertFalse(bucket.tryAcquire());
+
+        // half a second later, one token is refilled
+        nanos.addAndGet(SECOND / 2);
+        Assertions.assertTrue(bucket.tryAcquire());
+        Assertions.assertFalse(bucket.tryAcquire());
+    }
+
+    @Test
+    public void testRefillIsCapped() {
+        TokenBucket bucket = new TokenBucket(10, 3, ticker);
+
+        // a long idle period must not allow more than the capacity
+        nanos.addAndGet(60 * SECOND);
+        for (int i = 0; i < 3; i++) {
+            Assertions.assertTrue(bucket.tryAcquire());
+        }
+        Assertions.assertFalse(bucket.tryAcquire());
+    }
+
+    @Test
+    public void testHasTokensDoesNotAcquire() {
+        TokenBucket bucket = new TokenBucket(1, 1, ticker);
+
+        Assertions.assertTrue(bucket.hasTokens());
+        Assertions.assertTrue(bucket.hasTokens());
+        Assertions.assertTrue(bucket.tryAcquire());
+        Assertions.assertFalse(bucket.hasTokens());
+
+        nanos.addAndGet(SECOND);
+        Assertions.assertTrue(bucket.hasTokens());
+    }
+}
@@ -20,6 +20,7 @@ package de.rwth.idsg.steve.utils;
 
 import com.google.common.collect.Sets;
 import de.rwth.idsg.steve.config.BeanConfiguration;
+import de.rwth.idsg.steve.repository.OcppServerRepository;
 import de.rwth.idsg.steve.repository.dto.ChargePoint;
 import de.rwth.idsg.steve.repository.dto.ConnectorStatus;
 import de.rwth.idsg.steve.repository.dto.InsertReservationParams;
@@ -27,7 +28,10 @@ import de.rwth.idsg.steve.repository.dto.Reservation;
 import de.rwth.idsg.steve.repository.dto.Transaction;
 import de.rwth.idsg.steve.repository.dto.TransactionDetails;
 import de.rwth.idsg.steve.repository.impl.AddressRepositoryImpl;
+import de.rwth.idsg.steve.repository.impl.ChargeBoxMetadataCache;
 import de.rwth.idsg.steve.repository.impl.ChargePointRepositoryImpl;
+import de.rwth.idsg.steve.repository.impl.ConnectorPkCache;
+import de.rwth.idsg.steve.repository.impl.OcppServerRepositoryImpl;
 import de.rwth.idsg.steve.repository.impl.OcppTagRepositoryImpl;
 import de.rwth.idsg.steve.repository.impl.ReservationRepositoryImpl;
 import de.rwth.idsg.steve.repository.impl.TransactionRepositoryImpl;
@@ -41,10 +45,18 @@ import jooq.steve.db.tables.records.OcppTagActivityRecord;
 import jooq.steve.db.tables.records.TransactionRecord;
 import org.joda.time.DateTime;
 import org.jooq.DSLContext;
+import org.jooq.Field;
 import org.jooq.Schema;
 import org.jooq.Table;
 import org.jooq.impl.DSL;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
@@ -55,6 +67,7 @@ import java.util.stream.Collectors;
 import static jooq.steve.db.tables.ChargeBox.CHARGE_BOX;
 import static jooq.steve.db.tables.OcppTag.OCPP_TAG;
 import static jooq.steve.db.tables.Transaction.TRANSACTION;
+import static jooq.steve.db.tables.TransactionStop.TRANSACTION_STOP;
 
 /**
  * This is a dangerous class. It performs database operations no class should do, like truncating all tables and
@@ -80,6 +93,7 @@ public class __DatabasePreparer__ {
             insertChargeBox(ctx);
             insertOcppIdTag(ctx);
         });
+        invalidateCaches();
     }
 
     public static int makeReservation(int connectorId) {
@@ -97,6 +111,7 @@ public class __DatabasePreparer__ {
 
     public static void cleanUp() {
         runOperation(__DatabasePreparer__::truncateTables);
+        invalidateCaches();
     }
 
     public static String getRegisteredChargeBoxId() {
@@ -119,13 +134,46 @@ public class __DatabasePreparer__ {
         return dslContext.selectFrom(TRANSACTION).fetch();
     }
 
+    /**
+     * The rows of the `transaction` view as it was defined before V1_0_9, i.e. joined with the latest stop event
+     */
+    public static List<TransactionRecord> getTransactionRecordsOfFormerView() {
+        return dslContext.fetch(
+                "SELECT tx1.transaction_pk, tx1.connector_pk, tx1.id_tag, "
+                        + "tx1.event_timestamp AS start_event_timestamp, tx1.start_timestamp, tx1.start_value, "
+                        + "tx2.event_actor AS stop_event_actor, tx2.event_timestamp AS stop_event_timestamp, "
+                        + "tx2.stop_timestamp, tx2.stop_value, tx2.stop_reason "
+                        + "FROM transaction_start tx1 "
+                        + "LEFT JOIN ("
+                        + "  SELECT s1.* FROM transaction_stop s1 "
+                        + "  WHERE s1.event_timestamp = (SELECT MAX(event_timestamp) FROM transaction_stop s2 "
+                        + "                              WHERE s1.transaction_pk = s2.transaction_pk)"
+                        + ") tx2 ON tx1.transaction_pk = tx2.transaction_pk "
+                        + "ORDER BY tx1.transaction_pk")
+                         .into(TRANSACTION);
+    }
+
+    /**
+     * The column names of the `transaction` view as they are in the database, not as jOOQ generated them
+     */
+    public static List<String> getTransactionViewColumns() {
+        return Arrays.stream(dslContext.resultQuery("SELECT * FROM `transaction` LIMIT 0").fetch().fields())
+                     .map(Field::getName)
+                     .collect(Collectors.toList());
+    }
+
+    public static int getTransactionStopEventCount(int transactionPk) {
+        return dslContext.fetchCount(TRANSACTION_STOP, TRANSACTION_STOP.TRANSACTION_PK.eq(transactionPk));
+    }
+
     public static List<Reservation> getReservations() {
         ReservationRepositoryImpl impl = new ReservationRepositoryImpl(dslContext);
         return impl.getReservations(new ReservationQueryForm());
     }
 
     public static List<ConnectorStatus> getChargePointConnectorStatus() {
-        ChargePointRepositoryImpl impl = new ChargePointRepositoryImpl(dslContext, new AddressRepositoryImpl());
+        ChargePointRepositoryImpl impl = new ChargePointRepositoryImpl(dslContext, new AddressRepositoryImpl(),
+                new ChargeBoxMetadataCache(dslContext), new ConnectorPkCache(dslContext));
         return impl.getChargePointConnectorStatus();
     }
 
@@ -140,12 +188,71 @@ public class __DatabasePreparer__ {
     }
 
     public static ChargePoint.Details getCBDetails(String chargeboxID) {
-        ChargePointRepositoryImpl impl = new ChargePointRepositoryImpl(dslContext, new AddressRepositoryImpl());
+        ChargePointRepositoryImpl impl = new ChargePointRepositoryImpl(dslContext, new AddressRepositoryImpl(),
+                new ChargeBoxMetadataCache(dslContext), new ConnectorPkCache(dslContext));
         Map<String, Integer> pkMap = impl.getChargeBoxIdPkPair(Arrays.asList(chargeboxID));
         int pk = pkMap.get(chargeboxID);
         return impl.getDetails(pk);
     }
 
+    public static void deleteChargePoint(String chargeboxID) {
+        ChargePointRepositoryImpl impl = new ChargePointRepositoryImpl(dslContext, new AddressRepositoryImpl(),
+                new ChargeBoxMetadataCache(dslContext), new ConnectorPkCache(dslContext));
+        Map<String, Integer> pkMap = impl.getChargeBoxIdPkPair(Arrays.asList(chargeboxID));
+        impl.deleteChargePoint(pkMap.get(chargeboxID));
+    }
+
+    /**
+     * To simulate a count that drifted, e.g. because of a change made directly in the database
+     */
+    public static void setActiveTransactionCount(String idTag, long count) {
+        dslContext.update(OCPP_TAG)
+                  .set(OCPP_TAG.ACTIVE_TRANSACTION_COUNT, count)
+                  .where(OCPP_TAG.ID_TAG.eq(idTag))
+                  .execute();
+    }
+
+    public static int reconcileActiveTransactionCounts() {
+        OcppTagRepositoryImpl impl = new OcppTagRepositoryImpl(dslContext);
+        return impl.reconcileActiveTransactionCounts();
+    }
+
+    /**
+     * Since we bypass SteVe, a running application would not see our changes while they are in its caches. If no
+     * application is running (yet), there is nothing to invalidate.
+     */
+    private static void invalidateCaches() {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(Helpers.getApiPath() + "/v1/admin/caches/invalidate"))
+                                         .POST(HttpRequest.BodyPublishers.noBody())
+                                         .build();
+        try {
+            HttpResponse<Void> response = HttpClient.newHttpClient()
+                                                    .send(request, HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() != 204) {
+                throw new RuntimeException("Could not invalidate caches, status: " + response.statusCode());
+            }
+        } catch (ConnectException e) {
+            // no application running
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * For tests of components that write via the repository, without starting the application
+     */
+    public static OcppServerRepository getOcppServerRepository() {
+        OcppServerRepositoryImpl impl = new OcppServerRepositoryImpl();
+        ReflectionTestUtils.setField(impl, "ctx", dslContext);
+        ReflectionTestUtils.setField(impl, "reservationRepository", new ReservationRepositoryImpl(dslContext));
+        ReflectionTestUtils.setField(impl, "metadataCache", new ChargeBoxMetadataCache(dslContext));
+        ReflectionTestUtils.setField(impl, "connectorPkCache", new ConnectorPkCache(dslContext));
+        return impl;
+    }
+
     private static void runOperation(Consumer<DSLContext> consumer) {
         consumer.accept(dslContext);
     }